@@ -0,0 +1,54 @@
+package com.v1.proyecto.benchmarks;
+
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.encuesta.model.RegistroEncuesta;
+import com.v1.proyecto.encuesta.model.Respuesta;
+import com.v1.proyecto.encuesta.service.DataEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Codificación de respuestas celda por celda, como la hacen las exportaciones. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataEncoderBenchmark {
+
+    private static final int CELDAS = 1000;
+
+    @Param({"ANALISTA", "ADMIN"})
+    public Role role;
+
+    private final DataEncoder dataEncoder = new DataEncoder();
+    private String[] preguntas;
+    private String[] respuestas;
+
+    @Setup
+    public void setUp() {
+        List<String> p = new ArrayList<>();
+        List<String> r = new ArrayList<>();
+        for (RegistroEncuesta registro : new DatosSinteticos(30, 40).registros) {
+            for (Respuesta respuesta : registro.getRespuestas()) {
+                p.add(respuesta.getPregunta().getTextoPregunta());
+                r.add(respuesta.getOpcionSeleccionada() != null
+                        ? respuesta.getOpcionSeleccionada().getTextoOpcion() : respuesta.getValorTexto());
+            }
+        }
+        preguntas = p.subList(0, CELDAS).toArray(String[]::new);
+        respuestas = r.subList(0, CELDAS).toArray(String[]::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELDAS)
+    public void encodeRespuesta(Blackhole bh) {
+        for (int i = 0; i < CELDAS; i++) {
+            bh.consume(dataEncoder.encodeRespuesta(preguntas[i], respuestas[i], role));
+        }
+    }
+}
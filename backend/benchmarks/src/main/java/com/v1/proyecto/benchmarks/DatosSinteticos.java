@@ -0,0 +1,140 @@
+package com.v1.proyecto.benchmarks;
+
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.model.RegistroEncuesta;
+import com.v1.proyecto.encuesta.model.Respuesta;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoArista;
+import com.v1.proyecto.encuesta.repository.RegistroResumen;
+import com.v1.proyecto.encuesta.repository.RespuestaPlana;
+import com.v1.proyecto.paciente.model.Paciente;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Encuesta y registros en memoria con semilla fija, para que dos corridas midan lo mismo.
+ * Dos de cada tres preguntas son de selección única con textos que {@code DataEncoder} conoce;
+ * el resto son de texto libre.
+ */
+public final class DatosSinteticos {
+
+    private static final String[][] OPCIONES = {
+            {"Sí", "No", "No recuerda"},
+            {"Fonasa", "Isapre", "Capredena/Dipreca", "Sin previsión", "Otra"},
+            {"Básico", "Medio", "Superior"},
+            {"<1 año", "1–5 años", ">5 años"},
+            {"Urbana", "Rural"},
+    };
+
+    public final Users usuario;
+    public final Encuesta encuesta;
+    public final List<RegistroEncuesta> registros = new ArrayList<>();
+    public final List<LogicaSaltoArista> aristas = new ArrayList<>();
+    public final List<RegistroResumen> resumenes = new ArrayList<>();
+    public final List<RespuestaPlana> respuestasPlanas = new ArrayList<>();
+
+    public DatosSinteticos(int preguntas, int cantidadRegistros) {
+        Random random = new Random(42);
+        usuario = Users.builder()
+                .id(1).name("Ana").lastname("Pérez").email("ana@example.com").password("x")
+                .role(Role.USER).enabled(true)
+                .build();
+        encuesta = Encuesta.builder()
+                .idEncuesta(1).titulo("Estudio Cáncer Gástrico").version("1.0")
+                .preguntas(new ArrayList<>()).registros(new ArrayList<>())
+                .build();
+
+        int idOpcion = 1;
+        for (int p = 1; p <= preguntas; p++) {
+            Pregunta pregunta = Pregunta.builder()
+                    .idPregunta(p).textoPregunta("Pregunta " + p).encuesta(encuesta)
+                    .tipoPregunta(p % 3 == 0 ? "TEXTO_LIBRE" : "SELECCION_UNICA")
+                    .obligatoria(p % 2 == 0).opciones(new ArrayList<>())
+                    .build();
+            if (p % 3 != 0) {
+                for (String texto : OPCIONES[p % OPCIONES.length]) {
+                    pregunta.getOpciones().add(OpcionRespuesta.builder()
+                            .idOpcion(idOpcion++).textoOpcion(texto).pregunta(pregunta).build());
+                }
+                // Una de cada cinco preguntas de selección salta a la siguiente con su primera opción
+                if (p % 5 == 1 && p < preguntas) {
+                    aristas.add(new Arista(p, pregunta.getOpciones().get(0).getIdOpcion(), p + 1));
+                }
+            }
+            encuesta.getPreguntas().add(pregunta);
+        }
+
+        int idRespuesta = 1;
+        for (int r = 1; r <= cantidadRegistros; r++) {
+            Paciente paciente = Paciente.builder()
+                    .idPaciente(r).rut(r + "-K").nombre("Paciente").apellidos("N° " + r)
+                    .codigoParticipante("P-" + r).grupo(r % 2 == 0 ? "CASO" : "CONTROL")
+                    .build();
+            RegistroEncuesta registro = RegistroEncuesta.builder()
+                    .idRegistro(r).paciente(paciente).usuario(usuario).encuesta(encuesta)
+                    .fechaRealizacion(LocalDateTime.of(2024, 1, 1, 9, 0).plusHours(r))
+                    .estado("COMPLETADO").respuestas(new ArrayList<>())
+                    .build();
+            for (Pregunta pregunta : encuesta.getPreguntas()) {
+                Respuesta respuesta;
+                if (pregunta.getOpciones().isEmpty()) {
+                    respuesta = Respuesta.builder().idRespuesta(idRespuesta++).registroEncuesta(registro)
+                            .pregunta(pregunta).valorTexto("Texto libre " + random.nextInt(50)).build();
+                } else {
+                    OpcionRespuesta opcion = pregunta.getOpciones().get(random.nextInt(pregunta.getOpciones().size()));
+                    respuesta = Respuesta.builder().idRespuesta(idRespuesta++).registroEncuesta(registro)
+                            .pregunta(pregunta).opcionSeleccionada(opcion).build();
+                }
+                registro.getRespuestas().add(respuesta);
+                respuestasPlanas.add(new Plana(r, respuesta.getIdRespuesta(), pregunta.getIdPregunta(),
+                        pregunta.getTextoPregunta(), respuesta.getValorTexto(),
+                        respuesta.getOpcionSeleccionada() != null ? respuesta.getOpcionSeleccionada().getIdOpcion() : null,
+                        respuesta.getOpcionSeleccionada() != null ? respuesta.getOpcionSeleccionada().getTextoOpcion() : null));
+            }
+            registros.add(registro);
+            resumenes.add(new Resumen(r, paciente.getIdPaciente(), paciente.getNombre(), paciente.getApellidos(),
+                    encuesta.getIdEncuesta(), encuesta.getTitulo(), registro.getFechaRealizacion(),
+                    usuario.getUsername(), registro.getEstado()));
+        }
+    }
+
+    // Implementaciones planas de las proyecciones (los proxies de Spring Data medirían reflexión)
+
+    @Value
+    static class Arista implements LogicaSaltoArista {
+        Integer idPreguntaOrigen;
+        Integer idOpcionOrigen;
+        Integer idPreguntaDestino;
+    }
+
+    @Value
+    static class Resumen implements RegistroResumen {
+        Integer idRegistro;
+        Integer idPaciente;
+        String nombrePaciente;
+        String apellidosPaciente;
+        Integer idEncuesta;
+        String tituloEncuesta;
+        LocalDateTime fechaRealizacion;
+        String usuarioNombre;
+        String estado;
+    }
+
+    @Value
+    static class Plana implements RespuestaPlana {
+        Integer idRegistro;
+        Integer idRespuesta;
+        Integer idPregunta;
+        String textoPregunta;
+        String valorTexto;
+        Integer idOpcion;
+        String textoOpcion;
+    }
+}
@@ -0,0 +1,77 @@
+package com.v1.proyecto.benchmarks;
+
+import com.v1.proyecto.encuesta.dto.EncuestaResponseDto;
+import com.v1.proyecto.encuesta.dto.RegistroCompletoResponseDto;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import com.v1.proyecto.encuesta.repository.RespuestaPlana;
+import com.v1.proyecto.encuesta.repository.RespuestaRepository;
+import com.v1.proyecto.encuesta.service.EncuestaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo a DTOs en EncuestaService con repositorios en memoria: la definición completa, el
+ * listado plano por encuesta (proyecciones) y un registro desde la entidad.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncuestaMapeoBenchmark {
+
+    @Param({"500"})
+    public int registros;
+
+    private EncuestaService encuestaService;
+
+    @Setup
+    public void setUp() {
+        encuestaService = servicio(new DatosSinteticos(60, registros));
+    }
+
+    static EncuestaService servicio(DatosSinteticos datos) {
+        Map<Integer, List<RespuestaPlana>> planas = new HashMap<>();
+        for (RespuestaPlana fila : datos.respuestasPlanas) {
+            planas.computeIfAbsent(fila.getIdRegistro(), id -> new ArrayList<>()).add(fila);
+        }
+        EncuestaRepository encuestaRepository = Repositorios.stub(EncuestaRepository.class,
+                Map.of("findById", args -> Optional.of(datos.encuesta)));
+        LogicaSaltoRepository logicaSaltoRepository = Repositorios.stub(LogicaSaltoRepository.class,
+                Map.of("findAristasByEncuesta", args -> datos.aristas));
+        RegistroEncuestaRepository registroEncuestaRepository = Repositorios.stub(RegistroEncuestaRepository.class,
+                Map.of("findResumenByEncuesta", args -> datos.resumenes,
+                        "findById", args -> Optional.of(datos.registros.get((Integer) args[0] - 1))));
+        RespuestaRepository respuestaRepository = Repositorios.stub(RespuestaRepository.class,
+                Map.of("findPlanasByRegistroIds", args -> {
+                    List<RespuestaPlana> filas = new ArrayList<>();
+                    for (Object id : (Collection<?>) args[0]) {
+                        filas.addAll(planas.getOrDefault(id, List.of()));
+                    }
+                    return filas;
+                }));
+        return new EncuestaService(encuestaRepository, null, null, null, registroEncuestaRepository,
+                logicaSaltoRepository, respuestaRepository, null, null, null, null, null, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public EncuestaResponseDto getEncuestaCompleta() {
+        return encuestaService.getEncuestaCompleta(1);
+    }
+
+    @Benchmark
+    public List<RegistroCompletoResponseDto> getRegistrosByEncuesta() {
+        return encuestaService.getRegistrosByEncuesta(1);
+    }
+
+    @Benchmark
+    public RegistroCompletoResponseDto getRegistroById() {
+        return encuestaService.getRegistroById(1);
+    }
+}
@@ -0,0 +1,51 @@
+package com.v1.proyecto.benchmarks;
+
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import com.v1.proyecto.encuesta.service.DataEncoder;
+import com.v1.proyecto.encuesta.service.ExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/** Escritura de filas CSV y XLSX sobre datos en memoria (sin base de datos). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportServiceBenchmark {
+
+    @Param({"100", "1000"})
+    public int registros;
+
+    private ExportService exportService;
+
+    @Setup
+    public void setUp() {
+        DatosSinteticos datos = new DatosSinteticos(60, registros);
+        EncuestaRepository encuestaRepository = Repositorios.stub(EncuestaRepository.class,
+                Map.of("findById", args -> Optional.of(datos.encuesta)));
+        RegistroEncuestaRepository registroEncuestaRepository = Repositorios.stub(RegistroEncuestaRepository.class,
+                Map.of("findByEncuestaIdEncuesta", args -> datos.registros));
+        exportService = new ExportService(encuestaRepository, registroEncuestaRepository, new DataEncoder(),
+                null, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ByteArrayInputStream csv() {
+        return exportService.generateCsv(1, null, Role.ANALISTA);
+    }
+
+    @Benchmark
+    public ByteArrayInputStream excel() throws IOException {
+        return exportService.generateExcel(1, null, Role.ANALISTA);
+    }
+}
@@ -0,0 +1,50 @@
+package com.v1.proyecto.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.v1.proyecto.encuesta.dto.EncuestaResponseDto;
+import com.v1.proyecto.encuesta.dto.RegistroCompletoResponseDto;
+import com.v1.proyecto.encuesta.service.EncuestaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Serialización de las respuestas más pesadas con un ObjectMapper configurado como el de Spring Boot. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+
+    @Param({"500"})
+    public int registros;
+
+    private ObjectMapper objectMapper;
+    private EncuestaResponseDto encuesta;
+    private List<RegistroCompletoResponseDto> listado;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        EncuestaService encuestaService = EncuestaMapeoBenchmark.servicio(new DatosSinteticos(60, registros));
+        encuesta = encuestaService.getEncuestaCompleta(1);
+        listado = encuestaService.getRegistrosByEncuesta(1);
+    }
+
+    @Benchmark
+    public byte[] encuestaResponseDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(encuesta);
+    }
+
+    @Benchmark
+    public byte[] registrosCompletos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(listado);
+    }
+}
@@ -0,0 +1,48 @@
+package com.v1.proyecto.benchmarks;
+
+import com.v1.proyecto.auth.config.JwtProperties;
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.auth.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Lo que paga cada login (generar) y cada petición autenticada (validar). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private Users usuario;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecretKey("YmVuY2htYXJrLXNlY3JldC1rZXktZm9yLWp3dC1zZXJ2aWNlLWJlbmNobWFya3M=");
+        properties.setExpiration(86_400_000L);
+        properties.setRefreshExpiration(604_800_000L);
+        jwtService = new JwtService(properties);
+        usuario = new DatosSinteticos(1, 0).usuario;
+        token = jwtService.generateToken(usuario);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(usuario);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, usuario);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+}
@@ -0,0 +1,27 @@
+package com.v1.proyecto.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Repositorios en memoria para los benchmarks: un proxy que responde por nombre de método.
+ * Cualquier otro método falla, para notar si el código medido empieza a usar otra consulta.
+ */
+final class Repositorios {
+
+    private Repositorios() {
+    }
+
+    static <T> T stub(Class<T> repositorio, Map<String, Function<Object[], Object>> respuestas) {
+        Object proxy = Proxy.newProxyInstance(repositorio.getClassLoader(), new Class<?>[]{repositorio},
+                (self, method, args) -> {
+                    Function<Object[], Object> respuesta = respuestas.get(method.getName());
+                    if (respuesta == null) {
+                        throw new UnsupportedOperationException(repositorio.getSimpleName() + "." + method.getName());
+                    }
+                    return respuesta.apply(args);
+                });
+        return repositorio.cast(proxy);
+    }
+}
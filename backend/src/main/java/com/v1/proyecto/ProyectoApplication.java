@@ -1,14 +1,24 @@
 package com.v1.proyecto;
 
 import com.v1.proyecto.auth.config.JwtProperties;
+import com.v1.proyecto.auth.config.LoginProtectionProperties;
+import com.v1.proyecto.config.ConcurrenciaProperties;
+import com.v1.proyecto.config.ContadorSentenciasProperties;
+import com.v1.proyecto.config.GeneradorDatosProperties;
+import com.v1.proyecto.config.ReplicasProperties;
+import com.v1.proyecto.email.config.MailOutboxProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties(JwtProperties.class)
+@EnableConfigurationProperties({ JwtProperties.class, LoginProtectionProperties.class, MailOutboxProperties.class,
+		ContadorSentenciasProperties.class, GeneradorDatosProperties.class, ConcurrenciaProperties.class,
+		ReplicasProperties.class })
 @EnableAsync
+@EnableScheduling
 public class ProyectoApplication {
 
 	public static void main(String[] args) {
@@ -1,6 +1,9 @@
 package com.v1.proyecto.auth.config;
 
+import com.v1.proyecto.auth.model.Users;
 import com.v1.proyecto.auth.repository.UserRepository;
+import com.v1.proyecto.auth.service.InMemoryRateLimitStore;
+import com.v1.proyecto.auth.service.RateLimitStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,9 +11,9 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
@@ -18,6 +21,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class AppConfig {
 
     private final UserRepository repository;
+    private final LoginProtectionProperties loginProtectionProperties;
 
     @Bean
     public UserDetailsService userDetailsService() {
@@ -30,9 +34,20 @@ public class AppConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authProvider;
     }
 
+    // Lo invoca DaoAuthenticationProvider tras un login exitoso si upgradeEncoding() pide re-hash
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (userDetails, newEncodedPassword) -> {
+            Users user = (Users) userDetails;
+            user.setPassword(newEncodedPassword);
+            return repository.save(user);
+        };
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(final AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
@@ -40,7 +55,18 @@ public class AppConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(
+                loginProtectionProperties.getBcryptStrength(),
+                loginProtectionProperties.getHashingThreads(),
+                loginProtectionProperties.getHashingQueueCapacity(),
+                loginProtectionProperties.getHashingTimeoutMs());
+    }
+
+    // Almacén en memoria de los buckets de login; para compartirlo entre instancias basta con
+    // reemplazar este bean por otra implementación de RateLimitStore
+    @Bean
+    public RateLimitStore rateLimitStore() {
+        return new InMemoryRateLimitStore();
     }
 
 }
@@ -4,12 +4,14 @@ import com.v1.proyecto.auth.repository.TokenRepository;
 import com.v1.proyecto.auth.service.JwtService;
 import com.v1.proyecto.auth.model.Users;
 import com.v1.proyecto.auth.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -24,7 +26,6 @@ import java.io.IOException;
 import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
@@ -32,6 +33,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final TokenRepository tokenRepository;
     private final UserRepository userRepository;
 
+    // Solo mide la autenticación, no el resto de la cadena
+    private final Timer autenticadoTimer;
+    private final Timer rechazadoTimer;
+    private final DistributionSummary consultasPorPeticion;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+            UserDetailsService userDetailsService,
+            TokenRepository tokenRepository,
+            UserRepository userRepository,
+            MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.tokenRepository = tokenRepository;
+        this.userRepository = userRepository;
+
+        this.autenticadoTimer = Timer.builder("auth.filtro")
+                .description("Validación del JWT por petición")
+                .tag("result", "autenticado")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rechazadoTimer = Timer.builder("auth.filtro")
+                .description("Validación del JWT por petición")
+                .tag("result", "rechazado")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.consultasPorPeticion = DistributionSummary.builder("auth.filtro.consultas")
+                .description("Consultas a la base de datos hechas por el filtro en cada petición con token")
+                .register(meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -56,12 +87,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        final Timer.Sample sample = Timer.start();
+        boolean autenticado = false;
         final UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
         final boolean isTokenExpiredOrRevoked = tokenRepository.findByToken(jwt)
                 .map(token -> !token.getIsExpired() && !token.getIsRevoked())
                 .orElse(false);
+        // loadUserByUsername y findByToken; findByEmail suma otra si el token sigue vigente
+        int consultas = 2;
 
         if (isTokenExpiredOrRevoked) {
+            consultas++;
             final Optional<Users> user = userRepository.findByEmail(userEmail);
 
             if (user.isPresent()) {
@@ -75,9 +111,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authToken.setDetails(
                             new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    autenticado = true;
                 }
             }
         }
+        sample.stop(autenticado ? autenticadoTimer : rechazadoTimer);
+        consultasPorPeticion.record(consultas);
 
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,49 @@
+package com.v1.proyecto.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "security.login")
+@Data
+public class LoginProtectionProperties {
+
+    // Buckets del limitador de login (por email y por IP del cliente)
+    private Bucket email = new Bucket(10, 10);
+    private Bucket ip = new Bucket(30, 30);
+
+    // Costo de BCrypt; si cambia, las contraseñas se re-hashean en el siguiente login
+    private int bcryptStrength = 10;
+
+    // Executor acotado para el hashing (no puede consumir todos los hilos de Tomcat)
+    private int hashingThreads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private int hashingQueueCapacity = 64;
+    private long hashingTimeoutMs = 5000;
+
+    // Caché de dispositivos de confianza del login
+    private DeviceCache deviceCache = new DeviceCache();
+
+    @Data
+    public static class Bucket {
+        private long capacity;
+        private long refillPerMinute;
+
+        public Bucket() {
+        }
+
+        public Bucket(long capacity, long refillPerMinute) {
+            this.capacity = capacity;
+            this.refillPerMinute = refillPerMinute;
+        }
+    }
+
+    @Data
+    public static class DeviceCache {
+        // Usuarios distintos en memoria (LRU) y dispositivos recordados por usuario
+        private int maxUsers = 10_000;
+        private int maxDevicesPerUser = 8;
+        // Tope de vida de una entrada aunque el dispositivo expire más tarde
+        private Duration maxTtl = Duration.ofHours(1);
+    }
+}
@@ -41,6 +41,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(req ->
                         req.requestMatchers("/auth/**")
                                 .permitAll()
+                                .requestMatchers("/actuator/prometheus", "/actuator/metrics/**")
+                                .hasAuthority("ADMIN")
                                 .anyRequest()
                                 .authenticated()
                 )
@@ -2,6 +2,7 @@ package com.v1.proyecto.auth.controller;
 
 import com.v1.proyecto.auth.dto.*;
 import com.v1.proyecto.auth.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
@@ -22,8 +23,9 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<TokenResponse> authenticate(@RequestBody AuthRequest request) {
-        final TokenResponse response = service.authenticate(request);
+    public ResponseEntity<TokenResponse> authenticate(@RequestBody AuthRequest request,
+            HttpServletRequest httpRequest) {
+        final TokenResponse response = service.authenticate(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
 
@@ -36,9 +38,10 @@ public class AuthController {
 
     @PostMapping("/verify")
     public ResponseEntity<TokenResponse> verifyCode(
-            @RequestBody VerificationRequest request
+            @RequestBody VerificationRequest request,
+            HttpServletRequest httpRequest
     ) {
-        return ResponseEntity.ok(service.verifyCode(request));
+        return ResponseEntity.ok(service.verifyCode(request, httpRequest.getRemoteAddr()));
     }
 
     @PostMapping("/forgot-password")
@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "trusted_device")
+@Table(name = "trusted_device", indexes = {
+        // Búsqueda del login: WHERE user_id = ? AND device_id = ?
+        @Index(name = "idx_trusted_device_user_device", columnList = "user_id, device_id")
+})
 public class TrustedDevice {
 
     @Id
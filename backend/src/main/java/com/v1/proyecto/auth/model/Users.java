@@ -69,6 +69,11 @@ public class Users implements Serializable, UserDetails {
     @Column(name = "reset_token_expiry")
     private LocalDateTime resetTokenExpiry;
 
+    // --- REVOCACIÓN DE SESIONES ---
+    // Todo JWT emitido antes de este instante se rechaza, sin tocar las filas de Token
+    @Column(name = "tokens_revoked_before")
+    private LocalDateTime tokensRevokedBefore;
+
     // --- RELACIONES ---
     @OneToMany(mappedBy = "user")
     private List<Token> tokens;
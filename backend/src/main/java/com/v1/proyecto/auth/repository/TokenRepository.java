@@ -2,8 +2,10 @@ package com.v1.proyecto.auth.repository;
 
 import com.v1.proyecto.auth.model.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param; // Asegúrate de tener este import
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,10 +14,21 @@ public interface TokenRepository extends JpaRepository<Token, Integer> {
 
     @Query(value = """
             select t from Token t inner join t.user u
-            where u.id = :userId and (t.isExpired = false or t.isRevoked = false)
+            where u.id = :userId and t.isExpired = false and t.isRevoked = false
             """)
 
     List<Token> findAllValidTokenByUser(@Param("userId") Integer id);
 
+    // Revoca en un solo UPDATE todos los tokens vigentes del usuario y devuelve cuántas filas cambió
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update Token t set t.isExpired = true, t.isRevoked = true
+            where t.user.id = :userId and (t.isExpired = false or t.isRevoked = false)
+            """)
+    int revokeAllValidTokensByUser(@Param("userId") Integer id);
+
+    // Sin readOnly: una revocación recién escrita en el primario debe rechazar el token de inmediato
+    @Transactional
     Optional<Token> findByToken(String token);
 }
@@ -3,9 +3,17 @@ package com.v1.proyecto.auth.repository;
 import com.v1.proyecto.auth.model.TrustedDevice;
 import com.v1.proyecto.auth.model.Users;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.Optional;
 
 public interface TrustedDeviceRepository extends JpaRepository<TrustedDevice, Integer> {
     // Buscar si existe un registro para este usuario y este dispositivo
     Optional<TrustedDevice> findByUserAndDeviceId(Users user, String deviceId);
+
+    // Revoca de una vez todos los dispositivos de confianza del usuario (ej. al cambiar la contraseña)
+    @Modifying
+    @Query("delete from TrustedDevice d where d.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Integer userId);
 }
@@ -3,13 +3,18 @@ package com.v1.proyecto.auth.repository;
 import com.v1.proyecto.auth.model.Users;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<Users, Integer> {
+    // Sin readOnly a propósito: con réplicas de lectura la autenticación debe ver el estado del
+    // primario (códigos, tokens de recuperación y revocaciones recién escritos)
+    @Transactional
     Optional<Users> findByEmail(String email);
 
     // metodo buscar por el token de recuperación
+    @Transactional
     Optional<Users> findByResetToken(String resetToken);
 }
@@ -16,7 +16,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Importante para la DB
 import java.time.LocalDateTime;
-import java.util.List;
+import java.time.temporal.ChronoUnit;
 import java.util.Random;
 import java.util.UUID; // Nuevo: Para generar el token de reseteo
 
@@ -31,6 +31,8 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
     private final TrustedDeviceRepository trustedDeviceRepository;
+    private final LoginRateLimiter loginRateLimiter;
+    private final TrustedDeviceCache trustedDeviceCache;
 
     // --- REGISTRO ---
     @Transactional
@@ -60,6 +62,13 @@ public class AuthService {
 
  // --- LOGIN (CON DISPOSITIVOS DE CONFIANZA OBLIGATORIO) ---
     public TokenResponse authenticate(final AuthRequest request) {
+        return authenticate(request, null);
+    }
+
+    public TokenResponse authenticate(final AuthRequest request, final String clientIp) {
+        // 0. Limitar intentos por email y por IP antes de gastar CPU en BCrypt
+        loginRateLimiter.checkAttempt(request.getEmail(), clientIp);
+
         // 1. Autenticar credenciales
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -69,42 +78,39 @@ public class AuthService {
         );
         final Users user = repository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Credenciales inválidas"));
+        loginRateLimiter.onSuccess(request.getEmail());
 
         // 2. VERIFICACIÓN DE DISPOSITIVO (Para TODOS los usuarios)
         // Si el frontend manda un deviceId, verificamos si es confiable.
-        if (request.getDeviceId() != null) {
-            var deviceOpt = trustedDeviceRepository.findByUserAndDeviceId(user, request.getDeviceId());
-
+        if (request.getDeviceId() != null && !isTrustedDevice(user, request.getDeviceId())) {
             // Si NO existe el dispositivo o ha expirado -> ENVIAR CÓDIGO
-            if (deviceOpt.isEmpty() || deviceOpt.get().getExpiresAt().isBefore(LocalDateTime.now())) {
-                
-                // Generar código
-                String code = String.format("%06d", new Random().nextInt(999999));
-                user.setVerificationCode(code);
-                user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(10));
-                repository.save(user);
-
-                // Enviar correo
-                emailService.sendEmail(
-                        user.getEmail(),
-                        "Nuevo Inicio de Sesión Detectado",
-                        "Hola " + user.getName() + ",\n\n" +
-                        "Estamos intentando iniciar sesión desde un nuevo dispositivo.\n" +
-                        "Tu código de verificación es: " + code
-                );
-
-                // Retornamos mfaEnabled = true para que el frontend pida el código
-                return TokenResponse.builder()
-                        .mfaEnabled(true)
-                        .build();
-            }
+
+            // Generar código
+            String code = String.format("%06d", new Random().nextInt(999999));
+            user.setVerificationCode(code);
+            user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(10));
+            repository.save(user);
+
+            // Enviar correo
+            emailService.sendEmail(
+                    user.getEmail(),
+                    "Nuevo Inicio de Sesión Detectado",
+                    "Hola " + user.getName() + ",\n\n" +
+                    "Estamos intentando iniciar sesión desde un nuevo dispositivo.\n" +
+                    "Tu código de verificación es: " + code
+            );
+
+            // Retornamos mfaEnabled = true para que el frontend pida el código
+            return TokenResponse.builder()
+                    .mfaEnabled(true)
+                    .build();
         }
 
-        // 3. Si el dispositivo YA ES CONFIABLE (o no envió ID), generamos tokens
+        // 3. Si el dispositivo YA ES CONFIABLE (o no envió ID), generamos tokens.
+        // Se revoca antes de emitir: si el corte cae en el segundo siguiente al "iat", el token nuevo quedaría revocado
+        invalidateUserSessions(user);
         final String accessToken = jwtService.generateToken(user);
         final String refreshToken = jwtService.generateRefreshToken(user);
-
-        revokeAllUserTokens(user);
         saveUserToken(user, accessToken);
 
         return TokenResponse.builder()
@@ -117,6 +123,14 @@ public class AuthService {
     // --- VERIFICAR CÓDIGO (Y GUARDAR DISPOSITIVO) ---
     @Transactional
     public TokenResponse verifyCode(final VerificationRequest request) {
+        return verifyCode(request, null);
+    }
+
+    @Transactional
+    public TokenResponse verifyCode(final VerificationRequest request, final String clientIp) {
+        // El código de 6 dígitos comparte los buckets del login para evitar fuerza bruta
+        loginRateLimiter.checkAttempt(request.getEmail(), clientIp);
+
         final Users user = repository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
@@ -139,20 +153,23 @@ public class AuthService {
 
         // --- NUEVO: Guardar dispositivo de confianza ---
         if (request.isRememberDevice() && request.getDeviceId() != null) {
-            TrustedDevice device = TrustedDevice.builder()
-                    .user(user)
-                    .deviceId(request.getDeviceId())
-                    .expiresAt(LocalDateTime.now().plusDays(30)) // Recordar por 30 días
-                    .build();
+            // Si el dispositivo ya existía (p. ej. expirado) se renueva en vez de duplicar la fila
+            TrustedDevice device = trustedDeviceRepository.findByUserAndDeviceId(user, request.getDeviceId())
+                    .orElseGet(() -> TrustedDevice.builder()
+                            .user(user)
+                            .deviceId(request.getDeviceId())
+                            .build());
+            device.setExpiresAt(LocalDateTime.now().plusDays(30)); // Recordar por 30 días
 
             trustedDeviceRepository.save(device);
+            // Se invalida la entrada; el próximo login la vuelve a cargar ya confirmada en la DB
+            trustedDeviceCache.evict(user.getId(), request.getDeviceId());
         }
 
-        // Generar tokens
+        // Generar tokens (después de revocar las sesiones anteriores, igual que en el login)
+        invalidateUserSessions(user);
         final String accessToken = jwtService.generateToken(user);
         final String refreshToken = jwtService.generateRefreshToken(user);
-
-        revokeAllUserTokens(user);
         saveUserToken(user, accessToken);
 
         return TokenResponse.builder()
@@ -218,13 +235,36 @@ public class AuthService {
         user.setResetToken(null);
         user.setResetTokenExpiry(null);
 
+        // 5. Cerrar todas las sesiones abiertas con la contraseña anterior
+        user.setTokensRevokedBefore(revocationInstant());
+
         repository.save(user);
+        revokeAllUserTokens(user);
+
+        // 6. Ningún dispositivo queda como confiable: el próximo login vuelve a pedir el código MFA
+        trustedDeviceRepository.deleteAllByUserId(user.getId());
+        trustedDeviceCache.evictUser(user.getId());
     }
 
 
 
 
     // --- Métodos Auxiliares (Sin cambios) ---
+
+    // Primero la caché; solo si no está se consulta trusted_device y se cachea el resultado vigente
+    private boolean isTrustedDevice(Users user, String deviceId) {
+        final LocalDateTime now = LocalDateTime.now();
+        if (trustedDeviceCache.isTrusted(user.getId(), deviceId, now)) {
+            return true;
+        }
+        var deviceOpt = trustedDeviceRepository.findByUserAndDeviceId(user, deviceId);
+        if (deviceOpt.isEmpty() || deviceOpt.get().getExpiresAt().isBefore(now)) {
+            return false;
+        }
+        trustedDeviceCache.put(user.getId(), deviceId, deviceOpt.get().getExpiresAt(), now);
+        return true;
+    }
+
     private void saveUserToken(Users user, String jwtToken) {
         // ... (método saveUserToken)
         final Token token = Token.builder()
@@ -237,16 +277,21 @@ public class AuthService {
         tokenRepository.save(token);
     }
 
-    private void revokeAllUserTokens(final Users user) {
-        // ... (método revokeAllUserTokens)
-        final List<Token> validUserTokens = tokenRepository.findAllValidTokenByUser(user.getId());
-        if (!validUserTokens.isEmpty()) {
-            validUserTokens.forEach(token -> {
-                token.setIsExpired(true);
-                token.setIsRevoked(true);
-            });
-            tokenRepository.saveAll(validUserTokens);
-        }
+    // Un solo UPDATE masivo en vez de cargar y guardar cada Token
+    private int revokeAllUserTokens(final Users user) {
+        return tokenRepository.revokeAllValidTokensByUser(user.getId());
+    }
+
+    // Marca de corte por usuario: JwtService rechaza los JWT emitidos antes de este instante
+    private void invalidateUserSessions(final Users user) {
+        user.setTokensRevokedBefore(revocationInstant());
+        repository.save(user);
+        revokeAllUserTokens(user);
+    }
+
+    // El "iat" del JWT tiene precisión de segundos; truncamos para no invalidar el token recién emitido
+    private LocalDateTime revocationInstant() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
     }
 
     public TokenResponse refreshToken(final String authentication) {
@@ -266,6 +311,7 @@ public class AuthService {
         }
 
         final String accessToken = jwtService.generateToken(user); // Corregido: antes generaba un refresh token de nuevo.
+        // Solo se revocan las filas: mover la marca de corte invalidaría el propio refresh token
         revokeAllUserTokens(user);
         saveUserToken(user, accessToken);
 
@@ -0,0 +1,105 @@
+package com.v1.proyecto.auth.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    // Sobre este tamaño se purgan los buckets que ya se rellenaron por completo
+    private static final int MAX_BUCKETS = 100_000;
+
+    // Como mucho una purga por intervalo, aunque sigan quedando más de MAX_BUCKETS activos
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoTime;
+    private final AtomicLong nextPurgeNanos;
+
+    public InMemoryRateLimitStore() {
+        this(System::nanoTime);
+    }
+
+    InMemoryRateLimitStore(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.nextPurgeNanos = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    @Override
+    public boolean tryConsume(String key, long capacity, double refillPerSecond) {
+        if (buckets.size() > MAX_BUCKETS) {
+            maybePurgeIdle();
+        }
+        final boolean[] consumed = new boolean[1];
+        buckets.compute(key, (k, bucket) -> {
+            long now = nanoTime.getAsLong();
+            Bucket current = bucket != null ? bucket : new Bucket(capacity, refillPerSecond, now);
+            synchronized (current) {
+                current.refill(now);
+                current.configure(capacity, refillPerSecond);
+                if (current.tokens >= 1) {
+                    current.tokens -= 1;
+                    consumed[0] = true;
+                }
+            }
+            return current;
+        });
+        return consumed[0];
+    }
+
+    @Override
+    public void reset(String key) {
+        buckets.remove(key);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void maybePurgeIdle() {
+        long now = nanoTime.getAsLong();
+        long next = nextPurgeNanos.get();
+        // Solo el hilo que gana el CAS recorre el mapa; el resto sigue sin esperar
+        if (now - next < 0 || !nextPurgeNanos.compareAndSet(next, now + PURGE_INTERVAL_NANOS)) {
+            return;
+        }
+        buckets.entrySet().removeIf(entry -> {
+            Bucket bucket = entry.getValue();
+            synchronized (bucket) {
+                bucket.refill(now);
+                return bucket.tokens >= bucket.capacity;
+            }
+        });
+    }
+
+    // Cada bucket guarda su propia capacidad: la purga no puede usar la del bucket que la disparó
+    private static final class Bucket {
+        private long capacity;
+        private double refillPerSecond;
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(long capacity, double refillPerSecond, long lastRefillNanos) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+            this.tokens = capacity;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+
+        private void configure(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+            tokens = Math.min(capacity, tokens);
+        }
+
+        private void refill(long now) {
+            double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+            if (elapsedSeconds > 0) {
+                tokens = Math.min(capacity, tokens + elapsedSeconds * refillPerSecond);
+                lastRefillNanos = now;
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.v1.proyecto.auth.service;
 
 import com.v1.proyecto.auth.config.JwtProperties;
 import com.v1.proyecto.auth.model.Users;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -9,6 +10,7 @@ import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
 
@@ -20,12 +22,7 @@ public class JwtService {
     private final JwtProperties jwtProperties;
 
     public String extractUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return extractAllClaims(token).getSubject();
     }
 
     public String generateToken(final Users user) {
@@ -59,21 +56,29 @@ public class JwtService {
 
 
     public boolean isTokenValid(String token, Users user) {
-        final String username = extractUsername(token);
-        return (username.equals(user.getEmail())) && !isTokenExpired(token);
+        // Se parsea una sola vez y se revisan sujeto, expiración y revocación masiva
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equals(user.getEmail())
+                && !claims.getExpiration().before(new Date())
+                && !isIssuedBeforeRevocation(claims.getIssuedAt(), user);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private boolean isIssuedBeforeRevocation(Date issuedAt, Users user) {
+        if (user.getTokensRevokedBefore() == null || issuedAt == null) {
+            return false;
+        }
+        final Date revokedBefore = Date.from(user.getTokensRevokedBefore()
+                .atZone(ZoneId.systemDefault())
+                .toInstant());
+        return issuedAt.before(revokedBefore);
     }
 
-    private Date extractExpiration(String token) {
+    private Claims extractAllClaims(String token) {
         return Jwts.parser()
                 .verifyWith(getSignInKey())
                 .build()
                 .parseSignedClaims(token)
-                .getPayload()
-                .getExpiration();
+                .getPayload();
     }
 
     private SecretKey getSignInKey() {
@@ -0,0 +1,43 @@
+package com.v1.proyecto.auth.service;
+
+import com.v1.proyecto.auth.config.LoginProtectionProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+@Component
+@RequiredArgsConstructor
+public class LoginRateLimiter {
+
+    private final RateLimitStore store;
+    private final LoginProtectionProperties properties;
+
+    /**
+     * Consume un intento del bucket de la IP y del bucket del email.
+     * Lanza {@link TooManyLoginAttemptsException} (429) si alguno está vacío.
+     */
+    public void checkAttempt(String email, String clientIp) {
+        if (clientIp != null && !tryConsume("ip:" + clientIp, properties.getIp())) {
+            throw new TooManyLoginAttemptsException("Demasiados intentos desde esta dirección. Intenta más tarde.");
+        }
+        if (email != null && !tryConsume(emailKey(email), properties.getEmail())) {
+            throw new TooManyLoginAttemptsException("Demasiados intentos para esta cuenta. Intenta más tarde.");
+        }
+    }
+
+    // Tras un login exitoso el usuario no debe arrastrar los intentos fallidos previos
+    public void onSuccess(String email) {
+        if (email != null) {
+            store.reset(emailKey(email));
+        }
+    }
+
+    private boolean tryConsume(String key, LoginProtectionProperties.Bucket bucket) {
+        return store.tryConsume(key, bucket.getCapacity(), bucket.getRefillPerMinute() / 60.0);
+    }
+
+    private String emailKey(String email) {
+        return "email:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,14 @@
+package com.v1.proyecto.auth.service;
+
+/**
+ * Almacén de token buckets para el limitador de login. La implementación por defecto es
+ * en memoria; se puede reemplazar (ej. Redis) declarando otro bean de este tipo.
+ */
+public interface RateLimitStore {
+
+    // Intenta consumir un token del bucket "key"; false si está vacío
+    boolean tryConsume(String key, long capacity, double refillPerSecond);
+
+    // Vuelve a llenar el bucket (ej. tras un login exitoso)
+    void reset(String key);
+}
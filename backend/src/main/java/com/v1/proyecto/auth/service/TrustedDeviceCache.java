@@ -0,0 +1,107 @@
+package com.v1.proyecto.auth.service;
+
+import com.v1.proyecto.auth.config.LoginProtectionProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché en memoria de los dispositivos de confianza vigentes, agrupados por usuario.
+ * Solo guarda aciertos: un dispositivo desconocido siempre se consulta en la base de datos.
+ * Cada entrada vence en {@code TrustedDevice.expiresAt}, acotado por {@code maxTtl}.
+ */
+@Component
+public class TrustedDeviceCache implements MeterBinder {
+
+    private final int maxDevicesPerUser;
+    private final long maxTtlSeconds;
+    private final Map<Integer, Map<String, LocalDateTime>> byUser;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TrustedDeviceCache(LoginProtectionProperties properties) {
+        LoginProtectionProperties.DeviceCache config = properties.getDeviceCache();
+        this.maxDevicesPerUser = config.getMaxDevicesPerUser();
+        this.maxTtlSeconds = config.getMaxTtl().toSeconds();
+        this.byUser = lru(config.getMaxUsers());
+    }
+
+    public synchronized boolean isTrusted(Integer userId, String deviceId, LocalDateTime now) {
+        boolean trusted = lookup(userId, deviceId, now);
+        (trusted ? hits : misses).increment();
+        return trusted;
+    }
+
+    private boolean lookup(Integer userId, String deviceId, LocalDateTime now) {
+        Map<String, LocalDateTime> devices = byUser.get(userId);
+        if (devices == null) {
+            return false;
+        }
+        LocalDateTime validUntil = devices.get(deviceId);
+        if (validUntil == null) {
+            return false;
+        }
+        if (!validUntil.isAfter(now)) {
+            removeDevice(userId, devices, deviceId);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void put(Integer userId, String deviceId, LocalDateTime expiresAt, LocalDateTime now) {
+        LocalDateTime cap = now.plusSeconds(maxTtlSeconds);
+        LocalDateTime validUntil = expiresAt.isBefore(cap) ? expiresAt : cap;
+        if (!validUntil.isAfter(now)) {
+            return;
+        }
+        byUser.computeIfAbsent(userId, id -> lru(maxDevicesPerUser)).put(deviceId, validUntil);
+    }
+
+    public synchronized void evict(Integer userId, String deviceId) {
+        Map<String, LocalDateTime> devices = byUser.get(userId);
+        if (devices != null) {
+            removeDevice(userId, devices, deviceId);
+        }
+    }
+
+    public synchronized void evictUser(Integer userId) {
+        byUser.remove(userId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", "dispositivos", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", "dispositivos", "result", "miss").register(registry);
+        Gauge.builder("cache.size", this, TrustedDeviceCache::size).tag("cache", "dispositivos").register(registry);
+    }
+
+    private synchronized int size() {
+        return byUser.size();
+    }
+
+    private void removeDevice(Integer userId, Map<String, LocalDateTime> devices, String deviceId) {
+        devices.remove(deviceId);
+        if (devices.isEmpty()) {
+            byUser.remove(userId);
+        }
+    }
+
+    // LinkedHashMap en orden de acceso: al superar el límite sale la entrada menos usada
+    private static <K, V> Map<K, V> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.v1.proyecto.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Límite de peticiones simultáneas cuando Tomcat atiende con hilos virtuales (ver
+ * {@link LimiteConcurrenciaFilter}). Sin el tope de hilos de Tomcat, todas las peticiones
+ * llegarían juntas al pool de Hikari y la cola se movería ahí, con su timeout de 30 s.
+ */
+@ConfigurationProperties(prefix = "app.concurrencia")
+@Data
+public class ConcurrenciaProperties {
+
+    // Peticiones en curso por conexión del pool (no todas sostienen la conexión todo el tiempo)
+    private int peticionesPorConexion = 4;
+
+    // Si es mayor que cero reemplaza al cálculo por conexión
+    private int maximo = 0;
+
+    // Espera por un cupo antes de responder 503; debe ser bastante menor que el connection-timeout de Hikari
+    private long esperaMs = 2000;
+}
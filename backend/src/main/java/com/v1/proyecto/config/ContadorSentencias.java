@@ -0,0 +1,103 @@
+package com.v1.proyecto.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual mientras hay una
+ * {@link Medicion} abierta (una petición HTTP, un test). Cada sentencia se agrupa por su forma
+ * (espacios colapsados y listas IN de largo variable unificadas), así un N+1 aparece como una
+ * misma forma repetida N veces.
+ *
+ * Solo ve lo que pasa por Hibernate: las escrituras con JdbcTemplate no se cuentan.
+ */
+public class ContadorSentencias implements StatementInspector {
+
+    private static final ThreadLocal<Medicion> ACTUAL = new ThreadLocal<>();
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final Pattern LISTA_IN = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    @Override
+    public String inspect(String sql) {
+        Medicion medicion = ACTUAL.get();
+        if (medicion != null) {
+            medicion.registrar(forma(sql));
+        }
+        return sql;
+    }
+
+    /** Abre una medición en el hilo actual; si ya había una, la nueva queda anidada. */
+    public static Medicion iniciar() {
+        Medicion medicion = new Medicion(ACTUAL.get());
+        ACTUAL.set(medicion);
+        return medicion;
+    }
+
+    /** Cierra la medición y suma sus sentencias a la que la contenía, si había. */
+    public static void terminar(Medicion medicion) {
+        if (medicion.padre != null) {
+            medicion.padre.sumar(medicion);
+            ACTUAL.set(medicion.padre);
+        } else {
+            ACTUAL.remove();
+        }
+    }
+
+    static String forma(String sql) {
+        String forma = ESPACIOS.matcher(sql.trim()).replaceAll(" ");
+        return LISTA_IN.matcher(forma).replaceAll("(?...)");
+    }
+
+    public static final class Medicion {
+
+        private final Medicion padre;
+        private final Map<String, Integer> porForma = new HashMap<>();
+        private int total;
+
+        private Medicion(Medicion padre) {
+            this.padre = padre;
+        }
+
+        private void registrar(String forma) {
+            total++;
+            porForma.merge(forma, 1, Integer::sum);
+        }
+
+        private void sumar(Medicion otra) {
+            total += otra.total;
+            otra.porForma.forEach((forma, n) -> porForma.merge(forma, n, Integer::sum));
+        }
+
+        public int total() {
+            return total;
+        }
+
+        /** Formas ejecutadas más de una vez, de la más repetida a la menos. */
+        public List<Map.Entry<String, Integer>> repetidas() {
+            List<Map.Entry<String, Integer>> repetidas = new ArrayList<>();
+            for (Map.Entry<String, Integer> e : porForma.entrySet()) {
+                if (e.getValue() > 1) {
+                    repetidas.add(Map.entry(e.getKey(), e.getValue()));
+                }
+            }
+            repetidas.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            return repetidas;
+        }
+
+        public String resumen(int maxFormas) {
+            StringBuilder resumen = new StringBuilder().append(total).append(" sentencias");
+            List<Map.Entry<String, Integer>> repetidas = repetidas();
+            for (int i = 0; i < Math.min(maxFormas, repetidas.size()); i++) {
+                resumen.append("\n  ").append(repetidas.get(i).getValue()).append("x ")
+                        .append(repetidas.get(i).getKey());
+            }
+            return resumen.toString();
+        }
+    }
+}
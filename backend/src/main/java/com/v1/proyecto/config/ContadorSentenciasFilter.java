@@ -0,0 +1,59 @@
+package com.v1.proyecto.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Mide las sentencias SQL de cada petición (ver {@link ContadorSentencias}). Va antes que la
+ * cadena de seguridad para incluir las consultas del filtro JWT.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class ContadorSentenciasFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-SQL-Statements";
+
+    private final ContadorSentenciasProperties properties;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        HttpServletResponse salida = response;
+        if (properties.isCabecera()) {
+            // La cabecera tiene que ir antes de que se envíe el cuerpo: se pone al confirmar la respuesta
+            salida = new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    response.setHeader(CABECERA, String.valueOf(medicion.total()));
+                }
+            };
+        }
+        try {
+            filterChain.doFilter(request, salida);
+        } finally {
+            ContadorSentencias.terminar(medicion);
+            if (properties.isCabecera() && !response.isCommitted()) {
+                response.setHeader(CABECERA, String.valueOf(medicion.total()));
+            }
+            if (medicion.total() > properties.getUmbral()) {
+                System.out.println("SQL: " + request.getMethod() + " " + request.getRequestURI() + " ejecutó "
+                        + medicion.resumen(properties.getMaxFormas()));
+            }
+        }
+    }
+}
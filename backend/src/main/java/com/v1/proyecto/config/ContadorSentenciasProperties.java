@@ -0,0 +1,16 @@
+package com.v1.proyecto.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.sql.contador")
+@Data
+public class ContadorSentenciasProperties {
+
+    // Peticiones con más sentencias que esto se registran con sus formas repetidas
+    private int umbral = 30;
+    private int maxFormas = 5;
+
+    // Cabecera X-SQL-Statements en la respuesta; solo en perfiles que no son producción
+    private boolean cabecera = false;
+}
@@ -21,7 +21,7 @@ public class DataSeeder {
         @Bean
         public CommandLineRunner initEncuesta(EncuestaRepository encuestaRepository) {
                 return args -> {
-                        if (encuestaRepository.findByTitulo("Estudio Cáncer Gástrico").isEmpty()) {
+                        if (!encuestaRepository.existsByTitulo("Estudio Cáncer Gástrico")) {
                                 crearEncuestaPredeterminada(encuestaRepository);
                         }
                 };
@@ -0,0 +1,230 @@
+package com.v1.proyecto.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envía las transacciones {@code @Transactional(readOnly = true)} a una réplica disponible y
+ * todo lo demás al primario. Debe usarse detrás de un {@code LazyConnectionDataSourceProxy}:
+ * la conexión real se pide en la primera sentencia, cuando la transacción ya está marcada como
+ * de solo lectura.
+ *
+ * Una réplica deja de recibir lecturas si su retraso supera {@code retrasoMaximo} o si no
+ * responde; sin réplicas disponibles se lee del primario. Después de que un usuario confirma una
+ * transacción de escritura, sus lecturas van al primario durante {@code lecturaPropia} para que
+ * vea lo que acaba de guardar (el registro es por instancia de la aplicación).
+ *
+ * Las cargas de cachés en memoria marcan su transacción con {@link #leerDelPrimario()}: lo que
+ * leen queda guardado hasta la próxima invalidación, y una réplica atrasada (aunque esté dentro
+ * de {@code retrasoMaximo}) dejaría la caché sin los cambios que la invalidaron.
+ */
+public class EnrutamientoDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARIO = "primario";
+
+    // Recursos de la transacción actual en TransactionSynchronizationManager
+    private static final String FORZAR_PRIMARIO = EnrutamientoDataSource.class.getName() + ".forzarPrimario";
+    private static final String EN_REPLICA = EnrutamientoDataSource.class.getName() + ".enReplica";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicasProperties properties;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final Map<String, Long> ultimaEscritura = new ConcurrentHashMap<>();
+    private final Map<String, Counter> destinos = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public EnrutamientoDataSource(DataSource primario, Map<String, DataSource> replicas,
+                                  ReplicasProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        replicas.forEach((nombre, dataSource) -> {
+            Replica replica = new Replica(nombre, dataSource);
+            this.replicas.add(replica);
+            destinos.put(nombre, dataSource);
+            Gauge.builder("db.replica.retraso", replica, r -> r.retrasoS)
+                    .description("Retraso de la réplica en segundos (-1 si no responde)")
+                    .tag("replica", nombre).baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.disponible", replica, r -> r.disponible ? 1 : 0)
+                    .tag("replica", nombre)
+                    .register(meterRegistry);
+        });
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        verificarReplicas();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return contar(PRIMARIO, "sin_transaccion");
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscritura();
+            return contar(PRIMARIO, "escritura");
+        }
+        if (TransactionSynchronizationManager.hasResource(FORZAR_PRIMARIO)) {
+            return contar(PRIMARIO, "forzado");
+        }
+        String usuario = usuarioActual();
+        if (usuario != null) {
+            Long escritura = ultimaEscritura.get(usuario);
+            if (escritura != null && System.currentTimeMillis() - escritura < properties.getLecturaPropia().toMillis()) {
+                return contar(PRIMARIO, "lectura_propia");
+            }
+        }
+        int n = replicas.size();
+        int inicio = Math.floorMod(turno.getAndIncrement(), Math.max(n, 1));
+        for (int i = 0; i < n; i++) {
+            Replica replica = replicas.get((inicio + i) % n);
+            if (replica.disponible) {
+                marcarTransaccion(EN_REPLICA);
+                return contar(replica.nombre, "lectura");
+            }
+        }
+        return contar(PRIMARIO, "sin_replica");
+    }
+
+    /**
+     * Envía al primario las lecturas de la transacción actual. Solo tiene efecto si se llama
+     * antes de la primera sentencia: después la conexión ya está elegida.
+     */
+    public static void leerDelPrimario() {
+        marcarTransaccion(FORZAR_PRIMARIO);
+    }
+
+    /** true si la transacción actual ya obtuvo su conexión de una réplica. */
+    public static boolean leyendoDeReplica() {
+        return TransactionSynchronizationManager.hasResource(EN_REPLICA);
+    }
+
+    @Scheduled(fixedDelayString = "${app.replicas.intervalo-verificacion:5s}")
+    public void verificarReplicas() {
+        for (Replica replica : replicas) {
+            replica.verificar();
+        }
+        long vencidas = System.currentTimeMillis() - properties.getLecturaPropia().toMillis();
+        ultimaEscritura.values().removeIf(momento -> momento < vencidas);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Object dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // La marca se toma al confirmar: un rollback no escribió nada que haya que leer
+    private void registrarEscritura() {
+        String usuario = usuarioActual();
+        if (usuario == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ultimaEscritura.put(usuario, System.currentTimeMillis());
+            }
+        });
+    }
+
+    // La marca vive hasta que termina la transacción (sin transacción no hay nada que enrutar)
+    private static void marcarTransaccion(String clave) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(clave)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(clave, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(clave);
+            }
+        });
+    }
+
+    private String contar(String destino, String motivo) {
+        destinos.computeIfAbsent(destino + "/" + motivo, clave -> Counter.builder("db.enrutamiento")
+                .description("Conexiones entregadas por destino y motivo")
+                .tag("destino", destino.equals(PRIMARIO) ? PRIMARIO : "replica")
+                .tag("motivo", motivo)
+                .register(meterRegistry)).increment();
+        return destino;
+    }
+
+    private static String usuarioActual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private class Replica {
+
+        private final String nombre;
+        private final DataSource dataSource;
+        private volatile boolean disponible;
+        private volatile long retrasoS = -1;
+
+        Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+
+        void verificar() {
+            boolean antes = disponible;
+            String motivo;
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(properties.getConsultaRetraso())) {
+                Object valor = resultSet.next() ? resultSet.getObject(properties.getColumnaRetraso()) : null;
+                if (valor instanceof Number numero) {
+                    retrasoS = numero.longValue();
+                    disponible = retrasoS <= properties.getRetrasoMaximo().toSeconds();
+                    motivo = "retraso de " + retrasoS + " s";
+                } else {
+                    retrasoS = -1;
+                    disponible = false;
+                    motivo = "no está replicando";
+                }
+            } catch (SQLException e) {
+                retrasoS = -1;
+                disponible = false;
+                motivo = e.getMessage();
+            }
+            if (antes != disponible) {
+                System.out.println("Réplica " + nombre + (disponible ? " disponible" : " fuera de rotación") + ": " + motivo);
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.v1.proyecto.config;
+
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.service.EncuestaDefinitionCache;
+import com.v1.proyecto.encuesta.service.FrecuenciaRespuestaService;
+import com.v1.proyecto.paciente.service.PacienteSearchIndex;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Llena la base con un estudio sintético para pruebas de rendimiento: pacientes, encuestadores
+ * y registros (completados y borradores) de la encuesta que crea {@link DataSeeder}. Solo se
+ * activa con el perfil "generador"; desde la línea de comandos:
+ *
+ *   java -jar Proyecto.jar --spring.profiles.active=generador \
+ *        --app.generador.registros=200000 --app.generador.semilla=7 --app.generador.salir=true
+ *
+ * Todo sale de una sola semilla (también las fechas, relativas a fechaFin), así que dos
+ * corridas con la misma configuración producen los mismos datos; si los encuestadores de esa
+ * semilla ya existen no se genera nada. Las filas se insertan con lotes JDBC, una transacción
+ * por cada {@code lote} registros, y al final se reconstruyen los contadores de frecuencia y
+ * el índice de búsqueda de pacientes (los INSERT directos no pasan por los servicios).
+ */
+@Component
+@Profile("generador")
+public class GeneradorDatos {
+
+    private static final String INSERT_USUARIO = "insert into user "
+            + "(name, lastname, email, password, role, enabled, mfa_enabled) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PACIENTE = "insert into paciente (rut, nombre, apellidos, codigo_participante, "
+            + "grupo, fecha_inclusion, fecha_nacimiento, sexo, nacionalidad, comuna, ciudad, zona, nivel_educacional, "
+            + "prevision, diagnostico_cancer) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_REGISTRO = "insert into registro_encuesta "
+            + "(fecha_realizacion, id_paciente, id_usuario, id_encuesta, estado) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_RESPUESTA = "insert into respuesta "
+            + "(id_registro, id_pregunta, id_opcion_seleccionada, valor_texto) values (?, ?, ?, ?)";
+
+    private static final int LOTE_JDBC = 1_000;
+
+    private static final String[] NOMBRES = {"María", "José", "Juan", "Ana", "Luis", "Carmen", "Pedro", "Rosa",
+            "Jorge", "Patricia", "Manuel", "Claudia", "Carlos", "Verónica", "Héctor", "Sonia"};
+    private static final String[] APELLIDOS = {"González", "Muñoz", "Rojas", "Díaz", "Pérez", "Soto", "Contreras",
+            "Silva", "Martínez", "Sepúlveda", "Morales", "Rodríguez", "López", "Fuentes", "Hernández", "Torres"};
+    // Comuna y su ciudad de referencia
+    private static final String[][] COMUNAS = {{"Los Ángeles", "Los Ángeles"}, {"Concepción", "Concepción"},
+            {"Chillán", "Chillán"}, {"Talcahuano", "Concepción"}, {"Mulchén", "Los Ángeles"},
+            {"Nacimiento", "Los Ángeles"}, {"Coronel", "Concepción"}, {"Santa Bárbara", "Los Ángeles"}};
+    private static final String[] EDUCACION = {"Básico", "Medio", "Superior"};
+    private static final String[] PREVISION = {"Fonasa", "Fonasa", "Fonasa", "Isapre", "Capredena/Dipreca"};
+
+    private final GeneradorDatosProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EncuestaRepository encuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final EncuestaDefinitionCache encuestaDefinitionCache;
+    private final PasswordEncoder passwordEncoder;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+    private final PacienteSearchIndex pacienteSearchIndex;
+    private final ApplicationContext context;
+
+    public GeneradorDatos(GeneradorDatosProperties properties,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          EncuestaRepository encuestaRepository,
+                          PreguntaRepository preguntaRepository,
+                          EncuestaDefinitionCache encuestaDefinitionCache,
+                          PasswordEncoder passwordEncoder,
+                          FrecuenciaRespuestaService frecuenciaRespuestaService,
+                          PacienteSearchIndex pacienteSearchIndex,
+                          ApplicationContext context) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.encuestaRepository = encuestaRepository;
+        this.preguntaRepository = preguntaRepository;
+        this.encuestaDefinitionCache = encuestaDefinitionCache;
+        this.passwordEncoder = passwordEncoder;
+        this.frecuenciaRespuestaService = frecuenciaRespuestaService;
+        this.pacienteSearchIndex = pacienteSearchIndex;
+        this.context = context;
+    }
+
+    // Después de los CommandLineRunner: la encuesta predeterminada ya existe
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        generar();
+        if (properties.isSalir()) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    public void generar() {
+        Encuesta encuesta = encuestaRepository.findByTitulo(properties.getTituloEncuesta())
+                .orElseThrow(() -> new RuntimeException("Encuesta no encontrada: " + properties.getTituloEncuesta()));
+        long semilla = properties.getSemilla();
+        if (existe(email(0, semilla))) {
+            System.out.println("Generador: los datos de la semilla " + semilla + " ya existen, no se genera nada.");
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        Random random = new Random(semilla);
+        List<Pregunta> preguntas = preguntaRepository.findConOpcionesByEncuesta(encuesta.getIdEncuesta());
+        GeneradorRespuestas respuestas = new GeneradorRespuestas(preguntas,
+                encuestaDefinitionCache.get(encuesta.getIdEncuesta()), random);
+
+        List<Integer> usuarios = insertarUsuarios(semilla);
+        List<Integer> pacientes = new ArrayList<>();
+        List<Boolean> casos = new ArrayList<>();
+        for (int desde = 0; desde < properties.getPacientes(); desde += properties.getLote()) {
+            List<Object[]> filas = new ArrayList<>();
+            for (int i = desde; i < Math.min(desde + properties.getLote(), properties.getPacientes()); i++) {
+                boolean caso = random.nextDouble() < properties.getProporcionCasos();
+                casos.add(caso);
+                filas.add(paciente(i, caso, semilla, random));
+            }
+            pacientes.addAll(transactionTemplate.execute(tx -> insertar(INSERT_PACIENTE, filas, this::bind)));
+        }
+
+        long filasRespuesta = 0;
+        LocalDateTime fin = properties.getFechaFin().atTime(18, 0);
+        for (int desde = 0; desde < properties.getRegistros(); desde += properties.getLote()) {
+            List<Object[]> registros = new ArrayList<>();
+            List<List<GeneradorRespuestas.Fila>> respuestasPorRegistro = new ArrayList<>();
+            for (int i = desde; i < Math.min(desde + properties.getLote(), properties.getRegistros()); i++) {
+                int p = random.nextInt(pacientes.size());
+                boolean borrador = random.nextDouble() < properties.getProporcionBorradores();
+                LocalDateTime fecha = fin.minusDays(random.nextInt(Math.max(1, properties.getDias())))
+                        .minusMinutes(random.nextInt(10 * 60));
+                registros.add(new Object[]{Timestamp.valueOf(fecha), pacientes.get(p),
+                        usuarios.get(random.nextInt(usuarios.size())), encuesta.getIdEncuesta(),
+                        borrador ? "BORRADOR" : "COMPLETADO"});
+                respuestasPorRegistro.add(respuestas.generar(casos.get(p), borrador));
+            }
+            filasRespuesta += transactionTemplate.execute(tx -> {
+                List<Integer> ids = insertar(INSERT_REGISTRO, registros, this::bind);
+                List<Object[]> filas = new ArrayList<>();
+                for (int r = 0; r < ids.size(); r++) {
+                    for (GeneradorRespuestas.Fila fila : respuestasPorRegistro.get(r)) {
+                        filas.add(new Object[]{ids.get(r), fila.idPregunta(), fila.idOpcion(), fila.valorTexto()});
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_RESPUESTA, filas, LOTE_JDBC, this::bind);
+                return (long) filas.size();
+            });
+        }
+
+        // Los contadores se recalculan desde las respuestas; esto también invalida matriz y cohortes
+        frecuenciaRespuestaService.reconstruirTodo();
+        pacienteSearchIndex.rebuild();
+
+        long total = usuarios.size() + pacientes.size() + properties.getRegistros() + filasRespuesta;
+        double segundos = Math.max(1, System.currentTimeMillis() - inicio) / 1000.0;
+        System.out.printf("Generador (semilla %d): %d usuarios, %d pacientes, %d registros, %d respuestas "
+                        + "en %.1f s (%.0f filas/min).%n", semilla, usuarios.size(), pacientes.size(),
+                properties.getRegistros(), filasRespuesta, segundos, total * 60 / segundos);
+    }
+
+    private List<Integer> insertarUsuarios(long semilla) {
+        String hash = passwordEncoder.encode(properties.getPassword());
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < properties.getUsuarios(); i++) {
+            filas.add(new Object[]{"Encuestador", String.valueOf(i + 1), email(i, semilla), hash, "USER", true, false});
+        }
+        return transactionTemplate.execute(tx -> insertar(INSERT_USUARIO, filas, this::bind));
+    }
+
+    private Object[] paciente(int i, boolean caso, long semilla, Random random) {
+        String[] comuna = COMUNAS[random.nextInt(COMUNAS.length)];
+        // Predominio masculino en los casos, como en el cáncer gástrico
+        String sexo = random.nextDouble() < (caso ? 0.65 : 0.5) ? "Hombre" : "Mujer";
+        LocalDate inclusion = properties.getFechaFin().minusDays(random.nextInt(Math.max(1, properties.getDias())));
+        LocalDate nacimiento = inclusion.minusYears(40 + random.nextInt(45)).minusDays(random.nextInt(365));
+        return new Object[]{rut(semilla, i), NOMBRES[random.nextInt(NOMBRES.length)],
+                APELLIDOS[random.nextInt(APELLIDOS.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)],
+                "S" + semilla + "-" + (i + 1), caso ? "CASO" : "CONTROL", Date.valueOf(inclusion),
+                Date.valueOf(nacimiento), sexo, "Chilena", comuna[0], comuna[1],
+                random.nextDouble() < 0.35 ? "Rural" : "Urbana", EDUCACION[random.nextInt(EDUCACION.length)],
+                PREVISION[random.nextInt(PREVISION.length)], caso};
+    }
+
+    // RUT con dígito verificador válido; el cuerpo depende de la semilla para no chocar entre corridas
+    static String rut(long semilla, int i) {
+        long cuerpo = 30_000_000L + Math.floorMod(semilla * 1_000_003L, 1_000) * 100_000L + i;
+        int suma = 0;
+        int factor = 2;
+        for (long n = cuerpo; n > 0; n /= 10) {
+            suma += (int) (n % 10) * factor;
+            factor = factor == 7 ? 2 : factor + 1;
+        }
+        int dv = 11 - suma % 11;
+        return cuerpo + "-" + (dv == 11 ? "0" : dv == 10 ? "K" : String.valueOf(dv));
+    }
+
+    private static String email(int i, long semilla) {
+        return "encuestador" + (i + 1) + ".s" + semilla + "@sintetico.local";
+    }
+
+    private boolean existe(String email) {
+        Integer n = jdbcTemplate.queryForObject("select count(*) from user where email = ?", Integer.class, email);
+        return n != null && n > 0;
+    }
+
+    // INSERT por lotes devolviendo los ids generados, en el orden de las filas
+    private <T> List<Integer> insertar(String sql, List<T> filas, ParameterizedPreparedStatementSetter<T> setter) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (T fila : filas) {
+                    setter.setValues(ps, fila);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> ids = new ArrayList<>(filas.size());
+                try (ResultSet claves = ps.getGeneratedKeys()) {
+                    while (claves.next()) {
+                        ids.add(claves.getInt(1));
+                    }
+                }
+                if (ids.size() != filas.size()) {
+                    throw new IllegalStateException("El driver devolvió " + ids.size() + " ids para "
+                            + filas.size() + " filas insertadas.");
+                }
+                return ids;
+            }
+        });
+    }
+
+    private void bind(PreparedStatement ps, Object[] valores) throws SQLException {
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] == null) {
+                ps.setNull(i + 1, Types.NULL);
+            } else {
+                ps.setObject(i + 1, valores[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.v1.proyecto.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDate;
+
+/**
+ * Tamaño y forma del estudio sintético que crea {@link GeneradorDatos} (perfil "generador").
+ * La misma semilla con los mismos valores produce exactamente los mismos datos.
+ */
+@ConfigurationProperties(prefix = "app.generador")
+@Data
+public class GeneradorDatosProperties {
+
+    private long semilla = 42;
+    private int pacientes = 1_000;
+    private int usuarios = 20;
+    private int registros = 10_000;
+
+    // Encuesta a llenar; por defecto la que crea DataSeeder
+    private String tituloEncuesta = "Estudio Cáncer Gástrico";
+
+    // Fracción de pacientes en el grupo CASO y de registros que quedan como borrador
+    private double proporcionCasos = 0.33;
+    private double proporcionBorradores = 0.1;
+
+    // Las fechas de realización se reparten en los días anteriores a fechaFin (fija, para reproducir)
+    private LocalDate fechaFin = LocalDate.of(2025, 12, 31);
+    private int dias = 365;
+
+    // Registros por transacción; sus respuestas van en el mismo bloque
+    private int lote = 1_000;
+
+    // Contraseña de los encuestadores generados (encuestadorN.sSEMILLA@sintetico.local)
+    private String password = "sintetico123";
+
+    // Cierra la aplicación al terminar (uso como herramienta de línea de comandos)
+    private boolean salir = false;
+}
@@ -0,0 +1,138 @@
+package com.v1.proyecto.config;
+
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.service.SkipLogicGraph;
+
+import java.util.*;
+
+/**
+ * Respuestas sintéticas para una encuesta. Cada pregunta de selección recibe una distribución
+ * sesgada (pesos 1, 1/2, 1/3... en orden aleatorio) y, para los casos, una opción "de riesgo"
+ * con más peso que en los controles, de modo que las asociaciones caso-control no salgan
+ * planas. Las preguntas numéricas siguen una normal con media propia.
+ *
+ * Respeta la lógica de salto con el mismo {@link SkipLogicGraph} que valida los registros:
+ * solo se responden preguntas alcanzables y un completado tiene todas sus obligatorias.
+ * Un borrador queda cortado en algún punto del recorrido.
+ */
+class GeneradorRespuestas {
+
+    private static final String[] TEXTOS = {
+            "Sin antecedentes", "No sabe", "Gastritis crónica", "Úlcera péptica", "Hipertensión",
+            "Diabetes tipo 2", "Ninguna", "Consumo ocasional", "Trabajo agrícola", "Comerciante"
+    };
+
+    private final Random random;
+    private final SkipLogicGraph grafo;
+    private final List<Modelo> modelos;
+
+    GeneradorRespuestas(List<Pregunta> preguntas, SkipLogicGraph grafo, Random random) {
+        this.random = random;
+        this.grafo = grafo;
+        List<Pregunta> ordenadas = new ArrayList<>(preguntas);
+        ordenadas.sort(Comparator.comparing(Pregunta::getIdPregunta));
+        this.modelos = ordenadas.stream().map(this::modelo).toList();
+    }
+
+    record Fila(Integer idPregunta, Integer idOpcion, String valorTexto) {
+    }
+
+    List<Fila> generar(boolean caso, boolean borrador) {
+        // Primero se decide qué responde cada pregunta (las opcionales a veces quedan en blanco) y
+        // después el grafo dice cuáles vio el encuestado, igual que al guardar un registro
+        Map<Integer, List<Fila>> porPregunta = new HashMap<>();
+        Map<Integer, List<Integer>> opciones = new HashMap<>();
+        for (Modelo m : modelos) {
+            if (m.obligatoria || random.nextDouble() < m.tasaRespuesta) {
+                List<Fila> filas = m.responder(caso);
+                porPregunta.put(m.idPregunta, filas);
+                opciones.put(m.idPregunta, filas.stream().map(Fila::idOpcion).filter(Objects::nonNull).toList());
+            }
+        }
+        Set<Integer> alcanzables = grafo.alcanzables(opciones);
+
+        List<Modelo> recorrido = modelos.stream().filter(m -> alcanzables.contains(m.idPregunta)).toList();
+        int hasta = borrador ? random.nextInt(recorrido.size() + 1) : recorrido.size();
+        List<Fila> resultado = new ArrayList<>();
+        for (Modelo m : recorrido.subList(0, hasta)) {
+            resultado.addAll(porPregunta.getOrDefault(m.idPregunta, List.of()));
+        }
+        return resultado;
+    }
+
+    private Modelo modelo(Pregunta pregunta) {
+        List<OpcionRespuesta> opciones = pregunta.getOpciones() == null ? List.of() : pregunta.getOpciones();
+        Modelo m = new Modelo();
+        m.idPregunta = pregunta.getIdPregunta();
+        m.obligatoria = pregunta.isObligatoria();
+        m.tipo = pregunta.getTipoPregunta() == null ? "" : pregunta.getTipoPregunta();
+        m.opciones = opciones.stream().map(OpcionRespuesta::getIdOpcion).toArray(Integer[]::new);
+        m.tasaRespuesta = opciones.isEmpty() ? 0.6 : 0.85;
+        if (!opciones.isEmpty()) {
+            List<Double> pesos = new ArrayList<>();
+            for (int k = 0; k < opciones.size(); k++) {
+                pesos.add(1.0 / (k + 1));
+            }
+            Collections.shuffle(pesos, random);
+            m.pesosControl = pesos.stream().mapToDouble(Double::doubleValue).toArray();
+            m.pesosCaso = m.pesosControl.clone();
+            m.pesosCaso[random.nextInt(opciones.size())] *= 1 + 1.5 * random.nextDouble();
+        }
+        m.media = 20 + 60 * random.nextDouble();
+        return m;
+    }
+
+    private final class Modelo {
+        Integer idPregunta;
+        boolean obligatoria;
+        String tipo;
+        Integer[] opciones;
+        double[] pesosControl;
+        double[] pesosCaso;
+        double tasaRespuesta;
+        double media;
+
+        List<Fila> responder(boolean caso) {
+            if (opciones.length > 0) {
+                double[] pesos = caso ? pesosCaso : pesosControl;
+                if (tipo.contains("MULTIPLE")) {
+                    return multiple(pesos);
+                }
+                return List.of(new Fila(idPregunta, opciones[elegir(pesos)], null));
+            }
+            if ("NUMERO".equals(tipo)) {
+                long valor = Math.max(0, Math.round(media + media * 0.25 * random.nextGaussian()));
+                return List.of(new Fila(idPregunta, null, String.valueOf(valor)));
+            }
+            return List.of(new Fila(idPregunta, null, TEXTOS[random.nextInt(TEXTOS.length)]));
+        }
+
+        // Cada opción se marca por separado, con al menos una
+        private List<Fila> multiple(double[] pesos) {
+            double total = Arrays.stream(pesos).sum();
+            List<Fila> filas = new ArrayList<>();
+            for (int k = 0; k < opciones.length; k++) {
+                if (random.nextDouble() < Math.min(0.9, 1.5 * pesos[k] / total)) {
+                    filas.add(new Fila(idPregunta, opciones[k], null));
+                }
+            }
+            if (filas.isEmpty()) {
+                filas.add(new Fila(idPregunta, opciones[elegir(pesos)], null));
+            }
+            return filas;
+        }
+
+        private int elegir(double[] pesos) {
+            double total = Arrays.stream(pesos).sum();
+            double r = random.nextDouble() * total;
+            for (int k = 0; k < pesos.length; k++) {
+                r -= pesos[k];
+                if (r < 0) {
+                    return k;
+                }
+            }
+            return pesos.length - 1;
+        }
+    }
+}
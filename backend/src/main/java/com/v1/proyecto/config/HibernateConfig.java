@@ -0,0 +1,29 @@
+package com.v1.proyecto.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+
+@Configuration
+public class HibernateConfig {
+
+    // Sin medición abierta el inspector solo devuelve el SQL tal cual
+    @Bean
+    public HibernatePropertiesCustomizer contadorSentencias() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorSentencias());
+    }
+
+    // Regiones de la caché de segundo nivel en hibernate-cache.conf. Cada SessionFactory recibe su
+    // propio CacheManager (de un proveedor nuevo, no el compartido por la JVM) y Hibernate lo cierra
+    // con ella: dos contextos en la misma JVM, como en los tests, no comparten entradas
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel() {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, new CaffeineCachingProvider()
+                .getCacheManager(URI.create("classpath:hibernate-cache.conf"), getClass().getClassLoader()));
+    }
+}
@@ -0,0 +1,92 @@
+package com.v1.proyecto.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Con hilos virtuales (spring.threads.virtual.enabled=true) Tomcat ya no limita cuántas
+ * peticiones corren a la vez. Este filtro devuelve ese límite en función del pool de Hikari:
+ * a lo más {@code peticionesPorConexion} por conexión; el resto espera un cupo hasta
+ * {@code esperaMs} y después recibe 503 con Retry-After, en vez de agotar el pool. Va antes
+ * de la cadena de seguridad porque el filtro JWT ya consulta la base de datos.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class LimiteConcurrenciaFilter extends OncePerRequestFilter {
+
+    private final Semaphore cupos;
+    private final int maximo;
+    private final long esperaMs;
+    private final Counter rechazos;
+
+    public LimiteConcurrenciaFilter(ConcurrenciaProperties properties,
+                                    @Value("${spring.datasource.hikari.maximum-pool-size:10}") int tamanoPool,
+                                    MeterRegistry meterRegistry) {
+        this.maximo = properties.getMaximo() > 0
+                ? properties.getMaximo()
+                : tamanoPool * properties.getPeticionesPorConexion();
+        this.cupos = new Semaphore(maximo, true);
+        this.esperaMs = properties.getEsperaMs();
+        this.rechazos = Counter.builder("http.concurrencia.rechazos")
+                .description("Peticiones rechazadas con 503 por falta de cupo")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrencia.activas", cupos, s -> maximo - s.availablePermits())
+                .description("Peticiones en curso bajo el límite de concurrencia")
+                .register(meterRegistry);
+        System.out.println("Límite de concurrencia con hilos virtuales: " + maximo + " peticiones simultáneas.");
+    }
+
+    // Health y métricas tienen que responder aunque la aplicación esté saturada
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean adquirido;
+        try {
+            adquirido = cupos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            adquirido = false;
+        }
+        if (!adquirido) {
+            rechazos.increment();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servidor ocupado, reintente en un momento.");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            cupos.release();
+        }
+    }
+
+    int disponibles() {
+        return cupos.availablePermits();
+    }
+}
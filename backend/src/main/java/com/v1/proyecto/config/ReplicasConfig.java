@@ -0,0 +1,75 @@
+package com.v1.proyecto.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de lectura (app.replicas.habilitado=true). El primario se sigue configurando con
+ * spring.datasource.* y spring.datasource.hikari.*; cada réplica tiene su propio pool.
+ * Con réplicas open-in-view queda desactivado ({@link ReplicasEnvironmentPostProcessor}).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.replicas", name = "habilitado", havingValue = "true")
+public class ReplicasConfig {
+
+    @Bean
+    public EnrutamientoDataSource enrutamientoDataSource(DataSourceProperties dataSourceProperties,
+                                                         ReplicasProperties replicasProperties,
+                                                         Environment environment,
+                                                         MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metricas = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primario = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+        primario.setPoolName(EnrutamientoDataSource.PRIMARIO);
+        primario.setMetricsTrackerFactory(metricas);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicasProperties.Nodo> nodos = replicasProperties.getNodos();
+        for (int i = 0; i < nodos.size(); i++) {
+            ReplicasProperties.Nodo nodo = nodos.get(i);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(nodo.getUrl());
+            replica.setDriverClassName(primario.getDriverClassName());
+            replica.setUsername(nodo.getUsername() != null ? nodo.getUsername() : primario.getUsername());
+            replica.setPassword(nodo.getPassword() != null ? nodo.getPassword() : primario.getPassword());
+            replica.setMaximumPoolSize(nodo.getMaximoConexiones());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(metricas);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new EnrutamientoDataSource(primario, replicas, replicasProperties, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutamientoDataSource enrutamientoDataSource) {
+        return new LazyConnectionDataSourceProxy(enrutamientoDataSource);
+    }
+
+    // La salud de la base es la del primario: una réplica caída no deja la aplicación DOWN porque
+    // sus lecturas pasan al primario (el estado de cada réplica está en db.replica.disponible)
+    @Bean
+    public HealthIndicator dbHealthIndicator(DataSource dataSource) {
+        return new DataSourceHealthIndicator(dataSource);
+    }
+}
@@ -0,0 +1,26 @@
+package com.v1.proyecto.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Con réplicas se desactiva open-in-view: la sesión de Hibernate retiene su conexión hasta que
+ * se cierra, y con la sesión abierta toda la petición una escritura posterior a una lectura
+ * terminaría en la réplica. Sin open-in-view cada transacción usa su propia sesión y conexión.
+ */
+public class ReplicasEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String FUENTE = "replicasSinOpenInView";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.getProperty("app.replicas.habilitado", Boolean.class, false)) {
+            environment.getPropertySources().addFirst(
+                    new MapPropertySource(FUENTE, Map.of("spring.jpa.open-in-view", "false")));
+        }
+    }
+}
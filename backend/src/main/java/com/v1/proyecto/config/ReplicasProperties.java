@@ -0,0 +1,37 @@
+package com.v1.proyecto.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.replicas")
+@Data
+public class ReplicasProperties {
+
+    // Sin réplicas todo el tráfico va al primario (spring.datasource.*)
+    private boolean habilitado = false;
+    private List<Nodo> nodos = new ArrayList<>();
+
+    // Una réplica más atrasada que esto deja de recibir lecturas hasta ponerse al día
+    private Duration retrasoMaximo = Duration.ofSeconds(5);
+    private Duration intervaloVerificacion = Duration.ofSeconds(5);
+
+    // Tras un commit propio, las lecturas del mismo usuario van al primario durante este tiempo
+    private Duration lecturaPropia = Duration.ofSeconds(5);
+
+    // Consulta que devuelve el retraso en segundos (columna nula o sin filas: la réplica no replica)
+    private String consultaRetraso = "SHOW REPLICA STATUS";
+    private String columnaRetraso = "Seconds_Behind_Source";
+
+    @Data
+    public static class Nodo {
+        private String url;
+        // Si faltan se usan las credenciales del primario
+        private String username;
+        private String password;
+        private int maximoConexiones = 10;
+    }
+}
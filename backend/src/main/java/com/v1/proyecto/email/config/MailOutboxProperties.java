@@ -0,0 +1,29 @@
+package com.v1.proyecto.email.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.mail.outbox")
+@Data
+public class MailOutboxProperties {
+
+    // Mensajes enviados por conexión SMTP
+    private int batchSize = 20;
+
+    // Hilos que hablan con el servidor SMTP y lotes que pueden esperar en memoria
+    private int workers = 2;
+    private int queueCapacity = 4;
+
+    // Reintentos con backoff exponencial: initialBackoff, x2, x4... hasta maxBackoff
+    private int maxAttempts = 6;
+    private Duration initialBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofHours(1);
+
+    // Tiempo tras el cual un mensaje en SENDING se considera abandonado
+    private Duration claimTimeout = Duration.ofMinutes(5);
+
+    // Los mensajes terminados (SENT/FAILED) se borran pasado este tiempo: el cuerpo lleva códigos 2FA y enlaces de recuperación
+    private Duration retention = Duration.ofHours(24);
+}
@@ -0,0 +1,94 @@
+package com.v1.proyecto.email.repository;
+
+import com.v1.proyecto.email.model.OutboxEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    // SELECT ... FOR UPDATE SKIP LOCKED: dos instancias nunca toman el mismo mensaje
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select m from OutboxEmail m
+            where m.status = com.v1.proyecto.email.model.OutboxEmail.Status.PENDING
+            and m.nextAttemptAt <= :now
+            order by m.id asc
+            """)
+    List<OutboxEmail> findDueForUpdate(@Param("now") LocalDateTime now, Limit limit);
+
+    long countByStatus(OutboxEmail.Status status);
+
+    // Al empezar a enviar se renueva la toma; los mensajes que ya tomó otro worker no se tocan
+    @Modifying
+    @Query("""
+            update OutboxEmail m set m.claimedAt = :now
+            where m.id in :ids and m.claimToken = :token
+            and m.status = com.v1.proyecto.email.model.OutboxEmail.Status.SENDING
+            """)
+    int renewClaims(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    @Query("""
+            select m.id from OutboxEmail m
+            where m.id in :ids and m.claimToken = :token
+            and m.status = com.v1.proyecto.email.model.OutboxEmail.Status.SENDING
+            """)
+    List<Long> findClaimedIds(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
+    @Modifying
+    @Query("""
+            update OutboxEmail m set m.status = com.v1.proyecto.email.model.OutboxEmail.Status.SENT,
+            m.sentAt = :now, m.lastError = null
+            where m.id in :ids and m.claimToken = :token
+            """)
+    int markSent(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+            update OutboxEmail m set m.status = :status, m.attempts = :attempts, m.lastError = :lastError,
+            m.nextAttemptAt = :nextAttemptAt, m.claimedAt = null, m.claimToken = null
+            where m.id = :id and m.claimToken = :token
+            """)
+    int reschedule(@Param("id") Long id, @Param("token") String token,
+            @Param("status") OutboxEmail.Status status, @Param("attempts") int attempts,
+            @Param("lastError") String lastError, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("""
+            update OutboxEmail m set m.status = com.v1.proyecto.email.model.OutboxEmail.Status.PENDING,
+            m.claimedAt = null, m.claimToken = null
+            where m.id in :ids and m.claimToken = :token
+            """)
+    int releaseClaims(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
+    // Mensajes que quedaron en SENDING (la instancia murió a mitad de envío) vuelven a la cola
+    @Modifying
+    @Query("""
+            update OutboxEmail m set m.status = com.v1.proyecto.email.model.OutboxEmail.Status.PENDING
+            where m.status = com.v1.proyecto.email.model.OutboxEmail.Status.SENDING and m.claimedAt < :before
+            """)
+    int releaseStaleClaims(@Param("before") LocalDateTime before);
+
+    // Retención: los mensajes terminados no se guardan en claro indefinidamente
+    @Modifying
+    @Query("""
+            delete from OutboxEmail m
+            where m.status in (com.v1.proyecto.email.model.OutboxEmail.Status.SENT,
+            com.v1.proyecto.email.model.OutboxEmail.Status.FAILED)
+            and m.createdAt < :before
+            """)
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
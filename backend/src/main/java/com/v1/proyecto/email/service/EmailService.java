@@ -1,38 +1,31 @@
 package com.v1.proyecto.email.service;
 
+import com.v1.proyecto.email.model.OutboxEmail;
+import com.v1.proyecto.email.repository.OutboxEmailRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    // Inyecta el valor en application.properties
-    @Value("${spring.mail.username}")
-    private String remitente;
+    private final OutboxEmailRepository outboxEmailRepository;
 
-    @Async
+    // Solo encola el correo en mail_outbox (en la misma transacción del llamador);
+    // MailDispatcher lo envía en segundo plano, por lotes y con reintentos.
+    @Transactional
     public void sendEmail(String to, String subject, String body) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-
-            // USAMOS LA VARIABLE INYECTADA AQUÍ
-            message.setFrom(remitente);
-
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-
-            mailSender.send(message);
-            System.out.println("Correo enviado exitosamente a: " + to);
-        } catch (Exception e) {
-            System.err.println("Error al enviar correo: " + e.getMessage());
-        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxEmailRepository.save(OutboxEmail.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(body)
+                .status(OutboxEmail.Status.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
     }
 }
@@ -0,0 +1,268 @@
+package com.v1.proyecto.email.service;
+
+import com.v1.proyecto.email.config.MailOutboxProperties;
+import com.v1.proyecto.email.model.OutboxEmail;
+import com.v1.proyecto.email.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vacía la tabla mail_outbox: toma lotes de mensajes vencidos, los envía con un pool de
+ * workers acotado (una conexión SMTP por lote) y reprograma los fallidos con backoff exponencial.
+ * Los mensajes terminados se borran al cumplir la retención configurada.
+ */
+@Component
+public class MailDispatcher implements DisposableBean {
+
+    private final OutboxEmailRepository repository;
+    private final JavaMailSender mailSender;
+    private final MailOutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final String remitente;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong pendingMessages = new AtomicLong();
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public MailDispatcher(OutboxEmailRepository repository,
+            JavaMailSender mailSender,
+            MailOutboxProperties properties,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${spring.mail.username}") String remitente) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.remitente = remitente;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-outbox-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("mail.outbox.pending", pendingMessages, AtomicLong::get)
+                .description("Correos pendientes en mail_outbox")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.queue", executor, e -> e.getQueue().size())
+                .description("Lotes tomados esperando un worker SMTP")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("mail.outbox.send")
+                .description("Latencia de envío de un lote SMTP")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sentCounter = meterRegistry.counter("mail.outbox.messages", "result", "sent");
+        this.retriedCounter = meterRegistry.counter("mail.outbox.messages", "result", "retried");
+        this.failedCounter = meterRegistry.counter("mail.outbox.messages", "result", "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(
+                status -> repository.releaseStaleClaims(now.minus(properties.getClaimTimeout())));
+
+        // Solo el hilo del scheduler encola, así que la capacidad no cambia entre el chequeo y el execute
+        while (executor.getQueue().remainingCapacity() > 0) {
+            List<OutboxEmail> batch = claimBatch();
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                executor.execute(() -> sendBatch(batch));
+            } catch (RejectedExecutionException e) {
+                release(batch);
+                break;
+            }
+        }
+        pendingMessages.set(repository.countByStatus(OutboxEmail.Status.PENDING));
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.purge-interval:1h}")
+    public void purgeFinished() {
+        LocalDateTime before = LocalDateTime.now().minus(properties.getRetention());
+        Integer deleted = transactionTemplate.execute(status -> repository.deleteFinishedBefore(before));
+        if (deleted != null && deleted > 0) {
+            System.out.println("Correos terminados eliminados de mail_outbox: " + deleted);
+        }
+    }
+
+    private List<OutboxEmail> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            String token = UUID.randomUUID().toString();
+            List<OutboxEmail> batch = repository.findDueForUpdate(now, Limit.of(properties.getBatchSize()));
+            for (OutboxEmail email : batch) {
+                email.setStatus(OutboxEmail.Status.SENDING);
+                email.setClaimedAt(now);
+                email.setClaimToken(token);
+            }
+            return batch;
+        });
+    }
+
+    void sendBatch(List<OutboxEmail> claimed) {
+        // El lote pudo esperar en la cola más que claimTimeout: solo se envía lo que sigue siendo nuestro
+        List<OutboxEmail> batch = renewClaims(claimed);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<SimpleMailMessage, OutboxEmail> byMessage = new IdentityHashMap<>();
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(remitente);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+            byMessage.put(message, email);
+        }
+
+        Map<OutboxEmail, Exception> failures = new IdentityHashMap<>();
+        long start = System.nanoTime();
+        try {
+            // JavaMailSenderImpl abre una sola conexión para todo el arreglo
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                batch.forEach(email -> failures.put(email, e));
+            } else {
+                e.getFailedMessages().forEach((message, error) -> {
+                    OutboxEmail email = byMessage.get(message);
+                    if (email != null) {
+                        failures.put(email, error);
+                    }
+                });
+            }
+        } catch (MailException e) {
+            batch.forEach(email -> failures.put(email, e));
+        } finally {
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        recordResults(batch, failures);
+    }
+
+    private List<OutboxEmail> renewClaims(List<OutboxEmail> batch) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        String token = batch.get(0).getClaimToken();
+        List<Long> ids = batch.stream().map(OutboxEmail::getId).toList();
+        return transactionTemplate.execute(status -> {
+            if (repository.renewClaims(ids, token, LocalDateTime.now()) == batch.size()) {
+                return batch;
+            }
+            Set<Long> owned = Set.copyOf(repository.findClaimedIds(ids, token));
+            System.out.println("Correos tomados por otro worker, no se envían: " + (batch.size() - owned.size()));
+            return batch.stream().filter(email -> owned.contains(email.getId())).toList();
+        });
+    }
+
+    private void recordResults(List<OutboxEmail> batch, Map<OutboxEmail, Exception> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>();
+        List<OutboxEmail> failed = new ArrayList<>();
+        for (OutboxEmail email : batch) {
+            Exception error = failures.get(email);
+            if (error == null) {
+                sentIds.add(email.getId());
+                continue;
+            }
+            email.setAttempts(email.getAttempts() + 1);
+            email.setLastError(truncate(error.getMessage()));
+            email.setClaimedAt(null);
+            if (email.getAttempts() >= properties.getMaxAttempts()) {
+                email.setStatus(OutboxEmail.Status.FAILED);
+                failedCounter.increment();
+                System.err.println("Correo descartado tras " + email.getAttempts() + " intentos: "
+                        + email.getRecipient() + " - " + email.getLastError());
+            } else {
+                email.setStatus(OutboxEmail.Status.PENDING);
+                email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                retriedCounter.increment();
+            }
+            failed.add(email);
+        }
+
+        // Todas las escrituras llevan el token: si la toma se perdió, no pisan el estado del nuevo dueño
+        String token = batch.get(0).getClaimToken();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                repository.markSent(sentIds, token, now);
+            }
+            for (OutboxEmail email : failed) {
+                repository.reschedule(email.getId(), token, email.getStatus(), email.getAttempts(),
+                        email.getLastError(), email.getNextAttemptAt());
+            }
+        });
+        sentCounter.increment(sentIds.size());
+    }
+
+    private void release(List<OutboxEmail> batch) {
+        String token = batch.get(0).getClaimToken();
+        List<Long> ids = batch.stream().map(OutboxEmail::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> repository.releaseClaims(ids, token));
+    }
+
+    // initialBackoff * 2^(intentos-1), con tope en maxBackoff
+    Duration backoff(int attempts) {
+        Duration delay = properties.getInitialBackoff();
+        for (int i = 1; i < attempts && delay.compareTo(properties.getMaxBackoff()) < 0; i++) {
+            delay = delay.multipliedBy(2);
+        }
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -2,20 +2,30 @@ package com.v1.proyecto.encuesta.controller;
 
 import com.v1.proyecto.auth.model.Users;
 import com.v1.proyecto.encuesta.dto.*;
+import com.v1.proyecto.encuesta.service.BorradorAutosaveBuffer;
+import com.v1.proyecto.encuesta.service.EncuestaDefinicionService;
 import com.v1.proyecto.encuesta.service.EncuestaService;
+import com.v1.proyecto.encuesta.service.EstadisticaService;
+import com.v1.proyecto.encuesta.service.CohorteService;
 import com.v1.proyecto.encuesta.service.ExportService;
+import com.v1.proyecto.encuesta.service.MatrizRespuestasService;
+import com.v1.proyecto.encuesta.service.FrecuenciaRespuestaService;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/v1/encuestas")
 @RequiredArgsConstructor
@@ -23,6 +33,12 @@ public class EncuestaController {
 
     private final EncuestaService encuestaService;
     private final ExportService exportService;
+    private final BorradorAutosaveBuffer borradorAutosaveBuffer;
+    private final EncuestaDefinicionService encuestaDefinicionService;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+    private final EstadisticaService estadisticaService;
+    private final MatrizRespuestasService matrizRespuestasService;
+    private final CohorteService cohorteService;
 
     // ---ENCUESTA--
 
@@ -49,8 +65,9 @@ public class EncuestaController {
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN', 'ANALISTA', 'INVESTIGADOR')")
-    public ResponseEntity<java.util.List<EncuestaResponseDto>> getAllEncuestas() {
-        return ResponseEntity.ok(encuestaService.getAllEncuestas());
+    public ResponseEntity<java.util.List<EncuestaResponseDto>> getAllEncuestas(
+            @RequestParam(name = "incluirAnteriores", defaultValue = "false") boolean incluirAnteriores) {
+        return ResponseEntity.ok(encuestaService.getAllEncuestas(incluirAnteriores));
     }
 
     /**
@@ -82,42 +99,121 @@ public class EncuestaController {
         return ResponseEntity.ok(encuestaActualizada); // Devuelve 200 OK
     }
 
+    /**
+     * Edición masiva de la definición (preguntas, opciones y saltos) en una sola llamada.
+     * Se envía la definición completa; solo se escribe lo que cambió.
+     * URL: PUT /api/v1/encuestas/{id}/definicion
+     */
+    @PutMapping("/{id}/definicion")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<?> updateDefinicion(
+            @PathVariable(name = "id") Integer id,
+            @Valid @RequestBody EncuestaCreateDto encuestaDto) {
+        try {
+            return ResponseEntity.ok(encuestaDefinicionService.updateDefinicion(id, encuestaDto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // 409: revisión vieja
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * Publicar una versión: desde ahora es inmutable y editarla crea una versión nueva
+     * URL: POST /api/v1/encuestas/{id}/publicar
+     */
+    @PostMapping("/{id}/publicar")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<?> publicarEncuesta(@PathVariable(name = "id") Integer id) {
+        try {
+            return ResponseEntity.ok(encuestaService.publicarEncuesta(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
     // ---PREGUNTA---
 
     /**
      * actualizar pregunta URL: PUT /api/v1/encuestas/preguntas/{id}
+     * Si la versión era inmutable, la respuesta trae la pregunta copiada (idPregunta e idEncuesta
+     * nuevos, versionNueva = true).
      */
     @PutMapping("/preguntas/{id}")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<PreguntaDto> updatePregunta(
+    public ResponseEntity<?> updatePregunta(
             @PathVariable(name = "id") Integer idPregunta,
             @Valid @RequestBody PreguntaCreateDto preguntaDto) {
-
-        PreguntaDto preguntaActualizada = encuestaService.updatePregunta(idPregunta, preguntaDto);
-        return ResponseEntity.ok(preguntaActualizada);
+        try {
+            PreguntaDto preguntaActualizada = encuestaService.updatePregunta(idPregunta, preguntaDto);
+            return ResponseEntity.ok(preguntaActualizada);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // 409: versión reemplazada
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
     }
 
     /**
      * añade pregunta a una encuesta URL: POST /api/v1/encuestas/preguntas
+     * Igual que al editar: idEncuesta de la respuesta indica la versión donde quedó la pregunta.
      */
     @PostMapping("/{idEncuesta}/preguntas")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<PreguntaDto> addPreguntaToEncuesta(
+    public ResponseEntity<?> addPreguntaToEncuesta(
             @PathVariable(name = "idEncuesta") Integer idEncuesta,
             @Valid @RequestBody PreguntaCreateDto preguntaDto) {
-        PreguntaDto nuevaPregunta = encuestaService.addPreguntaToEncuesta(idEncuesta, preguntaDto);
-        return new ResponseEntity<>(nuevaPregunta, HttpStatus.CREATED);
+        try {
+            PreguntaDto nuevaPregunta = encuestaService.addPreguntaToEncuesta(idEncuesta, preguntaDto);
+            return new ResponseEntity<>(nuevaPregunta, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // 409: versión reemplazada
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
     }
 
     /**
-     * Obtener todos los registros (respuestas) de una encuesta específica.
+     * Obtener los registros (respuestas) de una encuesta específica.
      * URL: GET /api/v1/encuestas/{id}/registros
+     *
+     * Sin parámetros devuelve la lista completa (compatibilidad). Con limit, cursor o algún
+     * filtro (estado, desde, hasta, idUsuario, idPaciente) devuelve una página ordenada por
+     * idRegistro. fields=respuestas incluye las respuestas; con fields sin "respuestas"
+     * (p. ej. fields=resumen) se omiten.
      */
     @GetMapping("/{id}/registros")
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
-    public ResponseEntity<java.util.List<RegistroCompletoResponseDto>> getRegistrosByEncuesta(
-            @PathVariable(name = "id") Integer idEncuesta) {
-        return ResponseEntity.ok(encuestaService.getRegistrosByEncuesta(idEncuesta));
+    public ResponseEntity<?> getRegistrosByEncuesta(
+            @PathVariable(name = "id") Integer idEncuesta,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) Integer cursor,
+            @RequestParam(name = "estado", required = false) String estado,
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(name = "idUsuario", required = false) Integer idUsuario,
+            @RequestParam(name = "idPaciente", required = false) Integer idPaciente,
+            @RequestParam(name = "fields", required = false) java.util.List<String> fields) {
+        RegistroFiltroDto filtro = RegistroFiltroDto.builder()
+                .estado(estado)
+                .desde(desde)
+                .hasta(hasta)
+                .idUsuario(idUsuario)
+                .idPaciente(idPaciente)
+                .build();
+        boolean paginado = limit != null || cursor != null || !filtro.equals(new RegistroFiltroDto());
+        if (!paginado && fields == null) {
+            return ResponseEntity.ok(encuestaService.getRegistrosByEncuesta(idEncuesta));
+        }
+        boolean incluirRespuestas = fields == null || fields.contains("respuestas");
+        return ResponseEntity.ok(encuestaService.getRegistrosByEncuestaPage(
+                idEncuesta, filtro, cursor, limit, incluirRespuestas));
     }
 
     /**
@@ -126,16 +222,22 @@ public class EncuestaController {
      */
     @PostMapping("/registro")
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
-    public ResponseEntity<RegistroResponseDto> saveRegistroEncuesta(
+    public ResponseEntity<?> saveRegistroEncuesta(
             @Valid @RequestBody RegistroRequestDto registroDto,
             @AuthenticationPrincipal Users user) {
         if (user == null) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
-
-        RegistroResponseDto respuesta = encuestaService.saveRegistro(registroDto, user);
-        return new ResponseEntity<>(respuesta, HttpStatus.CREATED);
-        // TODO: Manejar excepciones
+        try {
+            RegistroResponseDto respuesta = encuestaService.saveRegistro(registroDto, user);
+            return new ResponseEntity<>(respuesta, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400: faltan obligatorias
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // 409: versión reemplazada
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
     }
 
     /**
@@ -159,19 +261,95 @@ public class EncuestaController {
     @GetMapping("/registro/{id}")
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
     public ResponseEntity<RegistroCompletoResponseDto> getRegistroById(@PathVariable Integer id) {
+        // Un borrador se lee con sus autoguardados pendientes ya escritos
+        borradorAutosaveBuffer.flush(id);
         return ResponseEntity.ok(encuestaService.getRegistroById(id));
     }
 
+    /**
+     * URL: PATCH /api/v1/encuestas/registro/{id}/borrador
+     * Autoguardado de un borrador: solo las preguntas que cambiaron. Cada entrada reemplaza
+     * las respuestas de su pregunta; una entrada sin opción ni texto la deja sin responder.
+     * Los cambios se agrupan en el servidor y se escriben en segundo plano (202).
+     */
+    @PatchMapping("/registro/{id}/borrador")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
+    public ResponseEntity<?> patchBorrador(
+            @PathVariable Integer id,
+            @Valid @RequestBody BorradorPatchDto dto,
+            @AuthenticationPrincipal Users user) {
+        if (user == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            borradorAutosaveBuffer.patch(id, user, dto.getRespuestas());
+            return ResponseEntity.accepted().build(); // 202 Accepted
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // 409: ya finalizado
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage()); // 403 Forbidden
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * URL: POST /api/v1/encuestas/registro/{id}/finalizar
+     * Finaliza el borrador en el mismo registro (sin reenviar todas las respuestas).
+     */
+    @PostMapping("/registro/{id}/finalizar")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
+    public ResponseEntity<?> finalizarBorrador(
+            @PathVariable Integer id,
+            @AuthenticationPrincipal Users user) {
+        if (user == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            return ResponseEntity.ok(borradorAutosaveBuffer.finalizar(id, user));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400: faltan obligatorias
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
+    }
+
+    /**
+     * URL: GET /api/v1/encuestas/registro/{id}/respuestas
+     * Respuestas de un registro (expansión de la línea de tiempo del paciente en modo resumen).
+     */
+    @GetMapping("/registro/{id}/respuestas")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
+    public ResponseEntity<java.util.List<RespuestaDetalladaDto>> getRespuestasDeRegistro(@PathVariable Integer id) {
+        try {
+            return ResponseEntity.ok(encuestaService.getRespuestasDeRegistro(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * elimina una pregunta URL: DELETE /api/v1/encuestas/preguntas/{id}
+     * 204 si se borró en la misma versión; 200 con {"idEncuesta": n} si se borró en una versión nueva.
      */
     @DeleteMapping("/preguntas/{id}")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Void> deletePregunta(
+    public ResponseEntity<?> deletePregunta(
             @PathVariable(name = "id") Integer idPregunta) {
         try {
-            encuestaService.deletePregunta(idPregunta);
+            Integer versionNueva = encuestaService.deletePregunta(idPregunta);
+            if (versionNueva != null) {
+                return ResponseEntity.ok(java.util.Map.of("idEncuesta", versionNueva));
+            }
             return ResponseEntity.noContent().build(); // 204 (Éxito)
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // 409: versión reemplazada
         } catch (RuntimeException e) {
             // Captura el "Pregunta no encontrada" del servicio
             return ResponseEntity.notFound().build(); // 404 Not Found
@@ -273,4 +451,176 @@ public class EncuestaController {
                 .contentType(MediaType.parseMediaType("text/csv"))
                 .body(file);
     }
-}
\ No newline at end of file
+
+    /**
+     * EXPORTAR RESPUESTAS CODIFICADAS (registros completados) DESDE LA MATRIZ EN MEMORIA
+     * URL: GET /api/v1/encuestas/{id}/export/codificado
+     */
+    @GetMapping("/{id}/export/codificado")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> exportarCodificado(
+            @PathVariable(name = "id") Integer id,
+            @AuthenticationPrincipal Users user) {
+        try {
+            String filename = "encuesta_" + id + "_codificada.csv";
+            InputStreamResource file = new InputStreamResource(exportService.generateCsvCodificado(id, user.getRole()));
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .body(file);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    // ---ESTADÍSTICAS---
+
+    /**
+     * Frecuencia de cada opción por pregunta y por grupo (CASO/CONTROL), solo registros completados
+     * URL: GET /api/v1/encuestas/{id}/frecuencias
+     */
+    @GetMapping("/{id}/frecuencias")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> getFrecuencias(@PathVariable(name = "id") Integer id) {
+        try {
+            return ResponseEntity.ok(frecuenciaRespuestaService.getFrecuencias(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * Recalcular los contadores de frecuencia desde las respuestas
+     * URL: POST /api/v1/encuestas/{id}/frecuencias/reconstruir
+     */
+    @PostMapping("/{id}/frecuencias/reconstruir")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<?> reconstruirFrecuencias(@PathVariable(name = "id") Integer id) {
+        try {
+            return ResponseEntity.ok(java.util.Map.of("filas", frecuenciaRespuestaService.reconstruir(id)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * Tabla 2×k caso/control, odds ratios (IC 95%) y chi-cuadrado de cada pregunta codificable
+     * URL: GET /api/v1/encuestas/{id}/asociaciones
+     */
+    @GetMapping("/{id}/asociaciones")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> getAsociaciones(@PathVariable(name = "id") Integer id) {
+        try {
+            return ResponseEntity.ok(estadisticaService.getAsociaciones(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * Lo mismo para una pregunta; referencia = código contra el que se calculan los odds ratios
+     * URL: GET /api/v1/encuestas/{id}/preguntas/{idPregunta}/asociacion?referencia=0
+     */
+    @GetMapping("/{id}/preguntas/{idPregunta}/asociacion")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> getAsociacion(
+            @PathVariable(name = "id") Integer id,
+            @PathVariable(name = "idPregunta") Integer idPregunta,
+            @RequestParam(name = "referencia", required = false) Integer referencia) {
+        try {
+            return ResponseEntity.ok(estadisticaService.getAsociacion(id, idPregunta, referencia));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * Frecuencias de una pregunta solo en los registros que cumplen las condiciones
+     * (p. ej. condicion=3:12&condicion=5:20) y/o son de un grupo, desde la matriz en memoria
+     * URL: GET /api/v1/encuestas/{id}/matriz/preguntas/{idPregunta}/frecuencias?grupo=CASO&condicion=3:12
+     */
+    @GetMapping("/{id}/matriz/preguntas/{idPregunta}/frecuencias")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> getFrecuenciasFiltradas(
+            @PathVariable(name = "id") Integer id,
+            @PathVariable(name = "idPregunta") Integer idPregunta,
+            @RequestParam(name = "grupo", required = false) String grupo,
+            @RequestParam(name = "condicion", required = false) java.util.List<String> condiciones) {
+        try {
+            return ResponseEntity.ok(matrizRespuestasService.getFrecuencias(id, idPregunta, grupo, condiciones));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    // ---COHORTES---
+
+    /**
+     * Tamaño de una cohorte (registros, pacientes, casos y controles)
+     * URL: POST /api/v1/encuestas/{id}/cohortes/conteo
+     * Body: {"todos": [{"atributo": "grupo", "valor": "CASO"}, {"idPregunta": 3, "idOpcion": 12}]}
+     */
+    @PostMapping("/{id}/cohortes/conteo")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> contarCohorte(
+            @PathVariable(name = "id") Integer id,
+            @RequestBody(required = false) CohorteFiltroDto filtro) {
+        try {
+            return ResponseEntity.ok(cohorteService.contar(id, filtro));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * Registros y pacientes de una cohorte, paginados por idRegistro
+     * URL: POST /api/v1/encuestas/{id}/cohortes/registros?limit=1000&afterId=
+     */
+    @PostMapping("/{id}/cohortes/registros")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> getRegistrosCohorte(
+            @PathVariable(name = "id") Integer id,
+            @RequestParam(name = "afterId", required = false) Integer afterId,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestBody(required = false) CohorteFiltroDto filtro) {
+        try {
+            return ResponseEntity.ok(cohorteService.getRegistros(id, filtro, afterId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+
+    /**
+     * Exportación codificada (CSV) de los registros de una cohorte
+     * URL: POST /api/v1/encuestas/{id}/cohortes/export
+     */
+    @PostMapping("/{id}/cohortes/export")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'ANALISTA', 'INVESTIGADOR')")
+    public ResponseEntity<?> exportarCohorte(
+            @PathVariable(name = "id") Integer id,
+            @RequestBody(required = false) CohorteFiltroDto filtro,
+            @AuthenticationPrincipal Users user) {
+        try {
+            String filename = "encuesta_" + id + "_cohorte.csv";
+            InputStreamResource file = new InputStreamResource(cohorteService.exportar(id, filtro, user.getRole()));
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .body(file);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage()); // 400 Bad Request
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()); // 404 Not Found
+        }
+    }
+}
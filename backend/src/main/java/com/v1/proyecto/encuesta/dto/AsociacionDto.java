@@ -0,0 +1,33 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsociacionDto {
+    private Integer idPregunta;
+    private String textoPregunta;
+
+    // Tabla 2×k: una columna por código de respuesta (en orden)
+    private int[] codigos;
+    private List<String> etiquetas;
+    private int[] casos;
+    private int[] controles;
+
+    private int codigoReferencia;
+    private List<OddsRatioDto> oddsRatios;
+
+    private Double chiCuadrado; // null si falta un grupo o hay menos de dos códigos
+    private int gradosLibertad;
+    private Double valorP;
+    private boolean frecuenciasEsperadasBajas; // alguna frecuencia esperada < 5
+
+    private long marcaDatos; // versión de los datos con que se calculó
+}
@@ -0,0 +1,25 @@
+package com.v1.proyecto.encuesta.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Cambios de un autoguardado. Las respuestas se agrupan por idPregunta y reemplazan a las
+ * guardadas para esa pregunta (varias entradas = selección múltiple). Una entrada sin opción
+ * ni texto borra la respuesta de esa pregunta. Las preguntas que no aparecen no se tocan.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BorradorPatchDto {
+    @NotNull
+    @Valid
+    private List<RespuestaRequestDto> respuestas;
+}
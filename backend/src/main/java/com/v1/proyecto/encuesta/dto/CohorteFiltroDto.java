@@ -0,0 +1,28 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Nodo de una expresión de cohorte. Cada nodo usa exactamente una de sus formas:
+ * - {"todos": [...]} intersección, {"alguno": [...]} unión, {"no": {...}} complemento;
+ * - {"idPregunta": 3, "idOpcion": 12} registros que eligieron la opción;
+ * - {"atributo": "grupo" | "sexo" | "zona" | "comuna", "valor": "CASO"} atributo del paciente.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohorteFiltroDto {
+    private List<CohorteFiltroDto> todos;
+    private List<CohorteFiltroDto> alguno;
+    private CohorteFiltroDto no;
+    private Integer idPregunta;
+    private Integer idOpcion;
+    private String atributo;
+    private String valor;
+}
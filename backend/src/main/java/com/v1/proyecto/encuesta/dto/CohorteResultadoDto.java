@@ -0,0 +1,22 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohorteResultadoDto {
+    private int registros; // registros completados que cumplen el filtro
+    private int pacientes; // pacientes distintos entre esos registros
+    private int casos;
+    private int controles;
+    private List<Integer> idsRegistro; // solo al pedir ids: página ordenada por idRegistro
+    private List<Integer> idsPaciente; // paciente de cada idRegistro, en el mismo orden
+    private Integer nextCursor; // idRegistro desde el que pedir la página siguiente (null si no hay más)
+}
@@ -16,5 +16,7 @@ public class EncuestaCreateDto {
     @NotBlank
     private String titulo;
     private String version;
+    // Edición masiva: si se envía, debe coincidir con la revisión guardada (si no, 409)
+    private Integer revision;
     private List<PreguntaCreateDto> preguntas; // Lista de preguntas para esta encuesta
 }
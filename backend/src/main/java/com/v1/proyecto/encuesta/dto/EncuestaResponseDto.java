@@ -15,6 +15,10 @@ public class EncuestaResponseDto {
     private Integer idEncuesta;
     private String titulo;
     private String version;
+    private Integer revision;
+    private Boolean publicada;
+    private Integer idEncuestaAnterior; // Versión que esta reemplaza (null si es la primera)
+    private Boolean vigente; // false: reemplazada; sus registros siguen consultándose por su id
     private List<PreguntaDto> preguntas;
   
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FrecuenciaOpcionDto {
+    private Integer idOpcion;
+    private String textoOpcion;
+    private long total;
+    private Map<String, Long> porGrupo; // "CASO", "CONTROL", "SIN_GRUPO" -> registros completados
+}
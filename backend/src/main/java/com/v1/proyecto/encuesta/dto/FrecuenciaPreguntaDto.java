@@ -0,0 +1,20 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FrecuenciaPreguntaDto {
+    private Integer idPregunta;
+    private String textoPregunta;
+    private String tipoPregunta;
+    private List<FrecuenciaOpcionDto> opciones; // vacía en preguntas de texto libre
+    private Integer registros; // registros que cumplen el filtro (solo consultas sobre la matriz)
+}
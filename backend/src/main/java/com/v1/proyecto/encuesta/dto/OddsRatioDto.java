@@ -0,0 +1,19 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OddsRatioDto {
+    private int codigo; // código expuesto, comparado contra el de referencia
+    private String etiqueta;
+    private double oddsRatio;
+    private double icInferior; // IC 95% (Woolf)
+    private double icSuperior;
+    private boolean correccionHaldane; // había una celda en 0: se sumó 0,5 a las cuatro
+}
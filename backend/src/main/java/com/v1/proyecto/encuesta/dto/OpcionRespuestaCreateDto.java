@@ -13,4 +13,6 @@ public class OpcionRespuestaCreateDto {
     private String textoOpcion;
     private Integer valorDicotomizado; // Opcional
     private Integer idPreguntaDestino; // ID de la pregunta a la que saltar
+    private Integer idOpcion; // Edición masiva: opción existente (null = nueva)
+    private Integer indicePreguntaDestino; // Edición masiva: salto a una pregunta nueva, por su posición en la lista
 }
@@ -12,6 +12,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PreguntaCreateDto {
+    private Integer idPregunta; // Edición masiva: pregunta existente (null = nueva)
     private String textoPregunta;
     private String tipoPregunta;
     private List<OpcionRespuestaCreateDto> opciones;
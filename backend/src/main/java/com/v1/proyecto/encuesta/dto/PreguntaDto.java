@@ -18,4 +18,8 @@ public class PreguntaDto {
     private boolean obligatoria;
     private boolean oculta;
     private List<OpcionRespuestaDto> opciones;
+    // Versión de la encuesta a la que pertenece la pregunta; tras una edición puede ser una versión nueva
+    private Integer idEncuesta;
+    // true si la edición copió la encuesta a una versión nueva: el cliente debe seguir con idEncuesta
+    private boolean versionNueva;
 }
\ No newline at end of file
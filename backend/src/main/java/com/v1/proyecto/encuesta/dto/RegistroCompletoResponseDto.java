@@ -20,5 +20,6 @@ public class RegistroCompletoResponseDto {
     private String tituloEncuesta;
     private LocalDateTime fechaRealizacion;
     private String usuarioNombre; // El médico/usuario que llenó la encuesta
+    private String estado; // 'COMPLETADO', 'BORRADOR'
     private List<RespuestaDetalladaDto> respuestas;
 }
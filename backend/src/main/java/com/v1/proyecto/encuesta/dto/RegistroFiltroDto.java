@@ -0,0 +1,20 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistroFiltroDto {
+    private String estado; // 'COMPLETADO', 'BORRADOR'
+    private LocalDate desde; // fechaRealizacion >= desde (inclusive)
+    private LocalDate hasta; // fechaRealizacion <= hasta (día completo)
+    private Integer idUsuario;
+    private Integer idPaciente;
+}
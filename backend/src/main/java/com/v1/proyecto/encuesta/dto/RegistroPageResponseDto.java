@@ -0,0 +1,18 @@
+package com.v1.proyecto.encuesta.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistroPageResponseDto {
+    private List<RegistroCompletoResponseDto> items;
+    private Integer nextCursor; // idRegistro desde el que pedir la página siguiente (null si no hay más)
+    private boolean hasMore;
+}
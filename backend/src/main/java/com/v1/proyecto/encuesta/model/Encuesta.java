@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList; 
 import java.util.List;
 
@@ -14,6 +16,7 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "encuesta")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "encuesta")
 public class Encuesta {
 
     @Id
@@ -26,7 +29,25 @@ public class Encuesta {
 
     private String version;
 
+    // Se incrementa una vez por cada edición de la definición (preguntas, opciones o saltos)
+    @Column(name = "revision", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private int revision;
+
+    // Una versión publicada (o con registros) es inmutable: editarla crea una versión nueva
+    @Column(name = "publicada", nullable = false, columnDefinition = "BOOLEAN DEFAULT false")
+    private boolean publicada;
+
+    // Solo la última versión de cada encuesta se ofrece para nuevos registros
+    @Column(name = "vigente", nullable = false, columnDefinition = "BOOLEAN DEFAULT true")
+    @Builder.Default
+    private boolean vigente = true;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_encuesta_anterior")
+    private Encuesta encuestaAnterior;
+
     @OneToMany(mappedBy = "encuesta", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "encuesta-preguntas")
     @Builder.Default 
     private List<Pregunta> preguntas = new ArrayList<>(); 
 
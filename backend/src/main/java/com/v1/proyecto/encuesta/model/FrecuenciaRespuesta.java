@@ -0,0 +1,54 @@
+package com.v1.proyecto.encuesta.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Contador de cuántos registros COMPLETADOS eligieron una opción, por grupo del paciente.
+ * Se mantiene en la misma transacción que guarda/edita las respuestas; los ids se guardan
+ * como columnas simples (sin FK) para no bloquear el borrado de encuestas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(FrecuenciaRespuesta.Clave.class)
+@Table(name = "frecuencia_respuesta", indexes = {
+        @Index(name = "idx_frecuencia_respuesta_encuesta", columnList = "id_encuesta")
+})
+public class FrecuenciaRespuesta {
+
+    // Pacientes sin grupo asignado (la columna es parte de la clave y no admite null)
+    public static final String SIN_GRUPO = "SIN_GRUPO";
+
+    @Id
+    @Column(name = "id_opcion")
+    private Integer idOpcion;
+
+    @Id
+    @Column(name = "grupo")
+    private String grupo;
+
+    @Column(name = "id_pregunta", nullable = false)
+    private Integer idPregunta;
+
+    @Column(name = "id_encuesta", nullable = false)
+    private Integer idEncuesta;
+
+    @Column(name = "conteo", nullable = false)
+    private long conteo;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Integer idOpcion;
+        private String grupo;
+    }
+}
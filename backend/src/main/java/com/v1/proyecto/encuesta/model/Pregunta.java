@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Data
@@ -14,6 +16,7 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "pregunta")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pregunta")
 public class Pregunta {
 
     @Id
@@ -35,6 +38,7 @@ public class Pregunta {
                                                                                                                // ¡AÑADE
                                                                                                                // ORPHAN
                                                                                                                // REMOVAL!
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pregunta-opciones")
     private List<OpcionRespuesta> opciones;
 
     @Column(name = "obligatoria", nullable = false, columnDefinition = "BOOLEAN DEFAULT false")
@@ -15,7 +15,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "registro_encuesta")
+@Table(name = "registro_encuesta", indexes = {
+        // Listado de registros por encuesta filtrado por estado y rango de fechas
+        @Index(name = "idx_registro_encuesta_estado_fecha", columnList = "id_encuesta, estado, fecha_realizacion")
+})
 public class RegistroEncuesta {
 
     @Id
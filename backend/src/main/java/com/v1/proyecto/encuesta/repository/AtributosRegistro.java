@@ -0,0 +1,19 @@
+package com.v1.proyecto.encuesta.repository;
+
+/**
+ * Registro completado con los atributos del paciente por los que se filtran cohortes.
+ */
+public interface AtributosRegistro {
+
+    Integer getIdRegistro();
+
+    Integer getIdPaciente();
+
+    String getGrupo();
+
+    String getSexo();
+
+    String getZona();
+
+    String getComuna();
+}
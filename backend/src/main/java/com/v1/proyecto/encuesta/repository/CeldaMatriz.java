@@ -0,0 +1,18 @@
+package com.v1.proyecto.encuesta.repository;
+
+/**
+ * Una respuesta de un registro completado, reducida a lo que guarda la matriz columnar.
+ * idPregunta es null en registros sin respuestas (la fila existe igual).
+ */
+public interface CeldaMatriz {
+
+    Integer getIdRegistro();
+
+    String getGrupo();
+
+    Integer getIdPregunta();
+
+    Integer getIdOpcion();
+
+    String getValorTexto();
+}
@@ -2,9 +2,26 @@ package com.v1.proyecto.encuesta.repository;
 
 import com.v1.proyecto.encuesta.model.Encuesta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface EncuestaRepository extends JpaRepository<Encuesta, Integer> {
     java.util.Optional<Encuesta> findByTitulo(String titulo);
+
+    // Una encuesta con varias versiones comparte el título
+    boolean existsByTitulo(String titulo);
+
+    java.util.List<Encuesta> findByVigenteTrue();
+
+    // Compare-and-set: el UPDATE bloquea la fila y vuelve a evaluar vigente con el último commit
+    @Modifying
+    @Query("update Encuesta e set e.vigente = false where e.idEncuesta = :idEncuesta and e.vigente = true")
+    int retirarVersion(@Param("idEncuesta") Integer idEncuesta);
+
+    @Modifying
+    @Query("update Encuesta e set e.encuestaAnterior = null where e.encuestaAnterior.idEncuesta = :idEncuesta")
+    int desvincularVersionAnterior(@Param("idEncuesta") Integer idEncuesta);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.v1.proyecto.encuesta.repository;
+
+/**
+ * Conteo de respuestas por opción y grupo del paciente, calculado con GROUP BY.
+ */
+public interface FrecuenciaAgrupada {
+
+    Integer getIdEncuesta();
+
+    Integer getIdPregunta();
+
+    Integer getIdOpcion();
+
+    String getGrupo();
+
+    Long getConteo();
+}
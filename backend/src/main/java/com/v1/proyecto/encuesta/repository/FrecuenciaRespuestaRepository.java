@@ -0,0 +1,21 @@
+package com.v1.proyecto.encuesta.repository;
+
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FrecuenciaRespuestaRepository
+        extends JpaRepository<FrecuenciaRespuesta, FrecuenciaRespuesta.Clave> {
+
+    List<FrecuenciaRespuesta> findByIdEncuesta(Integer idEncuesta);
+
+    @Modifying
+    @Query("delete from FrecuenciaRespuesta f where f.idEncuesta = :idEncuesta")
+    int deleteByIdEncuesta(@Param("idEncuesta") Integer idEncuesta);
+}
@@ -0,0 +1,14 @@
+package com.v1.proyecto.encuesta.repository;
+
+/**
+ * Un salto "si se elige la opción X de la pregunta origen, ir a la pregunta destino",
+ * solo con los ids (sin cargar las entidades).
+ */
+public interface LogicaSaltoArista {
+
+    Integer getIdPreguntaOrigen();
+
+    Integer getIdOpcionOrigen();
+
+    Integer getIdPreguntaDestino();
+}
@@ -2,12 +2,30 @@ package com.v1.proyecto.encuesta.repository;
 
 import com.v1.proyecto.encuesta.model.LogicaSalto;
 import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface LogicaSaltoRepository extends JpaRepository<LogicaSalto, Integer> {
+    // Se llama una vez por opción al armar cada pregunta: el resultado (solo ids) va a la caché de
+    // consultas y las entidades a la de segundo nivel; cualquier escritura en logica_salto la invalida
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<LogicaSalto> findByOpcionOrigen(OpcionRespuesta opcionOrigen);
+
+    List<LogicaSalto> findByPreguntaOrigenEncuestaIdEncuesta(Integer idEncuesta);
+
+    // Todos los saltos de una encuesta en una consulta, para compilar su grafo
+    @Query("select l.preguntaOrigen.idPregunta as idPreguntaOrigen, o.idOpcion as idOpcionOrigen, "
+            + "l.preguntaDestino.idPregunta as idPreguntaDestino "
+            + "from LogicaSalto l join l.opcionOrigen o "
+            + "where l.preguntaOrigen.encuesta.idEncuesta = :idEncuesta order by l.idLogica")
+    List<LogicaSaltoArista> findAristasByEncuesta(@Param("idEncuesta") Integer idEncuesta);
 }
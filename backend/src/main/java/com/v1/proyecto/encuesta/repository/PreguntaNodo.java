@@ -0,0 +1,15 @@
+package com.v1.proyecto.encuesta.repository;
+
+/**
+ * Datos mínimos de una pregunta para compilar la lógica de salto de su encuesta.
+ */
+public interface PreguntaNodo {
+
+    Integer getIdPregunta();
+
+    String getTipoPregunta();
+
+    Boolean getObligatoria();
+
+    Boolean getOculta();
+}
@@ -1,6 +1,25 @@
 package com.v1.proyecto.encuesta.repository;
 import com.v1.proyecto.encuesta.model.Pregunta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
 @Repository
-public interface PreguntaRepository extends JpaRepository<Pregunta, Integer> {}
\ No newline at end of file
+public interface PreguntaRepository extends JpaRepository<Pregunta, Integer> {
+
+    // Preguntas de una encuesta en el orden del formulario (por idPregunta), sin opciones
+    @Query("select p.idPregunta as idPregunta, p.tipoPregunta as tipoPregunta, "
+            + "p.obligatoria as obligatoria, p.oculta as oculta "
+            + "from Pregunta p where p.encuesta.idEncuesta = :idEncuesta order by p.idPregunta")
+    List<PreguntaNodo> findNodosByEncuesta(@Param("idEncuesta") Integer idEncuesta);
+
+    // Definición completa para la edición masiva: preguntas con sus opciones en una consulta
+    @Query("select distinct p from Pregunta p left join fetch p.opciones "
+            + "where p.encuesta.idEncuesta = :idEncuesta order by p.idPregunta")
+    List<Pregunta> findConOpcionesByEncuesta(@Param("idEncuesta") Integer idEncuesta);
+
+    boolean existsByIdPreguntaAndEncuestaIdEncuesta(Integer idPregunta, Integer idEncuesta);
+}
@@ -1,10 +1,16 @@
 package com.v1.proyecto.encuesta.repository;
 
 import com.v1.proyecto.encuesta.model.RegistroEncuesta;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface RegistroEncuestaRepository extends JpaRepository<RegistroEncuesta, Integer> {
@@ -17,5 +23,67 @@ public interface RegistroEncuestaRepository extends JpaRepository<RegistroEncues
 
     boolean existsByEncuestaIdEncuestaAndUsuarioId(Integer idEncuesta, Integer idUsuario);
 
+    boolean existsByEncuestaIdEncuesta(Integer idEncuesta);
+
     List<RegistroEncuesta> findByUsuarioIdAndEstado(Integer idUsuario, String estado);
-}
\ No newline at end of file
+
+    // Línea de tiempo del paciente: una sola consulta con paciente, encuesta y usuario por JOIN
+    @Query("select r.idRegistro as idRegistro, p.idPaciente as idPaciente, p.nombre as nombrePaciente, "
+            + "p.apellidos as apellidosPaciente, e.idEncuesta as idEncuesta, e.titulo as tituloEncuesta, "
+            + "r.fechaRealizacion as fechaRealizacion, u.email as usuarioNombre, r.estado as estado "
+            + "from RegistroEncuesta r join r.paciente p join r.encuesta e join r.usuario u "
+            + "where p.idPaciente = :idPaciente "
+            + "order by r.fechaRealizacion desc, r.idRegistro desc")
+    List<RegistroResumen> findResumenByPaciente(@Param("idPaciente") Integer idPaciente);
+
+    // Registros de una encuesta paginados por idRegistro (keyset); los filtros nulos no se aplican
+    @Query("select r.idRegistro as idRegistro, p.idPaciente as idPaciente, p.nombre as nombrePaciente, "
+            + "p.apellidos as apellidosPaciente, e.idEncuesta as idEncuesta, e.titulo as tituloEncuesta, "
+            + "r.fechaRealizacion as fechaRealizacion, u.email as usuarioNombre, r.estado as estado "
+            + "from RegistroEncuesta r join r.paciente p join r.encuesta e join r.usuario u "
+            + "where e.idEncuesta = :idEncuesta and r.idRegistro > :afterId "
+            + "and (:estado is null or r.estado = :estado) "
+            + "and (:desde is null or r.fechaRealizacion >= :desde) "
+            + "and (:hasta is null or r.fechaRealizacion < :hasta) "
+            + "and (:idUsuario is null or u.id = :idUsuario) "
+            + "and (:idPaciente is null or p.idPaciente = :idPaciente) "
+            + "order by r.idRegistro asc")
+    List<RegistroResumen> findResumenByEncuesta(@Param("idEncuesta") Integer idEncuesta,
+                                                @Param("afterId") Integer afterId,
+                                                @Param("estado") String estado,
+                                                @Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta,
+                                                @Param("idUsuario") Integer idUsuario,
+                                                @Param("idPaciente") Integer idPaciente,
+                                                Limit limit);
+
+    // Matriz columnar: todas las respuestas de los registros completados, por registro
+    @Query("select r.idRegistro as idRegistro, p.grupo as grupo, q.idPregunta as idPregunta, "
+            + "o.idOpcion as idOpcion, res.valorTexto as valorTexto "
+            + "from RegistroEncuesta r join r.paciente p left join r.respuestas res "
+            + "left join res.pregunta q left join res.opcionSeleccionada o "
+            + "where r.encuesta.idEncuesta = :idEncuesta and r.estado = 'COMPLETADO' "
+            + "order by r.idRegistro")
+    Stream<CeldaMatriz> streamCeldasByEncuesta(@Param("idEncuesta") Integer idEncuesta);
+
+    @Query("select r.idRegistro as idRegistro, p.grupo as grupo, q.idPregunta as idPregunta, "
+            + "o.idOpcion as idOpcion, res.valorTexto as valorTexto "
+            + "from RegistroEncuesta r join r.paciente p left join r.respuestas res "
+            + "left join res.pregunta q left join res.opcionSeleccionada o "
+            + "where r.idRegistro in :idsRegistro and r.estado = 'COMPLETADO' "
+            + "order by r.idRegistro")
+    List<CeldaMatriz> findCeldasByRegistroIds(@Param("idsRegistro") Collection<Integer> idsRegistro);
+
+    // Índice de cohortes: atributos del paciente de cada registro completado
+    @Query("select r.idRegistro as idRegistro, p.idPaciente as idPaciente, p.grupo as grupo, "
+            + "p.sexo as sexo, p.zona as zona, p.comuna as comuna "
+            + "from RegistroEncuesta r join r.paciente p "
+            + "where r.encuesta.idEncuesta = :idEncuesta and r.estado = 'COMPLETADO'")
+    Stream<AtributosRegistro> streamAtributosByEncuesta(@Param("idEncuesta") Integer idEncuesta);
+
+    @Query("select r.idRegistro as idRegistro, p.idPaciente as idPaciente, p.grupo as grupo, "
+            + "p.sexo as sexo, p.zona as zona, p.comuna as comuna "
+            + "from RegistroEncuesta r join r.paciente p "
+            + "where r.idRegistro in :idsRegistro and r.estado = 'COMPLETADO'")
+    List<AtributosRegistro> findAtributosByRegistroIds(@Param("idsRegistro") Collection<Integer> idsRegistro);
+}
@@ -0,0 +1,28 @@
+package com.v1.proyecto.encuesta.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de un registro con los datos de paciente, encuesta y usuario ya resueltos
+ * por JOIN (sin cargar las entidades asociadas).
+ */
+public interface RegistroResumen {
+
+    Integer getIdRegistro();
+
+    Integer getIdPaciente();
+
+    String getNombrePaciente();
+
+    String getApellidosPaciente();
+
+    Integer getIdEncuesta();
+
+    String getTituloEncuesta();
+
+    LocalDateTime getFechaRealizacion();
+
+    String getUsuarioNombre();
+
+    String getEstado();
+}
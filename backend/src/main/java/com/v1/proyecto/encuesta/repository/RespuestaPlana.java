@@ -0,0 +1,21 @@
+package com.v1.proyecto.encuesta.repository;
+
+/**
+ * Respuesta con el texto de su pregunta y de la opción elegida, resuelta en una sola consulta.
+ */
+public interface RespuestaPlana {
+
+    Integer getIdRegistro();
+
+    Integer getIdRespuesta();
+
+    Integer getIdPregunta();
+
+    String getTextoPregunta();
+
+    String getValorTexto();
+
+    Integer getIdOpcion();
+
+    String getTextoOpcion();
+}
@@ -2,9 +2,47 @@ package com.v1.proyecto.encuesta.repository;
 
 import com.v1.proyecto.encuesta.model.Respuesta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface RespuestaRepository extends JpaRepository<Respuesta, Integer> {
 
+    // Todas las respuestas de varios registros en una consulta (pregunta y opción por JOIN)
+    @Query("select r.registroEncuesta.idRegistro as idRegistro, r.idRespuesta as idRespuesta, "
+            + "q.idPregunta as idPregunta, q.textoPregunta as textoPregunta, r.valorTexto as valorTexto, "
+            + "o.idOpcion as idOpcion, o.textoOpcion as textoOpcion "
+            + "from Respuesta r join r.pregunta q left join r.opcionSeleccionada o "
+            + "where r.registroEncuesta.idRegistro in :idsRegistro "
+            + "order by r.registroEncuesta.idRegistro, r.idRespuesta")
+    List<RespuestaPlana> findPlanasByRegistroIds(@Param("idsRegistro") Collection<Integer> idsRegistro);
+
+    // Autoguardado de borradores: solo las respuestas de las preguntas que cambiaron
+    List<Respuesta> findByRegistroEncuestaIdRegistroAndPreguntaIdPreguntaIn(Integer idRegistro,
+                                                                           Collection<Integer> idsPregunta);
+
+    // Opciones elegidas de un registro, para recorrer la lógica de salto al finalizar
+    @Query("select r.idRespuesta as idRespuesta, r.pregunta.idPregunta as idPregunta, o.idOpcion as idOpcion "
+            + "from Respuesta r left join r.opcionSeleccionada o "
+            + "where r.registroEncuesta.idRegistro = :idRegistro")
+    List<RespuestaSeleccion> findSeleccionesByRegistro(@Param("idRegistro") Integer idRegistro);
+
+    // Reconstrucción de los contadores de frecuencia: solo registros COMPLETADOS
+    @Query("select re.encuesta.idEncuesta as idEncuesta, o.pregunta.idPregunta as idPregunta, "
+            + "o.idOpcion as idOpcion, pa.grupo as grupo, count(r) as conteo "
+            + "from Respuesta r join r.opcionSeleccionada o join r.registroEncuesta re join re.paciente pa "
+            + "where re.encuesta.idEncuesta = :idEncuesta and re.estado = 'COMPLETADO' "
+            + "group by re.encuesta.idEncuesta, o.pregunta.idPregunta, o.idOpcion, pa.grupo")
+    List<FrecuenciaAgrupada> contarFrecuencias(@Param("idEncuesta") Integer idEncuesta);
+
+    @Query("select re.encuesta.idEncuesta as idEncuesta, o.pregunta.idPregunta as idPregunta, "
+            + "o.idOpcion as idOpcion, pa.grupo as grupo, count(r) as conteo "
+            + "from Respuesta r join r.opcionSeleccionada o join r.registroEncuesta re join re.paciente pa "
+            + "where re.estado = 'COMPLETADO' "
+            + "group by re.encuesta.idEncuesta, o.pregunta.idPregunta, o.idOpcion, pa.grupo")
+    List<FrecuenciaAgrupada> contarFrecuencias();
 }
@@ -0,0 +1,13 @@
+package com.v1.proyecto.encuesta.repository;
+
+/**
+ * Respuesta reducida a sus ids (idOpcion es null en respuestas de texto).
+ */
+public interface RespuestaSeleccion {
+
+    Integer getIdRespuesta();
+
+    Integer getIdPregunta();
+
+    Integer getIdOpcion();
+}
@@ -0,0 +1,185 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.encuesta.dto.RegistroResponseDto;
+import com.v1.proyecto.encuesta.dto.RespuestaRequestDto;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agrupa los autoguardados seguidos de un mismo borrador antes de escribirlos.
+ *
+ * Cada PATCH se valida (dueño, preguntas y opciones) antes de responder y se fusiona en memoria
+ * (la última versión de cada pregunta gana). Se escribe cuando el borrador lleva {@code quiet-ms}
+ * sin cambios o, como máximo, {@code max-delay-ms} después del primer cambio pendiente. Leer o
+ * finalizar el borrador escribe antes lo pendiente.
+ */
+@Component
+public class BorradorAutosaveBuffer implements DisposableBean {
+
+    // Candados por registro (repartidos en franjas) para no aplicar y finalizar a la vez
+    private static final int LOCK_STRIPES = 64;
+
+    private final BorradorService borradorService;
+    private final long quietMs;
+    private final long maxDelayMs;
+    private final int maxPendientes;
+
+    private final Map<Integer, Pendiente> pendientes = new ConcurrentHashMap<>();
+    private final Map<Integer, String> errores = new ConcurrentHashMap<>();
+    // ReentrantLock y no synchronized: flush y finalizar escriben en la base de datos y con
+    // hilos virtuales un monitor retenido durante I/O fija el hilo a su portador
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    public BorradorAutosaveBuffer(BorradorService borradorService,
+                                  @Value("${app.borradores.quiet-ms:1500}") long quietMs,
+                                  @Value("${app.borradores.max-delay-ms:10000}") long maxDelayMs,
+                                  @Value("${app.borradores.max-pendientes:1000}") int maxPendientes) {
+        this.borradorService = borradorService;
+        this.quietMs = quietMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxPendientes = maxPendientes;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Valida y encola los cambios de un autoguardado. El dueño se comprueba en cada PATCH: solo
+     * los usuarios ya verificados para este borrador se ahorran la consulta a la base de datos.
+     */
+    public void patch(Integer idRegistro, Users user, List<RespuestaRequestDto> respuestas) {
+        Pendiente actual = pendientes.get(idRegistro);
+        Integer idEncuesta = actual != null && actual.autorizados.contains(user.getId())
+                ? actual.idEncuesta
+                : borradorService.verificarBorrador(idRegistro, user);
+
+        // El error de un flush anterior solo se informa (y se consume) una vez verificado el dueño
+        String error = errores.remove(idRegistro);
+        if (error != null) {
+            throw new IllegalArgumentException("El autoguardado anterior falló: " + error);
+        }
+
+        Map<Integer, List<RespuestaRequestDto>> cambios = agrupar(respuestas);
+        borradorService.validarCambios(idEncuesta, cambios);
+
+        long ahora = System.currentTimeMillis();
+        pendientes.compute(idRegistro, (id, pendiente) -> {
+            Pendiente p = pendiente != null ? pendiente : new Pendiente(ahora, idEncuesta);
+            p.autorizados.add(user.getId());
+            p.cambios.putAll(cambios);
+            p.ultimoCambio = ahora;
+            return p;
+        });
+
+        // Memoria acotada: si hay demasiados borradores pendientes se escribe este de inmediato
+        if (pendientes.size() > maxPendientes) {
+            flush(idRegistro);
+        }
+    }
+
+    // Escribe lo pendiente de un borrador (p. ej. antes de leerlo)
+    public void flush(Integer idRegistro) {
+        Lock lock = lockFor(idRegistro);
+        lock.lock();
+        try {
+            Pendiente p = pendientes.remove(idRegistro);
+            if (p != null) {
+                aplicar(idRegistro, p);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Finaliza el borrador incluyendo los cambios aún no escritos, en una sola transacción
+    public RegistroResponseDto finalizar(Integer idRegistro, Users user) {
+        Lock lock = lockFor(idRegistro);
+        lock.lock();
+        try {
+            errores.remove(idRegistro);
+            Pendiente p = pendientes.remove(idRegistro);
+            try {
+                return borradorService.finalizar(idRegistro, user, p != null ? p.cambios : Map.of());
+            } catch (RuntimeException e) {
+                if (p != null) {
+                    // Si la validación falla, los cambios vuelven a la cola para no perderlos
+                    pendientes.merge(idRegistro, p, (nuevo, viejo) -> {
+                        viejo.cambios.putAll(nuevo.cambios);
+                        return viejo;
+                    });
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.borradores.flush-interval-ms:1000}")
+    public void flushListos() {
+        long ahora = System.currentTimeMillis();
+        for (Map.Entry<Integer, Pendiente> entry : pendientes.entrySet()) {
+            Pendiente p = entry.getValue();
+            if (ahora - p.ultimoCambio >= quietMs || ahora - p.primerCambio >= maxDelayMs) {
+                flush(entry.getKey());
+            }
+        }
+    }
+
+    public int pendientes() {
+        return pendientes.size();
+    }
+
+    @Override
+    public void destroy() {
+        // Al apagar no se pierde ningún autoguardado aceptado
+        for (Integer idRegistro : new ArrayList<>(pendientes.keySet())) {
+            flush(idRegistro);
+        }
+    }
+
+    private void aplicar(Integer idRegistro, Pendiente p) {
+        try {
+            borradorService.aplicarCambios(idRegistro, p.cambios);
+        } catch (RuntimeException e) {
+            // Se informa al cliente en su próximo PATCH
+            errores.put(idRegistro, e.getMessage());
+            System.err.println("Error al autoguardar el borrador " + idRegistro + ": " + e.getMessage());
+        }
+    }
+
+    private Lock lockFor(Integer idRegistro) {
+        return locks[Math.floorMod(idRegistro.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Map<Integer, List<RespuestaRequestDto>> agrupar(List<RespuestaRequestDto> respuestas) {
+        Map<Integer, List<RespuestaRequestDto>> cambios = new LinkedHashMap<>();
+        for (RespuestaRequestDto dto : respuestas) {
+            cambios.computeIfAbsent(dto.getIdPregunta(), id -> new ArrayList<>()).add(dto);
+        }
+        return cambios;
+    }
+
+    private static final class Pendiente {
+        private final long primerCambio;
+        private final Integer idEncuesta;
+        private volatile long ultimoCambio;
+        private final Map<Integer, List<RespuestaRequestDto>> cambios = new LinkedHashMap<>();
+        // Usuarios cuyo acceso a este borrador ya se comprobó en la base de datos
+        private final Set<Integer> autorizados = ConcurrentHashMap.newKeySet();
+
+        private Pendiente(long primerCambio, Integer idEncuesta) {
+            this.primerCambio = primerCambio;
+            this.idEncuesta = idEncuesta;
+            this.ultimoCambio = primerCambio;
+        }
+    }
+}
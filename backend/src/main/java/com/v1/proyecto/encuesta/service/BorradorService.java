@@ -0,0 +1,245 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.encuesta.dto.RegistroResponseDto;
+import com.v1.proyecto.encuesta.dto.RespuestaRequestDto;
+import com.v1.proyecto.encuesta.model.*;
+import com.v1.proyecto.encuesta.repository.OpcionRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import com.v1.proyecto.encuesta.repository.RespuestaRepository;
+import com.v1.proyecto.encuesta.repository.RespuestaSeleccion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Escritura de borradores "en el lugar": los autoguardados solo tocan las respuestas de las
+ * preguntas que cambiaron (upsert por registro + pregunta) y la finalización cambia el estado
+ * del mismo registro en vez de crear uno nuevo.
+ */
+@Service
+@RequiredArgsConstructor
+public class BorradorService {
+
+    static final String BORRADOR = "BORRADOR";
+    static final String COMPLETADO = "COMPLETADO";
+
+    private final RegistroEncuestaRepository registroEncuestaRepository;
+    private final RespuestaRepository respuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final OpcionRespuestaRepository opcionRespuestaRepository;
+    private final EncuestaDefinitionCache encuestaDefinitionCache;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+    private final MatrizRespuestasCache matrizRespuestasCache;
+    private final CohorteIndex cohorteIndex;
+
+    // Comprueba que el registro exista, sea un borrador y pertenezca al usuario (o sea ADMIN); devuelve su encuesta
+    @Transactional(readOnly = true)
+    public Integer verificarBorrador(Integer idRegistro, Users user) {
+        return cargarBorrador(idRegistro, user).getEncuesta().getIdEncuesta();
+    }
+
+    /**
+     * Valida un autoguardado antes de encolarlo: las preguntas deben ser de la encuesta y cada
+     * opción de su pregunta. Así un PATCH aceptado (202) no puede hacer fallar la escritura diferida.
+     */
+    @Transactional(readOnly = true)
+    public void validarCambios(Integer idEncuesta, Map<Integer, List<RespuestaRequestDto>> cambios) {
+        validar(encuestaDefinitionCache.get(idEncuesta), cambios);
+    }
+
+    /**
+     * Aplica cambios agrupados por pregunta. Devuelve la cantidad de filas escritas
+     * (insertadas, actualizadas o borradas).
+     */
+    @Transactional
+    public int aplicarCambios(Integer idRegistro, Map<Integer, List<RespuestaRequestDto>> cambios) {
+        RegistroEncuesta registro = registroEncuestaRepository.findById(idRegistro)
+                .orElseThrow(() -> new RuntimeException("Registro no encontrado con id: " + idRegistro));
+        if (!BORRADOR.equals(registro.getEstado())) {
+            throw new IllegalStateException("El registro " + idRegistro + " ya no es un borrador.");
+        }
+        return aplicar(registro, cambios);
+    }
+
+    /**
+     * Finaliza el borrador en el lugar: aplica los cambios pendientes, descarta las respuestas
+     * de preguntas saltadas, valida las obligatorias alcanzables y pasa el registro a
+     * COMPLETADO, todo en una transacción.
+     */
+    @Transactional
+    public RegistroResponseDto finalizar(Integer idRegistro, Users user,
+                                         Map<Integer, List<RespuestaRequestDto>> pendientes) {
+        RegistroEncuesta registro = cargarBorrador(idRegistro, user);
+        if (pendientes != null && !pendientes.isEmpty()) {
+            aplicar(registro, pendientes);
+            respuestaRepository.flush();
+        }
+
+        SkipLogicGraph grafo = encuestaDefinitionCache.get(registro.getEncuesta().getIdEncuesta());
+        List<RespuestaSeleccion> selecciones = respuestaRepository.findSeleccionesByRegistro(idRegistro);
+        Set<Integer> alcanzables = grafo.alcanzables(selecciones.stream()
+                .collect(Collectors.groupingBy(RespuestaSeleccion::getIdPregunta,
+                        Collectors.mapping(RespuestaSeleccion::getIdOpcion,
+                                Collectors.filtering(Objects::nonNull, Collectors.toList())))));
+
+        // El borrador pudo guardar respuestas de preguntas que un salto posterior dejó fuera
+        List<Integer> saltadas = new ArrayList<>();
+        Set<Integer> respondidas = new HashSet<>();
+        List<FrecuenciaRespuestaService.Marca> marcas = new ArrayList<>();
+        for (RespuestaSeleccion seleccion : selecciones) {
+            if (alcanzables.contains(seleccion.getIdPregunta())) {
+                respondidas.add(seleccion.getIdPregunta());
+                marcas.add(new FrecuenciaRespuestaService.Marca(seleccion.getIdPregunta(), seleccion.getIdOpcion()));
+            } else {
+                saltadas.add(seleccion.getIdRespuesta());
+            }
+        }
+        grafo.validarObligatorias(alcanzables, respondidas);
+        if (!saltadas.isEmpty()) {
+            respuestaRepository.deleteAllByIdInBatch(saltadas);
+        }
+
+        registro.setEstado(COMPLETADO);
+        registro.setFechaRealizacion(LocalDateTime.now());
+        RegistroEncuesta guardado = registroEncuestaRepository.save(registro);
+        // Recién ahora el registro cuenta para las frecuencias (los borradores no se cuentan)
+        frecuenciaRespuestaService.ajustar(registro.getEncuesta().getIdEncuesta(),
+                registro.getPaciente().getGrupo(), marcas, 1);
+        matrizRespuestasCache.registroCambiado(registro.getEncuesta().getIdEncuesta(), idRegistro);
+        cohorteIndex.registroCambiado(registro.getEncuesta().getIdEncuesta(), idRegistro);
+        return RegistroResponseDto.builder()
+                .idRegistro(guardado.getIdRegistro())
+                .idPaciente(guardado.getPaciente().getIdPaciente())
+                .fechaRealizacion(guardado.getFechaRealizacion())
+                .usuarioNombre(guardado.getUsuario().getUsername())
+                .build();
+    }
+
+    private RegistroEncuesta cargarBorrador(Integer idRegistro, Users user) {
+        RegistroEncuesta registro = registroEncuestaRepository.findById(idRegistro)
+                .orElseThrow(() -> new RuntimeException("Registro no encontrado con id: " + idRegistro));
+        if (!BORRADOR.equals(registro.getEstado())) {
+            throw new IllegalStateException("El registro " + idRegistro + " ya no es un borrador.");
+        }
+        if (user.getRole() != Role.ADMIN && !registro.getUsuario().getId().equals(user.getId())) {
+            throw new AccessDeniedException("El borrador pertenece a otro usuario.");
+        }
+        return registro;
+    }
+
+    private int aplicar(RegistroEncuesta registro, Map<Integer, List<RespuestaRequestDto>> cambios) {
+        // 1. Se vuelve a validar: la definición pudo cambiar mientras el cambio esperaba en la cola
+        Map<Integer, OpcionRespuesta> opciones = validar(
+                encuestaDefinitionCache.get(registro.getEncuesta().getIdEncuesta()), cambios);
+        Map<Integer, Pregunta> preguntas = new HashMap<>();
+        for (Integer idPregunta : cambios.keySet()) {
+            preguntas.put(idPregunta, preguntaRepository.getReferenceById(idPregunta));
+        }
+
+        // 2. Respuestas guardadas solo de las preguntas que cambiaron
+        Map<Integer, List<Respuesta>> actualesPorPregunta = respuestaRepository
+                .findByRegistroEncuestaIdRegistroAndPreguntaIdPreguntaIn(registro.getIdRegistro(), cambios.keySet())
+                .stream()
+                .collect(Collectors.groupingBy(r -> r.getPregunta().getIdPregunta(),
+                        Collectors.toCollection(ArrayList::new)));
+
+        List<Respuesta> nuevas = new ArrayList<>();
+        List<Respuesta> borradas = new ArrayList<>();
+        int escrituras = 0;
+
+        for (Map.Entry<Integer, List<RespuestaRequestDto>> cambio : cambios.entrySet()) {
+            Pregunta pregunta = preguntas.get(cambio.getKey());
+            List<Respuesta> actuales = actualesPorPregunta.getOrDefault(cambio.getKey(), new ArrayList<>());
+            List<RespuestaRequestDto> pendientes = new ArrayList<>();
+
+            for (RespuestaRequestDto dto : cambio.getValue()) {
+                if (dto.getIdOpcionSeleccionada() == null
+                        && (dto.getValorTexto() == null || dto.getValorTexto().isBlank())) {
+                    continue; // entrada vacía: la pregunta queda sin respuesta
+                }
+                OpcionRespuesta opcion = resolverOpcion(dto, cambio.getKey(), opciones);
+                // Selección múltiple: si la opción ya estaba marcada se conserva la misma fila
+                Respuesta igual = opcion == null ? null : actuales.stream()
+                        .filter(r -> r.getOpcionSeleccionada() != null
+                                && r.getOpcionSeleccionada().getIdOpcion().equals(opcion.getIdOpcion()))
+                        .findFirst().orElse(null);
+                if (igual != null) {
+                    actuales.remove(igual);
+                    if (!Objects.equals(igual.getValorTexto(), dto.getValorTexto())) {
+                        igual.setValorTexto(dto.getValorTexto());
+                        escrituras++;
+                    }
+                } else {
+                    pendientes.add(dto);
+                }
+            }
+
+            for (RespuestaRequestDto dto : pendientes) {
+                OpcionRespuesta opcion = resolverOpcion(dto, cambio.getKey(), opciones);
+                if (!actuales.isEmpty()) {
+                    // Se reutiliza una fila existente (UPDATE) en vez de DELETE + INSERT
+                    Respuesta reutilizada = actuales.remove(0);
+                    reutilizada.setOpcionSeleccionada(opcion);
+                    reutilizada.setValorTexto(dto.getValorTexto());
+                } else {
+                    nuevas.add(Respuesta.builder()
+                            .registroEncuesta(registro)
+                            .pregunta(pregunta)
+                            .opcionSeleccionada(opcion)
+                            .valorTexto(dto.getValorTexto())
+                            .build());
+                }
+                escrituras++;
+            }
+            borradas.addAll(actuales);
+        }
+
+        if (!nuevas.isEmpty()) {
+            respuestaRepository.saveAll(nuevas);
+        }
+        if (!borradas.isEmpty()) {
+            respuestaRepository.deleteAll(borradas);
+        }
+        return escrituras + borradas.size();
+    }
+
+    // Preguntas contra el grafo (sin SELECT) y opciones en una consulta; devuelve las opciones por id
+    private Map<Integer, OpcionRespuesta> validar(SkipLogicGraph grafo, Map<Integer, List<RespuestaRequestDto>> cambios) {
+        for (Integer idPregunta : cambios.keySet()) {
+            if (!grafo.contiene(idPregunta)) {
+                throw new IllegalArgumentException("La pregunta " + idPregunta + " no pertenece a la encuesta.");
+            }
+        }
+        Set<Integer> idsOpcion = cambios.values().stream()
+                .flatMap(List::stream)
+                .map(RespuestaRequestDto::getIdOpcionSeleccionada)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Integer, OpcionRespuesta> opciones = opcionRespuestaRepository.findAllById(idsOpcion).stream()
+                .collect(Collectors.toMap(OpcionRespuesta::getIdOpcion, Function.identity()));
+        cambios.forEach((idPregunta, dtos) -> dtos.forEach(dto -> resolverOpcion(dto, idPregunta, opciones)));
+        return opciones;
+    }
+
+    private static OpcionRespuesta resolverOpcion(RespuestaRequestDto dto, Integer idPregunta,
+                                                  Map<Integer, OpcionRespuesta> opciones) {
+        if (dto.getIdOpcionSeleccionada() == null) {
+            return null;
+        }
+        OpcionRespuesta opcion = opciones.get(dto.getIdOpcionSeleccionada());
+        if (opcion == null || !opcion.getPregunta().getIdPregunta().equals(idPregunta)) {
+            throw new IllegalArgumentException("La opción " + dto.getIdOpcionSeleccionada()
+                    + " no pertenece a la pregunta " + idPregunta + ".");
+        }
+        return opcion;
+    }
+}
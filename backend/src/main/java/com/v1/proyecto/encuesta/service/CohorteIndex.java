@@ -0,0 +1,376 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.config.EnrutamientoDataSource;
+import com.v1.proyecto.encuesta.dto.CohorteFiltroDto;
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.AtributosRegistro;
+import com.v1.proyecto.encuesta.repository.CeldaMatriz;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Índice de cohortes por encuesta: un bitmap comprimido (Roaring) de idRegistro por cada
+ * opción de respuesta y por cada valor de los atributos del paciente (grupo, sexo, zona y
+ * comuna), solo con registros COMPLETADOS.
+ *
+ * Una cohorte ({@link CohorteFiltroDto}) se evalúa con AND/OR/ANDNOT entre bitmaps, sin
+ * tocar la base de datos. Se mantiene igual que {@link MatrizRespuestasCache}: los registros
+ * cambiados quedan pendientes tras el commit y se recargan en bloque en la siguiente lectura;
+ * un cambio de definición o de grupos recarga todo. Si cambian datos de pacientes solo se
+ * recargan los bitmaps de atributos.
+ */
+@Component
+@RequiredArgsConstructor
+public class CohorteIndex implements MeterBinder {
+
+    public static final List<String> ATRIBUTOS = List.of("grupo", "sexo", "zona", "comuna");
+
+    private static final int IN_CHUNK = 500;
+    private static final int MAX_PROFUNDIDAD = 32;
+
+    private final RegistroEncuestaRepository registroEncuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final EncuestaDefinitionCache encuestaDefinitionCache;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+
+    private final Map<Integer, Indice> indices = new ConcurrentHashMap<>();
+    private final AtomicLong versionPacientes = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    // ReentrantLock y no synchronized: la carga hace I/O y no debe fijar un hilo virtual a su portador
+    private final Lock carga = new ReentrantLock();
+
+    /** Evalúa la expresión y pasa el bitmap resultante (de solo lectura) a la lectura. */
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public <T> T evaluar(Integer idEncuesta, CohorteFiltroDto filtro, Function<Cohorte, T> lectura) {
+        // Igual que la matriz: lo que se carga aquí queda en el índice
+        EnrutamientoDataSource.leerDelPrimario();
+        Indice indice = vigente(idEncuesta);
+        indice.lock.readLock().lock();
+        try {
+            RoaringBitmap registros = filtro == null ? indice.completados : indice.evaluar(filtro, 0);
+            return lectura.apply(new Cohorte(indice, registros));
+        } finally {
+            indice.lock.readLock().unlock();
+        }
+    }
+
+    // Igual que en la matriz: si el índice aún no está cargado no hay nada que marcar
+    public void registroCambiado(Integer idEncuesta, Integer idRegistro) {
+        afterCommit(() -> {
+            Indice indice = indices.get(idEncuesta);
+            if (indice != null) {
+                indice.pendientes.add(idRegistro);
+            }
+        });
+    }
+
+    // Cambió algún atributo de pacientes (edición o borrado): se recargan los atributos
+    public void pacientesCambiados() {
+        afterCommit(versionPacientes::incrementAndGet);
+    }
+
+    public void eliminar(Integer idEncuesta) {
+        afterCommit(() -> indices.remove(idEncuesta));
+    }
+
+    private Indice vigente(Integer idEncuesta) {
+        SkipLogicGraph grafo = encuestaDefinitionCache.get(idEncuesta);
+        long marcaGlobal = frecuenciaRespuestaService.marcaGlobal();
+        Indice indice = indices.get(idEncuesta);
+        if (indice == null || indice.grafo != grafo || indice.marcaGlobal != marcaGlobal) {
+            fallos.increment();
+            indice = construir(idEncuesta, grafo, marcaGlobal);
+        } else {
+            aciertos.increment();
+        }
+        long version = versionPacientes.get();
+        if (indice.versionPacientes != version || !indice.pendientes.isEmpty()) {
+            actualizar(idEncuesta, indice, version);
+        }
+        return indice;
+    }
+
+    private Indice construir(Integer idEncuesta, SkipLogicGraph grafo, long marcaGlobal) {
+        carga.lock();
+        try {
+            return construirBloqueado(idEncuesta, grafo, marcaGlobal);
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    private Indice construirBloqueado(Integer idEncuesta, SkipLogicGraph grafo, long marcaGlobal) {
+        Indice indice = indices.get(idEncuesta);
+        if (indice != null && indice.grafo == grafo && indice.marcaGlobal == marcaGlobal) {
+            return indice;
+        }
+        indice = new Indice(preguntaRepository.findConOpcionesByEncuesta(idEncuesta), grafo, marcaGlobal);
+        // Publicado antes de cargar: los commits durante la carga quedan como pendientes
+        indice.lock.writeLock().lock();
+        try {
+            indices.put(idEncuesta, indice);
+            indice.versionPacientes = versionPacientes.get();
+            try (Stream<CeldaMatriz> celdas = registroEncuestaRepository.streamCeldasByEncuesta(idEncuesta);
+                 Stream<AtributosRegistro> atributos = registroEncuestaRepository.streamAtributosByEncuesta(idEncuesta)) {
+                celdas.forEach(indice::agregarRespuesta);
+                atributos.forEach(indice::agregarAtributos);
+            } catch (RuntimeException e) {
+                indices.remove(idEncuesta, indice);
+                throw e;
+            }
+            indice.optimizar();
+        } finally {
+            indice.lock.writeLock().unlock();
+        }
+        System.out.println("Índice de cohortes de la encuesta " + idEncuesta + " construido: "
+                + indice.completados.getCardinality() + " registros, " + indice.porOpcion.size() + " opciones.");
+        return indice;
+    }
+
+    private void actualizar(Integer idEncuesta, Indice indice, long version) {
+        indice.lock.writeLock().lock();
+        try {
+            if (indice.versionPacientes != version) {
+                indice.atributos.values().forEach(Map::clear);
+                indice.pacientePorRegistro.clear();
+                indice.versionPacientes = version;
+                try (Stream<AtributosRegistro> atributos = registroEncuestaRepository.streamAtributosByEncuesta(idEncuesta)) {
+                    atributos.forEach(indice::agregarAtributos);
+                }
+            }
+
+            List<Integer> ids = new ArrayList<>();
+            for (Iterator<Integer> it = indice.pendientes.iterator(); it.hasNext(); ) {
+                ids.add(it.next());
+                it.remove();
+            }
+            for (int desde = 0; desde < ids.size(); desde += IN_CHUNK) {
+                List<Integer> bloque = ids.subList(desde, Math.min(desde + IN_CHUNK, ids.size()));
+                indice.quitar(RoaringBitmap.bitmapOf(bloque.stream().mapToInt(Integer::intValue).toArray()));
+                registroEncuestaRepository.findCeldasByRegistroIds(bloque).forEach(indice::agregarRespuesta);
+                registroEncuestaRepository.findAtributosByRegistroIds(bloque).forEach(indice::agregarAtributos);
+            }
+            indice.optimizar();
+        } finally {
+            indice.lock.writeLock().unlock();
+        }
+    }
+
+    // "Caso (Cáncer)" -> "CASO"; el resto: sin tildes, mayúsculas y espacios simples
+    static String normalizarValor(String atributo, String valor) {
+        if ("grupo".equals(atributo)) {
+            return switch (EstadisticaService.codigoGrupo(valor)) {
+                case EstadisticaService.GRUPO_CASO -> "CASO";
+                case EstadisticaService.GRUPO_CONTROL -> "CONTROL";
+                default -> FrecuenciaRespuesta.SIN_GRUPO;
+            };
+        }
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        String sinTildes = Normalizer.normalize(valor.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", aciertos, LongAdder::sum)
+                .tags("cache", "cohortes", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", fallos, LongAdder::sum)
+                .tags("cache", "cohortes", "result", "miss").register(registry);
+        Gauge.builder("cache.size", indices, Map::size).tag("cache", "cohortes").register(registry);
+    }
+
+    private static void afterCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /** Resultado de una cohorte; solo es válido dentro de la lectura que lo recibe. */
+    public static final class Cohorte {
+        private final Indice indice;
+        private final RoaringBitmap registros;
+
+        private Cohorte(Indice indice, RoaringBitmap registros) {
+            this.indice = indice;
+            this.registros = registros;
+        }
+
+        public RoaringBitmap registros() {
+            return registros;
+        }
+
+        public int contar() {
+            return registros.getCardinality();
+        }
+
+        public int contarGrupo(String grupo) {
+            RoaringBitmap bitmap = indice.atributos.get("grupo").get(grupo);
+            return bitmap == null ? 0 : RoaringBitmap.andCardinality(registros, bitmap);
+        }
+
+        public int contarPacientes() {
+            RoaringBitmap pacientes = new RoaringBitmap();
+            registros.forEach((int idRegistro) -> {
+                Integer idPaciente = indice.pacientePorRegistro.get(idRegistro);
+                if (idPaciente != null) {
+                    pacientes.add(idPaciente);
+                }
+            });
+            return pacientes.getCardinality();
+        }
+
+        public Integer idPaciente(int idRegistro) {
+            return indice.pacientePorRegistro.get(idRegistro);
+        }
+    }
+
+    private static final class Indice {
+        private final SkipLogicGraph grafo;
+        private final long marcaGlobal;
+        private volatile long versionPacientes;
+        private final Map<Integer, Integer> preguntaPorOpcion = new HashMap<>();
+        private final Map<Integer, RoaringBitmap> porOpcion = new HashMap<>();
+        private final Map<String, Map<String, RoaringBitmap>> atributos = new HashMap<>();
+        private final Map<Integer, Integer> pacientePorRegistro = new HashMap<>();
+        private final RoaringBitmap completados = new RoaringBitmap();
+        private final Set<Integer> pendientes = ConcurrentHashMap.newKeySet();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Indice(List<Pregunta> preguntas, SkipLogicGraph grafo, long marcaGlobal) {
+            this.grafo = grafo;
+            this.marcaGlobal = marcaGlobal;
+            for (Pregunta pregunta : preguntas) {
+                for (OpcionRespuesta opcion : pregunta.getOpciones()) {
+                    preguntaPorOpcion.put(opcion.getIdOpcion(), pregunta.getIdPregunta());
+                }
+            }
+            ATRIBUTOS.forEach(a -> atributos.put(a, new HashMap<>()));
+        }
+
+        private void agregarRespuesta(CeldaMatriz celda) {
+            completados.add(celda.getIdRegistro());
+            Integer idOpcion = celda.getIdOpcion();
+            if (idOpcion != null && preguntaPorOpcion.containsKey(idOpcion)) {
+                porOpcion.computeIfAbsent(idOpcion, id -> new RoaringBitmap()).add(celda.getIdRegistro());
+            }
+        }
+
+        private void agregarAtributos(AtributosRegistro fila) {
+            int idRegistro = fila.getIdRegistro();
+            pacientePorRegistro.put(idRegistro, fila.getIdPaciente());
+            agregarAtributo("grupo", fila.getGrupo(), idRegistro);
+            agregarAtributo("sexo", fila.getSexo(), idRegistro);
+            agregarAtributo("zona", fila.getZona(), idRegistro);
+            agregarAtributo("comuna", fila.getComuna(), idRegistro);
+        }
+
+        private void agregarAtributo(String atributo, String valor, int idRegistro) {
+            String clave = normalizarValor(atributo, valor);
+            if (clave != null) {
+                atributos.get(atributo).computeIfAbsent(clave, v -> new RoaringBitmap()).add(idRegistro);
+            }
+        }
+
+        private void quitar(RoaringBitmap ids) {
+            completados.andNot(ids);
+            porOpcion.values().forEach(bitmap -> bitmap.andNot(ids));
+            atributos.values().forEach(valores -> valores.values().forEach(bitmap -> bitmap.andNot(ids)));
+            ids.forEach((int idRegistro) -> pacientePorRegistro.remove(idRegistro));
+        }
+
+        // Convierte los contenedores densos a runs cuando comprime mejor (p. ej. grupos o zonas)
+        private void optimizar() {
+            completados.runOptimize();
+            porOpcion.values().forEach(RoaringBitmap::runOptimize);
+            atributos.values().forEach(valores -> valores.values().forEach(RoaringBitmap::runOptimize));
+        }
+
+        private RoaringBitmap evaluar(CohorteFiltroDto nodo, int profundidad) {
+            if (nodo == null) {
+                throw new IllegalArgumentException("Filtro de cohorte vacío.");
+            }
+            if (profundidad > MAX_PROFUNDIDAD) {
+                throw new IllegalArgumentException("El filtro de cohorte supera " + MAX_PROFUNDIDAD + " niveles.");
+            }
+            int formas = (nodo.getTodos() != null ? 1 : 0) + (nodo.getAlguno() != null ? 1 : 0)
+                    + (nodo.getNo() != null ? 1 : 0) + (nodo.getIdOpcion() != null ? 1 : 0)
+                    + (nodo.getAtributo() != null ? 1 : 0);
+            if (formas != 1) {
+                throw new IllegalArgumentException("Cada nodo del filtro debe usar exactamente una forma: "
+                        + "todos, alguno, no, idPregunta/idOpcion o atributo/valor.");
+            }
+
+            if (nodo.getTodos() != null) {
+                if (nodo.getTodos().isEmpty()) {
+                    return completados;
+                }
+                RoaringBitmap resultado = evaluar(nodo.getTodos().get(0), profundidad + 1).clone();
+                for (int i = 1; i < nodo.getTodos().size() && !resultado.isEmpty(); i++) {
+                    resultado.and(evaluar(nodo.getTodos().get(i), profundidad + 1));
+                }
+                return resultado;
+            }
+            if (nodo.getAlguno() != null) {
+                RoaringBitmap resultado = new RoaringBitmap();
+                for (CohorteFiltroDto hijo : nodo.getAlguno()) {
+                    resultado.or(evaluar(hijo, profundidad + 1));
+                }
+                return resultado;
+            }
+            if (nodo.getNo() != null) {
+                return RoaringBitmap.andNot(completados, evaluar(nodo.getNo(), profundidad + 1));
+            }
+            if (nodo.getIdOpcion() != null) {
+                Integer idPregunta = preguntaPorOpcion.get(nodo.getIdOpcion());
+                if (idPregunta == null || (nodo.getIdPregunta() != null && !idPregunta.equals(nodo.getIdPregunta()))) {
+                    throw new IllegalArgumentException("La opción " + nodo.getIdOpcion()
+                            + " no pertenece a la pregunta " + nodo.getIdPregunta() + " de esta encuesta.");
+                }
+                return porOpcion.getOrDefault(nodo.getIdOpcion(), new RoaringBitmap());
+            }
+            String atributo = nodo.getAtributo().trim().toLowerCase(Locale.ROOT);
+            Map<String, RoaringBitmap> valores = atributos.get(atributo);
+            if (valores == null) {
+                throw new IllegalArgumentException("Atributo de cohorte no soportado: " + nodo.getAtributo()
+                        + " (usar " + String.join(", ", ATRIBUTOS) + ").");
+            }
+            String clave = normalizarValor(atributo, nodo.getValor());
+            return clave == null ? new RoaringBitmap() : valores.getOrDefault(clave, new RoaringBitmap());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.encuesta.dto.CohorteFiltroDto;
+import com.v1.proyecto.encuesta.dto.CohorteResultadoDto;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cohortes de investigación sobre los registros completados de una encuesta: conteos
+ * inmediatos desde el índice de bitmaps ({@link CohorteIndex}) y, a pedido, la lista de
+ * registros/pacientes o la exportación codificada de la cohorte.
+ */
+@Service
+@RequiredArgsConstructor
+public class CohorteService {
+
+    // Ids por página al listar los registros de una cohorte
+    public static final int DEFAULT_LIMITE_IDS = 1000;
+    public static final int MAX_LIMITE_IDS = 10000;
+
+    private final EncuestaRepository encuestaRepository;
+    private final CohorteIndex cohorteIndex;
+    private final ExportService exportService;
+
+    public CohorteResultadoDto contar(Integer idEncuesta, CohorteFiltroDto filtro) {
+        verificarEncuesta(idEncuesta);
+        return cohorteIndex.evaluar(idEncuesta, filtro, cohorte -> conteos(cohorte).build());
+    }
+
+    public CohorteResultadoDto getRegistros(Integer idEncuesta, CohorteFiltroDto filtro, Integer afterId,
+                                            Integer limit) {
+        verificarEncuesta(idEncuesta);
+        int size = limit == null ? DEFAULT_LIMITE_IDS : Math.max(1, Math.min(limit, MAX_LIMITE_IDS));
+        int desde = afterId == null ? 0 : afterId + 1;
+
+        return cohorteIndex.evaluar(idEncuesta, filtro, cohorte -> {
+            List<Integer> idsRegistro = new ArrayList<>(Math.min(size, cohorte.contar()));
+            List<Integer> idsPaciente = new ArrayList<>(Math.min(size, cohorte.contar()));
+            PeekableIntIterator it = cohorte.registros().getIntIterator();
+            it.advanceIfNeeded(desde);
+            while (it.hasNext() && idsRegistro.size() < size) {
+                int idRegistro = it.next();
+                idsRegistro.add(idRegistro);
+                idsPaciente.add(cohorte.idPaciente(idRegistro));
+            }
+            return conteos(cohorte)
+                    .idsRegistro(idsRegistro)
+                    .idsPaciente(idsPaciente)
+                    .nextCursor(it.hasNext() ? idsRegistro.get(idsRegistro.size() - 1) : null)
+                    .build();
+        });
+    }
+
+    // CSV codificado (el mismo de /export/codificado) restringido a los registros de la cohorte
+    public ByteArrayInputStream exportar(Integer idEncuesta, CohorteFiltroDto filtro, Role role) {
+        verificarEncuesta(idEncuesta);
+        // Copia: el bitmap del índice solo es válido mientras dura la lectura
+        RoaringBitmap registros = cohorteIndex.evaluar(idEncuesta, filtro, cohorte -> cohorte.registros().clone());
+        return exportService.generateCsvCodificado(idEncuesta, role, registros);
+    }
+
+    private static CohorteResultadoDto.CohorteResultadoDtoBuilder conteos(CohorteIndex.Cohorte cohorte) {
+        return CohorteResultadoDto.builder()
+                .registros(cohorte.contar())
+                .pacientes(cohorte.contarPacientes())
+                .casos(cohorte.contarGrupo("CASO"))
+                .controles(cohorte.contarGrupo("CONTROL"));
+    }
+
+    private void verificarEncuesta(Integer idEncuesta) {
+        if (!encuestaRepository.existsById(idEncuesta)) {
+            throw new RuntimeException("Encuesta no encontrada con id: " + idEncuesta);
+        }
+    }
+}
@@ -2,13 +2,25 @@ package com.v1.proyecto.encuesta.service;
 
 import com.v1.proyecto.auth.model.Role;
 import com.v1.proyecto.paciente.model.Paciente;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
-public class DataEncoder {
+public class DataEncoder implements MeterBinder {
+
+    // Called once per exported cell: plain adders, read by the registry only when scraped
+    private final LongAdder encodeCalls = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder pacienteCalls = new LongAdder();
+    private final LongAdder usuarioCalls = new LongAdder();
 
     // Global mappings for unique values
     private static final Map<String, Integer> EXACT_MATCH_MAP = new HashMap<>();
@@ -159,6 +171,7 @@ public class DataEncoder {
     }
 
     public String anonymizePaciente(Paciente p, Role role) {
+        pacienteCalls.increment();
         if (role == Role.ADMIN) {
             return p.getNombre() + " " + p.getApellidos();
         }
@@ -167,6 +180,7 @@ public class DataEncoder {
     }
 
     public String anonymizeUsuario(com.v1.proyecto.auth.model.Users u, Role role) {
+        usuarioCalls.increment();
         if (role == Role.ADMIN) {
             return u.getUsername();
         }
@@ -174,6 +188,16 @@ public class DataEncoder {
     }
 
     public String encodeRespuesta(String question, String answer, Role role) {
+        long start = System.nanoTime();
+        try {
+            return encode(question, answer, role);
+        } finally {
+            encodeCalls.increment();
+            encodeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private String encode(String question, String answer, Role role) {
         if (role == Role.ADMIN) {
             return answer;
         }
@@ -312,4 +336,14 @@ public class DataEncoder {
     public Map<String, Integer> getDictionary() {
         return EXACT_MATCH_MAP;
     }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("encoder.respuesta", this, e -> e.encodeCalls.sum(), e -> e.encodeNanos.sum(),
+                TimeUnit.NANOSECONDS).description("Llamadas a encodeRespuesta").register(registry);
+        FunctionCounter.builder("encoder.anonimizaciones", pacienteCalls, LongAdder::sum)
+                .tag("tipo", "paciente").register(registry);
+        FunctionCounter.builder("encoder.anonimizaciones", usuarioCalls, LongAdder::sum)
+                .tag("tipo", "usuario").register(registry);
+    }
 }
@@ -0,0 +1,344 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.EncuestaCreateDto;
+import com.v1.proyecto.encuesta.dto.EncuestaResponseDto;
+import com.v1.proyecto.encuesta.dto.OpcionRespuestaCreateDto;
+import com.v1.proyecto.encuesta.dto.PreguntaCreateDto;
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.LogicaSalto;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoRepository;
+import com.v1.proyecto.encuesta.repository.OpcionRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Edición masiva de la definición de una encuesta.
+ *
+ * Recibe la definición completa, la compara con la guardada y aplica solo las diferencias:
+ * las preguntas y opciones se emparejan por id (o, si no lo traen, por texto), las que no
+ * cambiaron no generan escrituras y los saltos se actualizan en el lugar. Todo ocurre en una
+ * transacción y la revisión de la encuesta sube una sola vez.
+ */
+@Service
+@RequiredArgsConstructor
+public class EncuestaDefinicionService {
+
+    private final EncuestaRepository encuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final OpcionRespuestaRepository opcionRespuestaRepository;
+    private final LogicaSaltoRepository logicaSaltoRepository;
+    private final EncuestaDefinitionCache encuestaDefinitionCache;
+    private final EncuestaService encuestaService;
+    private final EncuestaVersionService encuestaVersionService;
+
+    @Transactional
+    public EncuestaResponseDto updateDefinicion(Integer idEncuestaEditada, EncuestaCreateDto dto) {
+        Encuesta editada = encuestaRepository.findById(idEncuestaEditada)
+                .orElseThrow(() -> new RuntimeException("Encuesta no encontrada con id: " + idEncuestaEditada));
+        if (dto.getRevision() != null && dto.getRevision() != editada.getRevision()) {
+            throw new IllegalStateException("La encuesta fue modificada (revisión " + editada.getRevision()
+                    + "). Recarga la definición antes de guardar.");
+        }
+
+        // Una versión publicada no se toca: el diff se aplica sobre su copia (con ids traducidos)
+        EncuestaVersionService.Edicion edicion = encuestaVersionService.prepararEdicion(idEncuestaEditada);
+        Encuesta encuesta = edicion.encuesta();
+        Integer idEncuesta = encuesta.getIdEncuesta();
+        List<PreguntaCreateDto> preguntasDto = traducir(dto.getPreguntas(), edicion);
+
+        // 1. Definición guardada: preguntas con opciones y saltos, en dos consultas
+        List<Pregunta> guardadas = preguntaRepository.findConOpcionesByEncuesta(idEncuesta);
+        List<LogicaSalto> saltos = logicaSaltoRepository.findByPreguntaOrigenEncuestaIdEncuesta(idEncuesta);
+
+        // 2. Plan: emparejar y validar todo antes de escribir
+        Pregunta[] preguntas = emparejarPreguntas(guardadas, preguntasDto);
+        List<OpcionRespuesta[]> opciones = new ArrayList<>(preguntasDto.size());
+        Set<Integer> opcionesConservadas = new HashSet<>();
+        for (int i = 0; i < preguntasDto.size(); i++) {
+            OpcionRespuesta[] emparejadas = emparejarOpciones(preguntas[i], opcionesDto(preguntasDto.get(i)));
+            for (OpcionRespuesta opcion : emparejadas) {
+                if (opcion != null) {
+                    opcionesConservadas.add(opcion.getIdOpcion());
+                }
+            }
+            opciones.add(emparejadas);
+        }
+        validarDestinos(preguntas, preguntasDto);
+
+        // Saltos que sobran: de opciones eliminadas, duplicados o que ya no deben existir
+        Map<Integer, LogicaSalto> saltoPorOpcion = new HashMap<>();
+        List<Integer> saltosBorrados = new ArrayList<>();
+        for (LogicaSalto salto : saltos) {
+            Integer idOpcion = salto.getOpcionOrigen() != null ? salto.getOpcionOrigen().getIdOpcion() : null;
+            if (idOpcion == null || !opcionesConservadas.contains(idOpcion)
+                    || saltoPorOpcion.putIfAbsent(idOpcion, salto) != null) {
+                saltosBorrados.add(salto.getIdLogica());
+            }
+        }
+        for (int i = 0; i < preguntasDto.size(); i++) {
+            List<OpcionRespuestaCreateDto> opcionesDto = opcionesDto(preguntasDto.get(i));
+            for (int j = 0; j < opcionesDto.size(); j++) {
+                OpcionRespuesta opcion = opciones.get(i)[j];
+                if (opcion != null && !tieneDestino(opcionesDto.get(j))
+                        && saltoPorOpcion.containsKey(opcion.getIdOpcion())) {
+                    saltosBorrados.add(saltoPorOpcion.remove(opcion.getIdOpcion()).getIdLogica());
+                }
+            }
+        }
+
+        // 3. Escrituras. Los saltos se borran primero (un DELETE) para no violar sus FK
+        if (!saltosBorrados.isEmpty()) {
+            logicaSaltoRepository.deleteAllByIdInBatch(saltosBorrados);
+        }
+
+        // Las entidades usan equals de Lombok (recorre colecciones): se comparan por identidad
+        Set<Pregunta> conservadas = identidad(Arrays.asList(preguntas));
+        List<Pregunta> borradas = guardadas.stream().filter(p -> !conservadas.contains(p)).toList();
+        if (!borradas.isEmpty()) {
+            Set<Pregunta> aBorrar = identidad(borradas);
+            encuesta.getPreguntas().removeIf(aBorrar::contains);
+            preguntaRepository.deleteAll(borradas);
+        }
+
+        List<Pregunta> nuevasPreguntas = new ArrayList<>();
+        List<OpcionRespuesta> nuevasOpciones = new ArrayList<>();
+        for (int i = 0; i < preguntasDto.size(); i++) {
+            PreguntaCreateDto preguntaDto = preguntasDto.get(i);
+            if (preguntas[i] == null) {
+                preguntas[i] = Pregunta.builder()
+                        .encuesta(encuesta)
+                        .opciones(new ArrayList<>())
+                        .build();
+                nuevasPreguntas.add(preguntas[i]);
+            }
+            Pregunta pregunta = preguntas[i];
+            // Los setters con el mismo valor no generan UPDATE (dirty checking)
+            pregunta.setTextoPregunta(preguntaDto.getTextoPregunta());
+            pregunta.setTipoPregunta(preguntaDto.getTipoPregunta());
+            pregunta.setObligatoria(preguntaDto.isObligatoria());
+            pregunta.setOculta(preguntaDto.isOculta());
+
+            OpcionRespuesta[] emparejadas = opciones.get(i);
+            List<OpcionRespuesta> finales = new ArrayList<>();
+            List<OpcionRespuestaCreateDto> opcionesDto = opcionesDto(preguntaDto);
+            for (int j = 0; j < opcionesDto.size(); j++) {
+                OpcionRespuestaCreateDto opcionDto = opcionesDto.get(j);
+                if (emparejadas[j] == null) {
+                    emparejadas[j] = OpcionRespuesta.builder().pregunta(pregunta).build();
+                    if (pregunta.getIdPregunta() != null) {
+                        nuevasOpciones.add(emparejadas[j]);
+                    }
+                }
+                emparejadas[j].setTextoOpcion(opcionDto.getTextoOpcion());
+                emparejadas[j].setValorDicotomizado(opcionDto.getValorDicotomizado());
+                finales.add(emparejadas[j]);
+            }
+            // Las opciones que no llegaron se eliminan por orphanRemoval
+            Set<OpcionRespuesta> enFinales = identidad(finales);
+            pregunta.getOpciones().removeIf(o -> !enFinales.contains(o));
+            Set<OpcionRespuesta> presentes = identidad(pregunta.getOpciones());
+            for (OpcionRespuesta opcion : finales) {
+                if (!presentes.contains(opcion)) {
+                    pregunta.getOpciones().add(opcion);
+                }
+            }
+        }
+        // Las inserciones se hacen ahora para tener los ids que necesitan los saltos
+        if (!nuevasPreguntas.isEmpty()) {
+            preguntaRepository.saveAll(nuevasPreguntas);
+            encuesta.getPreguntas().addAll(nuevasPreguntas);
+        }
+        if (!nuevasOpciones.isEmpty()) {
+            opcionRespuestaRepository.saveAll(nuevasOpciones);
+        }
+
+        // 4. Saltos: se actualiza el destino en el lugar o se inserta el que falta
+        List<LogicaSalto> nuevosSaltos = new ArrayList<>();
+        for (int i = 0; i < preguntasDto.size(); i++) {
+            List<OpcionRespuestaCreateDto> opcionesDto = opcionesDto(preguntasDto.get(i));
+            for (int j = 0; j < opcionesDto.size(); j++) {
+                OpcionRespuestaCreateDto opcionDto = opcionesDto.get(j);
+                if (!tieneDestino(opcionDto)) {
+                    continue;
+                }
+                OpcionRespuesta opcion = opciones.get(i)[j];
+                Pregunta destino = resolverDestino(opcionDto, preguntas);
+                LogicaSalto salto = saltoPorOpcion.get(opcion.getIdOpcion());
+                if (salto == null) {
+                    nuevosSaltos.add(LogicaSalto.builder()
+                            .preguntaOrigen(preguntas[i])
+                            .opcionOrigen(opcion)
+                            .preguntaDestino(destino)
+                            .build());
+                } else if (!salto.getPreguntaDestino().getIdPregunta().equals(destino.getIdPregunta())) {
+                    salto.setPreguntaDestino(destino);
+                }
+            }
+        }
+        if (!nuevosSaltos.isEmpty()) {
+            logicaSaltoRepository.saveAll(nuevosSaltos);
+        }
+
+        // 5. Una sola revisión por edición
+        encuesta.setTitulo(dto.getTitulo());
+        if (!edicion.copia()) {
+            // La copia ya trae la etiqueta siguiente; el cliente manda la de la versión que cargó
+            encuesta.setVersion(dto.getVersion());
+        }
+        encuesta.setRevision(encuesta.getRevision() + 1);
+        encuestaDefinitionCache.invalidar(idEncuesta);
+
+        return encuestaService.getEncuestaCompleta(idEncuesta);
+    }
+
+    private static List<PreguntaCreateDto> traducir(List<PreguntaCreateDto> preguntasDto,
+                                                    EncuestaVersionService.Edicion edicion) {
+        if (preguntasDto == null) {
+            return List.of();
+        }
+        if (!edicion.copia()) {
+            return preguntasDto;
+        }
+        return preguntasDto.stream()
+                .map(p -> PreguntaCreateDto.builder()
+                        .idPregunta(edicion.pregunta(p.getIdPregunta()))
+                        .textoPregunta(p.getTextoPregunta())
+                        .tipoPregunta(p.getTipoPregunta())
+                        .obligatoria(p.isObligatoria())
+                        .oculta(p.isOculta())
+                        .opciones(opcionesDto(p).stream()
+                                .map(o -> OpcionRespuestaCreateDto.builder()
+                                        .idOpcion(edicion.opcion(o.getIdOpcion()))
+                                        .textoOpcion(o.getTextoOpcion())
+                                        .valorDicotomizado(o.getValorDicotomizado())
+                                        .idPreguntaDestino(edicion.pregunta(o.getIdPreguntaDestino()))
+                                        .indicePreguntaDestino(o.getIndicePreguntaDestino())
+                                        .build())
+                                .toList())
+                        .build())
+                .toList();
+    }
+
+    // Empareja cada pregunta recibida con una guardada (por id; si no trae id, por texto)
+    private static Pregunta[] emparejarPreguntas(List<Pregunta> guardadas, List<PreguntaCreateDto> preguntasDto) {
+        Map<Integer, Pregunta> porId = new LinkedHashMap<>();
+        guardadas.forEach(p -> porId.put(p.getIdPregunta(), p));
+
+        Pregunta[] emparejadas = new Pregunta[preguntasDto.size()];
+        Set<Integer> usadas = new HashSet<>();
+        for (int i = 0; i < preguntasDto.size(); i++) {
+            Integer id = preguntasDto.get(i).getIdPregunta();
+            if (id == null) {
+                continue;
+            }
+            Pregunta pregunta = porId.get(id);
+            if (pregunta == null) {
+                throw new IllegalArgumentException("La pregunta " + id + " no pertenece a la encuesta.");
+            }
+            if (!usadas.add(id)) {
+                throw new IllegalArgumentException("La pregunta " + id + " viene repetida.");
+            }
+            emparejadas[i] = pregunta;
+        }
+        for (int i = 0; i < preguntasDto.size(); i++) {
+            if (preguntasDto.get(i).getIdPregunta() != null) {
+                continue;
+            }
+            String texto = preguntasDto.get(i).getTextoPregunta();
+            for (Pregunta pregunta : guardadas) {
+                if (!usadas.contains(pregunta.getIdPregunta()) && Objects.equals(pregunta.getTextoPregunta(), texto)) {
+                    usadas.add(pregunta.getIdPregunta());
+                    emparejadas[i] = pregunta;
+                    break;
+                }
+            }
+        }
+        return emparejadas;
+    }
+
+    private static OpcionRespuesta[] emparejarOpciones(Pregunta pregunta, List<OpcionRespuestaCreateDto> opcionesDto) {
+        OpcionRespuesta[] emparejadas = new OpcionRespuesta[opcionesDto.size()];
+        List<OpcionRespuesta> guardadas = pregunta != null && pregunta.getOpciones() != null
+                ? pregunta.getOpciones() : List.of();
+        Set<Integer> usadas = new HashSet<>();
+        for (int j = 0; j < opcionesDto.size(); j++) {
+            Integer id = opcionesDto.get(j).getIdOpcion();
+            if (id == null) {
+                continue;
+            }
+            OpcionRespuesta opcion = guardadas.stream()
+                    .filter(o -> o.getIdOpcion().equals(id))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "La opción " + id + " no pertenece a la pregunta indicada."));
+            if (!usadas.add(id)) {
+                throw new IllegalArgumentException("La opción " + id + " viene repetida.");
+            }
+            emparejadas[j] = opcion;
+        }
+        for (int j = 0; j < opcionesDto.size(); j++) {
+            if (opcionesDto.get(j).getIdOpcion() != null) {
+                continue;
+            }
+            String texto = opcionesDto.get(j).getTextoOpcion();
+            for (OpcionRespuesta opcion : guardadas) {
+                if (!usadas.contains(opcion.getIdOpcion()) && Objects.equals(opcion.getTextoOpcion(), texto)) {
+                    usadas.add(opcion.getIdOpcion());
+                    emparejadas[j] = opcion;
+                    break;
+                }
+            }
+        }
+        return emparejadas;
+    }
+
+    // El destino debe ser una pregunta que siga existiendo después de la edición
+    private static void validarDestinos(Pregunta[] preguntas, List<PreguntaCreateDto> preguntasDto) {
+        for (PreguntaCreateDto preguntaDto : preguntasDto) {
+            for (OpcionRespuestaCreateDto opcionDto : opcionesDto(preguntaDto)) {
+                if (tieneDestino(opcionDto)) {
+                    resolverDestino(opcionDto, preguntas);
+                }
+            }
+        }
+    }
+
+    private static Pregunta resolverDestino(OpcionRespuestaCreateDto opcionDto, Pregunta[] preguntas) {
+        Integer indice = opcionDto.getIndicePreguntaDestino();
+        if (indice != null) {
+            if (indice < 0 || indice >= preguntas.length) {
+                throw new IllegalArgumentException("Índice de pregunta destino fuera de rango: " + indice);
+            }
+            // En la validación las preguntas nuevas aún son null: basta con que el índice exista
+            return preguntas[indice];
+        }
+        for (Pregunta pregunta : preguntas) {
+            if (pregunta != null && opcionDto.getIdPreguntaDestino().equals(pregunta.getIdPregunta())) {
+                return pregunta;
+            }
+        }
+        throw new IllegalArgumentException("La pregunta destino " + opcionDto.getIdPreguntaDestino()
+                + " no existe en la nueva definición.");
+    }
+
+    private static <T> Set<T> identidad(Collection<T> elementos) {
+        Set<T> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(elementos);
+        return set;
+    }
+
+    private static boolean tieneDestino(OpcionRespuestaCreateDto opcionDto) {
+        return opcionDto.getIndicePreguntaDestino() != null || opcionDto.getIdPreguntaDestino() != null;
+    }
+
+    private static List<OpcionRespuestaCreateDto> opcionesDto(PreguntaCreateDto preguntaDto) {
+        return preguntaDto.getOpciones() != null ? preguntaDto.getOpciones() : List.of();
+    }
+}
@@ -0,0 +1,93 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.config.EnrutamientoDataSource;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grafo de lógica de salto compilado por encuesta. Se compila con dos consultas la primera
+ * vez que se necesita y se descarta cuando cambia la definición de la encuesta.
+ * Publica aciertos y fallos como {@code cache.gets{cache=definiciones}}.
+ */
+@Component
+@RequiredArgsConstructor
+public class EncuestaDefinitionCache implements MeterBinder {
+
+    private final PreguntaRepository preguntaRepository;
+    private final LogicaSaltoRepository logicaSaltoRepository;
+
+    private final Map<Integer, SkipLogicGraph> grafos = new ConcurrentHashMap<>();
+    // Evita guardar un grafo compilado antes de una invalidación concurrente
+    private final AtomicLong generacion = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    public SkipLogicGraph get(Integer idEncuesta) {
+        SkipLogicGraph grafo = grafos.get(idEncuesta);
+        if (grafo != null) {
+            aciertos.increment();
+            return grafo;
+        }
+        fallos.increment();
+        long antes = generacion.get();
+        EnrutamientoDataSource.leerDelPrimario();
+        grafo = SkipLogicGraph.compilar(
+                preguntaRepository.findNodosByEncuesta(idEncuesta),
+                logicaSaltoRepository.findAristasByEncuesta(idEncuesta));
+        // Si la transacción ya leía de una réplica, el grafo sirve para esta petición pero no se guarda
+        if (generacion.get() == antes && !EnrutamientoDataSource.leyendoDeReplica()) {
+            grafos.putIfAbsent(idEncuesta, grafo);
+        }
+        return grafo;
+    }
+
+    // Se aplica tras el commit: antes, otra petición podría recompilar con la definición vieja
+    public void invalidar(Integer idEncuesta) {
+        afterCommit(() -> {
+            generacion.incrementAndGet();
+            grafos.remove(idEncuesta);
+        });
+    }
+
+    public void invalidarTodo() {
+        afterCommit(() -> {
+            generacion.incrementAndGet();
+            grafos.clear();
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", aciertos, LongAdder::sum)
+                .tags("cache", "definiciones", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", fallos, LongAdder::sum)
+                .tags("cache", "definiciones", "result", "miss").register(registry);
+        Gauge.builder("cache.size", grafos, Map::size).tag("cache", "definiciones").register(registry);
+    }
+
+    private static void afterCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
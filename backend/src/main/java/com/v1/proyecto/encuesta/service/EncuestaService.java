@@ -6,14 +6,21 @@ import com.v1.proyecto.encuesta.model.*;
 import com.v1.proyecto.encuesta.repository.*;
 import com.v1.proyecto.paciente.model.Paciente;
 import com.v1.proyecto.paciente.repository.PacienteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +35,19 @@ public class EncuestaService {
     private final RegistroEncuestaRepository registroEncuestaRepository;
     private final LogicaSaltoRepository logicaSaltoRepository;
     private final RespuestaRepository respuestaRepository;
+    private final EncuestaDefinitionCache encuestaDefinitionCache;
+    private final EncuestaVersionService encuestaVersionService;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+    private final MatrizRespuestasCache matrizRespuestasCache;
+    private final CohorteIndex cohorteIndex;
+    private final MeterRegistry meterRegistry;
+
+    // Tamaño máximo de las listas IN (ids de registro) en las consultas agrupadas
+    private static final int IN_CHUNK = 500;
+
+    // Tamaño de página por defecto y máximo del listado de registros por encuesta
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
 
     // --- FUNCIONALIDAD Encuesta 1: OBTENER FORMULARIO (GET) ---
 
@@ -43,36 +63,45 @@ public class EncuestaService {
 
     @Transactional
     public RegistroResponseDto saveRegistro(RegistroRequestDto registroDto, Users user) {
+        // Tiempo dentro de la transacción, sin el commit (ese queda en http.server.requests)
+        String estado = Boolean.TRUE.equals(registroDto.getEsBorrador()) ? "BORRADOR" : "COMPLETADO";
+        return meterRegistry.timer("encuesta.registro.guardar", "estado", estado)
+                .record(() -> guardarRegistro(registroDto, user));
+    }
+
+    private RegistroResponseDto guardarRegistro(RegistroRequestDto registroDto, Users user) {
 
         Paciente paciente = pacienteRepository.findById(registroDto.getIdPaciente())
                 .orElseThrow(() -> new RuntimeException("Paciente no encontrado"));
         Encuesta encuesta = encuestaRepository.findById(registroDto.getIdEncuesta())
                 .orElseThrow(() -> new RuntimeException("Encuesta no encontrada"));
+        // Una versión reemplazada ya no recibe registros nuevos (los existentes la siguen usando)
+        if (!encuesta.isVigente()) {
+            throw new IllegalStateException("La versión " + encuesta.getIdEncuesta()
+                    + " de la encuesta fue reemplazada; recarga el formulario.");
+        }
 
         boolean esBorrador = Boolean.TRUE.equals(registroDto.getEsBorrador());
+        SkipLogicGraph grafo = encuestaDefinitionCache.get(encuesta.getIdEncuesta());
+        List<RespuestaRequestDto> respuestas = registroDto.getRespuestas();
 
         // --- INICIO DE LA VALIDACIÓN DE PREGUNTAS OBLIGATORIAS ---
-        // SOLO VALIDAR SI NO ES BORRADOR
+        // SOLO VALIDAR SI NO ES BORRADOR (los borradores guardan todo para no perder datos)
         if (!esBorrador) {
-            // 1. Obtiene todas las preguntas obligatorias de esta encuesta
-            Set<Integer> preguntasObligatoriasIds = encuesta.getPreguntas().stream()
-                    .filter(Pregunta::isObligatoria)
-                    .map(Pregunta::getIdPregunta)
-                    .collect(Collectors.toSet());
+            // Preguntas que el usuario realmente vio según la lógica de salto
+            Set<Integer> alcanzables = grafo.alcanzables(opcionesPorPregunta(respuestas));
+
+            // Las respuestas de preguntas saltadas se descartan antes de insertar
+            respuestas = respuestas.stream()
+                    .filter(r -> alcanzables.contains(r.getIdPregunta()))
+                    .toList();
 
-            // 2. Obtiene los IDs de las preguntas que el usuario SÍ respondió
-            Set<Integer> preguntasRespondidasIds = registroDto.getRespuestas().stream()
+            // Obtiene los IDs de las preguntas que el usuario SÍ respondió
+            Set<Integer> preguntasRespondidasIds = respuestas.stream()
                     .map(RespuestaRequestDto::getIdPregunta)
                     .collect(Collectors.toSet());
 
-            // 3. Comprueba si faltan obligatorias
-            for (Integer idObligatoria : preguntasObligatoriasIds) {
-                if (!preguntasRespondidasIds.contains(idObligatoria)) {
-                    // (En un escenario real, también deberías chequear la lógica de salto aquí)
-                    throw new IllegalArgumentException(
-                            "Respuesta faltante para la pregunta obligatoria ID: " + idObligatoria);
-                }
-            }
+            grafo.validarObligatorias(alcanzables, preguntasRespondidasIds);
         }
         // --- FIN DE LA VALIDACIÓN ---
 
@@ -84,15 +113,20 @@ public class EncuestaService {
                 .respuestas(new ArrayList<>())
                 .estado(esBorrador ? "BORRADOR" : "COMPLETADO")
                 .build();
+        List<FrecuenciaRespuestaService.Marca> marcas = new ArrayList<>();
 
-        for (RespuestaRequestDto resDto : registroDto.getRespuestas()) {
-            Pregunta pregunta = preguntaRepository.findById(resDto.getIdPregunta())
-                    .orElseThrow(() -> new RuntimeException("Pregunta no encontrada"));
+        for (RespuestaRequestDto resDto : respuestas) {
+            // El grafo ya conoce las preguntas de la encuesta: basta una referencia, sin SELECT
+            if (!grafo.contiene(resDto.getIdPregunta())) {
+                throw new RuntimeException("Pregunta no encontrada");
+            }
+            Pregunta pregunta = preguntaRepository.getReferenceById(resDto.getIdPregunta());
 
             OpcionRespuesta opcion = null;
             if (resDto.getIdOpcionSeleccionada() != null) {
                 opcion = opcionRespuestaRepository.findById(resDto.getIdOpcionSeleccionada())
                         .orElseThrow(() -> new RuntimeException("Opción no encontrada"));
+                marcas.add(new FrecuenciaRespuestaService.Marca(resDto.getIdPregunta(), opcion.getIdOpcion()));
             }
 
             Respuesta respuesta = Respuesta.builder()
@@ -106,9 +140,26 @@ public class EncuestaService {
         }
 
         RegistroEncuesta registroGuardado = registroEncuestaRepository.save(registro);
+        if (!esBorrador) {
+            frecuenciaRespuestaService.ajustar(encuesta.getIdEncuesta(), paciente.getGrupo(), marcas, 1);
+            matrizRespuestasCache.registroCambiado(encuesta.getIdEncuesta(), registroGuardado.getIdRegistro());
+            cohorteIndex.registroCambiado(encuesta.getIdEncuesta(), registroGuardado.getIdRegistro());
+        }
         return mapRegistroToDto(registroGuardado);
     }
 
+    // idPregunta -> opciones elegidas (las respuestas de texto no aportan opción)
+    private static Map<Integer, List<Integer>> opcionesPorPregunta(List<RespuestaRequestDto> respuestas) {
+        Map<Integer, List<Integer>> opciones = new HashMap<>();
+        for (RespuestaRequestDto dto : respuestas) {
+            List<Integer> elegidas = opciones.computeIfAbsent(dto.getIdPregunta(), id -> new ArrayList<>());
+            if (dto.getIdOpcionSeleccionada() != null) {
+                elegidas.add(dto.getIdOpcionSeleccionada());
+            }
+        }
+        return opciones;
+    }
+
     // --- FUNCIONALIDAD Encuesta 3: CREAR Encuesta (POST) ---
     @Transactional
     public EncuestaResponseDto createEncuestaCompleta(EncuestaCreateDto encuestaDto) {
@@ -152,8 +203,9 @@ public class EncuestaService {
     @Transactional
     public PreguntaDto addPreguntaToEncuesta(Integer idEncuesta, PreguntaCreateDto preguntaDto) {
 
-        Encuesta encuesta = encuestaRepository.findById(idEncuesta)
-                .orElseThrow(() -> new RuntimeException("Encuesta no encontrada con id: " + idEncuesta));
+        // Si la versión es inmutable la pregunta se agrega a una versión nueva (copy-on-write)
+        EncuestaVersionService.Edicion edicion = encuestaVersionService.prepararEdicion(idEncuesta);
+        Encuesta encuesta = edicion.encuesta();
 
         Pregunta pregunta = Pregunta.builder()
                 .textoPregunta(preguntaDto.getTextoPregunta())
@@ -174,22 +226,35 @@ public class EncuestaService {
             pregunta.setOpciones(opciones);
         }
         Pregunta preguntaGuardada = preguntaRepository.save(pregunta);
+        // Ambos lados: la colección de la encuesta está en la caché de segundo nivel
+        encuesta.getPreguntas().add(preguntaGuardada);
 
         // Procesar lógica de salto después de guardar (para tener IDs de opciones)
         if (preguntaDto.getOpciones() != null) {
-            procesarLogicaSalto(preguntaGuardada, preguntaDto.getOpciones());
+            procesarLogicaSalto(preguntaGuardada, preguntaDto.getOpciones(), edicion);
         }
+        encuestaDefinitionCache.invalidar(encuesta.getIdEncuesta());
 
-        return mapPreguntaToDto(preguntaGuardada);
+        PreguntaDto dto = mapPreguntaToDto(preguntaGuardada);
+        dto.setVersionNueva(edicion.copia());
+        return dto;
     }
 
     // --- FUNCIONALIDAD Encuesta 5: EDITAR PREGUNTA ---
     @Transactional
     public PreguntaDto updatePregunta(Integer idPregunta, PreguntaCreateDto preguntaDto) {
 
-        Pregunta pregunta = preguntaRepository.findById(idPregunta)
+        Pregunta original = preguntaRepository.findById(idPregunta)
                 .orElseThrow(() -> new RuntimeException("Pregunta no encontrada con id: " + idPregunta));
 
+        // En una versión inmutable se edita la copia de la pregunta en la versión nueva; así las
+        // respuestas ya guardadas nunca pierden sus opciones
+        EncuestaVersionService.Edicion edicion = encuestaVersionService
+                .prepararEdicion(original.getEncuesta().getIdEncuesta());
+        Pregunta pregunta = edicion.copia()
+                ? preguntaRepository.findById(edicion.pregunta(idPregunta)).orElseThrow()
+                : original;
+
         pregunta.setTextoPregunta(preguntaDto.getTextoPregunta());
         pregunta.setTipoPregunta(preguntaDto.getTipoPregunta());
         pregunta.setTipoPregunta(preguntaDto.getTipoPregunta());
@@ -220,13 +285,17 @@ public class EncuestaService {
 
         // Procesar lógica de salto
         if (preguntaDto.getOpciones() != null) {
-            procesarLogicaSalto(preguntaGuardada, preguntaDto.getOpciones());
+            procesarLogicaSalto(preguntaGuardada, preguntaDto.getOpciones(), edicion);
         }
+        encuestaDefinitionCache.invalidar(pregunta.getEncuesta().getIdEncuesta());
 
-        return mapPreguntaToDto(preguntaGuardada);
+        PreguntaDto dto = mapPreguntaToDto(preguntaGuardada);
+        dto.setVersionNueva(edicion.copia());
+        return dto;
     }
 
-    private void procesarLogicaSalto(Pregunta pregunta, List<OpcionRespuestaCreateDto> opcionesDto) {
+    private void procesarLogicaSalto(Pregunta pregunta, List<OpcionRespuestaCreateDto> opcionesDto,
+                                     EncuestaVersionService.Edicion edicion) {
         // Asumimos que el orden de pregunta.getOpciones() coincide con opcionesDto
         // porque acabamos de guardarlas en ese orden.
         List<OpcionRespuesta> opcionesGuardadas = pregunta.getOpciones();
@@ -245,7 +314,8 @@ public class EncuestaService {
             OpcionRespuestaCreateDto dto = opcionesDto.get(i);
 
             if (dto.getIdPreguntaDestino() != null) {
-                Pregunta preguntaDestino = preguntaRepository.findById(dto.getIdPreguntaDestino())
+                // El destino puede venir con el id de la versión anterior
+                Pregunta preguntaDestino = preguntaRepository.findById(edicion.pregunta(dto.getIdPreguntaDestino()))
                         .orElse(null); // O lanzar excepción si es estricto
 
                 if (preguntaDestino != null) {
@@ -271,13 +341,32 @@ public class EncuestaService {
         return mapEncuestaToDto(encuestaGuardada);
     }
 
+    // Publicar congela la versión: desde aquí cualquier edición crea una versión nueva
+    @Transactional
+    public EncuestaResponseDto publicarEncuesta(Integer id) {
+        return mapEncuestaToDto(encuestaVersionService.publicar(id));
+    }
+
     // --- FUNCIONALIDAD Encuesta 7: ELIMINAR PREGUNTA ---
+    // Devuelve el id de la versión nueva si el borrado tuvo que copiar la encuesta; null si no
     @Transactional
-    public void deletePregunta(Integer idPregunta) {
-        if (!preguntaRepository.existsById(idPregunta)) {
-            throw new RuntimeException("Pregunta no encontrada con id: " + idPregunta);
+    public Integer deletePregunta(Integer idPregunta) {
+        Pregunta original = preguntaRepository.findById(idPregunta)
+                .orElseThrow(() -> new RuntimeException("Pregunta no encontrada con id: " + idPregunta));
+
+        // En una versión inmutable se borra la copia en la versión nueva
+        EncuestaVersionService.Edicion edicion = encuestaVersionService
+                .prepararEdicion(original.getEncuesta().getIdEncuesta());
+        if (edicion.copia()) {
+            Integer idCopia = edicion.pregunta(idPregunta);
+            edicion.encuesta().getPreguntas().removeIf(p -> p.getIdPregunta().equals(idCopia));
+            preguntaRepository.deleteById(idCopia);
+        } else {
+            original.getEncuesta().getPreguntas().remove(original);
+            preguntaRepository.delete(original);
         }
-        preguntaRepository.deleteById(idPregunta);
+        encuestaDefinitionCache.invalidar(edicion.encuesta().getIdEncuesta());
+        return edicion.copia() ? edicion.encuesta().getIdEncuesta() : null;
     }
 
     // --- FUNCIONALIDAD Encuesta 8: ELIMINAR ENCUESTA ---
@@ -286,7 +375,13 @@ public class EncuestaService {
         if (!encuestaRepository.existsById(id)) {
             throw new RuntimeException("Encuesta no encontrada con id: " + id);
         }
+        // Las versiones posteriores dejan de apuntar a la que se borra
+        encuestaRepository.desvincularVersionAnterior(id);
         encuestaRepository.deleteById(id);
+        frecuenciaRespuestaService.eliminarEncuesta(id);
+        matrizRespuestasCache.eliminar(id);
+        cohorteIndex.eliminar(id);
+        encuestaDefinitionCache.invalidar(id);
     }
 
     // --- FUNCIONALIDAD Encuesta 9: ELIMINAR respuesta---
@@ -294,23 +389,57 @@ public class EncuestaService {
     public void deleteRespuesta(Integer idRespuesta) {
 
         // 1. Verifica que la respuesta existe antes de borrarla
-        if (!respuestaRepository.existsById(idRespuesta)) {
-            throw new RuntimeException("Respuesta no encontrada con id: " + idRespuesta);
-        }
+        Respuesta respuesta = respuestaRepository.findById(idRespuesta)
+                .orElseThrow(() -> new RuntimeException("Respuesta no encontrada con id: " + idRespuesta));
+
+        // 2. Descuenta la opción de los contadores de frecuencia (solo registros completados)
+        ajustarFrecuencia(respuesta, respuesta.getOpcionSeleccionada(), -1);
 
-        // 2. Borra la respuesta por su ID
+        // 3. Borra la respuesta por su ID
         respuestaRepository.deleteById(idRespuesta);
+        registroCambiado(respuesta.getRegistroEncuesta());
     }
 
     @Transactional(readOnly = true)
     public List<RegistroCompletoResponseDto> getRegistrosPorPaciente(Integer idPaciente) {
-        // 1. Busca todos los registros del paciente
-        List<RegistroEncuesta> registros = registroEncuestaRepository.findByPacienteIdPaciente(idPaciente);
+        return getRegistrosPorPaciente(idPaciente, false);
+    }
 
-        // 2. Mapea la lista de Entidades a DTOs
-        return registros.stream()
-                .map(this::mapRegistroToCompletoDto)
-                .collect(Collectors.toList());
+    /**
+     * Línea de tiempo del paciente (más reciente primero) armada con un número fijo de consultas:
+     * una para los registros (paciente, encuesta y usuario por JOIN) y, si no es resumen,
+     * una por cada bloque de {@link #IN_CHUNK} registros para todas sus respuestas.
+     * En modo resumen las respuestas van en null y se piden con {@link #getRespuestasDeRegistro}.
+     */
+    @Transactional(readOnly = true)
+    public List<RegistroCompletoResponseDto> getRegistrosPorPaciente(Integer idPaciente, boolean resumen) {
+        // 1. Registros del paciente, sin cargar entidades
+        List<RegistroResumen> registros = registroEncuestaRepository.findResumenByPaciente(idPaciente);
+
+        // 2. Respuestas de todos los registros agrupadas por idRegistro
+        return mapResumenes(registros, !resumen);
+    }
+
+    // Expansión perezosa de la línea de tiempo: respuestas de un solo registro
+    @Transactional(readOnly = true)
+    public List<RespuestaDetalladaDto> getRespuestasDeRegistro(Integer idRegistro) {
+        if (!registroEncuestaRepository.existsById(idRegistro)) {
+            throw new RuntimeException("Registro no encontrado con id: " + idRegistro);
+        }
+        return findRespuestasAgrupadas(List.of(idRegistro)).getOrDefault(idRegistro, new ArrayList<>());
+    }
+
+    private Map<Integer, List<RespuestaDetalladaDto>> findRespuestasAgrupadas(List<Integer> idsRegistro) {
+        Map<Integer, List<RespuestaDetalladaDto>> agrupadas = new HashMap<>();
+        // El IN se parte en bloques para no generar sentencias gigantes con pacientes de muchas visitas
+        for (int desde = 0; desde < idsRegistro.size(); desde += IN_CHUNK) {
+            List<Integer> bloque = idsRegistro.subList(desde, Math.min(desde + IN_CHUNK, idsRegistro.size()));
+            for (RespuestaPlana fila : respuestaRepository.findPlanasByRegistroIds(bloque)) {
+                agrupadas.computeIfAbsent(fila.getIdRegistro(), id -> new ArrayList<>())
+                        .add(mapRespuestaPlanaToDetalladaDto(fila));
+            }
+        }
+        return agrupadas;
     }
 
     // --- FUNCIONALIDAD EXTRA: Verificar si usuario respondió ---
@@ -336,9 +465,52 @@ public class EncuestaService {
     // --- FUNCIONALIDAD EXTRA: Listar registros de una encuesta (Admin) ---
     @Transactional(readOnly = true)
     public List<RegistroCompletoResponseDto> getRegistrosByEncuesta(Integer idEncuesta) {
-        List<RegistroEncuesta> registros = registroEncuestaRepository.findByEncuestaIdEncuesta(idEncuesta);
+        // Misma lectura plana que la página, sin límite (proyección + respuestas agrupadas)
+        List<RegistroResumen> registros = registroEncuestaRepository.findResumenByEncuesta(
+                idEncuesta, 0, null, null, null, null, null, Limit.unlimited());
+        return mapResumenes(registros, true);
+    }
+
+    /**
+     * Página de registros de una encuesta ordenada por idRegistro (keyset: {@code cursor} es el
+     * último idRegistro recibido). Con {@code incluirRespuestas = false} no se consulta la tabla
+     * de respuestas.
+     */
+    @Transactional(readOnly = true)
+    public RegistroPageResponseDto getRegistrosByEncuestaPage(Integer idEncuesta, RegistroFiltroDto filtro,
+                                                              Integer cursor, Integer limit,
+                                                              boolean incluirRespuestas) {
+        final int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        final RegistroFiltroDto f = filtro != null ? filtro : new RegistroFiltroDto();
+
+        // Se pide una fila extra para saber si hay más sin hacer COUNT(*)
+        List<RegistroResumen> filas = registroEncuestaRepository.findResumenByEncuesta(
+                idEncuesta,
+                cursor != null ? cursor : 0,
+                f.getEstado(),
+                f.getDesde() != null ? f.getDesde().atStartOfDay() : null,
+                f.getHasta() != null ? f.getHasta().plusDays(1).atStartOfDay() : null,
+                f.getIdUsuario(),
+                f.getIdPaciente(),
+                Limit.of(size + 1));
+
+        boolean hasMore = filas.size() > size;
+        List<RegistroResumen> pagina = hasMore ? filas.subList(0, size) : filas;
+        return RegistroPageResponseDto.builder()
+                .items(mapResumenes(pagina, incluirRespuestas))
+                .nextCursor(hasMore ? pagina.get(pagina.size() - 1).getIdRegistro() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private List<RegistroCompletoResponseDto> mapResumenes(List<RegistroResumen> registros, boolean incluirRespuestas) {
+        Map<Integer, List<RespuestaDetalladaDto>> respuestasPorRegistro = incluirRespuestas
+                ? findRespuestasAgrupadas(registros.stream().map(RegistroResumen::getIdRegistro).toList())
+                : Map.of();
         return registros.stream()
-                .map(this::mapRegistroToCompletoDto)
+                .map(r -> mapResumenToCompletoDto(r, incluirRespuestas
+                        ? respuestasPorRegistro.getOrDefault(r.getIdRegistro(), new ArrayList<>())
+                        : null))
                 .collect(Collectors.toList());
     }
 
@@ -369,6 +541,8 @@ public class EncuestaService {
         Respuesta respuesta = respuestaRepository.findById(idRespuesta)
                 .orElseThrow(() -> new RuntimeException("Respuesta no encontrada con id: " + idRespuesta));
 
+        OpcionRespuesta opcionAnterior = respuesta.getOpcionSeleccionada();
+
         // 2. Lógica para actualizar la respuesta
 
         // Si el DTO trae un ID de opción...
@@ -399,43 +573,85 @@ public class EncuestaService {
 
         // 3. Guardar la respuesta actualizada
         Respuesta respuestaGuardada = respuestaRepository.save(respuesta);
+        OpcionRespuesta opcionNueva = respuestaGuardada.getOpcionSeleccionada();
+        if (!Objects.equals(idOpcion(opcionAnterior), idOpcion(opcionNueva))) {
+            ajustarFrecuencia(respuesta, opcionAnterior, -1);
+            ajustarFrecuencia(respuesta, opcionNueva, 1);
+        }
+        // La matriz también guarda el texto libre, así que se refresca aunque la opción no cambie
+        registroCambiado(respuesta.getRegistroEncuesta());
 
         // 4. Devolver el DTO detallado (que ya teníamos)
         return mapRespuestaToDetalladaDto(respuestaGuardada);
     }
 
+    private void ajustarFrecuencia(Respuesta respuesta, OpcionRespuesta opcion, int delta) {
+        RegistroEncuesta registro = respuesta.getRegistroEncuesta();
+        if (opcion == null || !"COMPLETADO".equals(registro.getEstado())) {
+            return;
+        }
+        frecuenciaRespuestaService.ajustar(registro.getEncuesta().getIdEncuesta(), registro.getPaciente().getGrupo(),
+                List.of(new FrecuenciaRespuestaService.Marca(respuesta.getPregunta().getIdPregunta(),
+                        opcion.getIdOpcion())), delta);
+    }
+
+    private void registroCambiado(RegistroEncuesta registro) {
+        if ("COMPLETADO".equals(registro.getEstado())) {
+            matrizRespuestasCache.registroCambiado(registro.getEncuesta().getIdEncuesta(), registro.getIdRegistro());
+            cohorteIndex.registroCambiado(registro.getEncuesta().getIdEncuesta(), registro.getIdRegistro());
+        }
+    }
+
+    private static Integer idOpcion(OpcionRespuesta opcion) {
+        return opcion == null ? null : opcion.getIdOpcion();
+    }
+
     // --- MÉTODOS PRIVADOS DE MAPEO (DTOs) ---
     // (Actualizados para enviar 'obligatoria' y 'logicaSalto' al frontend)
 
     private EncuestaResponseDto mapEncuestaToDto(Encuesta encuesta) {
+        // Destinos de salto de toda la encuesta en una consulta, no una por opción
+        Map<Integer, Integer> destinos = new HashMap<>();
+        for (LogicaSaltoArista arista : logicaSaltoRepository.findAristasByEncuesta(encuesta.getIdEncuesta())) {
+            destinos.putIfAbsent(arista.getIdOpcionOrigen(), arista.getIdPreguntaDestino());
+        }
         return EncuestaResponseDto.builder()
                 .idEncuesta(encuesta.getIdEncuesta())
                 .titulo(encuesta.getTitulo())
                 .version(encuesta.getVersion())
+                .revision(encuesta.getRevision())
+                .publicada(encuesta.isPublicada())
+                .vigente(encuesta.isVigente())
+                .idEncuestaAnterior(encuesta.getEncuestaAnterior() != null
+                        ? encuesta.getEncuestaAnterior().getIdEncuesta() : null)
                 .preguntas(encuesta.getPreguntas().stream()
-                        .map(this::mapPreguntaToDto)
+                        .map(p -> mapPreguntaToDto(p, opcion -> destinos.get(opcion.getIdOpcion())))
                         .collect(Collectors.toList()))
                 .build();
     }
 
     private PreguntaDto mapPreguntaToDto(Pregunta pregunta) {
+        // Busca si cada opción dispara una lógica de salto
+        return mapPreguntaToDto(pregunta, opcion -> logicaSaltoRepository.findByOpcionOrigen(opcion)
+                .map(logica -> logica.getPreguntaDestino().getIdPregunta())
+                .orElse(null));
+    }
+
+    private PreguntaDto mapPreguntaToDto(Pregunta pregunta, Function<OpcionRespuesta, Integer> destino) {
         return PreguntaDto.builder()
                 .idPregunta(pregunta.getIdPregunta())
                 .textoPregunta(pregunta.getTextoPregunta())
                 .tipoPregunta(pregunta.getTipoPregunta())
                 .obligatoria(pregunta.isObligatoria())
                 .oculta(pregunta.isOculta())
+                .idEncuesta(pregunta.getEncuesta() != null ? pregunta.getEncuesta().getIdEncuesta() : null)
                 .opciones(pregunta.getOpciones() != null ? pregunta.getOpciones().stream()
-                        .map(this::mapOpcionToDto)
+                        .map(opcion -> mapOpcionToDto(opcion, destino.apply(opcion)))
                         .collect(Collectors.toList()) : new ArrayList<>())
                 .build();
     }
 
-    private OpcionRespuestaDto mapOpcionToDto(OpcionRespuesta opcion) {
-        // Busca si esta opción dispara una lógica de salto
-        LogicaSalto logica = logicaSaltoRepository.findByOpcionOrigen(opcion).orElse(null);
-        Integer idPreguntaDestino = (logica != null) ? logica.getPreguntaDestino().getIdPregunta() : null;
-
+    private OpcionRespuestaDto mapOpcionToDto(OpcionRespuesta opcion, Integer idPreguntaDestino) {
         return OpcionRespuestaDto.builder()
                 .idOpcion(opcion.getIdOpcion())
                 .textoOpcion(opcion.getTextoOpcion())
@@ -461,12 +677,39 @@ public class EncuestaService {
                 .tituloEncuesta(registro.getEncuesta().getTitulo())
                 .fechaRealizacion(registro.getFechaRealizacion())
                 .usuarioNombre(registro.getUsuario().getUsername())
+                .estado(registro.getEstado())
                 .respuestas(registro.getRespuestas().stream() // Mapea las respuestas
                         .map(this::mapRespuestaToDetalladaDto)
                         .collect(Collectors.toList()))
                 .build();
     }
 
+    private RegistroCompletoResponseDto mapResumenToCompletoDto(RegistroResumen registro,
+                                                                List<RespuestaDetalladaDto> respuestas) {
+        return RegistroCompletoResponseDto.builder()
+                .idRegistro(registro.getIdRegistro())
+                .idPaciente(registro.getIdPaciente())
+                .nombrePaciente(registro.getNombrePaciente() + " " + registro.getApellidosPaciente())
+                .idEncuesta(registro.getIdEncuesta())
+                .tituloEncuesta(registro.getTituloEncuesta())
+                .fechaRealizacion(registro.getFechaRealizacion())
+                .usuarioNombre(registro.getUsuarioNombre())
+                .estado(registro.getEstado())
+                .respuestas(respuestas)
+                .build();
+    }
+
+    private RespuestaDetalladaDto mapRespuestaPlanaToDetalladaDto(RespuestaPlana respuesta) {
+        // Si hay opción seleccionada se muestra su texto; si no, el texto libre
+        return RespuestaDetalladaDto.builder()
+                .idRespuesta(respuesta.getIdRespuesta())
+                .idPregunta(respuesta.getIdPregunta())
+                .textoPregunta(respuesta.getTextoPregunta())
+                .respuestaDada(respuesta.getIdOpcion() != null ? respuesta.getTextoOpcion() : respuesta.getValorTexto())
+                .idOpcionSeleccionada(respuesta.getIdOpcion())
+                .build();
+    }
+
     private RespuestaDetalladaDto mapRespuestaToDetalladaDto(Respuesta respuesta) {
         String textoRespuesta;
         Integer idOpcion = null;
@@ -491,7 +734,20 @@ public class EncuestaService {
 
     @Transactional(readOnly = true)
     public List<EncuestaResponseDto> getAllEncuestas() {
-        return encuestaRepository.findAll().stream()
+        return getAllEncuestas(false);
+    }
+
+    /**
+     * Por defecto solo la versión vigente de cada encuesta (la que se responde). Con
+     * {@code incluirAnteriores} también las reemplazadas: sus registros, frecuencias y
+     * exportaciones siguen bajo su propio id y los paneles de análisis las necesitan.
+     */
+    @Transactional(readOnly = true)
+    public List<EncuestaResponseDto> getAllEncuestas(boolean incluirAnteriores) {
+        List<Encuesta> encuestas = incluirAnteriores
+                ? encuestaRepository.findAll(Sort.by("idEncuesta"))
+                : encuestaRepository.findByVigenteTrue();
+        return encuestas.stream()
                 .map(this::mapEncuestaToDto)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,170 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.LogicaSalto;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Versiones inmutables de encuestas (copy-on-write).
+ *
+ * Una encuesta publicada, o que ya tiene registros, no se modifica nunca: la primera edición
+ * copia su definición (preguntas, opciones y saltos) a una versión nueva y es esa la que se
+ * edita. Los registros siguen apuntando a la versión con la que se respondieron, de modo que
+ * todo lo derivado de una definición publicada puede cachearse por idEncuesta sin invalidar.
+ */
+@Service
+@RequiredArgsConstructor
+public class EncuestaVersionService {
+
+    private static final Pattern NUMERO_FINAL = Pattern.compile("(\\d+)$");
+
+    private final EncuestaRepository encuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final LogicaSaltoRepository logicaSaltoRepository;
+    private final RegistroEncuestaRepository registroEncuestaRepository;
+
+    @Transactional
+    public Encuesta publicar(Integer idEncuesta) {
+        Encuesta encuesta = encuestaRepository.findById(idEncuesta)
+                .orElseThrow(() -> new RuntimeException("Encuesta no encontrada con id: " + idEncuesta));
+        encuesta.setPublicada(true);
+        return encuesta;
+    }
+
+    /**
+     * Devuelve la encuesta sobre la que se puede editar la definición: la misma si aún es un
+     * borrador editable, o una copia nueva si la versión es inmutable. La {@link Edicion}
+     * traduce los ids de preguntas y opciones de la versión original a la editable.
+     */
+    @Transactional
+    public Edicion prepararEdicion(Integer idEncuesta) {
+        Encuesta encuesta = encuestaRepository.findById(idEncuesta)
+                .orElseThrow(() -> new RuntimeException("Encuesta no encontrada con id: " + idEncuesta));
+        if (!encuesta.isVigente()) {
+            throw new IllegalStateException("La versión " + idEncuesta + " fue reemplazada; edita la versión vigente.");
+        }
+        if (!encuesta.isPublicada() && !registroEncuestaRepository.existsByEncuestaIdEncuesta(idEncuesta)) {
+            return Edicion.mismaEncuesta(encuesta);
+        }
+        return copiar(encuesta);
+    }
+
+    private Edicion copiar(Encuesta original) {
+        // isVigente() se leyó sin bloqueo: de dos ediciones simultáneas solo una retira la versión
+        if (encuestaRepository.retirarVersion(original.getIdEncuesta()) == 0) {
+            throw new IllegalStateException("La versión " + original.getIdEncuesta()
+                    + " fue reemplazada; edita la versión vigente.");
+        }
+        original.setVigente(false);
+        Encuesta copia = Encuesta.builder()
+                .titulo(original.getTitulo())
+                .version(siguienteVersion(original.getVersion()))
+                .revision(original.getRevision())
+                .encuestaAnterior(original)
+                .build();
+        encuestaRepository.save(copia);
+
+        // Se copian en orden de id para que las preguntas nuevas conserven el orden del formulario
+        List<Pregunta> preguntas = preguntaRepository.findConOpcionesByEncuesta(original.getIdEncuesta());
+        List<Pregunta> copiasPregunta = new ArrayList<>(preguntas.size());
+        Map<Integer, OpcionRespuesta> copiasOpcion = new HashMap<>();
+        for (Pregunta pregunta : preguntas) {
+            Pregunta nueva = Pregunta.builder()
+                    .textoPregunta(pregunta.getTextoPregunta())
+                    .tipoPregunta(pregunta.getTipoPregunta())
+                    .obligatoria(pregunta.isObligatoria())
+                    .oculta(pregunta.isOculta())
+                    .encuesta(copia)
+                    .opciones(new ArrayList<>())
+                    .build();
+            for (OpcionRespuesta opcion : pregunta.getOpciones()) {
+                OpcionRespuesta nuevaOpcion = OpcionRespuesta.builder()
+                        .textoOpcion(opcion.getTextoOpcion())
+                        .valorDicotomizado(opcion.getValorDicotomizado())
+                        .pregunta(nueva)
+                        .build();
+                nueva.getOpciones().add(nuevaOpcion);
+                copiasOpcion.put(opcion.getIdOpcion(), nuevaOpcion);
+            }
+            copiasPregunta.add(nueva);
+        }
+        preguntaRepository.saveAll(copiasPregunta); // las opciones se insertan en cascada
+        copia.getPreguntas().addAll(copiasPregunta);
+
+        Map<Integer, Integer> idsPregunta = new HashMap<>();
+        Map<Integer, Pregunta> preguntaPorIdOriginal = new HashMap<>();
+        for (int i = 0; i < preguntas.size(); i++) {
+            idsPregunta.put(preguntas.get(i).getIdPregunta(), copiasPregunta.get(i).getIdPregunta());
+            preguntaPorIdOriginal.put(preguntas.get(i).getIdPregunta(), copiasPregunta.get(i));
+        }
+        Map<Integer, Integer> idsOpcion = new HashMap<>();
+        copiasOpcion.forEach((idOriginal, nueva) -> idsOpcion.put(idOriginal, nueva.getIdOpcion()));
+
+        List<LogicaSalto> saltos = new ArrayList<>();
+        for (LogicaSalto salto : logicaSaltoRepository.findByPreguntaOrigenEncuestaIdEncuesta(original.getIdEncuesta())) {
+            if (salto.getOpcionOrigen() == null) {
+                continue;
+            }
+            Pregunta destino = preguntaPorIdOriginal.get(salto.getPreguntaDestino().getIdPregunta());
+            OpcionRespuesta opcion = copiasOpcion.get(salto.getOpcionOrigen().getIdOpcion());
+            if (destino != null && opcion != null) {
+                saltos.add(LogicaSalto.builder()
+                        .preguntaOrigen(opcion.getPregunta())
+                        .opcionOrigen(opcion)
+                        .preguntaDestino(destino)
+                        .build());
+            }
+        }
+        if (!saltos.isEmpty()) {
+            logicaSaltoRepository.saveAll(saltos);
+        }
+
+        System.out.println("Encuesta " + original.getIdEncuesta() + " es inmutable: editando la nueva versión "
+                + copia.getIdEncuesta() + " (" + copia.getVersion() + ").");
+        return new Edicion(copia, true, idsPregunta, idsOpcion);
+    }
+
+    // "1" -> "2", "v1.3" -> "v1.4"; sin número final se agrega uno
+    static String siguienteVersion(String version) {
+        if (version == null || version.isBlank()) {
+            return "2";
+        }
+        Matcher m = NUMERO_FINAL.matcher(version);
+        if (m.find()) {
+            return version.substring(0, m.start()) + (Long.parseLong(m.group(1)) + 1);
+        }
+        return version + ".2";
+    }
+
+    /**
+     * Encuesta editable y traducción de ids desde la versión original (ids sin traducción,
+     * p. ej. de elementos nuevos o si no hubo copia, se devuelven tal cual).
+     */
+    public record Edicion(Encuesta encuesta, boolean copia,
+                          Map<Integer, Integer> idsPregunta, Map<Integer, Integer> idsOpcion) {
+
+        public static Edicion mismaEncuesta(Encuesta encuesta) {
+            return new Edicion(encuesta, false, Map.of(), Map.of());
+        }
+
+        public Integer pregunta(Integer idPregunta) {
+            return idPregunta == null ? null : idsPregunta.getOrDefault(idPregunta, idPregunta);
+        }
+
+        public Integer opcion(Integer idOpcion) {
+            return idOpcion == null ? null : idsOpcion.getOrDefault(idOpcion, idOpcion);
+        }
+    }
+}
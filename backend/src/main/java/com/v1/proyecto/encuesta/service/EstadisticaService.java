@@ -0,0 +1,245 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.config.EnrutamientoDataSource;
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.encuesta.dto.AsociacionDto;
+import com.v1.proyecto.encuesta.dto.OddsRatioDto;
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.FrecuenciaRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Análisis caso-control: tabla 2×k (grupo × código de respuesta), odds ratios e IC 95% y
+ * chi-cuadrado para cada pregunta de selección única codificable.
+ *
+ * Las tablas se arman desde los contadores de {@code frecuencia_respuesta} (O(opciones) filas
+ * por encuesta) y se guardan en caché junto con la marca de datos de la encuesta; cualquier
+ * cambio confirmado en las respuestas sube la marca y la siguiente consulta recalcula.
+ */
+@Service
+@RequiredArgsConstructor
+public class EstadisticaService implements MeterBinder {
+
+    static final int GRUPO_CONTROL = 0;
+    static final int GRUPO_CASO = 1;
+    static final int SIN_CODIGO = Integer.MIN_VALUE;
+
+    private final EncuestaRepository encuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final FrecuenciaRespuestaRepository frecuenciaRespuestaRepository;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+    private final DataEncoder dataEncoder;
+
+    private final Map<Integer, Calculo> calculos = new ConcurrentHashMap<>();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    @Transactional(readOnly = true)
+    public List<AsociacionDto> getAsociaciones(Integer idEncuesta) {
+        Calculo calculo = calcular(idEncuesta);
+        List<AsociacionDto> resultado = new ArrayList<>(calculo.tablas().size());
+        for (Tabla tabla : calculo.tablas().values()) {
+            resultado.add(toDto(tabla, null, calculo.marca()));
+        }
+        return resultado;
+    }
+
+    /**
+     * @param referencia código contra el que se comparan los demás (por defecto el menor,
+     *                   que en la codificación del estudio es la categoría no expuesta)
+     */
+    @Transactional(readOnly = true)
+    public AsociacionDto getAsociacion(Integer idEncuesta, Integer idPregunta, Integer referencia) {
+        Calculo calculo = calcular(idEncuesta);
+        Tabla tabla = calculo.tablas().get(idPregunta);
+        if (tabla == null) {
+            if (!preguntaRepository.existsByIdPreguntaAndEncuestaIdEncuesta(idPregunta, idEncuesta)) {
+                throw new RuntimeException("Pregunta " + idPregunta + " no encontrada en la encuesta " + idEncuesta);
+            }
+            throw new IllegalArgumentException("La pregunta " + idPregunta
+                    + " no es de selección única con opciones codificadas.");
+        }
+        return toDto(tabla, referencia, calculo.marca());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", aciertos, LongAdder::sum)
+                .tags("cache", "asociaciones", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", fallos, LongAdder::sum)
+                .tags("cache", "asociaciones", "result", "miss").register(registry);
+        Gauge.builder("cache.size", calculos, Map::size).tag("cache", "asociaciones").register(registry);
+    }
+
+    private Calculo calcular(Integer idEncuesta) {
+        long marca = frecuenciaRespuestaService.marca(idEncuesta);
+        Calculo calculo = calculos.get(idEncuesta);
+        if (calculo != null && calculo.marca() == marca) {
+            aciertos.increment();
+            return calculo;
+        }
+        fallos.increment();
+        // El cálculo se guarda con la marca ya avanzada: los contadores deben estar al día
+        EnrutamientoDataSource.leerDelPrimario();
+        if (!encuestaRepository.existsById(idEncuesta)) {
+            throw new RuntimeException("Encuesta no encontrada con id: " + idEncuesta);
+        }
+
+        // idOpcion -> [controles, casos]
+        Map<Integer, int[]> conteos = new HashMap<>();
+        for (FrecuenciaRespuesta f : frecuenciaRespuestaRepository.findByIdEncuesta(idEncuesta)) {
+            int grupo = codigoGrupo(f.getGrupo());
+            if (grupo >= 0) {
+                conteos.computeIfAbsent(f.getIdOpcion(), id -> new int[2])[grupo] += Math.toIntExact(f.getConteo());
+            }
+        }
+
+        Map<Integer, Tabla> tablas = new LinkedHashMap<>();
+        for (Pregunta pregunta : preguntaRepository.findConOpcionesByEncuesta(idEncuesta)) {
+            TablaContingencia tabla = construirTabla(pregunta, conteos);
+            if (tabla != null) {
+                tablas.put(pregunta.getIdPregunta(), new Tabla(pregunta.getIdPregunta(), pregunta.getTextoPregunta(), tabla));
+            }
+        }
+        // La marca se leyó antes que los datos: si cambió entretanto, la próxima lectura recalcula
+        calculo = new Calculo(marca, tablas);
+        calculos.put(idEncuesta, calculo);
+        return calculo;
+    }
+
+    // null si la pregunta no admite tabla 2×k (texto libre, selección múltiple o sin códigos)
+    private TablaContingencia construirTabla(Pregunta pregunta, Map<Integer, int[]> conteos) {
+        String tipo = pregunta.getTipoPregunta();
+        if (pregunta.getOpciones().isEmpty() || (tipo != null && tipo.contains("MULTIPLE"))) {
+            return null;
+        }
+        int n = pregunta.getOpciones().size();
+        int[] codigos = new int[n];
+        String[] textos = new String[n];
+        int[] casos = new int[n];
+        int[] controles = new int[n];
+        int codificadas = 0;
+        for (OpcionRespuesta opcion : pregunta.getOpciones()) {
+            int codigo = codigoOpcion(pregunta, opcion);
+            if (codigo == SIN_CODIGO) {
+                continue;
+            }
+            int[] conteo = conteos.getOrDefault(opcion.getIdOpcion(), new int[2]);
+            codigos[codificadas] = codigo;
+            textos[codificadas] = opcion.getTextoOpcion();
+            controles[codificadas] = conteo[GRUPO_CONTROL];
+            casos[codificadas] = conteo[GRUPO_CASO];
+            codificadas++;
+        }
+        if (codificadas == 0) {
+            return null;
+        }
+        return TablaContingencia.desdeOpciones(Arrays.copyOf(codigos, codificadas), Arrays.copyOf(textos, codificadas),
+                Arrays.copyOf(casos, codificadas), Arrays.copyOf(controles, codificadas));
+    }
+
+    // valorDicotomizado definido por el administrador; si no, la codificación del DataEncoder
+    private int codigoOpcion(Pregunta pregunta, OpcionRespuesta opcion) {
+        if (opcion.getValorDicotomizado() != null) {
+            return opcion.getValorDicotomizado();
+        }
+        String codigo = dataEncoder.encodeRespuesta(pregunta.getTextoPregunta(), opcion.getTextoOpcion(), Role.ANALISTA);
+        try {
+            return Integer.parseInt(codigo.trim());
+        } catch (NumberFormatException e) {
+            return SIN_CODIGO;
+        }
+    }
+
+    // "CASO" / "Caso (Cáncer)" -> 1, "CONTROL" / "Control" -> 0, otro (o sin grupo) -> -1
+    static int codigoGrupo(String grupo) {
+        if (grupo == null) {
+            return -1;
+        }
+        String normalizado = grupo.trim().toLowerCase(Locale.ROOT);
+        if (normalizado.startsWith("caso")) {
+            return GRUPO_CASO;
+        }
+        if (normalizado.startsWith("control")) {
+            return GRUPO_CONTROL;
+        }
+        return -1;
+    }
+
+    private static AsociacionDto toDto(Tabla tabla, Integer referencia, long marca) {
+        TablaContingencia t = tabla.tabla();
+        int k = t.columnas();
+        int[] codigos = new int[k];
+        int[] casos = new int[k];
+        int[] controles = new int[k];
+        List<String> etiquetas = new ArrayList<>(k);
+        for (int j = 0; j < k; j++) {
+            codigos[j] = t.codigo(j);
+            casos[j] = t.casos(j);
+            controles[j] = t.controles(j);
+            etiquetas.add(t.etiqueta(j));
+        }
+
+        int columnaReferencia = 0;
+        if (referencia != null) {
+            columnaReferencia = t.columnaDe(referencia);
+            if (columnaReferencia < 0) {
+                throw new IllegalArgumentException("El código de referencia " + referencia
+                        + " no tiene respuestas en la pregunta " + tabla.idPregunta() + ".");
+            }
+        }
+        List<OddsRatioDto> oddsRatios = new ArrayList<>(Math.max(k - 1, 0));
+        for (int j = 0; j < k; j++) {
+            if (j == columnaReferencia) {
+                continue;
+            }
+            TablaContingencia.OddsRatio or = t.oddsRatio(j, columnaReferencia);
+            oddsRatios.add(OddsRatioDto.builder()
+                    .codigo(t.codigo(j))
+                    .etiqueta(t.etiqueta(j))
+                    .oddsRatio(or.valor())
+                    .icInferior(or.icInferior())
+                    .icSuperior(or.icSuperior())
+                    .correccionHaldane(or.correccionHaldane())
+                    .build());
+        }
+
+        double chi = t.chiCuadrado();
+        boolean calculable = !Double.isNaN(chi);
+        return AsociacionDto.builder()
+                .idPregunta(tabla.idPregunta())
+                .textoPregunta(tabla.textoPregunta())
+                .codigos(codigos)
+                .etiquetas(etiquetas)
+                .casos(casos)
+                .controles(controles)
+                .codigoReferencia(k > 0 ? t.codigo(columnaReferencia) : 0)
+                .oddsRatios(oddsRatios)
+                .chiCuadrado(calculable ? chi : null)
+                .gradosLibertad(t.gradosLibertad())
+                .valorP(calculable ? TablaContingencia.valorP(chi, t.gradosLibertad()) : null)
+                .frecuenciasEsperadasBajas(calculable && t.frecuenciasEsperadasBajas())
+                .marcaDatos(marca)
+                .build();
+    }
+
+    private record Tabla(Integer idPregunta, String textoPregunta, TablaContingencia tabla) {
+    }
+
+    private record Calculo(long marca, Map<Integer, Tabla> tablas) {
+    }
+}
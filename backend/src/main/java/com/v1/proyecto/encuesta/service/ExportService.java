@@ -19,11 +19,14 @@ import com.v1.proyecto.encuesta.model.RegistroEncuesta;
 import com.v1.proyecto.encuesta.model.Respuesta;
 import com.v1.proyecto.encuesta.repository.EncuestaRepository;
 import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,7 +34,10 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -43,9 +49,12 @@ public class ExportService {
     private final EncuestaRepository encuestaRepository;
     private final RegistroEncuestaRepository registroEncuestaRepository;
     private final DataEncoder dataEncoder;
+    private final MatrizRespuestasCache matrizRespuestasCache;
+    private final MeterRegistry meterRegistry;
 
     @Transactional(readOnly = true)
     public ByteArrayInputStream generateExcel(Integer idEncuesta, Integer idPaciente, Role role) throws IOException {
+        Timer.Sample muestra = Timer.start(meterRegistry);
         Encuesta encuesta = encuestaRepository.findById(idEncuesta)
                 .orElseThrow(() -> new RuntimeException("Encuesta no encontrada"));
 
@@ -101,11 +110,12 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return new ByteArrayInputStream(out.toByteArray());
+            return medir(muestra, "excel", registros.size(), out.toByteArray());
         }
     }
 
     public ByteArrayInputStream generatePdf(Integer idEncuesta, Integer idPaciente, Role role) {
+        Timer.Sample muestra = Timer.start(meterRegistry);
         Encuesta encuesta = encuestaRepository.findById(idEncuesta)
                 .orElseThrow(() -> new RuntimeException("Encuesta no encontrada"));
 
@@ -196,11 +206,13 @@ public class ExportService {
             throw new RuntimeException("Error al generar PDF", e);
         }
 
-        return new ByteArrayInputStream(out.toByteArray());
+        // El PDF es el diccionario de datos: sus filas son las preguntas
+        return medir(muestra, "pdf", preguntas.size(), out.toByteArray());
     }
 
     @Transactional(readOnly = true)
     public ByteArrayInputStream generateCsv(Integer idEncuesta, Integer idPaciente, Role role) {
+        Timer.Sample muestra = Timer.start(meterRegistry);
         Encuesta encuesta = encuestaRepository.findById(idEncuesta)
                 .orElseThrow(() -> new RuntimeException("Encuesta no encontrada"));
 
@@ -253,7 +265,91 @@ public class ExportService {
             writer.flush();
         }
 
-        return new ByteArrayInputStream(out.toByteArray());
+        return medir(muestra, "csv", registros.size(), out.toByteArray());
+    }
+
+    /**
+     * CSV codificado servido desde la matriz en memoria: solo registros COMPLETADOS, una fila por
+     * registro con su grupo y el código de cada respuesta (las de selección múltiple separadas
+     * por ';'). Cada opción se codifica una sola vez, no una vez por celda.
+     */
+    public ByteArrayInputStream generateCsvCodificado(Integer idEncuesta, Role role) {
+        return generateCsvCodificado(idEncuesta, role, null);
+    }
+
+    /** Igual, pero solo con los registros indicados (p. ej. una cohorte); null = todos. */
+    public ByteArrayInputStream generateCsvCodificado(Integer idEncuesta, Role role, RoaringBitmap registros) {
+        if (!encuestaRepository.existsById(idEncuesta)) {
+            throw new RuntimeException("Encuesta no encontrada");
+        }
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        long[] filas = new long[1];
+        String csv = matrizRespuestasCache.leer(idEncuesta, matriz -> escribirCodificado(matriz, role, registros, filas));
+        return medir(muestra, "csv_codificado", filas[0], csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String escribirCodificado(MatrizRespuestas matriz, Role role, RoaringBitmap registros, long[] filas) {
+        int columnas = matriz.columnas();
+        StringBuilder csv = new StringBuilder();
+        csv.append("ID Registro,Grupo");
+        String[][] codigos = new String[columnas][];
+        for (int c = 0; c < columnas; c++) {
+            csv.append(",").append(escapeCsv(matriz.textoPregunta(c)));
+            codigos[c] = new String[matriz.idsOpcion(c).length];
+            for (int i = 0; i < codigos[c].length; i++) {
+                codigos[c][i] = dataEncoder.encodeRespuesta(matriz.textoPregunta(c), matriz.textoOpcion(c, i), role);
+            }
+        }
+        csv.append("\n");
+
+        // Filas en orden de idRegistro (la matriz no las guarda ordenadas)
+        long[] orden = new long[matriz.filas()];
+        int incluidas = 0;
+        for (int f = 0; f < matriz.filas(); f++) {
+            if (registros == null || registros.contains(matriz.idRegistro(f))) {
+                orden[incluidas++] = ((long) matriz.idRegistro(f) << 32) | f;
+            }
+        }
+        orden = Arrays.copyOf(orden, incluidas);
+        filas[0] = incluidas;
+        Arrays.sort(orden);
+
+        Map<String, String> textosCodificados = new HashMap<>();
+        String[] grupos = {"CONTROL", "CASO", ""};
+        for (long clave : orden) {
+            int f = (int) clave;
+            csv.append(matriz.idRegistro(f)).append(",").append(grupos[matriz.grupo(f)]);
+            for (int c = 0; c < columnas; c++) {
+                csv.append(",");
+                if (matriz.esTexto(c)) {
+                    String pregunta = matriz.textoPregunta(c);
+                    String texto = matriz.texto(c, f);
+                    if (texto != null) {
+                        csv.append(escapeCsv(textosCodificados.computeIfAbsent(pregunta + "\u0000" + texto,
+                                k -> dataEncoder.encodeRespuesta(pregunta, texto, role))));
+                    }
+                    continue;
+                }
+                StringBuilder celda = new StringBuilder();
+                for (long bits = matriz.opciones(c, f); bits != 0; bits &= bits - 1) {
+                    if (celda.length() > 0) {
+                        celda.append(";");
+                    }
+                    celda.append(codigos[c][Long.numberOfTrailingZeros(bits)]);
+                }
+                csv.append(escapeCsv(celda.toString()));
+            }
+            csv.append("\n");
+        }
+        return csv.toString();
+    }
+
+    // Duración, filas y bytes por formato; solo las exportaciones que terminan bien
+    private ByteArrayInputStream medir(Timer.Sample muestra, String formato, long filas, byte[] contenido) {
+        muestra.stop(meterRegistry.timer("export.duracion", "formato", formato));
+        meterRegistry.counter("export.filas", "formato", formato).increment(filas);
+        meterRegistry.summary("export.bytes", "formato", formato).record(contenido.length);
+        return new ByteArrayInputStream(contenido);
     }
 
     private String getRespuestaTexto(Respuesta r, Role role) {
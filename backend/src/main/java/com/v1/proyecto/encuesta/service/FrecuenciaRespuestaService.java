@@ -0,0 +1,261 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.FrecuenciaOpcionDto;
+import com.v1.proyecto.encuesta.dto.FrecuenciaPreguntaDto;
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.FrecuenciaAgrupada;
+import com.v1.proyecto.encuesta.repository.FrecuenciaRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RespuestaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Distribución de respuestas por pregunta, opción y grupo (CASO/CONTROL).
+ *
+ * Los conteos se leen de la tabla {@code frecuencia_respuesta}, que se actualiza con un
+ * UPSERT (+1/-1) dentro de la misma transacción que guarda, edita o borra respuestas de un
+ * registro COMPLETADO. Así el dashboard lee O(opciones) filas en vez de recorrer todas las
+ * respuestas; la consulta agrupada sobre {@code respuesta} solo se usa para reconstruir.
+ *
+ * Cada cambio confirmado sube la marca de datos de la encuesta ({@link #marca}), que usan los
+ * cálculos derivados (p. ej. {@link EstadisticaService}) para saber si su caché sigue vigente.
+ *
+ * Las reconstrucciones borran y reescriben contadores que los UPSERT concurrentes también tocan:
+ * un ajuste que ya escribió su +1 sin confirmar no aparece en el recuento, y el DELETE lo borra o
+ * espera a pisarlo. Por eso ajustes (lectura) y reconstrucciones (escritura) comparten un cerrojo
+ * que se libera al terminar la transacción; el cerrojo es del proceso, igual que las marcas.
+ */
+@Service
+@RequiredArgsConstructor
+public class FrecuenciaRespuestaService {
+
+    // VALUES(conteo) (y no un parámetro) permite que el driver reescriba el lote en un solo INSERT
+    private static final String UPSERT_SQL = "INSERT INTO frecuencia_respuesta "
+            + "(id_opcion, grupo, id_pregunta, id_encuesta, conteo) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE conteo = conteo + VALUES(conteo)";
+
+    private final FrecuenciaRespuestaRepository frecuenciaRespuestaRepository;
+    private final RespuestaRepository respuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final EncuestaRepository encuestaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Marca de datos = global + por encuesta: ambas solo crecen, así que la suma cambia con cualquiera
+    private final AtomicLong marcaGlobal = new AtomicLong();
+    private final Map<Integer, AtomicLong> marcas = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock contadores = new ReentrantReadWriteLock();
+
+    /** Opción elegida en una respuesta (idPregunta se guarda desnormalizado en el contador). */
+    public record Marca(Integer idPregunta, Integer idOpcion) {
+    }
+
+    /**
+     * Suma {@code delta} a cada opción marcada por un registro de la encuesta. Debe llamarse
+     * dentro de la transacción que modifica las respuestas, para que un rollback lo deshaga.
+     */
+    public void ajustar(Integer idEncuesta, String grupo, Collection<Marca> marcas, int delta) {
+        if (marcas.isEmpty() || delta == 0) {
+            return;
+        }
+        String clave = normalizarGrupo(grupo);
+        Map<Integer, Fila> filas = new TreeMap<>(); // orden fijo de filas bloqueadas: evita deadlocks
+        for (Marca marca : marcas) {
+            if (marca.idOpcion() == null) {
+                continue;
+            }
+            filas.merge(marca.idOpcion(), new Fila(marca.idOpcion(), clave, marca.idPregunta(), idEncuesta, delta),
+                    (a, b) -> a.sumar(b.conteo()));
+        }
+        hastaFinDeTransaccion(contadores.readLock(), () -> {
+            escribir(new ArrayList<>(filas.values()));
+            avanzarMarca(idEncuesta);
+            return null;
+        });
+    }
+
+    public long marca(Integer idEncuesta) {
+        AtomicLong marca = marcas.get(idEncuesta);
+        return marcaGlobal.get() + (marca == null ? 0 : marca.get());
+    }
+
+    // Solo sube con las reconstrucciones completas (p. ej. cuando una importación cambia grupos)
+    public long marcaGlobal() {
+        return marcaGlobal.get();
+    }
+
+    @Transactional(readOnly = true)
+    public List<FrecuenciaPreguntaDto> getFrecuencias(Integer idEncuesta) {
+        if (!encuestaRepository.existsById(idEncuesta)) {
+            throw new RuntimeException("Encuesta no encontrada con id: " + idEncuesta);
+        }
+        Map<Integer, Map<String, Long>> conteos = new HashMap<>();
+        for (FrecuenciaRespuesta f : frecuenciaRespuestaRepository.findByIdEncuesta(idEncuesta)) {
+            conteos.computeIfAbsent(f.getIdOpcion(), id -> new TreeMap<>()).put(f.getGrupo(), f.getConteo());
+        }
+
+        List<FrecuenciaPreguntaDto> resultado = new ArrayList<>();
+        for (Pregunta pregunta : preguntaRepository.findConOpcionesByEncuesta(idEncuesta)) {
+            List<FrecuenciaOpcionDto> opciones = new ArrayList<>(pregunta.getOpciones().size());
+            for (OpcionRespuesta opcion : pregunta.getOpciones()) {
+                Map<String, Long> porGrupo = conteos.getOrDefault(opcion.getIdOpcion(), Map.of());
+                opciones.add(FrecuenciaOpcionDto.builder()
+                        .idOpcion(opcion.getIdOpcion())
+                        .textoOpcion(opcion.getTextoOpcion())
+                        .total(porGrupo.values().stream().mapToLong(Long::longValue).sum())
+                        .porGrupo(porGrupo)
+                        .build());
+            }
+            resultado.add(FrecuenciaPreguntaDto.builder()
+                    .idPregunta(pregunta.getIdPregunta())
+                    .textoPregunta(pregunta.getTextoPregunta())
+                    .tipoPregunta(pregunta.getTipoPregunta())
+                    .opciones(opciones)
+                    .build());
+        }
+        return resultado;
+    }
+
+    // Recalcula los contadores de una encuesta desde las respuestas (p. ej. tras una carga manual)
+    @Transactional
+    public int reconstruir(Integer idEncuesta) {
+        if (!encuestaRepository.existsById(idEncuesta)) {
+            throw new RuntimeException("Encuesta no encontrada con id: " + idEncuesta);
+        }
+        return reconstruyendo(() -> {
+            frecuenciaRespuestaRepository.deleteByIdEncuesta(idEncuesta);
+            List<Fila> filas = aFilas(respuestaRepository.contarFrecuencias(idEncuesta));
+            escribir(filas);
+            avanzarMarca(idEncuesta);
+            return filas.size();
+        });
+    }
+
+    // Todas las encuestas, con una sola consulta agrupada (p. ej. tras cambiar el grupo de pacientes)
+    @Transactional
+    public int reconstruirTodo() {
+        return reconstruyendo(() -> {
+            frecuenciaRespuestaRepository.deleteAllInBatch();
+            List<Fila> filas = aFilas(respuestaRepository.contarFrecuencias());
+            escribir(filas);
+            afterCommit(marcaGlobal::incrementAndGet);
+            return filas.size();
+        });
+    }
+
+    // La primera vez (tabla vacía con registros ya existentes) se llena desde las respuestas
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void inicializar() {
+        if (frecuenciaRespuestaRepository.count() > 0) {
+            return;
+        }
+        int filas = reconstruirTodo();
+        if (filas > 0) {
+            System.out.println("Contadores de frecuencia inicializados: " + filas + " filas.");
+        }
+    }
+
+    public void eliminarEncuesta(Integer idEncuesta) {
+        frecuenciaRespuestaRepository.deleteByIdEncuesta(idEncuesta);
+        avanzarMarca(idEncuesta);
+    }
+
+    // Espera a que terminen los ajustes en curso y bloquea los nuevos hasta el commit o rollback
+    private <T> T reconstruyendo(Supplier<T> reconstruccion) {
+        if (contadores.getReadHoldCount() > 0) {
+            // Subir de lectura a escritura bloquearía el hilo contra sí mismo
+            throw new IllegalStateException("No se pueden reconstruir los contadores en la transacción que los ajusta");
+        }
+        return hastaFinDeTransaccion(contadores.writeLock(), reconstruccion);
+    }
+
+    // Sin transacción activa el cerrojo solo cubre la acción
+    private static <T> T hastaFinDeTransaccion(Lock lock, Supplier<T> accion) {
+        lock.lock();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                return accion.get();
+            } finally {
+                lock.unlock();
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return accion.get();
+    }
+
+    // Tras el commit: antes, un lector podría cachear un resultado con los datos viejos y la marca nueva
+    private void avanzarMarca(Integer idEncuesta) {
+        afterCommit(() -> marcas.computeIfAbsent(idEncuesta, id -> new AtomicLong()).incrementAndGet());
+    }
+
+    private static void afterCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    static String normalizarGrupo(String grupo) {
+        return grupo == null || grupo.isBlank() ? FrecuenciaRespuesta.SIN_GRUPO : grupo.trim();
+    }
+
+    private static List<Fila> aFilas(List<FrecuenciaAgrupada> agrupadas) {
+        // Pacientes sin grupo y con grupo "" caen en la misma clave
+        Map<FrecuenciaRespuesta.Clave, Fila> filas = new LinkedHashMap<>();
+        for (FrecuenciaAgrupada a : agrupadas) {
+            String grupo = normalizarGrupo(a.getGrupo());
+            filas.merge(new FrecuenciaRespuesta.Clave(a.getIdOpcion(), grupo),
+                    new Fila(a.getIdOpcion(), grupo, a.getIdPregunta(), a.getIdEncuesta(), a.getConteo()),
+                    (x, y) -> x.sumar(y.conteo()));
+        }
+        return new ArrayList<>(filas.values());
+    }
+
+    private void escribir(List<Fila> filas) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, filas, filas.size(), (ps, f) -> {
+            ps.setInt(1, f.idOpcion());
+            ps.setString(2, f.grupo());
+            ps.setInt(3, f.idPregunta());
+            ps.setInt(4, f.idEncuesta());
+            ps.setLong(5, f.conteo());
+        });
+    }
+
+    private record Fila(Integer idOpcion, String grupo, Integer idPregunta, Integer idEncuesta, long conteo) {
+        Fila sumar(long otro) {
+            return new Fila(idOpcion, grupo, idPregunta, idEncuesta, conteo + otro);
+        }
+    }
+}
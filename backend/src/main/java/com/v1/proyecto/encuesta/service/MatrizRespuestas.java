@@ -0,0 +1,395 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+
+import java.util.*;
+
+/**
+ * Respuestas de los registros completados de una encuesta, guardadas por columnas.
+ *
+ * Cada pregunta es un arreglo primitivo con una celda por registro:
+ * - selección única: {@code short[]} con el índice de la opción elegida;
+ * - selección múltiple: {@code long[]} con un bit por opción (hasta 64 opciones);
+ * - texto libre: {@code int[]} con el índice del texto en un diccionario compartido.
+ * Las celdas sin respuesta valen {@link #SIN_RESPUESTA} (0 en las de selección múltiple).
+ * Además hay una columna con el idRegistro y otra con el grupo del paciente.
+ *
+ * Los filtros devuelven máscaras de filas (un bit por fila en un {@code long[]}), que se
+ * combinan con AND y se recorren por palabras, sin crear objetos por celda.
+ *
+ * No es thread-safe: {@link MatrizRespuestasCache} la protege con un ReadWriteLock.
+ */
+public final class MatrizRespuestas {
+
+    public static final short SIN_RESPUESTA = -1;
+
+    // Índices de grupo en los conteos: control, caso y sin grupo/otro
+    public static final int GRUPOS = 3;
+    static final byte OTRO_GRUPO = 2;
+
+    private static final byte UNICA = 0;
+    private static final byte MULTIPLE = 1;
+    private static final byte TEXTO = 2;
+    private static final int MAX_OPCIONES_MULTIPLE = Long.SIZE;
+    private static final int CAPACIDAD_INICIAL = 64;
+
+    // --- Definición (fija) ---
+    private final int[] idsPregunta;
+    private final String[] textosPregunta;
+    private final String[] tiposPregunta;
+    private final byte[] tipos;
+    private final int[][] idsOpcion; // por columna, idOpcion en el orden de sus índices
+    private final String[][] textosOpcion;
+    private final Map<Integer, Integer> columnaPorPregunta = new HashMap<>();
+    private final Map<Integer, Integer> indicePorOpcion = new HashMap<>();
+
+    // --- Filas ---
+    private int filas;
+    private int[] idsRegistro = new int[CAPACIDAD_INICIAL];
+    private byte[] grupos = new byte[CAPACIDAD_INICIAL];
+    private final short[][] unicas;
+    private final long[][] multiples;
+    private final int[][] textos;
+    private final Map<Integer, Integer> filaPorRegistro = new HashMap<>();
+
+    // --- Diccionario de texto libre ---
+    private final List<String> diccionario = new ArrayList<>();
+    private final Map<String, Integer> indiceTexto = new HashMap<>();
+
+    public MatrizRespuestas(List<Pregunta> preguntas) {
+        List<Pregunta> ordenadas = new ArrayList<>(preguntas);
+        ordenadas.sort(Comparator.comparing(Pregunta::getIdPregunta));
+        int n = ordenadas.size();
+        idsPregunta = new int[n];
+        textosPregunta = new String[n];
+        tiposPregunta = new String[n];
+        tipos = new byte[n];
+        idsOpcion = new int[n][];
+        textosOpcion = new String[n][];
+        unicas = new short[n][];
+        multiples = new long[n][];
+        textos = new int[n][];
+        for (int c = 0; c < n; c++) {
+            Pregunta pregunta = ordenadas.get(c);
+            List<OpcionRespuesta> opciones = pregunta.getOpciones() != null ? pregunta.getOpciones() : List.of();
+            idsPregunta[c] = pregunta.getIdPregunta();
+            textosPregunta[c] = pregunta.getTextoPregunta();
+            tiposPregunta[c] = pregunta.getTipoPregunta();
+            columnaPorPregunta.put(pregunta.getIdPregunta(), c);
+            idsOpcion[c] = new int[opciones.size()];
+            textosOpcion[c] = new String[opciones.size()];
+            for (int i = 0; i < opciones.size(); i++) {
+                idsOpcion[c][i] = opciones.get(i).getIdOpcion();
+                textosOpcion[c][i] = opciones.get(i).getTextoOpcion();
+                indicePorOpcion.put(opciones.get(i).getIdOpcion(), i);
+            }
+
+            String tipo = pregunta.getTipoPregunta();
+            if (opciones.isEmpty()) {
+                tipos[c] = TEXTO;
+                textos[c] = vacia(new int[CAPACIDAD_INICIAL]);
+            } else if (tipo != null && tipo.contains("MULTIPLE") && opciones.size() <= MAX_OPCIONES_MULTIPLE) {
+                tipos[c] = MULTIPLE;
+                multiples[c] = new long[CAPACIDAD_INICIAL];
+            } else {
+                tipos[c] = UNICA;
+                unicas[c] = vacia(new short[CAPACIDAD_INICIAL]);
+            }
+        }
+    }
+
+    // --- Escritura ---
+
+    /** Fila del registro, agregándola (vacía) si aún no existe. */
+    public int fila(int idRegistro, String grupo) {
+        Integer existente = filaPorRegistro.get(idRegistro);
+        if (existente != null) {
+            grupos[existente] = codigoGrupo(grupo);
+            return existente;
+        }
+        if (filas == idsRegistro.length) {
+            crecer(filas * 2);
+        }
+        int fila = filas++;
+        idsRegistro[fila] = idRegistro;
+        grupos[fila] = codigoGrupo(grupo);
+        filaPorRegistro.put(idRegistro, fila);
+        return fila;
+    }
+
+    /** Guarda una respuesta; las preguntas u opciones ajenas a la definición se ignoran. */
+    public void asignar(int fila, Integer idPregunta, Integer idOpcion, String valorTexto) {
+        Integer c = idPregunta == null ? null : columnaPorPregunta.get(idPregunta);
+        if (c == null) {
+            return;
+        }
+        if (tipos[c] == TEXTO) {
+            if (valorTexto != null && !valorTexto.isBlank()) {
+                textos[c][fila] = indiceTexto.computeIfAbsent(valorTexto, t -> {
+                    diccionario.add(t);
+                    return diccionario.size() - 1;
+                });
+            }
+            return;
+        }
+        Integer indice = idOpcion == null ? null : indicePorOpcion.get(idOpcion);
+        if (indice == null || indice >= idsOpcion[c].length || idsOpcion[c][indice] != idOpcion) {
+            return;
+        }
+        if (tipos[c] == MULTIPLE) {
+            multiples[c][fila] |= 1L << indice;
+        } else {
+            unicas[c][fila] = indice.shortValue();
+        }
+    }
+
+    private void limpiarFila(int fila) {
+        for (int c = 0; c < idsPregunta.length; c++) {
+            switch (tipos[c]) {
+                case UNICA -> unicas[c][fila] = SIN_RESPUESTA;
+                case MULTIPLE -> multiples[c][fila] = 0;
+                default -> textos[c][fila] = SIN_RESPUESTA;
+            }
+        }
+    }
+
+    /** Quita la fila del registro moviendo la última a su lugar. */
+    public void quitar(int idRegistro) {
+        Integer fila = filaPorRegistro.remove(idRegistro);
+        if (fila == null) {
+            return;
+        }
+        int ultima = --filas;
+        if (fila != ultima) {
+            idsRegistro[fila] = idsRegistro[ultima];
+            grupos[fila] = grupos[ultima];
+            for (int c = 0; c < idsPregunta.length; c++) {
+                switch (tipos[c]) {
+                    case UNICA -> unicas[c][fila] = unicas[c][ultima];
+                    case MULTIPLE -> multiples[c][fila] = multiples[c][ultima];
+                    default -> textos[c][fila] = textos[c][ultima];
+                }
+            }
+            filaPorRegistro.put(idsRegistro[fila], fila);
+        }
+        limpiarFila(ultima);
+    }
+
+    public boolean contieneRegistro(int idRegistro) {
+        return filaPorRegistro.containsKey(idRegistro);
+    }
+
+    // --- Lectura ---
+
+    public int filas() {
+        return filas;
+    }
+
+    public int columnas() {
+        return idsPregunta.length;
+    }
+
+    public int idPregunta(int columna) {
+        return idsPregunta[columna];
+    }
+
+    public String textoPregunta(int columna) {
+        return textosPregunta[columna];
+    }
+
+    public String tipoPregunta(int columna) {
+        return tiposPregunta[columna];
+    }
+
+    public int columnaDe(int idPregunta) {
+        Integer c = columnaPorPregunta.get(idPregunta);
+        return c == null ? -1 : c;
+    }
+
+    public boolean esTexto(int columna) {
+        return tipos[columna] == TEXTO;
+    }
+
+    public int[] idsOpcion(int columna) {
+        return idsOpcion[columna].clone();
+    }
+
+    public String textoOpcion(int columna, int indice) {
+        return textosOpcion[columna][indice];
+    }
+
+    public int idRegistro(int fila) {
+        return idsRegistro[fila];
+    }
+
+    public byte grupo(int fila) {
+        return grupos[fila];
+    }
+
+    /** Índice de la opción elegida (selección única) o {@link #SIN_RESPUESTA}. */
+    public short opcion(int columna, int fila) {
+        return unicas[columna] != null ? unicas[columna][fila] : SIN_RESPUESTA;
+    }
+
+    /** Bits de las opciones elegidas (selección múltiple; en selección única, el bit de la elegida). */
+    public long opciones(int columna, int fila) {
+        if (multiples[columna] != null) {
+            return multiples[columna][fila];
+        }
+        short indice = opcion(columna, fila);
+        return indice == SIN_RESPUESTA ? 0 : 1L << indice;
+    }
+
+    /** Texto libre de la celda o null. */
+    public String texto(int columna, int fila) {
+        if (textos[columna] == null || textos[columna][fila] == SIN_RESPUESTA) {
+            return null;
+        }
+        return diccionario.get(textos[columna][fila]);
+    }
+
+    public long[] todas() {
+        long[] mascara = new long[(filas + 63) >>> 6];
+        for (int w = 0; w < mascara.length; w++) {
+            mascara[w] = -1L;
+        }
+        if ((filas & 63) != 0) {
+            mascara[mascara.length - 1] = (1L << (filas & 63)) - 1;
+        }
+        return mascara;
+    }
+
+    /** Deja en la máscara solo las filas que eligieron la opción (en esa pregunta). */
+    public void filtrarOpcion(long[] mascara, int idPregunta, int idOpcion) {
+        int c = columnaDe(idPregunta);
+        Integer indice = indicePorOpcion.get(idOpcion);
+        if (c < 0 || tipos[c] == TEXTO || indice == null || indice >= idsOpcion[c].length
+                || idsOpcion[c][indice] != idOpcion) {
+            throw new IllegalArgumentException("La opción " + idOpcion + " no pertenece a la pregunta " + idPregunta + ".");
+        }
+        if (tipos[c] == MULTIPLE) {
+            long[] columna = multiples[c];
+            long bit = 1L << indice;
+            for (int w = 0; w < mascara.length; w++) {
+                long bits = mascara[w];
+                while (bits != 0) {
+                    int fila = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if ((columna[fila] & bit) == 0) {
+                        mascara[w] &= ~(1L << fila);
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        } else {
+            short[] columna = unicas[c];
+            short buscado = indice.shortValue();
+            for (int w = 0; w < mascara.length; w++) {
+                long bits = mascara[w];
+                while (bits != 0) {
+                    int fila = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (columna[fila] != buscado) {
+                        mascara[w] &= ~(1L << fila);
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    public void filtrarGrupo(long[] mascara, byte grupo) {
+        for (int w = 0; w < mascara.length; w++) {
+            long bits = mascara[w];
+            while (bits != 0) {
+                int fila = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (grupos[fila] != grupo) {
+                    mascara[w] &= ~(1L << fila);
+                }
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Conteo por grupo y opción de las filas de la máscara: {@code [grupo][índice de opción]}.
+     * En selección múltiple cada opción marcada suma por separado.
+     */
+    public int[][] frecuencias(int columna, long[] mascara) {
+        if (tipos[columna] == TEXTO) {
+            throw new IllegalArgumentException("La pregunta " + idsPregunta[columna] + " es de texto libre.");
+        }
+        int[][] conteos = new int[GRUPOS][idsOpcion[columna].length];
+        if (tipos[columna] == MULTIPLE) {
+            long[] celdas = multiples[columna];
+            for (int w = 0; w < mascara.length; w++) {
+                long bits = mascara[w];
+                while (bits != 0) {
+                    int fila = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    long elegidas = celdas[fila];
+                    while (elegidas != 0) {
+                        conteos[grupos[fila]][Long.numberOfTrailingZeros(elegidas)]++;
+                        elegidas &= elegidas - 1;
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        } else {
+            short[] celdas = unicas[columna];
+            for (int w = 0; w < mascara.length; w++) {
+                long bits = mascara[w];
+                while (bits != 0) {
+                    int fila = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (celdas[fila] != SIN_RESPUESTA) {
+                        conteos[grupos[fila]][celdas[fila]]++;
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return conteos;
+    }
+
+    public static int contar(long[] mascara) {
+        int total = 0;
+        for (long palabra : mascara) {
+            total += Long.bitCount(palabra);
+        }
+        return total;
+    }
+
+    // Control = 0, caso = 1, sin grupo u otro = 2 (mismas reglas que el análisis caso-control)
+    static byte codigoGrupo(String grupo) {
+        int codigo = EstadisticaService.codigoGrupo(grupo);
+        return codigo < 0 ? OTRO_GRUPO : (byte) codigo;
+    }
+
+    private void crecer(int capacidad) {
+        idsRegistro = Arrays.copyOf(idsRegistro, capacidad);
+        grupos = Arrays.copyOf(grupos, capacidad);
+        for (int c = 0; c < idsPregunta.length; c++) {
+            switch (tipos[c]) {
+                case UNICA -> {
+                    int antes = unicas[c].length;
+                    unicas[c] = Arrays.copyOf(unicas[c], capacidad);
+                    Arrays.fill(unicas[c], antes, capacidad, SIN_RESPUESTA);
+                }
+                case MULTIPLE -> multiples[c] = Arrays.copyOf(multiples[c], capacidad);
+                default -> {
+                    int antes = textos[c].length;
+                    textos[c] = Arrays.copyOf(textos[c], capacidad);
+                    Arrays.fill(textos[c], antes, capacidad, SIN_RESPUESTA);
+                }
+            }
+        }
+    }
+
+    private static short[] vacia(short[] columna) {
+        Arrays.fill(columna, SIN_RESPUESTA);
+        return columna;
+    }
+
+    private static int[] vacia(int[] columna) {
+        Arrays.fill(columna, SIN_RESPUESTA);
+        return columna;
+    }
+}
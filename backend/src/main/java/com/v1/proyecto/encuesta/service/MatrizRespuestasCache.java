@@ -0,0 +1,211 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.config.EnrutamientoDataSource;
+import com.v1.proyecto.encuesta.repository.CeldaMatriz;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Matriz columnar de respuestas por encuesta ({@link MatrizRespuestas}).
+ *
+ * La primera lectura la carga con una sola consulta en streaming. Después, cada registro que
+ * se completa, edita o borra se marca como pendiente tras el commit, y la siguiente lectura
+ * recarga solo esos registros (en bloques de IN). Si cambia la definición de la encuesta (otro
+ * grafo compilado en {@link EncuestaDefinitionCache}) o una reconstrucción completa de
+ * frecuencias (cambio de grupos), la matriz se vuelve a cargar entera.
+ *
+ * Las lecturas van en READ_COMMITTED: con REPEATABLE READ una transacción abierta antes del
+ * commit de un pendiente leería su versión anterior y la daría por aplicada.
+ */
+@Component
+@RequiredArgsConstructor
+public class MatrizRespuestasCache implements MeterBinder {
+
+    private static final int IN_CHUNK = 500;
+
+    private final RegistroEncuestaRepository registroEncuestaRepository;
+    private final PreguntaRepository preguntaRepository;
+    private final EncuestaDefinitionCache encuestaDefinitionCache;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+
+    private final Map<Integer, Entrada> entradas = new ConcurrentHashMap<>();
+    // Fallo = carga completa de la matriz; los pendientes aplicados no cuentan como fallo
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    // ReentrantLock y no synchronized: la carga hace I/O y no debe fijar un hilo virtual a su portador
+    private final Lock carga = new ReentrantLock();
+
+    /** Ejecuta la lectura sobre la matriz al día de la encuesta (bajo el lock de lectura). */
+    @Transactional(readOnly = true, isolation = Isolation.READ_COMMITTED)
+    public <T> T leer(Integer idEncuesta, Function<MatrizRespuestas, T> lectura) {
+        // Carga y pendientes quedan en la matriz: no pueden venir de una réplica atrasada
+        EnrutamientoDataSource.leerDelPrimario();
+        Entrada entrada = vigente(idEncuesta);
+        if (!entrada.pendientes.isEmpty()) {
+            aplicarPendientes(entrada);
+        }
+        entrada.lock.readLock().lock();
+        try {
+            return lectura.apply(entrada.matriz);
+        } finally {
+            entrada.lock.readLock().unlock();
+        }
+    }
+
+    // Solo importa si la matriz ya está cargada; si no, la primera lectura traerá el registro
+    public void registroCambiado(Integer idEncuesta, Integer idRegistro) {
+        afterCommit(() -> {
+            Entrada entrada = entradas.get(idEncuesta);
+            if (entrada != null) {
+                entrada.pendientes.add(idRegistro);
+            }
+        });
+    }
+
+    public void eliminar(Integer idEncuesta) {
+        afterCommit(() -> entradas.remove(idEncuesta));
+    }
+
+    private Entrada vigente(Integer idEncuesta) {
+        SkipLogicGraph grafo = encuestaDefinitionCache.get(idEncuesta);
+        long marcaGlobal = frecuenciaRespuestaService.marcaGlobal();
+        Entrada entrada = entradas.get(idEncuesta);
+        if (entrada != null && entrada.vigente(grafo, marcaGlobal)) {
+            aciertos.increment();
+            return entrada;
+        }
+        return construir(idEncuesta, grafo, marcaGlobal);
+    }
+
+    // Una carga a la vez: dos lecturas simultáneas de una matriz vencida no la cargan dos veces
+    private Entrada construir(Integer idEncuesta, SkipLogicGraph grafo, long marcaGlobal) {
+        carga.lock();
+        try {
+            return construirBloqueado(idEncuesta, grafo, marcaGlobal);
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    private Entrada construirBloqueado(Integer idEncuesta, SkipLogicGraph grafo, long marcaGlobal) {
+        Entrada entrada = entradas.get(idEncuesta);
+        if (entrada != null && entrada.vigente(grafo, marcaGlobal)) {
+            aciertos.increment();
+            return entrada;
+        }
+        fallos.increment();
+        entrada = new Entrada(new MatrizRespuestas(preguntaRepository.findConOpcionesByEncuesta(idEncuesta)),
+                grafo, marcaGlobal);
+        // Se publica antes de cargar para que los commits durante la carga queden como pendientes;
+        // las lecturas esperan en el lock hasta que termine
+        entrada.lock.writeLock().lock();
+        try {
+            entradas.put(idEncuesta, entrada);
+            try (Stream<CeldaMatriz> celdas = registroEncuestaRepository.streamCeldasByEncuesta(idEncuesta)) {
+                cargar(entrada.matriz, celdas.iterator());
+            } catch (RuntimeException e) {
+                entradas.remove(idEncuesta, entrada);
+                throw e;
+            }
+        } finally {
+            entrada.lock.writeLock().unlock();
+        }
+        System.out.println("Matriz de respuestas de la encuesta " + idEncuesta + " cargada: "
+                + entrada.matriz.filas() + " registros x " + entrada.matriz.columnas() + " preguntas");
+        return entrada;
+    }
+
+    private void aplicarPendientes(Entrada entrada) {
+        entrada.lock.writeLock().lock();
+        try {
+            List<Integer> ids = new ArrayList<>();
+            for (Iterator<Integer> it = entrada.pendientes.iterator(); it.hasNext(); ) {
+                ids.add(it.next());
+                it.remove();
+            }
+            for (int desde = 0; desde < ids.size(); desde += IN_CHUNK) {
+                List<Integer> bloque = ids.subList(desde, Math.min(desde + IN_CHUNK, ids.size()));
+                // Los que ya no están completados (o se borraron) no vuelven a entrar
+                bloque.forEach(entrada.matriz::quitar);
+                cargar(entrada.matriz, registroEncuestaRepository.findCeldasByRegistroIds(bloque).iterator());
+            }
+        } finally {
+            entrada.lock.writeLock().unlock();
+        }
+    }
+
+    // Las celdas vienen ordenadas por registro; un registro sin respuestas trae una fila con nulos
+    private static void cargar(MatrizRespuestas matriz, Iterator<CeldaMatriz> celdas) {
+        Integer idActual = null;
+        int fila = -1;
+        while (celdas.hasNext()) {
+            CeldaMatriz celda = celdas.next();
+            if (!celda.getIdRegistro().equals(idActual)) {
+                idActual = celda.getIdRegistro();
+                fila = matriz.fila(idActual, celda.getGrupo());
+            }
+            matriz.asignar(fila, celda.getIdPregunta(), celda.getIdOpcion(), celda.getValorTexto());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", aciertos, LongAdder::sum)
+                .tags("cache", "matriz", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", fallos, LongAdder::sum)
+                .tags("cache", "matriz", "result", "miss").register(registry);
+        Gauge.builder("cache.size", entradas, Map::size).tag("cache", "matriz").register(registry);
+    }
+
+    private static void afterCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private static final class Entrada {
+        private final MatrizRespuestas matriz;
+        private final SkipLogicGraph grafo;
+        private final long marcaGlobal;
+        private final Set<Integer> pendientes = ConcurrentHashMap.newKeySet();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private Entrada(MatrizRespuestas matriz, SkipLogicGraph grafo, long marcaGlobal) {
+            this.matriz = matriz;
+            this.grafo = grafo;
+            this.marcaGlobal = marcaGlobal;
+        }
+
+        // El grafo se compara por identidad: la caché de definiciones crea uno nuevo en cada cambio
+        private boolean vigente(SkipLogicGraph grafoActual, long marcaGlobalActual) {
+            return grafo == grafoActual && marcaGlobal == marcaGlobalActual;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.FrecuenciaOpcionDto;
+import com.v1.proyecto.encuesta.dto.FrecuenciaPreguntaDto;
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas analíticas servidas desde la matriz columnar en memoria: frecuencias de una pregunta
+ * restringidas a los registros que cumplen condiciones sobre otras respuestas y/o un grupo.
+ * Las frecuencias sin filtro siguen saliendo de los contadores ({@link FrecuenciaRespuestaService}).
+ */
+@Service
+@RequiredArgsConstructor
+public class MatrizRespuestasService {
+
+    // Orden de los índices de grupo de la matriz: control, caso, otro
+    private static final String[] GRUPOS = {"CONTROL", "CASO", FrecuenciaRespuesta.SIN_GRUPO};
+
+    private final EncuestaRepository encuestaRepository;
+    private final MatrizRespuestasCache matrizRespuestasCache;
+
+    /**
+     * @param grupo       "CASO", "CONTROL" u otro valor (sin grupo); null para todos
+     * @param condiciones "idPregunta:idOpcion"; el registro debe cumplirlas todas
+     */
+    public FrecuenciaPreguntaDto getFrecuencias(Integer idEncuesta, Integer idPregunta, String grupo,
+                                                List<String> condiciones) {
+        if (!encuestaRepository.existsById(idEncuesta)) {
+            throw new RuntimeException("Encuesta no encontrada con id: " + idEncuesta);
+        }
+        List<int[]> filtros = parsearCondiciones(condiciones);
+
+        return matrizRespuestasCache.leer(idEncuesta, matriz -> {
+            int columna = matriz.columnaDe(idPregunta);
+            if (columna < 0) {
+                throw new RuntimeException("Pregunta " + idPregunta + " no encontrada en la encuesta " + idEncuesta);
+            }
+            long[] mascara = matriz.todas();
+            for (int[] filtro : filtros) {
+                matriz.filtrarOpcion(mascara, filtro[0], filtro[1]);
+            }
+            if (grupo != null) {
+                matriz.filtrarGrupo(mascara, MatrizRespuestas.codigoGrupo(grupo));
+            }
+
+            int[] idsOpcion = matriz.idsOpcion(columna);
+            int[][] conteos = matriz.esTexto(columna) ? new int[MatrizRespuestas.GRUPOS][0]
+                    : matriz.frecuencias(columna, mascara);
+            List<FrecuenciaOpcionDto> opciones = new ArrayList<>(idsOpcion.length);
+            for (int i = 0; i < idsOpcion.length; i++) {
+                Map<String, Long> porGrupo = new LinkedHashMap<>();
+                long total = 0;
+                for (int g = 0; g < MatrizRespuestas.GRUPOS; g++) {
+                    if (conteos[g][i] > 0) {
+                        porGrupo.put(GRUPOS[g], (long) conteos[g][i]);
+                        total += conteos[g][i];
+                    }
+                }
+                opciones.add(FrecuenciaOpcionDto.builder()
+                        .idOpcion(idsOpcion[i])
+                        .textoOpcion(matriz.textoOpcion(columna, i))
+                        .total(total)
+                        .porGrupo(porGrupo)
+                        .build());
+            }
+            return FrecuenciaPreguntaDto.builder()
+                    .idPregunta(idPregunta)
+                    .textoPregunta(matriz.textoPregunta(columna))
+                    .tipoPregunta(matriz.tipoPregunta(columna))
+                    .opciones(opciones)
+                    .registros(MatrizRespuestas.contar(mascara))
+                    .build();
+        });
+    }
+
+    private static List<int[]> parsearCondiciones(List<String> condiciones) {
+        List<int[]> filtros = new ArrayList<>();
+        if (condiciones == null) {
+            return filtros;
+        }
+        for (String condicion : condiciones) {
+            String[] partes = condicion.split(":");
+            try {
+                if (partes.length != 2) {
+                    throw new NumberFormatException();
+                }
+                filtros.add(new int[]{Integer.parseInt(partes[0].trim()), Integer.parseInt(partes[1].trim())});
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Condición inválida '" + condicion
+                        + "': se espera idPregunta:idOpcion.");
+            }
+        }
+        return filtros;
+    }
+}
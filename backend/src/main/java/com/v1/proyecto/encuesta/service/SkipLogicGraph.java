@@ -0,0 +1,150 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.repository.LogicaSaltoArista;
+import com.v1.proyecto.encuesta.repository.PreguntaNodo;
+
+import java.util.*;
+
+/**
+ * Lógica de salto de una encuesta compilada a arreglos indexados por la posición de cada
+ * pregunta (orden por idPregunta, el mismo que usa el formulario del frontend).
+ *
+ * Reglas (idénticas a las del frontend):
+ * - Las preguntas se recorren en orden.
+ * - Si en una pregunta visible de selección única se eligió una opción con salto, se omiten
+ *   las preguntas hasta llegar al destino. Un destino anterior o ajeno a la encuesta omite el resto.
+ * - Una pregunta oculta solo se muestra cuando un salto aterriza en ella.
+ * - Las preguntas de selección múltiple no disparan saltos.
+ *
+ * Es inmutable: se compila una vez por encuesta y se comparte entre hilos.
+ */
+public final class SkipLogicGraph {
+
+    private static final int SIN_SALTO = -1;
+
+    private final int[] ids; // idPregunta por posición (ordenado)
+    private final boolean[] obligatoria;
+    private final boolean[] oculta;
+    private final boolean[] multiple;
+    // Adyacencia: por posición, las opciones con salto y la posición de destino de cada una
+    private final int[][] opcionesSalto;
+    private final int[][] destinosSalto;
+
+    private SkipLogicGraph(int[] ids, boolean[] obligatoria, boolean[] oculta, boolean[] multiple,
+                           int[][] opcionesSalto, int[][] destinosSalto) {
+        this.ids = ids;
+        this.obligatoria = obligatoria;
+        this.oculta = oculta;
+        this.multiple = multiple;
+        this.opcionesSalto = opcionesSalto;
+        this.destinosSalto = destinosSalto;
+    }
+
+    public static SkipLogicGraph compilar(List<PreguntaNodo> preguntas, List<LogicaSaltoArista> aristas) {
+        List<PreguntaNodo> ordenadas = new ArrayList<>(preguntas);
+        ordenadas.sort(Comparator.comparing(PreguntaNodo::getIdPregunta));
+
+        int n = ordenadas.size();
+        int[] ids = new int[n];
+        boolean[] obligatoria = new boolean[n];
+        boolean[] oculta = new boolean[n];
+        boolean[] multiple = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            PreguntaNodo p = ordenadas.get(i);
+            ids[i] = p.getIdPregunta();
+            obligatoria[i] = Boolean.TRUE.equals(p.getObligatoria());
+            oculta[i] = Boolean.TRUE.equals(p.getOculta());
+            multiple[i] = p.getTipoPregunta() != null && p.getTipoPregunta().contains("MULTIPLE");
+        }
+
+        // Se agrupan los saltos por posición de origen (si una opción tiene varios, gana el primero)
+        List<Map<Integer, Integer>> saltos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            saltos.add(new LinkedHashMap<>());
+        }
+        for (LogicaSaltoArista arista : aristas) {
+            int origen = Arrays.binarySearch(ids, arista.getIdPreguntaOrigen());
+            if (origen < 0 || arista.getIdOpcionOrigen() == null) {
+                continue;
+            }
+            int destino = Arrays.binarySearch(ids, arista.getIdPreguntaDestino());
+            // El frontend nunca "aterriza" en un destino anterior o inexistente: se omite todo lo que sigue
+            saltos.get(origen).putIfAbsent(arista.getIdOpcionOrigen(), destino > origen ? destino : n);
+        }
+
+        int[][] opcionesSalto = new int[n][];
+        int[][] destinosSalto = new int[n][];
+        for (int i = 0; i < n; i++) {
+            Map<Integer, Integer> s = saltos.get(i);
+            opcionesSalto[i] = new int[s.size()];
+            destinosSalto[i] = new int[s.size()];
+            int j = 0;
+            for (Map.Entry<Integer, Integer> e : s.entrySet()) {
+                opcionesSalto[i][j] = e.getKey();
+                destinosSalto[i][j] = e.getValue();
+                j++;
+            }
+        }
+        return new SkipLogicGraph(ids, obligatoria, oculta, multiple, opcionesSalto, destinosSalto);
+    }
+
+    public boolean contiene(Integer idPregunta) {
+        return idPregunta != null && Arrays.binarySearch(ids, idPregunta) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Preguntas que el encuestado efectivamente ve, dadas las opciones elegidas por pregunta
+     * ({@code idPregunta -> idOpcion elegidas}). Recorre cada pregunta a lo más una vez.
+     */
+    public Set<Integer> alcanzables(Map<Integer, List<Integer>> opcionesPorPregunta) {
+        Set<Integer> visibles = new HashSet<>();
+        int pos = 0;
+        boolean aterrizaje = false;
+        while (pos < ids.length) {
+            if (oculta[pos] && !aterrizaje) {
+                pos++;
+                continue;
+            }
+            visibles.add(ids[pos]);
+            aterrizaje = false;
+
+            int destino = destino(pos, opcionesPorPregunta.get(ids[pos]));
+            if (destino != SIN_SALTO) {
+                pos = destino;
+                aterrizaje = true;
+            } else {
+                pos++;
+            }
+        }
+        return visibles;
+    }
+
+    // Las obligatorias solo se exigen si el encuestado llegó a verlas
+    public void validarObligatorias(Set<Integer> alcanzables, Set<Integer> respondidas) {
+        for (int pos = 0; pos < ids.length; pos++) {
+            if (obligatoria[pos] && alcanzables.contains(ids[pos]) && !respondidas.contains(ids[pos])) {
+                throw new IllegalArgumentException(
+                        "Respuesta faltante para la pregunta obligatoria ID: " + ids[pos]);
+            }
+        }
+    }
+
+    private int destino(int pos, List<Integer> opciones) {
+        // Igual que el frontend: solo una opción única elegida puede disparar un salto
+        if (multiple[pos] || opciones == null || opciones.size() != 1 || opciones.get(0) == null) {
+            return SIN_SALTO;
+        }
+        int idOpcion = opciones.get(0);
+        int[] candidatas = opcionesSalto[pos];
+        for (int j = 0; j < candidatas.length; j++) {
+            if (candidatas[j] == idOpcion) {
+                return destinosSalto[pos][j];
+            }
+        }
+        return SIN_SALTO;
+    }
+}
@@ -0,0 +1,222 @@
+package com.v1.proyecto.encuesta.service;
+
+import java.util.Arrays;
+
+/**
+ * Tabla 2×k de una pregunta codificada: grupo (caso/control) por código de respuesta.
+ *
+ * Los conteos viven en arreglos primitivos paralelos indexados por columna (códigos en orden
+ * ascendente), sin un objeto por celda. Es inmutable y se comparte entre hilos.
+ *
+ * - Odds ratio de cada código contra un código de referencia, con IC 95% de Woolf
+ *   (logarítmico). Si alguna de las cuatro celdas es 0 se suma 0,5 a todas (Haldane-Anscombe).
+ * - Chi-cuadrado de Pearson con (k-1) grados de libertad y su valor p.
+ */
+public final class TablaContingencia {
+
+    private static final double Z_95 = 1.959963984540054;
+    private static final double EPS = 1e-14;
+    private static final double FPMIN = 1e-300;
+    private static final int MAX_ITER = 1000;
+
+    private final int[] codigos;
+    private final String[] etiquetas;
+    private final int[] casos;
+    private final int[] controles;
+
+    private TablaContingencia(int[] codigos, String[] etiquetas, int[] casos, int[] controles) {
+        this.codigos = codigos;
+        this.etiquetas = etiquetas;
+        this.casos = casos;
+        this.controles = controles;
+    }
+
+    /**
+     * Construye la tabla desde conteos por opción: las opciones con el mismo código se suman
+     * en una sola columna y las columnas sin observaciones se descartan.
+     */
+    public static TablaContingencia desdeOpciones(int[] codigoOpcion, String[] textoOpcion,
+                                                  int[] casosOpcion, int[] controlesOpcion) {
+        int[] distintos = Arrays.stream(codigoOpcion).distinct().sorted().toArray();
+        int k = distintos.length;
+        int[] casos = new int[k];
+        int[] controles = new int[k];
+        String[] etiquetas = new String[k];
+        for (int i = 0; i < codigoOpcion.length; i++) {
+            int j = Arrays.binarySearch(distintos, codigoOpcion[i]);
+            casos[j] += casosOpcion[i];
+            controles[j] += controlesOpcion[i];
+            etiquetas[j] = etiquetas[j] == null ? textoOpcion[i] : etiquetas[j] + " / " + textoOpcion[i];
+        }
+
+        int conDatos = 0;
+        for (int j = 0; j < k; j++) {
+            if (casos[j] + controles[j] > 0) {
+                distintos[conDatos] = distintos[j];
+                etiquetas[conDatos] = etiquetas[j];
+                casos[conDatos] = casos[j];
+                controles[conDatos] = controles[j];
+                conDatos++;
+            }
+        }
+        return new TablaContingencia(Arrays.copyOf(distintos, conDatos), Arrays.copyOf(etiquetas, conDatos),
+                Arrays.copyOf(casos, conDatos), Arrays.copyOf(controles, conDatos));
+    }
+
+    public int columnas() {
+        return codigos.length;
+    }
+
+    public int codigo(int columna) {
+        return codigos[columna];
+    }
+
+    public String etiqueta(int columna) {
+        return etiquetas[columna];
+    }
+
+    public int casos(int columna) {
+        return casos[columna];
+    }
+
+    public int controles(int columna) {
+        return controles[columna];
+    }
+
+    // Columna del código, o -1 si no tiene observaciones
+    public int columnaDe(int codigo) {
+        int j = Arrays.binarySearch(codigos, codigo);
+        return j >= 0 ? j : -1;
+    }
+
+    public OddsRatio oddsRatio(int columna, int referencia) {
+        return oddsRatio(casos[columna], controles[columna], casos[referencia], controles[referencia]);
+    }
+
+    /**
+     * OR de la exposición (a casos, b controles) contra la referencia (c casos, d controles).
+     */
+    static OddsRatio oddsRatio(double a, double b, double c, double d) {
+        boolean corregido = a == 0 || b == 0 || c == 0 || d == 0;
+        if (corregido) {
+            a += 0.5;
+            b += 0.5;
+            c += 0.5;
+            d += 0.5;
+        }
+        double logOr = Math.log((a * d) / (b * c));
+        double se = Math.sqrt(1 / a + 1 / b + 1 / c + 1 / d);
+        return new OddsRatio(Math.exp(logOr), Math.exp(logOr - Z_95 * se), Math.exp(logOr + Z_95 * se), corregido);
+    }
+
+    /** Chi-cuadrado de Pearson, o NaN si la tabla no tiene ambos grupos y al menos dos columnas. */
+    public double chiCuadrado() {
+        long totalCasos = 0;
+        long totalControles = 0;
+        for (int j = 0; j < codigos.length; j++) {
+            totalCasos += casos[j];
+            totalControles += controles[j];
+        }
+        if (codigos.length < 2 || totalCasos == 0 || totalControles == 0) {
+            return Double.NaN;
+        }
+        double n = totalCasos + totalControles;
+        double chi = 0;
+        for (int j = 0; j < codigos.length; j++) {
+            double columna = casos[j] + controles[j];
+            double esperadoCasos = totalCasos * columna / n;
+            double esperadoControles = totalControles * columna / n;
+            chi += (casos[j] - esperadoCasos) * (casos[j] - esperadoCasos) / esperadoCasos;
+            chi += (controles[j] - esperadoControles) * (controles[j] - esperadoControles) / esperadoControles;
+        }
+        return chi;
+    }
+
+    public int gradosLibertad() {
+        return Math.max(codigos.length - 1, 0);
+    }
+
+    // La aproximación chi-cuadrado es dudosa si alguna frecuencia esperada es menor que 5
+    public boolean frecuenciasEsperadasBajas() {
+        long totalCasos = Arrays.stream(casos).asLongStream().sum();
+        long totalControles = Arrays.stream(controles).asLongStream().sum();
+        double n = totalCasos + totalControles;
+        for (int j = 0; j < codigos.length; j++) {
+            double columna = casos[j] + controles[j];
+            if (totalCasos * columna / n < 5 || totalControles * columna / n < 5) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** P(X ≥ x) para X ~ chi-cuadrado con {@code gl} grados de libertad. */
+    static double valorP(double chi, int gl) {
+        if (Double.isNaN(chi) || gl <= 0) {
+            return Double.NaN;
+        }
+        return gammaRegularizadaSuperior(gl / 2.0, chi / 2.0);
+    }
+
+    // Q(a, x) = Γ(a, x) / Γ(a): serie si x < a + 1, fracción continua (Lentz) en otro caso
+    private static double gammaRegularizadaSuperior(double a, double x) {
+        if (x <= 0) {
+            return 1.0;
+        }
+        double factor = Math.exp(-x + a * Math.log(x) - lnGamma(a));
+        if (x < a + 1) {
+            double ap = a;
+            double termino = 1.0 / a;
+            double suma = termino;
+            for (int i = 0; i < MAX_ITER && Math.abs(termino) > Math.abs(suma) * EPS; i++) {
+                ap += 1;
+                termino *= x / ap;
+                suma += termino;
+            }
+            return Math.max(0.0, 1.0 - suma * factor);
+        }
+        double b = x + 1 - a;
+        double c = 1 / FPMIN;
+        double d = 1 / b;
+        double h = d;
+        for (int i = 1; i <= MAX_ITER; i++) {
+            double an = -i * (i - a);
+            b += 2;
+            d = an * d + b;
+            if (Math.abs(d) < FPMIN) {
+                d = FPMIN;
+            }
+            c = b + an / c;
+            if (Math.abs(c) < FPMIN) {
+                c = FPMIN;
+            }
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < EPS) {
+                break;
+            }
+        }
+        return factor * h;
+    }
+
+    // Aproximación de Lanczos (g = 7), suficiente para a = gl/2
+    private static double lnGamma(double x) {
+        final double[] coef = {0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+                771.32342877765313, -176.61502916214059, 12.507343278686905,
+                -0.13857109526572012, 9.9843695780195716e-6, 1.5056327351493116e-7};
+        if (x < 0.5) {
+            return Math.log(Math.PI / Math.sin(Math.PI * x)) - lnGamma(1 - x);
+        }
+        x -= 1;
+        double suma = coef[0];
+        for (int i = 1; i < coef.length; i++) {
+            suma += coef[i] / (x + i);
+        }
+        double t = x + 7.5;
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(suma);
+    }
+
+    public record OddsRatio(double valor, double icInferior, double icSuperior, boolean correccionHaldane) {
+    }
+}
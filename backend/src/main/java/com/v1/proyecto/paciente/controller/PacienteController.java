@@ -2,17 +2,23 @@ package com.v1.proyecto.paciente.controller;
 
 import com.v1.proyecto.encuesta.dto.RegistroCompletoResponseDto;
 import com.v1.proyecto.encuesta.service.EncuestaService;
+import com.v1.proyecto.paciente.dto.PacienteImportResultDto;
+import com.v1.proyecto.paciente.dto.PacientePageResponseDto;
 import com.v1.proyecto.paciente.dto.PacienteRequestDto;
 import com.v1.proyecto.paciente.dto.PacienteResponseDto;
 import com.v1.proyecto.paciente.model.Paciente;
+import com.v1.proyecto.paciente.service.PacienteImportService;
 import com.v1.proyecto.paciente.service.PacienteService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -23,6 +29,7 @@ public class PacienteController {
 
     private final PacienteService pacienteService;
     private final EncuestaService encuestaService;
+    private final PacienteImportService pacienteImportService;
 
     @PostMapping
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
@@ -36,12 +43,59 @@ public class PacienteController {
         }
     }
 
+    /**
+     * Importación masiva de pacientes. El cuerpo es un arreglo JSON de PacienteRequestDto
+     * o un CSV (text/csv) con cabecera; se procesa en streaming y devuelve un reporte por fila.
+     * URL: POST /api/v1/pacientes/import?upsert=false
+     */
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, "text/csv" })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<?> importPacientes(
+            HttpServletRequest request,
+            @RequestParam(name = "upsert", defaultValue = "false") boolean upsert
+    ) {
+        try {
+            boolean esCsv = request.getContentType() != null && request.getContentType().startsWith("text/csv");
+            PacienteImportResultDto resultado = esCsv
+                    ? pacienteImportService.importCsv(request.getInputStream(), upsert)
+                    : pacienteImportService.importJson(request.getInputStream(), upsert);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException | IOException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
-    public ResponseEntity<List<PacienteResponseDto>> getAllPacientes() {
-        // El servicio ya devuelve una lista de DTOs
-        List<PacienteResponseDto> pacientes = pacienteService.findAllPacientes();
-        return ResponseEntity.ok(pacientes);
+    public ResponseEntity<?> getAllPacientes(
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "sort", required = false) String sort
+    ) {
+        // Sin limit ni cursor se mantiene la respuesta original (lista completa)
+        if (limit == null && cursor == null) {
+            List<PacienteResponseDto> pacientes = pacienteService.findAllPacientes();
+            return ResponseEntity.ok(pacientes);
+        }
+        try {
+            PacientePageResponseDto pagina = pacienteService.findPacientesPage(limit, cursor, sort);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Búsqueda rápida de pacientes por RUT, nombre, apellidos o código de participante.
+     * URL: GET /api/v1/pacientes/search?q=perez&limit=10
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
+    public ResponseEntity<List<PacienteResponseDto>> searchPacientes(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(pacienteService.searchPacientes(query, limit));
     }
 
     @GetMapping("/{id}")
@@ -71,14 +125,17 @@ public class PacienteController {
 
     /**
      * Endpoint para OBTENER todos los registros de encuestas de un paciente.
-     * URL: GET /api/v1/pacientes/{id}/registros
+     * URL: GET /api/v1/pacientes/{id}/registros?resumen=false
      */
     @GetMapping("/{idPaciente}/registros")
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
     public ResponseEntity<List<RegistroCompletoResponseDto>> getRegistrosDelPaciente(
-            @PathVariable(name = "idPaciente") Integer idPaciente
+            @PathVariable(name = "idPaciente") Integer idPaciente,
+            @RequestParam(name = "resumen", defaultValue = "false") boolean resumen
     ) {
-        List<RegistroCompletoResponseDto> registros = encuestaService.getRegistrosPorPaciente(idPaciente);
+        // resumen=true devuelve solo la cabecera de cada registro; las respuestas se piden
+        // por registro con GET /api/v1/encuestas/registro/{id}/respuestas
+        List<RegistroCompletoResponseDto> registros = encuestaService.getRegistrosPorPaciente(idPaciente, resumen);
         return ResponseEntity.ok(registros);
     }
 
@@ -0,0 +1,38 @@
+package com.v1.proyecto.paciente.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacienteImportResultDto {
+
+    private int total;
+    private int creados;
+    private int actualizados;
+    private int errores;
+    private long duracionMs;
+
+    // Resultado fila a fila (la fila 1 es el primer registro de datos)
+    private List<Fila> filas;
+
+    public enum Estado {
+        CREADO, ACTUALIZADO, DUPLICADO, ERROR
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Fila {
+        private int fila;
+        private String rut;
+        private Estado estado;
+        private String mensaje;
+    }
+}
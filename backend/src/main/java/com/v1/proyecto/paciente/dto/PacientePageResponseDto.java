@@ -0,0 +1,17 @@
+package com.v1.proyecto.paciente.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PacientePageResponseDto {
+
+    private List<PacienteResponseDto> items;
+
+    // Cursor opaco para pedir la página siguiente (null si no hay más)
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -15,7 +15,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "paciente")
+@Table(name = "paciente", indexes = {
+        // Listado paginado ordenado por apellidos (el id desempata y hace única la clave del cursor)
+        @Index(name = "idx_paciente_apellidos", columnList = "apellidos, id_paciente")
+})
 public class Paciente {
 
     @Id
@@ -0,0 +1,9 @@
+package com.v1.proyecto.paciente.repository;
+
+/**
+ * Proyección usada para construir el índice de búsqueda en memoria.
+ */
+public interface PacienteIndexado extends PacienteResumen {
+
+    String getCodigoParticipante();
+}
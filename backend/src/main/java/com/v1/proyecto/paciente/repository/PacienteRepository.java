@@ -1,14 +1,54 @@
 package com.v1.proyecto.paciente.repository;
 
 import com.v1.proyecto.paciente.model.Paciente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PacienteRepository extends JpaRepository<Paciente, Integer> {
     Optional<Paciente> findByRut(String rut);
 
+    // Chequeo de duplicados por conjunto (un solo SELECT por bloque de la importación masiva)
+    @Query("select p.rut from Paciente p where p.rut in :ruts")
+    List<String> findExistingRuts(@Param("ruts") Collection<String> ruts);
 
+    // --- Listados con proyección (solo las columnas del resumen) ---
+
+    String RESUMEN = "select p.idPaciente as idPaciente, p.rut as rut, p.nombre as nombre, "
+            + "p.apellidos as apellidos, p.sexo as sexo, p.fechaNacimiento as fechaNacimiento from Paciente p ";
+
+    @Query(RESUMEN + "order by p.idPaciente")
+    List<PacienteResumen> findAllResumen();
+
+    // Carga inicial del índice de búsqueda: resumen + código de participante
+    @Query("select p.idPaciente as idPaciente, p.rut as rut, p.nombre as nombre, p.apellidos as apellidos, "
+            + "p.sexo as sexo, p.fechaNacimiento as fechaNacimiento, p.codigoParticipante as codigoParticipante "
+            + "from Paciente p")
+    List<PacienteIndexado> findAllParaIndice();
+
+    // Paginación por cursor (keyset): el cursor es la última clave entregada, nunca un OFFSET
+
+    @Query(RESUMEN + "where p.idPaciente > :afterId order by p.idPaciente asc")
+    List<PacienteResumen> findResumenAfterId(@Param("afterId") Integer afterId, Limit limit);
+
+    @Query(RESUMEN + "where p.idPaciente < :beforeId order by p.idPaciente desc")
+    List<PacienteResumen> findResumenBeforeId(@Param("beforeId") Integer beforeId, Limit limit);
+
+    // Orden (apellidos, id). En MySQL los NULL van primero en orden ascendente,
+    // por eso el cursor sobre un apellido nulo usa su propia consulta.
+    @Query(RESUMEN + "where p.apellidos > :apellidos or (p.apellidos = :apellidos and p.idPaciente > :afterId) "
+            + "order by p.apellidos asc, p.idPaciente asc")
+    List<PacienteResumen> findResumenAfterApellidos(@Param("apellidos") String apellidos,
+                                                    @Param("afterId") Integer afterId, Limit limit);
+
+    @Query(RESUMEN + "where p.apellidos is not null or p.idPaciente > :afterId "
+            + "order by p.apellidos asc, p.idPaciente asc")
+    List<PacienteResumen> findResumenAfterNullApellidos(@Param("afterId") Integer afterId, Limit limit);
 }
@@ -0,0 +1,22 @@
+package com.v1.proyecto.paciente.repository;
+
+import java.util.Date;
+
+/**
+ * Proyección liviana de {@link com.v1.proyecto.paciente.model.Paciente} para los listados:
+ * solo se leen las columnas que expone {@code PacienteResponseDto}.
+ */
+public interface PacienteResumen {
+
+    Integer getIdPaciente();
+
+    String getRut();
+
+    String getNombre();
+
+    String getApellidos();
+
+    String getSexo();
+
+    Date getFechaNacimiento();
+}
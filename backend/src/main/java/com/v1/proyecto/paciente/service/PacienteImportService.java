@@ -0,0 +1,407 @@
+package com.v1.proyecto.paciente.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.v1.proyecto.encuesta.service.FrecuenciaRespuestaService;
+import com.v1.proyecto.paciente.dto.PacienteImportResultDto;
+import com.v1.proyecto.paciente.dto.PacienteImportResultDto.Estado;
+import com.v1.proyecto.paciente.dto.PacienteImportResultDto.Fila;
+import com.v1.proyecto.paciente.dto.PacienteRequestDto;
+import com.v1.proyecto.paciente.repository.PacienteRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de pacientes (JSON o CSV) leída en streaming desde la petición.
+ *
+ * Las filas se validan con las mismas reglas de {@link PacienteRequestDto} y se procesan en
+ * bloques de {@link #CHUNK_SIZE}: un SELECT ... IN para los RUT existentes y un INSERT por lotes
+ * JDBC, todo en una transacción por bloque. Un bloque rechazado por la base de datos no
+ * deshace los anteriores.
+ */
+@Service
+public class PacienteImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    // Columnas de la tabla paciente y cómo se obtienen desde el DTO (mismo mapeo que PacienteService)
+    private static final List<Columna> COLUMNAS = List.of(
+            new Columna("rut", "rut", PacienteRequestDto::getRut),
+            new Columna("nombre", "nombre", PacienteRequestDto::getNombre),
+            new Columna("apellidos", "apellidos", PacienteRequestDto::getApellidos),
+            new Columna("telefono", "telefono", PacienteRequestDto::getTelefono),
+            new Columna("email", "email", PacienteRequestDto::getEmail),
+            new Columna("codigo_participante", "codigoParticipante", PacienteRequestDto::getCodigoParticipante),
+            new Columna("grupo", "grupo", PacienteRequestDto::getGrupo),
+            new Columna("fecha_inclusion", "fechaInclusion", PacienteRequestDto::getFechaInclusion),
+            new Columna("fecha_nacimiento", "fechaNacimiento", PacienteRequestDto::getFechaNacimiento),
+            new Columna("sexo", "sexo", PacienteRequestDto::getSexo),
+            new Columna("nacionalidad", "nacionalidad", PacienteRequestDto::getNacionalidad),
+            new Columna("direccion", "direccion", PacienteRequestDto::getDireccion),
+            new Columna("comuna", "comuna", PacienteRequestDto::getComuna),
+            new Columna("ciudad", "ciudad", PacienteRequestDto::getCiudad),
+            new Columna("zona", "zona", PacienteRequestDto::getZona),
+            new Columna("vive_zona_mas_5_anios", "viveZonaMas5Anios", PacienteRequestDto::getViveZonaMas5Anios),
+            new Columna("nivel_educacional", "nivelEducacional", PacienteRequestDto::getNivelEducacional),
+            new Columna("ocupacion", "ocupacion", PacienteRequestDto::getOcupacion),
+            new Columna("prevision", "prevision", PacienteRequestDto::getPrevision),
+            new Columna("diagnostico_cancer", "diagnosticoCancer", PacienteRequestDto::getDiagnosticoCancer),
+            new Columna("fecha_diagnostico", "fechaDiagnostico", PacienteRequestDto::getFechaDiagnostico),
+            new Columna("antecedentes_fam_cancer_gastrico", "antecedentesFamCancerGastrico", PacienteRequestDto::getAntecedentesFamCancerGastrico),
+            new Columna("antecedentes_fam_otros_cancer", "antecedentesFamOtrosCancer", PacienteRequestDto::getAntecedentesFamOtrosCancer),
+            new Columna("detalle_otros_cancer", "detalleOtrosCancer", PacienteRequestDto::getDetalleOtrosCancer),
+            new Columna("enfermedades_relevantes", "enfermedadesRelevantes", PacienteRequestDto::getEnfermedadesRelevantes),
+            new Columna("uso_cronico_medicamentos", "usoCronicoMedicamentos", PacienteRequestDto::getUsoCronicoMedicamentos),
+            new Columna("cirugia_gastrica_previa", "cirugiaGastricaPrevia", PacienteRequestDto::getCirugiaGastricaPrevia),
+            new Columna("peso", "peso", PacienteRequestDto::getPeso),
+            new Columna("estatura", "estatura", PacienteRequestDto::getEstatura),
+            new Columna("imc", null, dto -> PacienteService.calcularImc(dto.getPeso(), dto.getEstatura())),
+            new Columna("tipo_histologico", "tipoHistologico", PacienteRequestDto::getTipoHistologico),
+            new Columna("localizacion_tumoral", "localizacionTumoral", PacienteRequestDto::getLocalizacionTumoral),
+            new Columna("estadio_tnm", "estadioTNM", PacienteRequestDto::getEstadioTNM)
+    );
+
+    private static final String INSERT_SQL = "insert into paciente ("
+            + COLUMNAS.stream().map(Columna::nombre).collect(Collectors.joining(", "))
+            + ") values ("
+            + COLUMNAS.stream().map(c -> "?").collect(Collectors.joining(", "))
+            + ")";
+
+    // En modo upsert el RUT es la clave de negocio y nunca se actualiza
+    private static final List<Columna> COLUMNAS_UPDATE = COLUMNAS.subList(1, COLUMNAS.size());
+
+    private static final Set<String> CAMPOS_DTO = Arrays.stream(PacienteRequestDto.class.getDeclaredFields())
+            .map(Field::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private static final Set<String> CAMPOS_BOOLEANOS = Arrays.stream(PacienteRequestDto.class.getDeclaredFields())
+            .filter(f -> f.getType() == Boolean.class)
+            .map(Field::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final PacienteRepository pacienteRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final PacienteSearchIndex pacienteSearchIndex;
+    private final FrecuenciaRespuestaService frecuenciaRespuestaService;
+
+    public PacienteImportService(PacienteRepository pacienteRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 Validator validator,
+                                 ObjectMapper objectMapper,
+                                 PacienteSearchIndex pacienteSearchIndex,
+                                 FrecuenciaRespuestaService frecuenciaRespuestaService) {
+        this.pacienteRepository = pacienteRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.pacienteSearchIndex = pacienteSearchIndex;
+        this.frecuenciaRespuestaService = frecuenciaRespuestaService;
+    }
+
+    /**
+     * Importa un arreglo JSON de {@link PacienteRequestDto}. El arreglo se recorre objeto por
+     * objeto, así que nunca se materializa completo en memoria.
+     */
+    public PacienteImportResultDto importJson(InputStream body, boolean upsert) throws IOException {
+        Importacion importacion = new Importacion(upsert);
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Se esperaba un arreglo JSON de pacientes.");
+            }
+            int fila = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                fila++;
+                // Se lee como árbol para que un objeto mal formado no desalinee al parser
+                JsonNode nodo = parser.readValueAsTree();
+                try {
+                    Set<String> campos = new HashSet<>();
+                    nodo.fieldNames().forEachRemaining(campos::add);
+                    importacion.add(fila, objectMapper.treeToValue(nodo, PacienteRequestDto.class), campos);
+                } catch (JsonProcessingException e) {
+                    importacion.error(fila, nodo.path("rut").asText(null), "Formato inválido: " + e.getOriginalMessage());
+                }
+            }
+        }
+        return importacion.finish();
+    }
+
+    /**
+     * Importa un CSV cuya primera línea son los nombres de campo de {@link PacienteRequestDto}
+     * (p. ej. rut,nombre,apellidos,grupo,fechaNacimiento,sexo,peso,estatura). Acepta ',' o ';'
+     * como separador, fechas yyyy-MM-dd o dd-MM-yyyy y booleanos true/false o si/no.
+     */
+    public PacienteImportResultDto importCsv(InputStream body, boolean upsert) throws IOException {
+        Importacion importacion = new Importacion(upsert);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        String cabecera = reader.readLine();
+        if (cabecera == null || cabecera.isBlank()) {
+            throw new IllegalArgumentException("El CSV no tiene cabecera.");
+        }
+        if (cabecera.startsWith("\uFEFF")) {
+            cabecera = cabecera.substring(1); // BOM de Excel
+        }
+        char separador = cabecera.indexOf(';') >= 0 && cabecera.indexOf(',') < 0 ? ';' : ',';
+        List<String> columnas = parseCsvLine(cabecera, separador).stream().map(String::trim).toList();
+        List<String> desconocidas = columnas.stream().filter(c -> !CAMPOS_DTO.contains(c)).toList();
+        if (!desconocidas.isEmpty()) {
+            throw new IllegalArgumentException("Columnas desconocidas en el CSV: " + desconocidas);
+        }
+        Set<String> camposCabecera = Set.copyOf(columnas);
+
+        String linea;
+        int fila = 0;
+        while ((linea = reader.readLine()) != null) {
+            if (linea.isBlank()) {
+                continue;
+            }
+            fila++;
+            List<String> valores = parseCsvLine(linea, separador);
+            Map<String, Object> campos = new HashMap<>();
+            for (int i = 0; i < columnas.size() && i < valores.size(); i++) {
+                String valor = valores.get(i).trim();
+                if (!valor.isEmpty()) {
+                    campos.put(columnas.get(i), normalizarValorCsv(columnas.get(i), valor));
+                }
+            }
+            try {
+                importacion.add(fila, objectMapper.convertValue(campos, PacienteRequestDto.class), camposCabecera);
+            } catch (IllegalArgumentException e) {
+                importacion.error(fila, (String) campos.get("rut"), "Formato inválido: " + e.getMessage());
+            }
+        }
+        return importacion.finish();
+    }
+
+    // --- Estado de una importación en curso ---
+
+    private class Importacion {
+        private final boolean upsert;
+        private final long inicio = System.currentTimeMillis();
+        private final List<Fila> resultados = new ArrayList<>();
+        private final Set<String> rutsVistos = new HashSet<>();
+        private final List<Pendiente> bloque = new ArrayList<>(CHUNK_SIZE);
+
+        private Importacion(boolean upsert) {
+            this.upsert = upsert;
+        }
+
+        void add(int fila, PacienteRequestDto dto, Set<String> campos) {
+            Set<ConstraintViolation<PacienteRequestDto>> violaciones = validator.validate(dto);
+            if (!violaciones.isEmpty()) {
+                error(fila, dto.getRut(), violaciones.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            dto.setRut(dto.getRut().trim());
+            if (!rutsVistos.add(dto.getRut())) {
+                resultados.add(new Fila(fila, dto.getRut(), Estado.DUPLICADO, "RUT repetido dentro del archivo."));
+                return;
+            }
+            bloque.add(new Pendiente(fila, dto, campos));
+            if (bloque.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void error(int fila, String rut, String mensaje) {
+            resultados.add(new Fila(fila, rut, Estado.ERROR, mensaje));
+        }
+
+        private void flush() {
+            if (bloque.isEmpty()) {
+                return;
+            }
+            List<Pendiente> pendientes = List.copyOf(bloque);
+            bloque.clear();
+
+            List<Pendiente> inserts = new ArrayList<>();
+            List<Pendiente> updates = new ArrayList<>();
+            List<Fila> duplicados = new ArrayList<>();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Set<String> existentes = new HashSet<>(pacienteRepository.findExistingRuts(
+                            pendientes.stream().map(p -> p.dto().getRut()).toList()));
+                    for (Pendiente p : pendientes) {
+                        if (!existentes.contains(p.dto().getRut())) {
+                            inserts.add(p);
+                        } else if (upsert) {
+                            updates.add(p);
+                        } else {
+                            duplicados.add(new Fila(p.fila(), p.dto().getRut(), Estado.DUPLICADO,
+                                    "El RUT ingresado ya está registrado."));
+                        }
+                    }
+                    if (!inserts.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(),
+                                (ps, p) -> bind(ps, COLUMNAS, p.dto(), null));
+                    }
+                    // Un lote por combinación de columnas (en un CSV todas las filas comparten la cabecera)
+                    Map<List<Columna>, List<Pendiente>> porColumnas = new LinkedHashMap<>();
+                    for (Pendiente p : updates) {
+                        List<Columna> columnas = COLUMNAS_UPDATE.stream().filter(c -> c.presente(p.campos())).toList();
+                        porColumnas.computeIfAbsent(columnas, c -> new ArrayList<>()).add(p);
+                    }
+                    porColumnas.forEach((columnas, filas) -> {
+                        if (!columnas.isEmpty()) {
+                            jdbcTemplate.batchUpdate(updateSql(columnas), filas, filas.size(),
+                                    (ps, p) -> bind(ps, columnas, p.dto(), p.dto().getRut()));
+                        }
+                    });
+                });
+            } catch (DataAccessException e) {
+                // El bloque completo se deshizo: todas sus filas quedan como error
+                String causa = "Bloque rechazado por la base de datos: " + e.getMostSpecificCause().getMessage();
+                System.err.println("Importación de pacientes: " + causa);
+                for (Pendiente p : pendientes) {
+                    error(p.fila(), p.dto().getRut(), causa);
+                }
+                return;
+            }
+            resultados.addAll(duplicados);
+            inserts.forEach(p -> resultados.add(new Fila(p.fila(), p.dto().getRut(), Estado.CREADO, null)));
+            updates.forEach(p -> resultados.add(new Fila(p.fila(), p.dto().getRut(), Estado.ACTUALIZADO, null)));
+        }
+
+        PacienteImportResultDto finish() {
+            flush();
+            resultados.sort(Comparator.comparingInt(Fila::getFila));
+            int creados = count(Estado.CREADO);
+            int actualizados = count(Estado.ACTUALIZADO);
+            if (creados + actualizados > 0) {
+                // Los INSERT por lotes no devuelven ids: se recarga el índice de búsqueda completo
+                pacienteSearchIndex.rebuild();
+            }
+            if (actualizados > 0) {
+                // El upsert puede cambiar el grupo (caso/control) de pacientes con registros
+                frecuenciaRespuestaService.reconstruirTodo();
+            }
+            return PacienteImportResultDto.builder()
+                    .total(resultados.size())
+                    .creados(creados)
+                    .actualizados(actualizados)
+                    .errores(resultados.size() - creados - actualizados)
+                    .duracionMs(System.currentTimeMillis() - inicio)
+                    .filas(resultados)
+                    .build();
+        }
+
+        private int count(Estado estado) {
+            return (int) resultados.stream().filter(f -> f.getEstado() == estado).count();
+        }
+    }
+
+    // campos: nombres de campo presentes en la fila (cabecera del CSV o claves del objeto JSON)
+    private record Pendiente(int fila, PacienteRequestDto dto, Set<String> campos) {
+    }
+
+    // campo == null: columna derivada (el IMC se recalcula cuando llegan peso y estatura)
+    private record Columna(String nombre, String campo, Function<PacienteRequestDto, Object> valor) {
+
+        boolean presente(Set<String> campos) {
+            return campo != null ? campos.contains(campo) : campos.contains("peso") && campos.contains("estatura");
+        }
+    }
+
+    // Un upsert solo actualiza las columnas que trae la fila: un CSV con parte de las columnas no deja
+    // en NULL el resto de los datos del paciente. Un valor vacío en una columna presente sí la limpia.
+    private static String updateSql(List<Columna> columnas) {
+        return "update paciente set "
+                + columnas.stream().map(c -> c.nombre() + " = ?").collect(Collectors.joining(", "))
+                + " where rut = ?";
+    }
+
+    // --- Utilidades ---
+
+    private static void bind(PreparedStatement ps, List<Columna> columnas, PacienteRequestDto dto, String rutWhere)
+            throws SQLException {
+        int i = 1;
+        for (Columna columna : columnas) {
+            Object valor = columna.valor().apply(dto);
+            if (valor instanceof Date fecha) {
+                valor = new java.sql.Date(fecha.getTime());
+            }
+            ps.setObject(i++, valor);
+        }
+        if (rutWhere != null) {
+            ps.setString(i, rutWhere);
+        }
+    }
+
+    private static Object normalizarValorCsv(String campo, String valor) {
+        if (CAMPOS_BOOLEANOS.contains(campo)) {
+            switch (valor.toLowerCase(Locale.ROOT)) {
+                case "true", "si", "sí", "1" -> {
+                    return Boolean.TRUE;
+                }
+                case "false", "no", "0" -> {
+                    return Boolean.FALSE;
+                }
+                default -> {
+                    return valor;
+                }
+            }
+        }
+        // dd-MM-yyyy o dd/MM/yyyy -> yyyy-MM-dd
+        if (valor.matches("\\d{2}[-/]\\d{2}[-/]\\d{4}")) {
+            return valor.substring(6, 10) + "-" + valor.substring(3, 5) + "-" + valor.substring(0, 2);
+        }
+        return valor;
+    }
+
+    // CSV de una línea por registro; soporta campos entre comillas con separadores y "" escapadas
+    static List<String> parseCsvLine(String linea, char separador) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+}
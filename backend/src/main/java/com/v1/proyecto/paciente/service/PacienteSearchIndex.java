@@ -0,0 +1,350 @@
+package com.v1.proyecto.paciente.service;
+
+import com.v1.proyecto.paciente.dto.PacienteResponseDto;
+import com.v1.proyecto.paciente.model.Paciente;
+import com.v1.proyecto.paciente.repository.PacienteIndexado;
+import com.v1.proyecto.paciente.repository.PacienteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de búsqueda de pacientes en memoria.
+ *
+ * Cada paciente se descompone en tokens normalizados (minúsculas, sin tildes y solo
+ * letras/dígitos): RUT sin puntos ni guion (cuerpo y cuerpo+DV), nombre, apellidos y
+ * código de participante. Los tokens se indexan por trigramas (búsqueda por subcadena)
+ * y por prefijos de 1 y 2 caracteres (consultas cortas).
+ */
+@Component
+@RequiredArgsConstructor
+public class PacienteSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final PacienteRepository pacienteRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Documento> documentos = new HashMap<>();
+    private final Map<String, Set<Integer>> trigramas = new HashMap<>();
+    private final Map<String, Set<Integer>> prefijos = new HashMap<>();
+
+    // Cambios confirmados mientras se reconstruye (null si no hay reconstrucción en curso)
+    private List<Runnable> cambiosDuranteRebuild;
+
+    /**
+     * Se construye una vez que la aplicación está lista (con la base de datos disponible).
+     * La proyección se lee sin el lock: los upsert/remove confirmados mientras tanto se
+     * aplican al índice vigente y se guardan, y se vuelven a aplicar sobre el índice nuevo,
+     * así no los pisa una lectura que pudo no verlos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<PacienteIndexado> filas;
+        try {
+            filas = pacienteRepository.findAllParaIndice();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            documentos.clear();
+            trigramas.clear();
+            prefijos.clear();
+            for (PacienteIndexado fila : filas) {
+                add(toDocumento(fila.getIdPaciente(), fila.getRut(), fila.getNombre(), fila.getApellidos(),
+                        fila.getSexo(), fila.getFechaNacimiento(), fila.getCodigoParticipante()));
+            }
+            cambiosDuranteRebuild.forEach(Runnable::run);
+        } finally {
+            cambiosDuranteRebuild = null;
+            lock.writeLock().unlock();
+        }
+        System.out.println("Índice de búsqueda de pacientes construido: " + filas.size() + " pacientes.");
+    }
+
+    // Los cambios se aplican tras el commit, así un rollback no deja el índice desalineado
+    public void upsert(Paciente paciente) {
+        Documento documento = toDocumento(paciente.getIdPaciente(), paciente.getRut(), paciente.getNombre(),
+                paciente.getApellidos(), paciente.getSexo(), paciente.getFechaNacimiento(),
+                paciente.getCodigoParticipante());
+        afterCommit(() -> aplicar(() -> {
+            removeInternal(documento.dto().getIdPaciente());
+            add(documento);
+        }));
+    }
+
+    public void remove(Integer idPaciente) {
+        afterCommit(() -> aplicar(() -> removeInternal(idPaciente)));
+    }
+
+    private void aplicar(Runnable cambio) {
+        lock.writeLock().lock();
+        try {
+            cambio.run();
+            if (cambiosDuranteRebuild != null) {
+                cambiosDuranteRebuild.add(cambio);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Devuelve hasta {@code limit} pacientes que contienen todos los términos de la consulta,
+     * ordenados por relevancia (coincidencia exacta > prefijo > subcadena).
+     */
+    public List<PacienteResponseDto> search(String query, int limit) {
+        List<String> terminos = tokenize(query);
+        if (terminos.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> candidatos = null;
+            for (String termino : terminos) {
+                Set<Integer> ids = candidates(termino);
+                candidatos = candidatos == null ? new HashSet<>(ids) : intersect(candidatos, ids);
+                if (candidatos.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            // Min-heap acotado a "limit": no se ordena la lista completa de candidatos
+            PriorityQueue<Resultado> top = new PriorityQueue<>(Comparator.comparing(Resultado::score)
+                    .thenComparing(r -> -r.documento().dto().getIdPaciente()));
+            for (Integer id : candidatos) {
+                Documento documento = documentos.get(id);
+                int score = score(documento, terminos);
+                if (score > 0) {
+                    top.offer(new Resultado(documento, score));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<Resultado> ordenados = new ArrayList<>(top);
+            ordenados.sort(top.comparator().reversed());
+            return ordenados.stream().map(r -> r.documento().dto()).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Construcción del índice ---
+
+    private Documento toDocumento(Integer id, String rut, String nombre, String apellidos, String sexo,
+                                  Date fechaNacimiento, String codigoParticipante) {
+        PacienteResponseDto dto = PacienteResponseDto.builder()
+                .idPaciente(id)
+                .rut(rut)
+                .nombre(nombre)
+                .apellidos(apellidos)
+                .sexo(sexo)
+                .fechaNacimiento(fechaNacimiento)
+                .build();
+
+        Set<String> tokens = new LinkedHashSet<>();
+        Set<String> claves = new HashSet<>();
+        String rutNormalizado = normalize(rut);
+        if (!rutNormalizado.isEmpty()) {
+            // RUT "12.345.678-9": cuerpo "12345678" y DV "9" por separado; también el RUT completo
+            String cuerpo = rutNormalizado.substring(0, Math.max(1, rutNormalizado.length() - 1));
+            tokens.add(cuerpo);
+            tokens.add(rutNormalizado);
+            claves.add(cuerpo);
+            claves.add(rutNormalizado);
+        }
+        tokens.addAll(tokenize(nombre));
+        tokens.addAll(tokenize(apellidos));
+        String codigo = normalize(codigoParticipante);
+        if (!codigo.isEmpty()) {
+            tokens.add(codigo);
+            claves.add(codigo);
+        }
+        return new Documento(dto, List.copyOf(tokens), claves);
+    }
+
+    private void add(Documento documento) {
+        Integer id = documento.dto().getIdPaciente();
+        documentos.put(id, documento);
+        for (String token : documento.tokens()) {
+            for (String gram : grams(token)) {
+                trigramas.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+            for (int i = 1; i <= Math.min(GRAM - 1, token.length()); i++) {
+                prefijos.computeIfAbsent(token.substring(0, i), p -> new HashSet<>()).add(id);
+            }
+        }
+    }
+
+    private void removeInternal(Integer id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String token : anterior.tokens()) {
+            for (String gram : grams(token)) {
+                removePosting(trigramas, gram, id);
+            }
+            for (int i = 1; i <= Math.min(GRAM - 1, token.length()); i++) {
+                removePosting(prefijos, token.substring(0, i), id);
+            }
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Integer>> postings, String key, Integer id) {
+        Set<Integer> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    // --- Consulta ---
+
+    private Set<Integer> candidates(String termino) {
+        if (termino.length() < GRAM) {
+            return prefijos.getOrDefault(termino, Set.of());
+        }
+        // Se intersecta empezando por la lista de trigramas más corta
+        List<Set<Integer>> listas = new ArrayList<>();
+        for (String gram : grams(termino)) {
+            Set<Integer> ids = trigramas.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            listas.add(ids);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    private static Set<Integer> intersect(Set<Integer> acumulado, Set<Integer> ids) {
+        acumulado.retainAll(ids);
+        return acumulado;
+    }
+
+    // Los trigramas solo filtran candidatos; aquí se confirma que el término aparezca en un token
+    private static int score(Documento documento, List<String> terminos) {
+        int total = 0;
+        for (String termino : terminos) {
+            int mejor = 0;
+            for (String token : documento.tokens()) {
+                if (token.equals(termino)) {
+                    mejor = Math.max(mejor, documento.claves().contains(token) ? 10 : 3);
+                } else if (token.startsWith(termino)) {
+                    mejor = Math.max(mejor, 2);
+                } else if (termino.length() >= GRAM && token.contains(termino)) {
+                    mejor = Math.max(mejor, 1);
+                }
+            }
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    // --- Normalización ---
+
+    static List<String> tokenize(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String parte : texto.trim().split("\\s+")) {
+            String token = normalize(parte);
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // "Pérez" -> "perez", "12.345.678-K" -> "12345678k", "P-001" -> "p001"
+    static String normalize(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(sinTildes.length());
+        for (int i = 0; i < sinTildes.length(); i++) {
+            char c = Character.toLowerCase(sinTildes.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<String> grams(String token) {
+        if (token.length() < GRAM) {
+            return List.of();
+        }
+        List<String> grams = new ArrayList<>(token.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            grams.add(token.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static void afterCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private record Documento(PacienteResponseDto dto, List<String> tokens, Set<String> claves) {
+    }
+
+    private record Resultado(Documento documento, int score) {
+    }
+}
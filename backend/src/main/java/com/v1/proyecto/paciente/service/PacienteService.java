@@ -1,14 +1,20 @@
 package com.v1.proyecto.paciente.service;
 
+import com.v1.proyecto.encuesta.service.CohorteIndex;
+import com.v1.proyecto.paciente.dto.PacientePageResponseDto;
 import com.v1.proyecto.paciente.dto.PacienteRequestDto;
 import com.v1.proyecto.paciente.dto.PacienteResponseDto;
 import com.v1.proyecto.paciente.model.Paciente;
 import com.v1.proyecto.paciente.repository.PacienteRepository;
+import com.v1.proyecto.paciente.repository.PacienteResumen;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,7 +22,22 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class PacienteService {
 
+    // Tamaño de página por defecto y máximo del listado paginado
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // Resultados de la búsqueda rápida
+    public static final int DEFAULT_SEARCH_LIMIT = 10;
+    public static final int MAX_SEARCH_LIMIT = 50;
+
+    // Órdenes soportados por GET /api/v1/pacientes?sort=
+    private static final String SORT_ID = "id";
+    private static final String SORT_ID_DESC = "-id";
+    private static final String SORT_APELLIDOS = "apellidos";
+
     private final PacienteRepository pacienteRepository;
+    private final PacienteSearchIndex pacienteSearchIndex;
+    private final CohorteIndex cohorteIndex;
 
     // --- Métodos de Mapeo (NUEVOS) ---
     private Paciente convertToEntity(PacienteRequestDto dto) {
@@ -58,9 +79,7 @@ public class PacienteService {
                 .peso(dto.getPeso())
                 .estatura(dto.getEstatura())
                 // Calculamos IMC automáticamente si ambos datos están presentes
-                .imc((dto.getPeso() != null && dto.getEstatura() != null && dto.getEstatura() > 0)
-                        ? dto.getPeso() / (dto.getEstatura() * dto.getEstatura())
-                        : null)
+                .imc(calcularImc(dto.getPeso(), dto.getEstatura()))
 
                 // --- 9. Histopatología ---
                 .tipoHistologico(dto.getTipoHistologico())
@@ -69,6 +88,24 @@ public class PacienteService {
                 .build();
     }
 
+    // IMC = peso / estatura^2 (también lo usa la importación masiva)
+    static Double calcularImc(Double peso, Double estatura) {
+        return (peso != null && estatura != null && estatura > 0)
+                ? peso / (estatura * estatura)
+                : null;
+    }
+
+    private PacienteResponseDto convertToResponseDto(PacienteResumen resumen) {
+        return PacienteResponseDto.builder()
+                .idPaciente(resumen.getIdPaciente())
+                .rut(resumen.getRut())
+                .nombre(resumen.getNombre())
+                .apellidos(resumen.getApellidos())
+                .sexo(resumen.getSexo())
+                .fechaNacimiento(resumen.getFechaNacimiento())
+                .build();
+    }
+
     private PacienteResponseDto convertToResponseDto(Paciente entity) {
         return PacienteResponseDto.builder()
                 .idPaciente(entity.getIdPaciente())
@@ -84,14 +121,81 @@ public class PacienteService {
 
     @Transactional(readOnly = true)
     public List<PacienteResponseDto> findAllPacientes() {
-        // 1. Busca entidades
-        List<Paciente> pacientes = pacienteRepository.findAll();
+        // 1. Busca solo las columnas del resumen (no las ~40 columnas clínicas)
+        List<PacienteResumen> pacientes = pacienteRepository.findAllResumen();
         // 2. Convierte la lista a DTOs de respuesta
         return pacientes.stream()
                 .map(this::convertToResponseDto)
                 .toList();
     }
 
+    /**
+     * Listado paginado por cursor (keyset). El cursor es opaco para el cliente y
+     * guarda el orden y la última clave entregada, así cada página cuesta lo mismo
+     * sin importar cuántos pacientes haya antes.
+     */
+    @Transactional(readOnly = true)
+    public PacientePageResponseDto findPacientesPage(Integer limit, String cursor, String sort) {
+        final String orden = sort == null || sort.isBlank() ? SORT_ID : sort;
+        if (!orden.equals(SORT_ID) && !orden.equals(SORT_ID_DESC) && !orden.equals(SORT_APELLIDOS)) {
+            throw new IllegalArgumentException("Orden no soportado: " + sort);
+        }
+        final int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Se pide un registro extra para saber si hay página siguiente sin hacer COUNT(*)
+        final Limit fetch = Limit.of(size + 1);
+
+        List<PacienteResumen> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = switch (orden) {
+                case SORT_ID_DESC -> pacienteRepository.findResumenBeforeId(Integer.MAX_VALUE, fetch);
+                case SORT_APELLIDOS -> pacienteRepository.findResumenAfterNullApellidos(0, fetch);
+                default -> pacienteRepository.findResumenAfterId(0, fetch);
+            };
+        } else {
+            String[] partes = decodeCursor(cursor, orden);
+            Integer lastId = Integer.valueOf(partes[1]);
+            filas = switch (orden) {
+                case SORT_ID_DESC -> pacienteRepository.findResumenBeforeId(lastId, fetch);
+                case SORT_APELLIDOS -> partes[2].isEmpty()
+                        ? pacienteRepository.findResumenAfterNullApellidos(lastId, fetch)
+                        : pacienteRepository.findResumenAfterApellidos(partes[2].substring(1), lastId, fetch);
+                default -> pacienteRepository.findResumenAfterId(lastId, fetch);
+            };
+        }
+
+        final boolean hasMore = filas.size() > size;
+        final List<PacienteResumen> pagina = hasMore ? filas.subList(0, size) : filas;
+        return PacientePageResponseDto.builder()
+                .items(pagina.stream().map(this::convertToResponseDto).toList())
+                .nextCursor(hasMore ? encodeCursor(orden, pagina.get(pagina.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Formato interno: "orden|id|" y, si el orden es por apellidos, "=apellidos" (vacío si es NULL)
+    private String encodeCursor(String orden, PacienteResumen ultimo) {
+        String apellidos = SORT_APELLIDOS.equals(orden) && ultimo.getApellidos() != null
+                ? "=" + ultimo.getApellidos()
+                : "";
+        String raw = orden + "|" + ultimo.getIdPaciente() + "|" + apellidos;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, String orden) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = raw.split("\\|", 3);
+            if (partes.length != 3 || !partes[0].equals(orden)) {
+                throw new IllegalArgumentException("El cursor no corresponde al orden solicitado.");
+            }
+            Integer.valueOf(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException y errores de Base64 también son IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido.", e);
+        }
+    }
+
     @Transactional(readOnly = true)
     public Optional<PacienteResponseDto> findPacienteById(Integer id) {
         return pacienteRepository.findById(id)
@@ -108,6 +212,7 @@ public class PacienteService {
         Paciente paciente = convertToEntity(pacienteDto);
         // 2. Guarda la Entidad
         Paciente pacienteGuardado = pacienteRepository.save(paciente);
+        pacienteSearchIndex.upsert(pacienteGuardado);
         // 3. Devuelve un DTO de Respuesta
         return convertToResponseDto(pacienteGuardado);
     }
@@ -124,6 +229,9 @@ public class PacienteService {
                     pacienteExistente.setFechaNacimiento(pacienteDto.getFechaNacimiento());
 
                     Paciente pacienteActualizado = pacienteRepository.save(pacienteExistente);
+                    pacienteSearchIndex.upsert(pacienteActualizado);
+                    // El sexo es un atributo de las cohortes
+                    cohorteIndex.pacientesCambiados();
                     // Convierte la entidad actualizada a DTO
                     return convertToResponseDto(pacienteActualizado);
                 });
@@ -138,5 +246,13 @@ public class PacienteService {
     @Transactional
     public void deletePaciente(Integer id) {
         pacienteRepository.deleteById(id);
+        pacienteSearchIndex.remove(id);
+        cohorteIndex.pacientesCambiados();
+    }
+
+    // Búsqueda por RUT, nombre, apellidos o código de participante (índice en memoria, sin ir a la DB)
+    public List<PacienteResponseDto> searchPacientes(String query, Integer limit) {
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        return pacienteSearchIndex.search(query, size);
     }
 }
@@ -0,0 +1,160 @@
+package com.v1.proyecto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.auth.repository.UserRepository;
+import com.v1.proyecto.config.ContadorSentenciasExtension;
+import com.v1.proyecto.config.ContadorSentenciasFilter;
+import com.v1.proyecto.config.MaxSentencias;
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.model.RegistroEncuesta;
+import com.v1.proyecto.encuesta.model.Respuesta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import com.v1.proyecto.paciente.model.Paciente;
+import com.v1.proyecto.paciente.repository.PacienteRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL por endpoint sobre H2 (perfil test). Los máximos no dependen de la cantidad
+ * de registros: si un endpoint vuelve a hacer una consulta por fila, el test falla. Cada
+ * petición incluye las 3 consultas del filtro JWT (usuario dos veces y token).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(ContadorSentenciasExtension.class)
+class SentenciasPorEndpointTest {
+
+    private static final int REGISTROS = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EncuestaRepository encuestaRepository;
+    @Autowired
+    private PacienteRepository pacienteRepository;
+    @Autowired
+    private RegistroEncuestaRepository registroEncuestaRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private String token;
+    private Integer idEncuesta;
+    private Integer idPaciente;
+
+    // La encuesta y el admin los crean DataSeeder y DataInitializer al arrancar
+    @BeforeAll
+    void sembrar() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            Encuesta encuesta = encuestaRepository.findAll().get(0);
+            Users admin = userRepository.findByEmail("admin@system.com").orElseThrow();
+            idEncuesta = encuesta.getIdEncuesta();
+            for (int i = 0; i < REGISTROS; i++) {
+                Paciente paciente = pacienteRepository.save(Paciente.builder()
+                        .rut("1000000" + i + "-" + i)
+                        .nombre("Paciente " + i)
+                        .codigoParticipante("P-" + i)
+                        .grupo(i % 2 == 0 ? "CASO" : "CONTROL")
+                        .build());
+                // Dos registros por paciente para que el listado por paciente tenga más de uno
+                for (int r = 0; r < 2; r++) {
+                    RegistroEncuesta registro = RegistroEncuesta.builder()
+                            .encuesta(encuesta)
+                            .paciente(paciente)
+                            .usuario(admin)
+                            .fechaRealizacion(LocalDateTime.now())
+                            .estado("COMPLETADO")
+                            .respuestas(new ArrayList<>())
+                            .build();
+                    for (Pregunta pregunta : encuesta.getPreguntas()) {
+                        Respuesta.RespuestaBuilder respuesta = Respuesta.builder()
+                                .registroEncuesta(registro).pregunta(pregunta);
+                        if (pregunta.getOpciones() == null || pregunta.getOpciones().isEmpty()) {
+                            respuesta.valorTexto("texto " + i);
+                        } else {
+                            respuesta.opcionSeleccionada(pregunta.getOpciones().get(i % pregunta.getOpciones().size()));
+                        }
+                        registro.getRespuestas().add(respuesta.build());
+                    }
+                    registroEncuestaRepository.save(registro);
+                }
+                idPaciente = paciente.getIdPaciente();
+            }
+        });
+
+        String login = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                Map.of("email", "admin@system.com", "password", "admin123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = objectMapper.readTree(login).get("access_token").asText();
+    }
+
+    @Test
+    @MaxSentencias(8)
+    void getEncuestaCompleta() throws Exception {
+        mockMvc.perform(get("/api/v1/encuestas/{id}", idEncuesta).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(ContadorSentenciasFilter.CABECERA));
+    }
+
+    @Test
+    @MaxSentencias(5)
+    void getRegistrosByEncuesta() throws Exception {
+        mockMvc.perform(get("/api/v1/encuestas/{id}/registros", idEncuesta)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSentencias(12)
+    void exportarCsv() throws Exception {
+        mockMvc.perform(get("/api/v1/encuestas/{id}/export/csv", idEncuesta)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSentencias(4)
+    void getAllPacientes() throws Exception {
+        mockMvc.perform(get("/api/v1/pacientes").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @MaxSentencias(5)
+    void getRegistrosDelPaciente() throws Exception {
+        mockMvc.perform(get("/api/v1/pacientes/{id}/registros", idPaciente)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,33 @@
+package com.v1.proyecto.auth.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(4, 1, 4, 5000);
+
+    @AfterEach
+    void tearDown() {
+        encoder.destroy();
+    }
+
+    @Test
+    void encode_ShouldProduceHashThatMatches() {
+        String hash = encoder.encode("secreto");
+
+        assertTrue(encoder.matches("secreto", hash));
+        assertFalse(encoder.matches("otro", hash));
+    }
+
+    @Test
+    void upgradeEncoding_ShouldBeTrue_WhenStoredCostDiffers() {
+        String oldHash = new BCryptPasswordEncoder(5).encode("secreto");
+
+        assertTrue(encoder.upgradeEncoding(oldHash));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secreto")));
+    }
+}
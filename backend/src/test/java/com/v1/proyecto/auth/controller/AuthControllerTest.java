@@ -14,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -71,7 +72,7 @@ class AuthControllerTest {
                 .refreshToken("refreshToken")
                 .build();
 
-        when(authService.authenticate(any(AuthRequest.class))).thenReturn(response);
+        when(authService.authenticate(any(AuthRequest.class), eq("127.0.0.1"))).thenReturn(response);
 
         mockMvc.perform(post("/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -91,7 +92,7 @@ class AuthControllerTest {
                 .refreshToken("refreshToken")
                 .build();
 
-        when(authService.verifyCode(any(VerificationRequest.class))).thenReturn(response);
+        when(authService.verifyCode(any(VerificationRequest.class), eq("127.0.0.1"))).thenReturn(response);
 
         mockMvc.perform(post("/auth/verify")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -43,6 +43,10 @@ class AuthServiceTest {
     private EmailService emailService;
     @Mock
     private TrustedDeviceRepository trustedDeviceRepository;
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+    @Mock
+    private TrustedDeviceCache trustedDeviceCache;
 
     @InjectMocks
     private AuthService authService;
@@ -139,6 +143,62 @@ class AuthServiceTest {
         assertFalse(response.isMfaEnabled());
     }
 
+    @Test
+    void authenticate_ShouldSkipDeviceQuery_WhenDeviceIsCached() {
+        authRequest.setDeviceId("trusted-device");
+        when(repository.findByEmail(authRequest.getEmail())).thenReturn(Optional.of(user));
+        when(trustedDeviceCache.isTrusted(eq(1), eq("trusted-device"), any(LocalDateTime.class))).thenReturn(true);
+        when(jwtService.generateToken(any(Users.class))).thenReturn("accessToken");
+        when(jwtService.generateRefreshToken(any(Users.class))).thenReturn("refreshToken");
+
+        TokenResponse response = authService.authenticate(authRequest);
+
+        assertFalse(response.isMfaEnabled());
+        verifyNoInteractions(trustedDeviceRepository);
+    }
+
+    @Test
+    void authenticate_ShouldCacheTrustedDevice_AfterDatabaseLookup() {
+        authRequest.setDeviceId("trusted-device");
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        TrustedDevice trustedDevice = TrustedDevice.builder()
+                .deviceId("trusted-device")
+                .user(user)
+                .expiresAt(expiresAt)
+                .build();
+        when(repository.findByEmail(authRequest.getEmail())).thenReturn(Optional.of(user));
+        when(trustedDeviceRepository.findByUserAndDeviceId(user, "trusted-device"))
+                .thenReturn(Optional.of(trustedDevice));
+
+        authService.authenticate(authRequest);
+
+        verify(trustedDeviceCache).put(eq(1), eq("trusted-device"), eq(expiresAt), any(LocalDateTime.class));
+    }
+
+    @Test
+    void authenticate_ShouldBulkRevokeTokensAndMoveWatermark() {
+        when(repository.findByEmail(authRequest.getEmail())).thenReturn(Optional.of(user));
+        when(jwtService.generateToken(any(Users.class))).thenReturn("accessToken");
+        when(jwtService.generateRefreshToken(any(Users.class))).thenReturn("refreshToken");
+        when(tokenRepository.revokeAllValidTokensByUser(1)).thenReturn(3);
+
+        authService.authenticate(authRequest);
+
+        assertNotNull(user.getTokensRevokedBefore());
+        verify(tokenRepository).revokeAllValidTokensByUser(1);
+        verify(tokenRepository, never()).findAllValidTokenByUser(anyInt());
+        verify(tokenRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void authenticate_ShouldNotCheckCredentials_WhenRateLimited() {
+        doThrow(new TooManyLoginAttemptsException("limit"))
+                .when(loginRateLimiter).checkAttempt(authRequest.getEmail(), "10.0.0.1");
+
+        assertThrows(TooManyLoginAttemptsException.class, () -> authService.authenticate(authRequest, "10.0.0.1"));
+        verifyNoInteractions(authenticationManager);
+    }
+
     @Test
     void authenticate_ShouldThrowException_WhenUserNotFound() {
         when(repository.findByEmail(authRequest.getEmail())).thenReturn(Optional.empty());
@@ -166,6 +226,33 @@ class AuthServiceTest {
         assertNotNull(response);
         assertEquals("accessToken", response.getAccessToken());
         verify(trustedDeviceRepository).save(any(TrustedDevice.class));
+        verify(trustedDeviceCache).evict(1, "new-device");
+    }
+
+    @Test
+    void verifyCode_ShouldRenewExistingDevice_InsteadOfDuplicatingIt() {
+        user.setVerificationCode("123456");
+        user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(10));
+        TrustedDevice expired = TrustedDevice.builder()
+                .id(7)
+                .deviceId("old-device")
+                .user(user)
+                .expiresAt(LocalDateTime.now().minusDays(1))
+                .build();
+
+        VerificationRequest request = new VerificationRequest();
+        request.setEmail(user.getEmail());
+        request.setCode("123456");
+        request.setDeviceId("old-device");
+        request.setRememberDevice(true);
+
+        when(repository.findByEmail(request.getEmail())).thenReturn(Optional.of(user));
+        when(trustedDeviceRepository.findByUserAndDeviceId(user, "old-device")).thenReturn(Optional.of(expired));
+
+        authService.verifyCode(request);
+
+        verify(trustedDeviceRepository).save(expired);
+        assertTrue(expired.getExpiresAt().isAfter(LocalDateTime.now().plusDays(29)));
     }
 
     @Test
@@ -210,7 +297,11 @@ class AuthServiceTest {
         authService.resetPassword(request);
 
         verify(repository).save(user);
+        verify(tokenRepository).revokeAllValidTokensByUser(1);
+        verify(trustedDeviceRepository).deleteAllByUserId(1);
+        verify(trustedDeviceCache).evictUser(1);
         assertNull(user.getResetToken());
+        assertNotNull(user.getTokensRevokedBefore());
     }
 
     @Test
@@ -0,0 +1,60 @@
+package com.v1.proyecto.auth.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRateLimitStoreTest {
+
+    private static final int MAX_BUCKETS = 100_000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private InMemoryRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRateLimitStore(clock::get);
+    }
+
+    @Test
+    void purge_ShouldKeepEachBucketCapacity_WhenTriggeredBySmallerBucket() {
+        for (int i = 0; i < 15; i++) {
+            assertTrue(store.tryConsume("ip:10.0.0.1", 30, 0));
+        }
+        fillIdleBuckets("email:", 10);
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        store.tryConsume("email:trigger", 10, 1000);
+
+        // Al bucket de IP le quedan 15 de 30: ni se purga ni se recorta a la capacidad del email
+        for (int i = 0; i < 15; i++) {
+            assertTrue(store.tryConsume("ip:10.0.0.1", 30, 0));
+        }
+        assertFalse(store.tryConsume("ip:10.0.0.1", 30, 0));
+    }
+
+    @Test
+    void purge_ShouldRunAtMostOncePerInterval() {
+        fillIdleBuckets("a:", 10);
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        store.tryConsume("trigger", 10, 1000);
+        assertTrue(store.size() < MAX_BUCKETS);
+
+        fillIdleBuckets("b:", 10);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        store.tryConsume("again", 10, 1000);
+
+        assertTrue(store.size() > MAX_BUCKETS);
+    }
+
+    private void fillIdleBuckets(String prefix, long capacity) {
+        for (int i = 0; i <= MAX_BUCKETS; i++) {
+            store.tryConsume(prefix + i, capacity, 1000);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.security.Key;
+import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Date;
 
@@ -92,6 +93,28 @@ class JwtServiceTest {
         assertFalse(jwtService.isTokenValid(token, otherUser));
     }
 
+    @Test
+    void isTokenValid_ShouldReturnFalse_WhenIssuedBeforeRevocation() {
+        when(jwtProperties.getSecretKey()).thenReturn(secretKey);
+        when(jwtProperties.getExpiration()).thenReturn(1000L * 60 * 24);
+
+        String token = jwtService.generateToken(user);
+        user.setTokensRevokedBefore(LocalDateTime.now().plusMinutes(1));
+
+        assertFalse(jwtService.isTokenValid(token, user));
+    }
+
+    @Test
+    void isTokenValid_ShouldReturnTrue_WhenIssuedAfterRevocation() {
+        when(jwtProperties.getSecretKey()).thenReturn(secretKey);
+        when(jwtProperties.getExpiration()).thenReturn(1000L * 60 * 24);
+
+        user.setTokensRevokedBefore(LocalDateTime.now().minusMinutes(1));
+        String token = jwtService.generateToken(user);
+
+        assertTrue(jwtService.isTokenValid(token, user));
+    }
+
     @Test
     void generateRefreshToken_ShouldReturnToken() {
         when(jwtProperties.getSecretKey()).thenReturn(secretKey);
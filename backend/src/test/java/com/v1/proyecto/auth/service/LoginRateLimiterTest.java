@@ -0,0 +1,52 @@
+package com.v1.proyecto.auth.service;
+
+import com.v1.proyecto.auth.config.LoginProtectionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        LoginProtectionProperties properties = new LoginProtectionProperties();
+        properties.setEmail(new LoginProtectionProperties.Bucket(3, 1));
+        properties.setIp(new LoginProtectionProperties.Bucket(5, 1));
+        limiter = new LoginRateLimiter(new InMemoryRateLimitStore(), properties);
+    }
+
+    @Test
+    void checkAttempt_ShouldThrow_WhenEmailBucketIsEmpty() {
+        for (int i = 0; i < 3; i++) {
+            limiter.checkAttempt("John.Doe@example.com", "10.0.0.1");
+        }
+
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> limiter.checkAttempt("john.doe@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void checkAttempt_ShouldThrow_WhenIpBucketIsEmpty() {
+        for (int i = 0; i < 5; i++) {
+            limiter.checkAttempt("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> limiter.checkAttempt("other@example.com", "10.0.0.1"));
+        assertDoesNotThrow(() -> limiter.checkAttempt("other@example.com", "10.0.0.9"));
+    }
+
+    @Test
+    void onSuccess_ShouldRefillEmailBucket() {
+        for (int i = 0; i < 3; i++) {
+            limiter.checkAttempt("john.doe@example.com", null);
+        }
+
+        limiter.onSuccess("john.doe@example.com");
+
+        assertDoesNotThrow(() -> limiter.checkAttempt("john.doe@example.com", null));
+    }
+}
@@ -0,0 +1,102 @@
+package com.v1.proyecto.auth.service;
+
+import com.v1.proyecto.auth.config.LoginProtectionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrustedDeviceCacheTest {
+
+    private TrustedDeviceCache cache;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        LoginProtectionProperties properties = new LoginProtectionProperties();
+        properties.getDeviceCache().setMaxUsers(2);
+        properties.getDeviceCache().setMaxDevicesPerUser(2);
+        properties.getDeviceCache().setMaxTtl(Duration.ofHours(1));
+        cache = new TrustedDeviceCache(properties);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    void isTrusted_ShouldReturnTrue_ForCachedDevice() {
+        cache.put(1, "d1", now.plusDays(30), now);
+
+        assertTrue(cache.isTrusted(1, "d1", now.plusMinutes(10)));
+        assertFalse(cache.isTrusted(1, "d2", now));
+        assertFalse(cache.isTrusted(2, "d1", now));
+    }
+
+    @Test
+    void bindTo_ShouldPublishHitsAndMisses() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.put(1, "d1", now.plusDays(1), now);
+
+        cache.isTrusted(1, "d1", now);
+        cache.isTrusted(1, "d2", now);
+        cache.isTrusted(2, "d1", now);
+
+        assertEquals(1, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(2, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").gauge().value());
+    }
+
+    @Test
+    void isTrusted_ShouldExpireAtDeviceExpiry() {
+        cache.put(1, "d1", now.plusMinutes(5), now);
+
+        assertTrue(cache.isTrusted(1, "d1", now.plusMinutes(4)));
+        assertFalse(cache.isTrusted(1, "d1", now.plusMinutes(5)));
+    }
+
+    @Test
+    void isTrusted_ShouldExpireAtMaxTtl_WhenDeviceLivesLonger() {
+        cache.put(1, "d1", now.plusDays(30), now);
+
+        assertFalse(cache.isTrusted(1, "d1", now.plusHours(2)));
+    }
+
+    @Test
+    void put_ShouldIgnoreAlreadyExpiredDevice() {
+        cache.put(1, "d1", now.minusMinutes(1), now);
+
+        assertFalse(cache.isTrusted(1, "d1", now));
+    }
+
+    @Test
+    void evict_ShouldRemoveDevice() {
+        cache.put(1, "d1", now.plusDays(1), now);
+        cache.put(1, "d2", now.plusDays(1), now);
+
+        cache.evict(1, "d1");
+
+        assertFalse(cache.isTrusted(1, "d1", now));
+        assertTrue(cache.isTrusted(1, "d2", now));
+    }
+
+    @Test
+    void put_ShouldEvictLeastRecentlyUsed_WhenBoundsAreExceeded() {
+        cache.put(1, "d1", now.plusDays(1), now);
+        cache.put(1, "d2", now.plusDays(1), now);
+        cache.isTrusted(1, "d1", now);
+        cache.put(1, "d3", now.plusDays(1), now);
+
+        assertTrue(cache.isTrusted(1, "d1", now));
+        assertFalse(cache.isTrusted(1, "d2", now));
+
+        cache.put(2, "d1", now.plusDays(1), now);
+        cache.put(3, "d1", now.plusDays(1), now);
+
+        assertFalse(cache.isTrusted(1, "d1", now));
+        assertTrue(cache.isTrusted(3, "d1", now));
+    }
+}
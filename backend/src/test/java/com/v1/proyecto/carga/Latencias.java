@@ -0,0 +1,58 @@
+package com.v1.proyecto.carga;
+
+import java.util.Arrays;
+
+/** Latencias de un escenario (en nanosegundos) y sus percentiles al final de la corrida. */
+final class Latencias {
+
+    private long[] muestras = new long[1024];
+    private int cantidad;
+    private int errores;
+    private String primerError;
+
+    synchronized void registrar(long nanos, boolean ok) {
+        if (cantidad == muestras.length) {
+            muestras = Arrays.copyOf(muestras, cantidad * 2);
+        }
+        muestras[cantidad++] = nanos;
+        if (!ok) {
+            errores++;
+        }
+    }
+
+    // Se guarda solo el primero: alcanza para saber por qué falla un escenario
+    synchronized void error(String detalle) {
+        if (primerError == null) {
+            primerError = detalle.length() > 200 ? detalle.substring(0, 200) : detalle;
+        }
+    }
+
+    synchronized Resumen resumen(String escenario, double segundos) {
+        long[] ordenadas = Arrays.copyOf(muestras, cantidad);
+        Arrays.sort(ordenadas);
+        return new Resumen(escenario, cantidad, errores, segundos > 0 ? cantidad / segundos : 0,
+                ms(percentil(ordenadas, 50)), ms(percentil(ordenadas, 95)), ms(percentil(ordenadas, 99)),
+                ms(cantidad > 0 ? ordenadas[cantidad - 1] : 0), primerError);
+    }
+
+    // Rango más cercano: el menor valor que deja al menos p% de las muestras a su izquierda
+    static long percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int rango = (int) Math.ceil(p / 100.0 * ordenadas.length);
+        return ordenadas[Math.max(0, rango - 1)];
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    record Resumen(String escenario, int peticiones, int errores, double porSegundo,
+                   double p50, double p95, double p99, double max, String primerError) {
+
+        double porcentajeErrores() {
+            return peticiones > 0 ? 100.0 * errores / peticiones : 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.v1.proyecto.carga;
+
+import org.springframework.test.context.ActiveProfilesResolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Perfiles de la prueba de carga: siempre "test", más los de -Dloadtest.perfiles
+ * (p. ej. -Dloadtest.perfiles=virtual para medir con hilos virtuales).
+ */
+class PerfilesCarga implements ActiveProfilesResolver {
+
+    @Override
+    public String[] resolve(Class<?> testClass) {
+        List<String> perfiles = new ArrayList<>(List.of("test"));
+        Arrays.stream(System.getProperty("loadtest.perfiles", "").split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .forEach(perfiles::add);
+        return perfiles.toArray(String[]::new);
+    }
+}
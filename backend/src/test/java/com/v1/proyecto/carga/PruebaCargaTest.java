@@ -0,0 +1,246 @@
+package com.v1.proyecto.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.auth.repository.UserRepository;
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.model.RegistroEncuesta;
+import com.v1.proyecto.encuesta.model.Respuesta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import com.v1.proyecto.paciente.model.Paciente;
+import com.v1.proyecto.paciente.repository.PacienteRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Carga de un día de reclutamiento contra la aplicación completa sobre H2 en modo MySQL.
+ * Siembra pacientes y registros, levanta N encuestadores concurrentes (ver {@link UsuarioVirtual})
+ * y reporta p50/p95/p99 y peticiones por segundo de cada escenario. Falla si algún escenario
+ * supera sus umbrales de loadtest.properties o el porcentaje máximo de errores.
+ *
+ * Solo corre con el perfil de Maven: mvn -B test -Ploadtest [-Dloadtest.usuarios=50]
+ * Con -Dloadtest.perfiles=virtual mide el modo de hilos virtuales, para comparar ambos.
+ * El resultado queda además en target/loadtest/resultado-{plataforma|virtual}.json.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // Todos los encuestadores llegan desde 127.0.0.1: el limitador por IP no debe cortar la prueba
+        "security.login.ip.capacity=1000000",
+        "security.login.ip.refill-per-minute=1000000",
+        "security.login.email.capacity=1000000",
+        "security.login.email.refill-per-minute=1000000",
+        "app.sql.contador.cabecera=false"
+})
+@ActiveProfiles(resolver = PerfilesCarga.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PruebaCargaTest {
+
+    private static final List<String> ESCENARIOS = List.of(
+            "login", "formulario", "registro", "borrador", "autoguardado", "finalizar", "exportar_csv");
+    private static final String PASSWORD = "carga123";
+
+    @LocalServerPort
+    private int port;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EncuestaRepository encuestaRepository;
+    @Autowired
+    private PacienteRepository pacienteRepository;
+    @Autowired
+    private RegistroEncuestaRepository registroEncuestaRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private Properties config;
+    private Integer idEncuesta;
+    private final List<Integer> pacientes = new ArrayList<>();
+    private final List<String> emails = new ArrayList<>();
+
+    @BeforeAll
+    void sembrar() throws IOException {
+        config = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/loadtest.properties")) {
+            config.load(in);
+        }
+        // Cada modo puede ajustar umbrales propios sobre los comunes (loadtest-virtual.properties)
+        try (InputStream in = getClass().getResourceAsStream("/loadtest-" + modo() + ".properties")) {
+            if (in != null) {
+                config.load(in);
+            }
+        }
+        Random random = new Random(entero("loadtest.semilla"));
+        int cantidadPacientes = entero("loadtest.pacientes");
+        int cantidadRegistros = entero("loadtest.registros");
+        int usuarios = entero("loadtest.usuarios");
+
+        String hash = passwordEncoder.encode(PASSWORD);
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            Encuesta encuesta = encuestaRepository.findAll().get(0);
+            idEncuesta = encuesta.getIdEncuesta();
+            for (int i = 0; i < usuarios; i++) {
+                Users usuario = userRepository.save(Users.builder()
+                        .name("Encuestador").lastname(String.valueOf(i))
+                        .email("carga" + i + "@system.com").password(hash)
+                        .role(Role.ADMIN).enabled(true)
+                        .build());
+                emails.add(usuario.getEmail());
+            }
+            List<Paciente> sembrados = new ArrayList<>();
+            for (int i = 0; i < cantidadPacientes; i++) {
+                Paciente paciente = pacienteRepository.save(Paciente.builder()
+                        .rut("carga-" + i)
+                        .nombre("Paciente " + i)
+                        .codigoParticipante("C-" + i)
+                        .grupo(i % 2 == 0 ? "CASO" : "CONTROL")
+                        .build());
+                sembrados.add(paciente);
+                pacientes.add(paciente.getIdPaciente());
+            }
+            Users autor = userRepository.findByEmail(emails.get(0)).orElseThrow();
+            for (int r = 0; r < cantidadRegistros; r++) {
+                RegistroEncuesta registro = RegistroEncuesta.builder()
+                        .encuesta(encuesta)
+                        .paciente(sembrados.get(random.nextInt(sembrados.size())))
+                        .usuario(autor)
+                        .fechaRealizacion(LocalDateTime.now().minusDays(random.nextInt(90)))
+                        .estado("COMPLETADO")
+                        .respuestas(new ArrayList<>())
+                        .build();
+                for (Pregunta pregunta : encuesta.getPreguntas()) {
+                    Respuesta.RespuestaBuilder respuesta = Respuesta.builder()
+                            .registroEncuesta(registro).pregunta(pregunta);
+                    if (pregunta.getOpciones() == null || pregunta.getOpciones().isEmpty()) {
+                        respuesta.valorTexto("texto " + random.nextInt(100));
+                    } else {
+                        respuesta.opcionSeleccionada(pregunta.getOpciones().get(random.nextInt(pregunta.getOpciones().size())));
+                    }
+                    registro.getRespuestas().add(respuesta.build());
+                }
+                registroEncuestaRepository.save(registro);
+            }
+        });
+    }
+
+    @Test
+    void diaDeReclutamiento() throws Exception {
+        int usuarios = entero("loadtest.usuarios");
+        long duracionNanos = TimeUnit.SECONDS.toNanos(entero("loadtest.duracion-s"));
+        Map<String, Latencias> latencias = new LinkedHashMap<>();
+        ESCENARIOS.forEach(escenario -> latencias.put(escenario, new Latencias()));
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        ExecutorService encuestadores = Executors.newFixedThreadPool(usuarios);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < usuarios; i++) {
+            encuestadores.execute(new UsuarioVirtual(http, objectMapper, "http://localhost:" + port,
+                    emails.get(i), PASSWORD, idEncuesta, pacientes, latencias, inicio + duracionNanos,
+                    entero("loadtest.pausa-ms"), entero("loadtest.semilla") + i));
+        }
+        encuestadores.shutdown();
+        assertTrue(encuestadores.awaitTermination(duracionNanos + TimeUnit.MINUTES.toNanos(2), TimeUnit.NANOSECONDS),
+                "Los encuestadores no terminaron a tiempo");
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        List<Latencias.Resumen> resumenes = new ArrayList<>();
+        latencias.forEach((escenario, l) -> resumenes.add(l.resumen(escenario, segundos)));
+        reportar(resumenes, usuarios, segundos);
+
+        List<String> fallas = new ArrayList<>();
+        double maxErrores = decimal("loadtest.max-errores-pct");
+        for (Latencias.Resumen r : resumenes) {
+            if (r.porcentajeErrores() > maxErrores) {
+                fallas.add(String.format("%s: %.1f%% de errores (máx. %.1f%%)", r.escenario(), r.porcentajeErrores(), maxErrores));
+            }
+            comparar(fallas, r.escenario(), "p95", r.p95());
+            comparar(fallas, r.escenario(), "p99", r.p99());
+        }
+        assertTrue(fallas.isEmpty(), "Umbrales superados:\n  " + String.join("\n  ", fallas));
+    }
+
+    private void comparar(List<String> fallas, String escenario, String percentil, double valor) {
+        String umbral = valor("loadtest.umbral." + escenario + "." + percentil);
+        if (umbral != null && valor > Double.parseDouble(umbral)) {
+            fallas.add(String.format("%s: %s = %.1f ms (umbral %s ms)", escenario, percentil, valor, umbral));
+        }
+    }
+
+    private void reportar(List<Latencias.Resumen> resumenes, int usuarios, double segundos) throws IOException {
+        StringBuilder tabla = new StringBuilder(String.format(
+                "%nCarga: %d encuestadores durante %.1f s, hilos %s%n%-14s %9s %8s %9s %9s %9s %9s %9s%n",
+                usuarios, segundos, modo(), "escenario", "peticiones", "errores", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Latencias.Resumen r : resumenes) {
+            tabla.append(String.format("%-14s %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n", r.escenario(), r.peticiones(),
+                    r.errores(), r.porSegundo(), r.p50(), r.p95(), r.p99(), r.max()));
+        }
+        for (Latencias.Resumen r : resumenes) {
+            if (r.primerError() != null) {
+                tabla.append(String.format("primer error en %s: %s%n", r.escenario(), r.primerError()));
+            }
+        }
+        System.out.println(tabla);
+
+        Path salida = Path.of("target", "loadtest", "resultado-" + modo() + ".json");
+        Files.createDirectories(salida.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(salida.toFile(),
+                Map.of("modo", modo(), "usuarios", usuarios, "segundos", segundos, "escenarios", resumenes));
+    }
+
+    private String modo() {
+        return hilosVirtuales ? "virtual" : "plataforma";
+    }
+
+    // Las propiedades del sistema (-D) tienen prioridad sobre loadtest.properties
+    private String valor(String clave) {
+        return System.getProperty(clave, config.getProperty(clave));
+    }
+
+    private int entero(String clave) {
+        return Integer.parseInt(valor(clave));
+    }
+
+    private double decimal(String clave) {
+        return Double.parseDouble(valor(clave));
+    }
+}
@@ -0,0 +1,220 @@
+package com.v1.proyecto.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.v1.proyecto.encuesta.dto.BorradorPatchDto;
+import com.v1.proyecto.encuesta.dto.EncuestaResponseDto;
+import com.v1.proyecto.encuesta.dto.OpcionRespuestaDto;
+import com.v1.proyecto.encuesta.dto.PreguntaDto;
+import com.v1.proyecto.encuesta.dto.RegistroRequestDto;
+import com.v1.proyecto.encuesta.dto.RespuestaRequestDto;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Un encuestador simulado: inicia sesión con su propia cuenta (un login invalida las sesiones
+ * anteriores del mismo usuario) y repite una mezcla de escenarios hasta el fin de la corrida.
+ * Los borradores avanzan como en el formulario: se crean con el primer tercio de las
+ * respuestas, se autoguardan de a 4 a 10 preguntas y se finalizan al completarlas.
+ */
+final class UsuarioVirtual implements Runnable {
+
+    // Peso acumulado de cada escenario sobre 100 (el resto es exportar)
+    private static final int LOGIN = 5;
+    private static final int FORMULARIO = 35;
+    private static final int REGISTRO = 55;
+    private static final int BORRADOR = 90;
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final String base;
+    private final String email;
+    private final String password;
+    private final Integer idEncuesta;
+    private final List<Integer> pacientes;
+    private final Map<String, Latencias> latencias;
+    private final long fin;
+    private final long pausaMs;
+    private final Random random;
+
+    private String token;
+    private EncuestaResponseDto encuesta;
+    private Integer borrador;
+    private List<RespuestaRequestDto> pendientesBorrador;
+
+    UsuarioVirtual(HttpClient http, ObjectMapper objectMapper, String base, String email, String password,
+                   Integer idEncuesta, List<Integer> pacientes, Map<String, Latencias> latencias,
+                   long fin, long pausaMs, long semilla) {
+        this.http = http;
+        this.objectMapper = objectMapper;
+        this.base = base;
+        this.email = email;
+        this.password = password;
+        this.idEncuesta = idEncuesta;
+        this.pacientes = pacientes;
+        this.latencias = latencias;
+        this.fin = fin;
+        this.pausaMs = pausaMs;
+        this.random = new Random(semilla);
+    }
+
+    @Override
+    public void run() {
+        try {
+            login();
+            formulario();
+            while (System.nanoTime() < fin) {
+                int dado = random.nextInt(100);
+                if (dado < LOGIN) {
+                    login();
+                } else if (dado < FORMULARIO) {
+                    formulario();
+                } else if (dado < REGISTRO) {
+                    registro();
+                } else if (dado < BORRADOR) {
+                    borrador();
+                } else {
+                    enviar("exportar_csv", get("/api/v1/encuestas/" + idEncuesta + "/export/csv"));
+                }
+                if (pausaMs > 0) {
+                    Thread.sleep(pausaMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void login() {
+        JsonNode respuesta = enviar("login", post("/auth/login", Map.of("email", email, "password", password)));
+        if (respuesta != null) {
+            token = respuesta.get("access_token").asText();
+        }
+    }
+
+    private void formulario() {
+        JsonNode respuesta = enviar("formulario", get("/api/v1/encuestas/" + idEncuesta));
+        if (respuesta != null) {
+            encuesta = objectMapper.convertValue(respuesta, EncuestaResponseDto.class);
+        }
+    }
+
+    private void registro() {
+        if (encuesta == null) {
+            return;
+        }
+        enviar("registro", post("/api/v1/encuestas/registro", RegistroRequestDto.builder()
+                .idPaciente(paciente()).idEncuesta(idEncuesta).respuestas(respuestas()).esBorrador(false)
+                .build()));
+    }
+
+    private void borrador() {
+        if (encuesta == null) {
+            return;
+        }
+        if (borrador == null) {
+            List<RespuestaRequestDto> respuestas = respuestas();
+            int tercio = respuestas.size() / 3;
+            JsonNode creado = enviar("borrador", post("/api/v1/encuestas/registro", RegistroRequestDto.builder()
+                    .idPaciente(paciente()).idEncuesta(idEncuesta)
+                    .respuestas(respuestas.subList(0, tercio)).esBorrador(true)
+                    .build()));
+            if (creado != null) {
+                borrador = creado.get("idRegistro").asInt();
+                pendientesBorrador = new ArrayList<>(respuestas.subList(tercio, respuestas.size()));
+            }
+        } else if (!pendientesBorrador.isEmpty()) {
+            List<RespuestaRequestDto> lote = pendientesBorrador.subList(0,
+                    Math.min(pendientesBorrador.size(), 4 + random.nextInt(7)));
+            enviar("autoguardado", request("/api/v1/encuestas/registro/" + borrador + "/borrador")
+                    .method("PATCH", cuerpo(new BorradorPatchDto(new ArrayList<>(lote)))).build());
+            lote.clear();
+        } else {
+            enviar("finalizar", post("/api/v1/encuestas/registro/" + borrador + "/finalizar", Map.of()));
+            borrador = null;
+        }
+    }
+
+    // Una respuesta por pregunta: opción al azar o texto (número para las preguntas numéricas)
+    private List<RespuestaRequestDto> respuestas() {
+        List<RespuestaRequestDto> respuestas = new ArrayList<>();
+        for (PreguntaDto pregunta : encuesta.getPreguntas()) {
+            List<OpcionRespuestaDto> opciones = pregunta.getOpciones();
+            RespuestaRequestDto.RespuestaRequestDtoBuilder respuesta = RespuestaRequestDto.builder()
+                    .idPregunta(pregunta.getIdPregunta());
+            if (opciones != null && !opciones.isEmpty()) {
+                respuesta.idOpcionSeleccionada(opciones.get(random.nextInt(opciones.size())).getIdOpcion());
+            } else if ("NUMERO".equals(pregunta.getTipoPregunta())) {
+                respuesta.valorTexto(String.valueOf(random.nextInt(90)));
+            } else {
+                respuesta.valorTexto("Respuesta " + random.nextInt(1000));
+            }
+            respuestas.add(respuesta.build());
+        }
+        return respuestas;
+    }
+
+    private Integer paciente() {
+        return pacientes.get(random.nextInt(pacientes.size()));
+    }
+
+    private HttpRequest get(String ruta) {
+        return request(ruta).GET().build();
+    }
+
+    private HttpRequest post(String ruta, Object cuerpo) {
+        return request(ruta).POST(cuerpo(cuerpo)).build();
+    }
+
+    private HttpRequest.Builder request(String ruta) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + ruta))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request;
+    }
+
+    private HttpRequest.BodyPublisher cuerpo(Object cuerpo) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(cuerpo));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Envía la petición y registra su latencia en el escenario. Devuelve el cuerpo JSON de una
+     * respuesta 2xx (o null si falló o no es JSON, p. ej. el CSV).
+     */
+    private JsonNode enviar(String escenario, HttpRequest request) {
+        long inicio = System.nanoTime();
+        boolean ok = false;
+        try {
+            HttpResponse<byte[]> respuesta = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            ok = respuesta.statusCode() / 100 == 2;
+            latencias.get(escenario).registrar(System.nanoTime() - inicio, ok);
+            if (!ok) {
+                latencias.get(escenario).error(respuesta.statusCode() + " " + new String(respuesta.body()));
+            }
+            boolean json = respuesta.headers().firstValue("Content-Type").orElse("").contains("json");
+            return ok && json ? objectMapper.readTree(respuesta.body()) : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            if (!ok) {
+                latencias.get(escenario).registrar(System.nanoTime() - inicio, false);
+                latencias.get(escenario).error(e.toString());
+            }
+            return null;
+        }
+    }
+}
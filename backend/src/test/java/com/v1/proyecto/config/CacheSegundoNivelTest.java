@@ -0,0 +1,142 @@
+package com.v1.proyecto.config;
+
+import com.v1.proyecto.encuesta.dto.PreguntaCreateDto;
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.LogicaSalto;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoRepository;
+import com.v1.proyecto.encuesta.repository.OpcionRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.service.EncuestaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Caché de segundo nivel y de consultas sobre H2: cada transacción abre una sesión nueva. */
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private EncuestaRepository encuestaRepository;
+    @Autowired
+    private PreguntaRepository preguntaRepository;
+    @Autowired
+    private OpcionRespuestaRepository opcionRespuestaRepository;
+    @Autowired
+    private LogicaSaltoRepository logicaSaltoRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private EncuestaService encuestaService;
+
+    private TransactionTemplate tx;
+    private Statistics estadisticas;
+    private Integer idEncuesta;
+    private Integer idOpcion;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        tx.executeWithoutResult(status -> {
+            Encuesta encuesta = encuestaRepository.save(Encuesta.builder().titulo("Caché").version("1.0").build());
+            Pregunta origen = pregunta(encuesta, "¿Fuma?");
+            Pregunta destino = pregunta(encuesta, "¿Cuántos cigarrillos al día?");
+            OpcionRespuesta si = opcionRespuestaRepository.save(
+                    OpcionRespuesta.builder().textoOpcion("Sí").pregunta(origen).build());
+            logicaSaltoRepository.save(LogicaSalto.builder()
+                    .preguntaOrigen(origen).opcionOrigen(si).preguntaDestino(destino).build());
+            idEncuesta = encuesta.getIdEncuesta();
+            idOpcion = si.getIdOpcion();
+        });
+        entityManagerFactory.getCache().evictAll();
+        estadisticas.clear();
+    }
+
+    @Test
+    void encuestaYSusPreguntas_LaSegundaLecturaNoVaALaBase() {
+        assertEquals(2, preguntasDeLaEncuesta());
+        long sentencias = estadisticas.getPrepareStatementCount();
+
+        assertEquals(2, preguntasDeLaEncuesta());
+
+        assertEquals(sentencias, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getDomainDataRegionStatistics("encuesta").getHitCount());
+        assertEquals(1, estadisticas.getDomainDataRegionStatistics("encuesta-preguntas").getHitCount());
+        assertTrue(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "encuesta").tag("result", "hit").functionCounter().count() >= 1);
+    }
+
+    @Test
+    void findByOpcionOrigen_UsaLaCacheDeConsultasYUnaEscrituraLaInvalida() {
+        assertTrue(saltoDeLaOpcion());
+        assertTrue(saltoDeLaOpcion());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+
+        tx.executeWithoutResult(status -> logicaSaltoRepository.deleteAll(
+                logicaSaltoRepository.findByPreguntaOrigenEncuestaIdEncuesta(idEncuesta)));
+
+        assertFalse(saltoDeLaOpcion());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+    }
+
+    // A través del servicio, con la colección de preguntas ya en caché antes de cada cambio
+    @Test
+    void addPregunta_ApareceEnLaEncuestaCacheada() {
+        assertEquals(2, encuestaService.getEncuestaCompleta(idEncuesta).getPreguntas().size());
+
+        encuestaService.addPreguntaToEncuesta(idEncuesta, nuevaPregunta("¿Bebe alcohol?"));
+
+        assertEquals(3, encuestaService.getEncuestaCompleta(idEncuesta).getPreguntas().size());
+    }
+
+    @Test
+    void deletePregunta_NoDejaUnIdColgadoEnLaEncuestaCacheada() {
+        Integer idPregunta = encuestaService.addPreguntaToEncuesta(idEncuesta, nuevaPregunta("¿Bebe alcohol?"))
+                .getIdPregunta();
+        assertEquals(3, encuestaService.getEncuestaCompleta(idEncuesta).getPreguntas().size());
+
+        assertNull(encuestaService.deletePregunta(idPregunta));
+
+        assertEquals(2, encuestaService.getEncuestaCompleta(idEncuesta).getPreguntas().size());
+    }
+
+    private static PreguntaCreateDto nuevaPregunta(String texto) {
+        return PreguntaCreateDto.builder().textoPregunta(texto).tipoPregunta("TEXTO").build();
+    }
+
+    private int preguntasDeLaEncuesta() {
+        return tx.execute(status -> encuestaRepository.findById(idEncuesta).orElseThrow().getPreguntas().size());
+    }
+
+    private boolean saltoDeLaOpcion() {
+        return tx.execute(status -> logicaSaltoRepository.findByOpcionOrigen(
+                opcionRespuestaRepository.getReferenceById(idOpcion)).isPresent());
+    }
+
+    private Pregunta pregunta(Encuesta encuesta, String texto) {
+        Pregunta pregunta = preguntaRepository.save(Pregunta.builder().textoPregunta(texto)
+                .tipoPregunta("SELECCION_UNICA").encuesta(encuesta).opciones(new ArrayList<>()).build());
+        encuesta.getPreguntas().add(pregunta);
+        return pregunta;
+    }
+}
@@ -0,0 +1,39 @@
+package com.v1.proyecto.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * Cuenta las sentencias SQL de cada test con {@link MaxSentencias} y lo hace fallar si supera
+ * el máximo. MockMvc atiende la petición en el mismo hilo, así que la medición del filtro queda
+ * anidada en la del test.
+ */
+public class ContadorSentenciasExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(ContadorSentenciasExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (context.getRequiredTestMethod().isAnnotationPresent(MaxSentencias.class)) {
+            context.getStore(NAMESPACE).put(context.getUniqueId(), ContadorSentencias.iniciar());
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        ContadorSentencias.Medicion medicion = context.getStore(NAMESPACE)
+                .remove(context.getUniqueId(), ContadorSentencias.Medicion.class);
+        if (medicion == null) {
+            return;
+        }
+        ContadorSentencias.terminar(medicion);
+        int maximo = context.getRequiredTestMethod().getAnnotation(MaxSentencias.class).value();
+        if (medicion.total() > maximo) {
+            throw new AssertionFailedError("Se esperaban como máximo " + maximo + " sentencias SQL y hubo "
+                    + medicion.resumen(10));
+        }
+    }
+}
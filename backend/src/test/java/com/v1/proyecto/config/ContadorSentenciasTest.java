@@ -0,0 +1,47 @@
+package com.v1.proyecto.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContadorSentenciasTest {
+
+    private final ContadorSentencias inspector = new ContadorSentencias();
+
+    @Test
+    void inspect_AgrupaPorFormaYUnificaListasIn() {
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar();
+        try {
+            inspector.inspect("select o from opcion o where o.id_pregunta in (?, ?)");
+            inspector.inspect("select o from opcion o\n where o.id_pregunta in (?,?,?)");
+            inspector.inspect("select p from paciente p where p.id_paciente=?");
+        } finally {
+            ContadorSentencias.terminar(medicion);
+        }
+
+        assertEquals(3, medicion.total());
+        assertEquals(1, medicion.repetidas().size());
+        assertEquals(Map.entry("select o from opcion o where o.id_pregunta in (?...)", 2), medicion.repetidas().get(0));
+    }
+
+    @Test
+    void terminar_SumaLaMedicionAnidadaALaExterna() {
+        ContadorSentencias.Medicion externa = ContadorSentencias.iniciar();
+        ContadorSentencias.Medicion interna = ContadorSentencias.iniciar();
+        inspector.inspect("select 1");
+        ContadorSentencias.terminar(interna);
+        inspector.inspect("select 1");
+        ContadorSentencias.terminar(externa);
+
+        assertEquals(1, interna.total());
+        assertEquals(2, externa.total());
+        assertEquals("2 sentencias\n  2x select 1", externa.resumen(5));
+    }
+
+    @Test
+    void inspect_SinMedicionAbiertaNoCuenta() {
+        assertEquals("select 1", inspector.inspect("select 1"));
+    }
+}
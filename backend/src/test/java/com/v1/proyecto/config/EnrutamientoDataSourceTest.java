@@ -0,0 +1,191 @@
+package com.v1.proyecto.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Primario y réplica son dos bases H2 distintas; cada una responde con su nombre
+class EnrutamientoDataSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ReplicasProperties properties = new ReplicasProperties();
+
+    private JdbcTemplate primario;
+    private JdbcTemplate replica;
+    private EnrutamientoDataSource enrutamiento;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primarioDs = h2("primario");
+        DataSource replicaDs = h2("replica");
+        primario = new JdbcTemplate(primarioDs);
+        replica = new JdbcTemplate(replicaDs);
+        for (JdbcTemplate base : List.of(primario, replica)) {
+            base.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+            base.execute("CREATE TABLE estado_replica (retraso INT)");
+        }
+        primario.update("INSERT INTO origen VALUES ('primario')");
+        replica.update("INSERT INTO origen VALUES ('replica')");
+        replica.update("INSERT INTO estado_replica VALUES (0)");
+
+        properties.setConsultaRetraso("SELECT retraso AS Seconds_Behind_Source FROM estado_replica");
+        properties.setLecturaPropia(Duration.ofHours(1));
+        enrutamiento = new EnrutamientoDataSource(primarioDs, Map.of("replica-1", replicaDs), properties, registry);
+        enrutamiento.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(enrutamiento);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+        jdbc = new JdbcTemplate(proxy);
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void soloLasTransaccionesDeLecturaVanALaReplica() {
+        assertEquals("replica", leer(lectura));
+        assertEquals("primario", leer(escritura));
+        assertEquals("primario", jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+        assertEquals(1.0, registry.get("db.enrutamiento").tag("destino", "replica").counter().count());
+    }
+
+    @Test
+    void tusPropiasEscriturasSeLeenDelPrimario() {
+        autenticar("ana@example.com");
+        escritura.executeWithoutResult(status -> jdbc.update("INSERT INTO origen VALUES ('nuevo')"));
+
+        Integer filas = lectura.execute(status -> jdbc.queryForObject("SELECT COUNT(*) FROM origen", Integer.class));
+        assertEquals(2, filas);
+
+        autenticar("beto@example.com");
+        assertEquals("replica", leer(lectura));
+    }
+
+    @Test
+    void unRollbackNoFijaAlUsuarioEnElPrimario() {
+        autenticar("ana@example.com");
+        escritura.executeWithoutResult(status -> {
+            jdbc.update("INSERT INTO origen VALUES ('nuevo')");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", leer(lectura));
+    }
+
+    @Test
+    void pasadaLaVentanaDeLecturaPropiaVuelveALaReplica() {
+        properties.setLecturaPropia(Duration.ZERO);
+        autenticar("ana@example.com");
+        escritura.executeWithoutResult(status -> jdbc.update("INSERT INTO origen VALUES ('nuevo')"));
+
+        assertEquals("replica", leer(lectura));
+    }
+
+    @Test
+    void unaReplicaAtrasadaSaleDeRotacionHastaPonerseAlDia() {
+        replica.update("UPDATE estado_replica SET retraso = 30");
+        enrutamiento.verificarReplicas();
+        assertEquals("primario", leer(lectura));
+        assertEquals(0.0, registry.get("db.replica.disponible").gauge().value());
+        assertEquals(30.0, registry.get("db.replica.retraso").gauge().value());
+
+        replica.update("UPDATE estado_replica SET retraso = 2");
+        enrutamiento.verificarReplicas();
+        assertEquals("replica", leer(lectura));
+    }
+
+    @Test
+    void unaReplicaQueNoReplicaOQueFallaNoRecibeLecturas() {
+        replica.update("UPDATE estado_replica SET retraso = NULL");
+        enrutamiento.verificarReplicas();
+        assertEquals("primario", leer(lectura));
+
+        replica.update("UPDATE estado_replica SET retraso = 0");
+        enrutamiento.verificarReplicas();
+        replica.execute("DROP TABLE estado_replica");
+        enrutamiento.verificarReplicas();
+        assertEquals("primario", leer(lectura));
+        assertEquals(-1.0, registry.get("db.replica.retraso").gauge().value());
+    }
+
+    @Test
+    void lasCargasDeCacheLeenDelPrimarioAunqueLaReplicaVayaAtrasada() {
+        // La réplica sigue en rotación (2 s de retraso) pero todavía no tiene la fila nueva
+        replica.update("UPDATE estado_replica SET retraso = 2");
+        enrutamiento.verificarReplicas();
+        escritura.executeWithoutResult(status -> jdbc.update("INSERT INTO origen VALUES ('nuevo')"));
+
+        assertEquals(1, contar(lectura, false));
+        assertEquals(2, contar(lectura, true));
+        assertEquals(1.0, registry.get("db.enrutamiento").tag("motivo", "forzado").counter().count());
+
+        // La marca es de la transacción: la siguiente lectura vuelve a la réplica
+        assertEquals("replica", leer(lectura));
+    }
+
+    @Test
+    void leyendoDeReplicaIndicaDondeQuedoLaConexion() {
+        Boolean replicaSinMarca = lectura.execute(status -> {
+            jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+            return EnrutamientoDataSource.leyendoDeReplica();
+        });
+        Boolean replicaConMarca = lectura.execute(status -> {
+            EnrutamientoDataSource.leerDelPrimario();
+            jdbc.queryForObject("SELECT nombre FROM origen", String.class);
+            return EnrutamientoDataSource.leyendoDeReplica();
+        });
+
+        assertTrue(replicaSinMarca);
+        assertFalse(replicaConMarca);
+        assertFalse(EnrutamientoDataSource.leyendoDeReplica());
+    }
+
+    private int contar(TransactionTemplate transaccion, boolean primario) {
+        return transaccion.execute(status -> {
+            if (primario) {
+                EnrutamientoDataSource.leerDelPrimario();
+            }
+            return jdbc.queryForObject("SELECT COUNT(*) FROM origen", Integer.class);
+        });
+    }
+
+    private String leer(TransactionTemplate transaccion) {
+        return transaccion.execute(status -> jdbc.queryForObject("SELECT nombre FROM origen", String.class));
+    }
+
+    private static void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario, null, List.of()));
+    }
+
+    private static DataSource h2(String nombre) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + nombre + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+}
@@ -0,0 +1,80 @@
+package com.v1.proyecto.config;
+
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.service.EncuestaDefinitionCache;
+import com.v1.proyecto.encuesta.service.SkipLogicGraph;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** El generador sobre H2 (perfil test): lo corre el evento de arranque con un estudio pequeño. */
+@SpringBootTest(properties = {
+        "app.generador.semilla=3",
+        "app.generador.pacientes=40",
+        "app.generador.usuarios=3",
+        "app.generador.registros=150",
+        "app.generador.lote=64"
+})
+@ActiveProfiles({"test", "generador"})
+class GeneradorDatosTest {
+
+    @Autowired
+    private GeneradorDatos generadorDatos;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EncuestaRepository encuestaRepository;
+    @Autowired
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+
+    @Test
+    void generar_InsertaElEstudioUnaSolaVez() {
+        assertEquals(3, contar("select count(*) from user where email like '%.s3@sintetico.local'"));
+        assertEquals(40, contar("select count(*) from paciente where codigo_participante like 'S3-%'"));
+        assertEquals(150, contar("select count(*) from registro_encuesta r join paciente p on p.id_paciente = r.id_paciente "
+                + "where p.codigo_participante like 'S3-%'"));
+        assertTrue(contar("select count(*) from registro_encuesta where estado = 'BORRADOR'") > 0);
+        // Los contadores de frecuencia se reconstruyeron con las respuestas insertadas
+        assertTrue(contar("select count(*) from frecuencia_respuesta") > 0);
+
+        // Con la misma semilla no se duplica nada
+        generadorDatos.generar();
+        assertEquals(40, contar("select count(*) from paciente where codigo_participante like 'S3-%'"));
+    }
+
+    @Test
+    void generar_CompletadosPasanLaValidacionDeSaltos() {
+        Integer idEncuesta = encuestaRepository.findByTitulo("Estudio Cáncer Gástrico").orElseThrow().getIdEncuesta();
+        SkipLogicGraph grafo = encuestaDefinitionCache.get(idEncuesta);
+        Map<Integer, Set<Integer>> respondidas = new HashMap<>();
+        Map<Integer, Map<Integer, List<Integer>>> opciones = new HashMap<>();
+        jdbcTemplate.query("select r.id_registro, s.id_pregunta, s.id_opcion_seleccionada from respuesta s "
+                + "join registro_encuesta r on r.id_registro = s.id_registro where r.estado = 'COMPLETADO'", rs -> {
+            int idRegistro = rs.getInt(1);
+            int idPregunta = rs.getInt(2);
+            Integer idOpcion = (Integer) rs.getObject(3);
+            respondidas.computeIfAbsent(idRegistro, id -> new HashSet<>()).add(idPregunta);
+            Map<Integer, List<Integer>> porPregunta = opciones.computeIfAbsent(idRegistro, id -> new HashMap<>());
+            if (idOpcion != null) {
+                porPregunta.computeIfAbsent(idPregunta, id -> new ArrayList<>()).add(idOpcion);
+            }
+        });
+
+        assertFalse(respondidas.isEmpty());
+        respondidas.forEach((idRegistro, preguntas) -> {
+            Set<Integer> alcanzables = grafo.alcanzables(opciones.get(idRegistro));
+            assertTrue(alcanzables.containsAll(preguntas));
+            assertDoesNotThrow(() -> grafo.validarObligatorias(alcanzables, preguntas));
+        });
+    }
+
+    private int contar(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
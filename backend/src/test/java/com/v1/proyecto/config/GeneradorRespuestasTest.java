@@ -0,0 +1,113 @@
+package com.v1.proyecto.config;
+
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoArista;
+import com.v1.proyecto.encuesta.repository.PreguntaNodo;
+import com.v1.proyecto.encuesta.service.SkipLogicGraph;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneradorRespuestasTest {
+
+    private static final SpelAwareProxyProjectionFactory FACTORY = new SpelAwareProxyProjectionFactory();
+
+    // 1 -(op 11)-> 4 ; 2 y 3 obligatorias ; 4 múltiple opcional ; 5 obligatoria
+    private final List<Pregunta> preguntas = List.of(
+            pregunta(1, "SELECCION_UNICA", true, 11, 12),
+            pregunta(2, "TEXTO_LIBRE", true),
+            pregunta(3, "NUMERO", true),
+            pregunta(4, "SELECCION_MULTIPLE", false, 41, 42, 43),
+            pregunta(5, "TEXTO_LIBRE", true));
+    private final SkipLogicGraph grafo = SkipLogicGraph.compilar(
+            preguntas.stream().map(GeneradorRespuestasTest::nodo).toList(),
+            List.of(FACTORY.createProjection(LogicaSaltoArista.class,
+                    Map.of("idPreguntaOrigen", 1, "idOpcionOrigen", 11, "idPreguntaDestino", 4))));
+
+    @Test
+    void generar_CompletadosRespetanSaltosYObligatorias() {
+        GeneradorRespuestas generador = new GeneradorRespuestas(preguntas, grafo, new Random(1));
+        Set<Integer> primeras = new HashSet<>();
+
+        for (int i = 0; i < 500; i++) {
+            List<GeneradorRespuestas.Fila> filas = generador.generar(i % 3 == 0, false);
+            Set<Integer> alcanzables = grafo.alcanzables(opciones(filas));
+            Set<Integer> respondidas = filas.stream().map(GeneradorRespuestas.Fila::idPregunta).collect(Collectors.toSet());
+
+            assertTrue(alcanzables.containsAll(respondidas), "Respondió preguntas saltadas: " + filas);
+            assertDoesNotThrow(() -> grafo.validarObligatorias(alcanzables, respondidas));
+            Integer primera = opciones(filas).get(1).get(0);
+            primeras.add(primera);
+            if (primera == 11) {
+                assertFalse(respondidas.contains(2) || respondidas.contains(3));
+            }
+        }
+        // Se recorren las dos ramas del salto
+        assertEquals(Set.of(11, 12), primeras);
+    }
+
+    @Test
+    void generar_BorradoresQuedanCortados() {
+        GeneradorRespuestas generador = new GeneradorRespuestas(preguntas, grafo, new Random(2));
+        int incompletos = 0;
+
+        for (int i = 0; i < 200; i++) {
+            List<GeneradorRespuestas.Fila> filas = generador.generar(false, true);
+            Set<Integer> respondidas = filas.stream().map(GeneradorRespuestas.Fila::idPregunta).collect(Collectors.toSet());
+            assertTrue(grafo.alcanzables(opciones(filas)).containsAll(respondidas));
+            if (!respondidas.contains(5)) {
+                incompletos++;
+            }
+        }
+        assertTrue(incompletos > 50);
+    }
+
+    @Test
+    void generar_MismaSemillaMismosDatos() {
+        GeneradorRespuestas a = new GeneradorRespuestas(preguntas, grafo, new Random(7));
+        GeneradorRespuestas b = new GeneradorRespuestas(preguntas, grafo, new Random(7));
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(a.generar(i % 2 == 0, i % 5 == 0), b.generar(i % 2 == 0, i % 5 == 0));
+        }
+    }
+
+    @Test
+    void rut_DigitoVerificadorValido() {
+        assertEquals("30000000-2", GeneradorDatos.rut(0, 0));
+        assertNotEquals(GeneradorDatos.rut(1, 0), GeneradorDatos.rut(2, 0));
+    }
+
+    private static Map<Integer, List<Integer>> opciones(List<GeneradorRespuestas.Fila> filas) {
+        Map<Integer, List<Integer>> opciones = new HashMap<>();
+        for (GeneradorRespuestas.Fila fila : filas) {
+            if (fila.idOpcion() != null) {
+                opciones.computeIfAbsent(fila.idPregunta(), id -> new ArrayList<>()).add(fila.idOpcion());
+            }
+        }
+        return opciones;
+    }
+
+    private static Pregunta pregunta(int id, String tipo, boolean obligatoria, int... opciones) {
+        Pregunta pregunta = Pregunta.builder().idPregunta(id).tipoPregunta(tipo).obligatoria(obligatoria)
+                .opciones(new ArrayList<>()).build();
+        for (int idOpcion : opciones) {
+            pregunta.getOpciones().add(OpcionRespuesta.builder().idOpcion(idOpcion).pregunta(pregunta).build());
+        }
+        return pregunta;
+    }
+
+    private static PreguntaNodo nodo(Pregunta pregunta) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idPregunta", pregunta.getIdPregunta());
+        fila.put("tipoPregunta", pregunta.getTipoPregunta());
+        fila.put("obligatoria", pregunta.isObligatoria());
+        fila.put("oculta", false);
+        return FACTORY.createProjection(PreguntaNodo.class, fila);
+    }
+}
@@ -0,0 +1,86 @@
+package com.v1.proyecto.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiteConcurrenciaFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private LimiteConcurrenciaFilter filtro(int tamanoPool, int porConexion, long esperaMs) {
+        ConcurrenciaProperties properties = new ConcurrenciaProperties();
+        properties.setPeticionesPorConexion(porConexion);
+        properties.setEsperaMs(esperaMs);
+        return new LimiteConcurrenciaFilter(properties, tamanoPool, registry);
+    }
+
+    @Test
+    void doFilter_CuposSeDerivanDelPoolYSeDevuelvenAlTerminar() throws Exception {
+        LimiteConcurrenciaFilter filtro = filtro(5, 3, 0);
+        assertEquals(15, filtro.disponibles());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/api/encuestas"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(15, filtro.disponibles());
+    }
+
+    @Test
+    void doFilter_SinCupoResponde503ConRetryAfter() throws Exception {
+        LimiteConcurrenciaFilter filtro = filtro(1, 1, 50);
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        FilterChain bloqueante = (req, res) -> {
+            dentro.countDown();
+            try {
+                soltar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Thread ocupante = Thread.ofVirtual().start(() -> {
+            try {
+                filtro.doFilter(new MockHttpServletRequest("GET", "/api/pacientes"), new MockHttpServletResponse(), bloqueante);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rechazada = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/api/pacientes"), rechazada, new MockFilterChain());
+
+        assertEquals(503, rechazada.getStatus());
+        assertEquals("1", rechazada.getHeader("Retry-After"));
+        assertEquals(1.0, registry.get("http.concurrencia.rechazos").counter().count());
+        assertEquals(1.0, registry.get("http.concurrencia.activas").gauge().value());
+
+        soltar.countDown();
+        ocupante.join();
+        assertEquals(1, filtro.disponibles());
+    }
+
+    @Test
+    void doFilter_ActuatorNoConsumeCupos() throws Exception {
+        LimiteConcurrenciaFilter filtro = filtro(1, 1, 0);
+        CountDownLatch dentro = new CountDownLatch(1);
+        FilterChain verificador = (req, res) -> {
+            assertEquals(1, filtro.disponibles());
+            dentro.countDown();
+        };
+
+        filtro.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(), verificador);
+
+        assertEquals(0, dentro.getCount());
+    }
+}
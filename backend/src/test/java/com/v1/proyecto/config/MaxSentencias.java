@@ -0,0 +1,17 @@
+package com.v1.proyecto.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Máximo de sentencias SQL que puede ejecutar el test anotado (solo el cuerpo del test, sin
+ * los @BeforeEach). Lo verifica {@link ContadorSentenciasExtension}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface MaxSentencias {
+
+    int value();
+}
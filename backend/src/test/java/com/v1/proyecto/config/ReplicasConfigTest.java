@@ -0,0 +1,131 @@
+package com.v1.proyecto.config;
+
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.service.CohorteIndex;
+import com.v1.proyecto.encuesta.service.EncuestaDefinitionCache;
+import com.v1.proyecto.encuesta.service.MatrizRespuestas;
+import com.v1.proyecto.encuesta.service.MatrizRespuestasCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** La aplicación completa con una segunda base H2 como réplica, a través de JPA. */
+@SpringBootTest(properties = {
+        "app.replicas.habilitado=true",
+        "app.replicas.nodos[0].url=" + ReplicasConfigTest.URL_REPLICA,
+        "app.replicas.consulta-retraso=SELECT retraso AS Seconds_Behind_Source FROM estado_replica",
+        "app.replicas.intervalo-verificacion=1h"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicasConfigTest {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:replica-config;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private EnrutamientoDataSource enrutamiento;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+    @Autowired
+    private EncuestaRepository encuestaRepository;
+    @Autowired
+    private CohorteIndex cohorteIndex;
+    @Autowired
+    private MatrizRespuestasCache matrizRespuestasCache;
+    @Autowired
+    private Environment environment;
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+
+    @BeforeAll
+    void prepararBases() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+        replica.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        replica.execute("CREATE TABLE estado_replica (retraso INT)");
+        replica.update("INSERT INTO origen VALUES ('replica')");
+        replica.update("INSERT INTO estado_replica VALUES (0)");
+        // Sin transacción la conexión sale del primario
+        JdbcTemplate primario = new JdbcTemplate(dataSource);
+        primario.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        primario.update("INSERT INTO origen VALUES ('primario')");
+        enrutamiento.verificarReplicas();
+
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    @Test
+    void dataSource_EsElProxyPerezosoSobreElEnrutador() {
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+    }
+
+    @Test
+    void transaccionesJpa_ReadOnlyVanALaReplica() {
+        assertEquals("replica", lectura.execute(status -> origen(entityManager)));
+        assertEquals("primario", escritura.execute(status -> origen(entityManager)));
+    }
+
+    @Test
+    void transaccionesJpa_MarcadasLeenDelPrimario() {
+        assertEquals("primario", lectura.execute(status -> {
+            EnrutamientoDataSource.leerDelPrimario();
+            return origen(entityManager);
+        }));
+        assertEquals("replica", lectura.execute(status -> origen(entityManager)));
+    }
+
+    // La réplica no tiene el esquema de la aplicación (como una réplica que aún no recibe los
+    // cambios): la carga de la caché solo funciona si va al primario
+    @Test
+    void cargaDeCache_NoLeeDeLaReplica() {
+        assertNotNull(lectura.execute(status -> encuestaDefinitionCache.get(-1)));
+    }
+
+    // La sesión retendría la conexión de la réplica toda la petición
+    @Test
+    void openInView_QuedaDesactivado() {
+        assertFalse(environment.getProperty("spring.jpa.open-in-view", Boolean.class, true));
+        assertTrue(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class).isEmpty());
+    }
+
+    // Declaran READ_COMMITTED: con la conexión liberada tras cada transacción Spring rechazaba el aislamiento
+    @Test
+    void cohorteYMatriz_FuncionanConReplicas() {
+        Integer idEncuesta = escritura.execute(status -> encuestaRepository.save(
+                Encuesta.builder().titulo("Réplicas").version("1").build()).getIdEncuesta());
+
+        assertEquals(0, cohorteIndex.evaluar(idEncuesta, null, CohorteIndex.Cohorte::contar));
+        assertEquals(0, matrizRespuestasCache.leer(idEncuesta, MatrizRespuestas::filas));
+    }
+
+    private static String origen(EntityManager em) {
+        return (String) em.createNativeQuery("SELECT nombre FROM origen").getSingleResult();
+    }
+}
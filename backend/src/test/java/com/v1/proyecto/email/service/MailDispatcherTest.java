@@ -0,0 +1,173 @@
+package com.v1.proyecto.email.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.v1.proyecto.email.config.MailOutboxProperties;
+import com.v1.proyecto.email.model.OutboxEmail;
+import com.v1.proyecto.email.repository.OutboxEmailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailDispatcherTest {
+
+    private static final String TOKEN = "toma-1";
+
+    // Servidor SMTP en proceso: los correos se reciben de verdad, sin salir de la JVM
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private OutboxEmailRepository repository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MailOutboxProperties properties;
+    private JavaMailSenderImpl mailSender;
+    private SimpleMeterRegistry meterRegistry;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MailOutboxProperties();
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofSeconds(10));
+        properties.setMaxBackoff(Duration.ofSeconds(30));
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new MailDispatcher(repository, mailSender, properties, transactionManager,
+                meterRegistry, "noreply@proyecto.test");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.destroy();
+    }
+
+    @Test
+    void sendBatch_ShouldDeliverAllMessagesAndMarkThemSent() throws Exception {
+        List<OutboxEmail> batch = List.of(email(1L, "a@example.com"), email(2L, "b@example.com"));
+        when(repository.renewClaims(eq(List.of(1L, 2L)), eq(TOKEN), any())).thenReturn(2);
+
+        dispatcher.sendBatch(batch);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Asunto", received[0].getSubject());
+        verify(repository).markSent(eq(List.of(1L, 2L)), eq(TOKEN), any(LocalDateTime.class));
+        verify(repository, never()).reschedule(any(), any(), any(), anyInt(), any(), any());
+        assertEquals(2.0, meterRegistry.get("mail.outbox.messages").tag("result", "sent").counter().count());
+        assertEquals(1L, meterRegistry.get("mail.outbox.send").timer().count());
+    }
+
+    @Test
+    void sendBatch_ShouldSkipMessages_WhenAnotherWorkerTookTheClaim() {
+        List<OutboxEmail> batch = List.of(email(1L, "a@example.com"), email(2L, "b@example.com"));
+        when(repository.renewClaims(eq(List.of(1L, 2L)), eq(TOKEN), any())).thenReturn(1);
+        when(repository.findClaimedIds(List.of(1L, 2L), TOKEN)).thenReturn(List.of(2L));
+
+        dispatcher.sendBatch(batch);
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        verify(repository).markSent(eq(List.of(2L)), eq(TOKEN), any(LocalDateTime.class));
+    }
+
+    @Test
+    void sendBatch_ShouldSendNothing_WhenClaimWasLost() {
+        when(repository.renewClaims(eq(List.of(1L)), eq(TOKEN), any())).thenReturn(0);
+        when(repository.findClaimedIds(List.of(1L), TOKEN)).thenReturn(List.of());
+
+        dispatcher.sendBatch(List.of(email(1L, "a@example.com")));
+
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        verify(repository, never()).markSent(any(), any(), any());
+    }
+
+    @Test
+    void sendBatch_ShouldRescheduleWithBackoff_WhenSmtpIsDown() {
+        mailSender.setPort(1); // nadie escucha aquí
+        OutboxEmail email = email(1L, "a@example.com");
+        email.setAttempts(1);
+        when(repository.renewClaims(eq(List.of(1L)), eq(TOKEN), any())).thenReturn(1);
+
+        dispatcher.sendBatch(List.of(email));
+
+        assertEquals(OutboxEmail.Status.PENDING, email.getStatus());
+        assertEquals(2, email.getAttempts());
+        assertNotNull(email.getLastError());
+        assertTrue(email.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(15)));
+        verify(repository).reschedule(1L, TOKEN, OutboxEmail.Status.PENDING, 2,
+                email.getLastError(), email.getNextAttemptAt());
+    }
+
+    @Test
+    void sendBatch_ShouldGiveUp_WhenMaxAttemptsReached() {
+        mailSender.setPort(1);
+        OutboxEmail email = email(1L, "a@example.com");
+        email.setAttempts(2);
+        when(repository.renewClaims(eq(List.of(1L)), eq(TOKEN), any())).thenReturn(1);
+
+        dispatcher.sendBatch(List.of(email));
+
+        assertEquals(OutboxEmail.Status.FAILED, email.getStatus());
+        assertEquals(1.0, meterRegistry.get("mail.outbox.messages").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void purgeFinished_ShouldDeleteMessagesOlderThanRetention() {
+        properties.setRetention(Duration.ofHours(24));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(repository.deleteFinishedBefore(any())).thenReturn(3);
+
+        dispatcher.purgeFinished();
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).deleteFinishedBefore(before.capture());
+        LocalDateTime expected = LocalDateTime.now().minusHours(24);
+        assertTrue(Duration.between(before.getValue(), expected).abs().getSeconds() < 5);
+    }
+
+    @Test
+    void backoff_ShouldDoubleUpToMax() {
+        assertEquals(Duration.ofSeconds(10), dispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(20), dispatcher.backoff(2));
+        assertEquals(Duration.ofSeconds(30), dispatcher.backoff(3));
+        assertEquals(Duration.ofSeconds(30), dispatcher.backoff(10));
+    }
+
+    private OutboxEmail email(Long id, String to) {
+        return OutboxEmail.builder()
+                .id(id)
+                .recipient(to)
+                .subject("Asunto")
+                .body("Cuerpo")
+                .status(OutboxEmail.Status.SENDING)
+                .claimToken(TOKEN)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -2,8 +2,14 @@ package com.v1.proyecto.encuesta.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.v1.proyecto.encuesta.dto.*;
+import com.v1.proyecto.encuesta.service.BorradorAutosaveBuffer;
+import com.v1.proyecto.encuesta.service.CohorteService;
+import com.v1.proyecto.encuesta.service.EncuestaDefinicionService;
 import com.v1.proyecto.encuesta.service.EncuestaService;
+import com.v1.proyecto.encuesta.service.EstadisticaService;
 import com.v1.proyecto.encuesta.service.ExportService;
+import com.v1.proyecto.encuesta.service.FrecuenciaRespuestaService;
+import com.v1.proyecto.encuesta.service.MatrizRespuestasService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,11 +21,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +38,18 @@ class EncuestaControllerTest {
         private EncuestaService encuestaService;
         @Mock
         private ExportService exportService;
+        @Mock
+        private BorradorAutosaveBuffer borradorAutosaveBuffer;
+        @Mock
+        private EncuestaDefinicionService encuestaDefinicionService;
+        @Mock
+        private FrecuenciaRespuestaService frecuenciaRespuestaService;
+        @Mock
+        private EstadisticaService estadisticaService;
+        @Mock
+        private MatrizRespuestasService matrizRespuestasService;
+        @Mock
+        private CohorteService cohorteService;
 
         @InjectMocks
         private EncuestaController encuestaController;
@@ -42,6 +63,18 @@ class EncuestaControllerTest {
                 objectMapper = new ObjectMapper();
         }
 
+        @Test
+        void getAllEncuestas_ShouldPassIncluirAnteriores() throws Exception {
+                when(encuestaService.getAllEncuestas(true)).thenReturn(java.util.List.of(
+                                EncuestaResponseDto.builder().idEncuesta(1).vigente(false).build(),
+                                EncuestaResponseDto.builder().idEncuesta(2).vigente(true).idEncuestaAnterior(1).build()));
+
+                mockMvc.perform(get("/api/v1/encuestas").param("incluirAnteriores", "true"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].vigente").value(false))
+                                .andExpect(jsonPath("$[1].idEncuestaAnterior").value(1));
+        }
+
         @Test
         void createEncuesta_ShouldReturnCreated() throws Exception {
                 EncuestaCreateDto dto = new EncuestaCreateDto();
@@ -99,6 +132,104 @@ class EncuestaControllerTest {
                                 .andExpect(status().isOk());
         }
 
+        @Test
+        void updateDefinicion_ShouldReturnConflict_WhenRevisionIsStale() throws Exception {
+                EncuestaCreateDto dto = new EncuestaCreateDto();
+                dto.setTitulo("Survey");
+                dto.setRevision(3);
+
+                when(encuestaDefinicionService.updateDefinicion(eq(1), any(EncuestaCreateDto.class)))
+                                .thenThrow(new IllegalStateException("La encuesta fue modificada"));
+
+                mockMvc.perform(put("/api/v1/encuestas/1/definicion")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(dto)))
+                                .andExpect(status().isConflict());
+        }
+
+        @Test
+        void updatePregunta_ShouldReturnConflict_WhenVersionWasReplaced() throws Exception {
+                PreguntaCreateDto dto = new PreguntaCreateDto();
+                dto.setTextoPregunta("Edad");
+                dto.setTipoPregunta("NUMERO");
+
+                when(encuestaService.updatePregunta(eq(5), any(PreguntaCreateDto.class)))
+                                .thenThrow(new IllegalStateException("La versión 1 fue reemplazada"));
+
+                mockMvc.perform(put("/api/v1/encuestas/preguntas/5")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(dto)))
+                                .andExpect(status().isConflict());
+        }
+
+        @Test
+        void deletePregunta_ShouldReturnNewVersion_WhenDeletionCopiedTheSurvey() throws Exception {
+                when(encuestaService.deletePregunta(5)).thenReturn(8);
+
+                mockMvc.perform(delete("/api/v1/encuestas/preguntas/5"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.idEncuesta").value(8));
+        }
+
+        @Test
+        void publicarEncuesta_ShouldReturnNotFound_WhenMissing() throws Exception {
+                when(encuestaService.publicarEncuesta(99)).thenThrow(new RuntimeException("Encuesta no encontrada"));
+
+                mockMvc.perform(post("/api/v1/encuestas/99/publicar"))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void getFrecuencias_ShouldReturnNotFound_WhenMissing() throws Exception {
+                when(frecuenciaRespuestaService.getFrecuencias(99)).thenThrow(new RuntimeException("Encuesta no encontrada"));
+
+                mockMvc.perform(get("/api/v1/encuestas/99/frecuencias"))
+                                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void getAsociacion_ShouldReturnBadRequest_WhenQuestionIsNotCoded() throws Exception {
+                when(estadisticaService.getAsociacion(1, 2, null))
+                                .thenThrow(new IllegalArgumentException("No es de selección única"));
+
+                mockMvc.perform(get("/api/v1/encuestas/1/preguntas/2/asociacion"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void getFrecuenciasFiltradas_ShouldReturnBadRequest_WhenConditionIsInvalid() throws Exception {
+                when(matrizRespuestasService.getFrecuencias(1, 2, null, java.util.List.of("3-12")))
+                                .thenThrow(new IllegalArgumentException("Condición inválida"));
+
+                mockMvc.perform(get("/api/v1/encuestas/1/matriz/preguntas/2/frecuencias").param("condicion", "3-12"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void contarCohorte_ShouldReturnBadRequest_WhenFilterIsInvalid() throws Exception {
+                when(cohorteService.contar(eq(1), any(CohorteFiltroDto.class)))
+                                .thenThrow(new IllegalArgumentException("Atributo de cohorte no soportado"));
+
+                mockMvc.perform(post("/api/v1/encuestas/1/cohortes/conteo")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"atributo\": \"rut\", \"valor\": \"1-9\"}"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void contarCohorte_ShouldReturnCounts() throws Exception {
+                when(cohorteService.contar(eq(1), any(CohorteFiltroDto.class)))
+                                .thenReturn(CohorteResultadoDto.builder().registros(12).casos(7).controles(5).build());
+
+                mockMvc.perform(post("/api/v1/encuestas/1/cohortes/conteo")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"todos\": [{\"atributo\": \"grupo\", \"valor\": \"CASO\"}, "
+                                                + "{\"idPregunta\": 3, \"idOpcion\": 12}]}"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.registros").value(12))
+                                .andExpect(jsonPath("$.casos").value(7));
+        }
+
         @Test
         void exportarExcel_ShouldReturnOk() throws Exception {
                 when(exportService.generateExcel(eq(1), eq(null), any()))
@@ -125,4 +256,38 @@ class EncuestaControllerTest {
                 mockMvc.perform(get("/api/v1/encuestas/1/export/csv"))
                                 .andExpect(status().isOk());
         }
+
+        @Test
+        void getRegistrosByEncuesta_ShouldReturnPage_WhenFiltered() throws Exception {
+                RegistroFiltroDto filtro = RegistroFiltroDto.builder()
+                                .estado("COMPLETADO")
+                                .desde(LocalDate.of(2025, 1, 1))
+                                .build();
+                RegistroPageResponseDto page = RegistroPageResponseDto.builder()
+                                .items(List.of(RegistroCompletoResponseDto.builder().idRegistro(7).build()))
+                                .nextCursor(7)
+                                .hasMore(true)
+                                .build();
+                when(encuestaService.getRegistrosByEncuestaPage(1, filtro, 3, 10, false)).thenReturn(page);
+
+                mockMvc.perform(get("/api/v1/encuestas/1/registros")
+                                .param("estado", "COMPLETADO")
+                                .param("desde", "2025-01-01")
+                                .param("cursor", "3")
+                                .param("limit", "10")
+                                .param("fields", "resumen"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items[0].idRegistro").value(7))
+                                .andExpect(jsonPath("$.nextCursor").value(7));
+        }
+
+        @Test
+        void getRegistrosByEncuesta_ShouldReturnFullList_WithoutParams() throws Exception {
+                when(encuestaService.getRegistrosByEncuesta(1))
+                                .thenReturn(List.of(RegistroCompletoResponseDto.builder().idRegistro(1).build()));
+
+                mockMvc.perform(get("/api/v1/encuestas/1/registros"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].idRegistro").value(1));
+        }
 }
@@ -0,0 +1,117 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.encuesta.dto.RespuestaRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BorradorAutosaveBufferTest {
+
+    @Mock
+    private BorradorService borradorService;
+
+    private BorradorAutosaveBuffer buffer;
+    private Users user;
+
+    @BeforeEach
+    void setUp() {
+        // quiet 0 ms: cualquier flush programado escribe lo pendiente
+        buffer = new BorradorAutosaveBuffer(borradorService, 0, 10_000, 1000);
+        user = Users.builder().id(1).build();
+    }
+
+    @Test
+    void patch_AgrupaVariosAutoguardadosEnUnaEscritura() {
+        buffer.patch(5, user, List.of(texto(1, "a")));
+        buffer.patch(5, user, List.of(texto(1, "ab"), texto(2, "x")));
+        buffer.patch(5, user, List.of(texto(1, "abc")));
+
+        buffer.flushListos();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Integer, List<RespuestaRequestDto>>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(borradorService, times(1)).aplicarCambios(eq(5), captor.capture());
+        verify(borradorService, times(1)).verificarBorrador(5, user);
+        assertEquals("abc", captor.getValue().get(1).get(0).getValorTexto());
+        assertEquals("x", captor.getValue().get(2).get(0).getValorTexto());
+        assertEquals(0, buffer.pendientes());
+    }
+
+    @Test
+    void finalizar_IncluyeLosCambiosPendientes() {
+        buffer.patch(5, user, List.of(texto(1, "a")));
+
+        buffer.finalizar(5, user);
+
+        verify(borradorService).finalizar(eq(5), eq(user), argThat(m -> m.containsKey(1)));
+        verify(borradorService, never()).aplicarCambios(anyInt(), anyMap());
+        assertEquals(0, buffer.pendientes());
+    }
+
+    @Test
+    void patch_InformaErrorDelFlushAnterior() {
+        doThrow(new IllegalStateException("ya no es un borrador"))
+                .when(borradorService).aplicarCambios(eq(5), anyMap());
+        buffer.patch(5, user, List.of(texto(1, "a")));
+        buffer.flush(5);
+
+        assertThrows(IllegalArgumentException.class, () -> buffer.patch(5, user, List.of(texto(1, "b"))));
+    }
+
+    @Test
+    void patch_SinVerificarNoEncola() {
+        doThrow(new RuntimeException("Registro no encontrado")).when(borradorService).verificarBorrador(9, user);
+
+        assertThrows(RuntimeException.class, () -> buffer.patch(9, user, List.of(texto(1, "a"))));
+        assertEquals(0, buffer.pendientes());
+    }
+
+    @Test
+    void patch_VerificaAOtroUsuarioAunqueHayaCambiosPendientes() {
+        Users otro = Users.builder().id(2).build();
+        buffer.patch(5, user, List.of(texto(1, "a")));
+        doThrow(new AccessDeniedException("El borrador pertenece a otro usuario."))
+                .when(borradorService).verificarBorrador(5, otro);
+
+        assertThrows(AccessDeniedException.class, () -> buffer.patch(5, otro, List.of(texto(1, "pisado"))));
+
+        buffer.flush(5);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Integer, List<RespuestaRequestDto>>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(borradorService).aplicarCambios(eq(5), captor.capture());
+        assertEquals("a", captor.getValue().get(1).get(0).getValorTexto());
+    }
+
+    @Test
+    void patch_RechazaCambiosInvalidosAntesDeEncolar() {
+        when(borradorService.verificarBorrador(5, user)).thenReturn(1);
+        doThrow(new IllegalArgumentException("La pregunta 99 no pertenece a la encuesta."))
+                .when(borradorService).validarCambios(eq(1), argThat(m -> m.containsKey(99)));
+
+        assertThrows(IllegalArgumentException.class, () -> buffer.patch(5, user, List.of(texto(99, "x"))));
+        assertEquals(0, buffer.pendientes());
+
+        // Los siguientes PATCH del mismo usuario validan contra la encuesta guardada, sin volver a verificar
+        buffer.patch(5, user, List.of(texto(1, "a")));
+        buffer.patch(5, user, List.of(texto(2, "b")));
+        verify(borradorService, times(2)).verificarBorrador(5, user);
+        verify(borradorService, times(3)).validarCambios(eq(1), anyMap());
+    }
+
+    private static RespuestaRequestDto texto(int idPregunta, String valor) {
+        return RespuestaRequestDto.builder().idPregunta(idPregunta).valorTexto(valor).build();
+    }
+}
@@ -0,0 +1,255 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.auth.model.Users;
+import com.v1.proyecto.encuesta.dto.RegistroResponseDto;
+import com.v1.proyecto.encuesta.dto.RespuestaRequestDto;
+import com.v1.proyecto.encuesta.model.*;
+import com.v1.proyecto.encuesta.repository.OpcionRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import com.v1.proyecto.encuesta.repository.RespuestaRepository;
+import com.v1.proyecto.encuesta.repository.RespuestaSeleccion;
+import com.v1.proyecto.paciente.model.Paciente;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BorradorServiceTest {
+
+    @Mock
+    private RegistroEncuestaRepository registroEncuestaRepository;
+    @Mock
+    private RespuestaRepository respuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private OpcionRespuestaRepository opcionRespuestaRepository;
+    @Mock
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+    @Mock
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+    @Mock
+    private MatrizRespuestasCache matrizRespuestasCache;
+    @Mock
+    private CohorteIndex cohorteIndex;
+
+    @InjectMocks
+    private BorradorService borradorService;
+
+    private Users user;
+    private Encuesta encuesta;
+    private RegistroEncuesta registro;
+    private Pregunta multiple;
+    private OpcionRespuesta opcionA;
+    private OpcionRespuesta opcionB;
+    private OpcionRespuesta opcionC;
+
+    @BeforeEach
+    void setUp() {
+        user = Users.builder().id(1).role(Role.USER).build();
+        encuesta = Encuesta.builder().idEncuesta(1).preguntas(new ArrayList<>()).build();
+        multiple = Pregunta.builder().idPregunta(10).tipoPregunta("SELECCION_MULTIPLE")
+                .obligatoria(true).encuesta(encuesta).opciones(new ArrayList<>()).build();
+        encuesta.getPreguntas().add(multiple);
+        opcionA = OpcionRespuesta.builder().idOpcion(100).pregunta(multiple).build();
+        opcionB = OpcionRespuesta.builder().idOpcion(101).pregunta(multiple).build();
+        opcionC = OpcionRespuesta.builder().idOpcion(102).pregunta(multiple).build();
+        registro = RegistroEncuesta.builder()
+                .idRegistro(5)
+                .estado("BORRADOR")
+                .encuesta(encuesta)
+                .usuario(user)
+                .paciente(Paciente.builder().idPaciente(3).build())
+                .build();
+    }
+
+    @Test
+    void aplicarCambios_ReutilizaFilasYBorraLasSobrantes() {
+        // Guardadas: A y B. Nuevo estado: A y C -> A se conserva, B se reutiliza para C
+        Respuesta filaA = Respuesta.builder().idRespuesta(1).registroEncuesta(registro)
+                .pregunta(multiple).opcionSeleccionada(opcionA).build();
+        Respuesta filaB = Respuesta.builder().idRespuesta(2).registroEncuesta(registro)
+                .pregunta(multiple).opcionSeleccionada(opcionB).build();
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+        when(preguntaRepository.getReferenceById(10)).thenReturn(multiple);
+        when(opcionRespuestaRepository.findAllById(anyCollection())).thenReturn(List.of(opcionA, opcionC));
+        when(respuestaRepository.findByRegistroEncuestaIdRegistroAndPreguntaIdPreguntaIn(eq(5), anyCollection()))
+                .thenReturn(List.of(filaA, filaB));
+
+        int escrituras = borradorService.aplicarCambios(5, Map.of(10, List.of(
+                RespuestaRequestDto.builder().idPregunta(10).idOpcionSeleccionada(100).build(),
+                RespuestaRequestDto.builder().idPregunta(10).idOpcionSeleccionada(102).build())));
+
+        assertEquals(1, escrituras);
+        assertSame(opcionC, filaB.getOpcionSeleccionada());
+        assertSame(opcionA, filaA.getOpcionSeleccionada());
+        verify(respuestaRepository, never()).saveAll(any());
+        verify(respuestaRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void aplicarCambios_EntradaVaciaBorraLaRespuesta() {
+        Respuesta filaA = Respuesta.builder().idRespuesta(1).registroEncuesta(registro)
+                .pregunta(multiple).opcionSeleccionada(opcionA).build();
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+        when(preguntaRepository.getReferenceById(10)).thenReturn(multiple);
+        when(opcionRespuestaRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(respuestaRepository.findByRegistroEncuestaIdRegistroAndPreguntaIdPreguntaIn(eq(5), anyCollection()))
+                .thenReturn(List.of(filaA));
+
+        int escrituras = borradorService.aplicarCambios(5, Map.of(10, List.of(
+                RespuestaRequestDto.builder().idPregunta(10).build())));
+
+        assertEquals(1, escrituras);
+        verify(respuestaRepository).deleteAll(List.of(filaA));
+    }
+
+    @Test
+    void aplicarCambios_InsertaSeleccionMultipleNueva() {
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+        when(preguntaRepository.getReferenceById(10)).thenReturn(multiple);
+        when(opcionRespuestaRepository.findAllById(anyCollection())).thenReturn(List.of(opcionA, opcionB));
+        when(respuestaRepository.findByRegistroEncuestaIdRegistroAndPreguntaIdPreguntaIn(eq(5), anyCollection()))
+                .thenReturn(List.of());
+
+        borradorService.aplicarCambios(5, Map.of(10, List.of(
+                RespuestaRequestDto.builder().idPregunta(10).idOpcionSeleccionada(100).build(),
+                RespuestaRequestDto.builder().idPregunta(10).idOpcionSeleccionada(101).build())));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Respuesta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(respuestaRepository).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+    }
+
+    @Test
+    void aplicarCambios_RechazaOpcionDeOtraPregunta() {
+        Pregunta otra = Pregunta.builder().idPregunta(11).encuesta(encuesta).build();
+        OpcionRespuesta ajena = OpcionRespuesta.builder().idOpcion(200).pregunta(otra).build();
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+        when(opcionRespuestaRepository.findAllById(anyCollection())).thenReturn(List.of(ajena));
+
+        assertThrows(IllegalArgumentException.class, () -> borradorService.aplicarCambios(5, Map.of(10, List.of(
+                RespuestaRequestDto.builder().idPregunta(10).idOpcionSeleccionada(200).build()))));
+        verifyNoInteractions(respuestaRepository);
+    }
+
+    @Test
+    void validarCambios_RechazaOpcionInexistenteSinCargarElRegistro() {
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+        when(opcionRespuestaRepository.findAllById(anyCollection())).thenReturn(List.of(opcionA));
+
+        assertThrows(IllegalArgumentException.class, () -> borradorService.validarCambios(1, Map.of(10, List.of(
+                RespuestaRequestDto.builder().idPregunta(10).idOpcionSeleccionada(100).build(),
+                RespuestaRequestDto.builder().idPregunta(10).idOpcionSeleccionada(999).build()))));
+        verifyNoInteractions(registroEncuestaRepository, respuestaRepository);
+    }
+
+    @Test
+    void aplicarCambios_RechazaPreguntaDeOtraEncuesta() {
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+
+        assertThrows(IllegalArgumentException.class, () -> borradorService.aplicarCambios(5, Map.of(99, List.of(
+                RespuestaRequestDto.builder().idPregunta(99).valorTexto("x").build()))));
+        verifyNoInteractions(respuestaRepository);
+    }
+
+    @Test
+    void finalizar_CompletaElMismoRegistro() {
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+        when(respuestaRepository.findSeleccionesByRegistro(5)).thenReturn(List.of(seleccion(1, 10, 100)));
+        when(registroEncuestaRepository.save(registro)).thenReturn(registro);
+
+        RegistroResponseDto result = borradorService.finalizar(5, user, Map.of());
+
+        assertEquals(5, result.getIdRegistro());
+        assertEquals("COMPLETADO", registro.getEstado());
+        assertNotNull(registro.getFechaRealizacion());
+    }
+
+    @Test
+    void finalizar_FaltaObligatoria() {
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(grafo());
+        when(respuestaRepository.findSeleccionesByRegistro(5)).thenReturn(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> borradorService.finalizar(5, user, Map.of()));
+        assertEquals("BORRADOR", registro.getEstado());
+        verify(registroEncuestaRepository, never()).save(any());
+    }
+
+    @Test
+    void finalizar_DescartaRespuestasDePreguntasSaltadas() {
+        // 1 (opción 7 salta a 10): la respuesta guardada de 2 queda fuera del recorrido
+        SkipLogicGraph conSalto = SkipLogicGraphTest.grafo(
+                List.of(SkipLogicGraphTest.nodo(1, "SELECCION_UNICA", false, false),
+                        SkipLogicGraphTest.nodo(2, "TEXTO", true, false),
+                        SkipLogicGraphTest.nodo(10, "SELECCION_MULTIPLE", true, false)),
+                List.of(SkipLogicGraphTest.arista(1, 7, 10)));
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+        when(encuestaDefinitionCache.get(1)).thenReturn(conSalto);
+        when(respuestaRepository.findSeleccionesByRegistro(5)).thenReturn(List.of(
+                seleccion(1, 1, 7), seleccion(2, 2, null), seleccion(3, 10, 100)));
+        when(registroEncuestaRepository.save(registro)).thenReturn(registro);
+
+        borradorService.finalizar(5, user, Map.of());
+
+        verify(respuestaRepository).deleteAllByIdInBatch(List.of(2));
+        assertEquals("COMPLETADO", registro.getEstado());
+        // Solo cuentan las respuestas que quedaron dentro del recorrido
+        verify(frecuenciaRespuestaService).ajustar(1, null, List.of(
+                new FrecuenciaRespuestaService.Marca(1, 7), new FrecuenciaRespuestaService.Marca(10, 100)), 1);
+        verify(matrizRespuestasCache).registroCambiado(1, 5);
+        verify(cohorteIndex).registroCambiado(1, 5);
+    }
+
+    @Test
+    void verificarBorrador_OtroUsuario() {
+        Users otro = Users.builder().id(2).role(Role.USER).build();
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+
+        assertThrows(AccessDeniedException.class, () -> borradorService.verificarBorrador(5, otro));
+    }
+
+    @Test
+    void verificarBorrador_YaCompletado() {
+        registro.setEstado("COMPLETADO");
+        when(registroEncuestaRepository.findById(5)).thenReturn(Optional.of(registro));
+
+        assertThrows(IllegalStateException.class, () -> borradorService.verificarBorrador(5, user));
+    }
+
+    private static SkipLogicGraph grafo() {
+        return SkipLogicGraphTest.grafo(
+                List.of(SkipLogicGraphTest.nodo(10, "SELECCION_MULTIPLE", true, false)), List.of());
+    }
+
+    private static RespuestaSeleccion seleccion(Integer idRespuesta, Integer idPregunta, Integer idOpcion) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idRespuesta", idRespuesta);
+        fila.put("idPregunta", idPregunta);
+        fila.put("idOpcion", idOpcion);
+        return new SpelAwareProxyProjectionFactory().createProjection(RespuestaSeleccion.class, fila);
+    }
+}
@@ -0,0 +1,165 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.CohorteFiltroDto;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.AtributosRegistro;
+import com.v1.proyecto.encuesta.repository.CeldaMatriz;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CohorteIndexTest {
+
+    @Mock
+    private RegistroEncuestaRepository registroEncuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+    @Mock
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+
+    @InjectMocks
+    private CohorteIndex cohorteIndex;
+
+    @BeforeEach
+    void setUp() {
+        Pregunta fuma = MatrizRespuestasTest.pregunta(1, "¿Fuma?", "SELECCION_UNICA");
+        MatrizRespuestasTest.opcion(fuma, 10, "No");
+        MatrizRespuestasTest.opcion(fuma, 11, "Sí, actualmente");
+        Pregunta agua = MatrizRespuestasTest.pregunta(2, "Fuente de agua", "SELECCION_MULTIPLE");
+        MatrizRespuestasTest.opcion(agua, 20, "Red pública");
+        MatrizRespuestasTest.opcion(agua, 21, "Pozo");
+        lenient().when(preguntaRepository.findConOpcionesByEncuesta(1)).thenReturn(List.of(fuma, agua));
+        lenient().when(encuestaDefinitionCache.get(1)).thenReturn(SkipLogicGraphTest.grafo(List.of(), List.of()));
+        lenient().when(registroEncuestaRepository.streamCeldasByEncuesta(1)).thenAnswer(inv -> Stream.of(
+                celda(1, 1, 11), celda(1, 2, 21),
+                celda(2, 1, 11), celda(2, 2, 20),
+                celda(3, 1, 10), celda(3, 2, 21),
+                celda(4, 1, 11), celda(4, 2, 20), celda(4, 2, 21),
+                celda(5, null, null)));
+        lenient().when(registroEncuestaRepository.streamAtributosByEncuesta(1)).thenAnswer(inv -> Stream.of(
+                atributos(1, 100, "CASO", "Mujer", "Rural", "Los Ángeles"),
+                atributos(2, 101, "Control", "Hombre", "Urbana", "Concepción"),
+                atributos(3, 102, "CASO", "Hombre", "Rural", "Los Angeles"),
+                atributos(4, 100, "Caso (Cáncer)", "Mujer", "Rural", "Los Ángeles"),
+                atributos(5, 103, null, null, null, null)));
+    }
+
+    @Test
+    void evaluar_CombinaOpcionesYAtributos() {
+        // Casos, fumador actual y agua de pozo
+        CohorteFiltroDto filtro = todos(atributo("grupo", "caso"), opcion(1, 11), opcion(2, 21));
+
+        assertEquals(2, cohorteIndex.<Integer>evaluar(1, filtro, CohorteIndex.Cohorte::contar));
+        assertEquals(1, cohorteIndex.<Integer>evaluar(1, filtro, CohorteIndex.Cohorte::contarPacientes));
+        assertEquals(2, cohorteIndex.<Integer>evaluar(1, filtro, c -> c.contarGrupo("CASO")));
+
+        // Tildes y mayúsculas no importan en los atributos
+        assertEquals(3, cohorteIndex.<Integer>evaluar(1, atributo("comuna", "los angeles"), CohorteIndex.Cohorte::contar));
+        // Sin filtro: todos los completados, también los que no tienen respuestas
+        assertEquals(5, cohorteIndex.<Integer>evaluar(1, null, CohorteIndex.Cohorte::contar));
+        verify(registroEncuestaRepository, times(1)).streamCeldasByEncuesta(1);
+    }
+
+    @Test
+    void evaluar_UnionYComplemento() {
+        CohorteFiltroDto noFumaOAguaRed = CohorteFiltroDto.builder()
+                .alguno(List.of(opcion(1, 10), opcion(2, 20))).build();
+        CohorteFiltroDto resto = CohorteFiltroDto.builder().no(noFumaOAguaRed).build();
+
+        assertEquals(3, cohorteIndex.<Integer>evaluar(1, noFumaOAguaRed, CohorteIndex.Cohorte::contar));
+        assertEquals(List.of(1, 5), cohorteIndex.evaluar(1, resto, c -> c.registros().stream().boxed().toList()));
+    }
+
+    @Test
+    void evaluar_RechazaNodosInvalidos() {
+        CohorteFiltroDto dosFormas = CohorteFiltroDto.builder().idOpcion(10).atributo("sexo").valor("Mujer").build();
+
+        assertThrows(IllegalArgumentException.class, () -> cohorteIndex.evaluar(1, dosFormas, CohorteIndex.Cohorte::contar));
+        assertThrows(IllegalArgumentException.class,
+                () -> cohorteIndex.evaluar(1, opcion(1, 20), CohorteIndex.Cohorte::contar));
+        assertThrows(IllegalArgumentException.class,
+                () -> cohorteIndex.evaluar(1, atributo("rut", "1-9"), CohorteIndex.Cohorte::contar));
+    }
+
+    @Test
+    void registroCambiado_SeAplicaEnLaSiguienteLectura() {
+        cohorteIndex.evaluar(1, null, CohorteIndex.Cohorte::contar);
+
+        // El 2 pasa a fumar con agua de pozo y el 5 deja de estar completado
+        cohorteIndex.registroCambiado(1, 2);
+        cohorteIndex.registroCambiado(1, 5);
+        when(registroEncuestaRepository.findCeldasByRegistroIds(anyCollection()))
+                .thenReturn(List.of(celda(2, 1, 11), celda(2, 2, 21)));
+        when(registroEncuestaRepository.findAtributosByRegistroIds(anyCollection()))
+                .thenReturn(List.of(atributos(2, 101, "Control", "Hombre", "Urbana", "Concepción")));
+
+        CohorteFiltroDto pozo = opcion(2, 21);
+        assertEquals(4, cohorteIndex.<Integer>evaluar(1, pozo, CohorteIndex.Cohorte::contar));
+        assertEquals(4, cohorteIndex.<Integer>evaluar(1, null, CohorteIndex.Cohorte::contar));
+        assertEquals(1, cohorteIndex.<Integer>evaluar(1, pozo, c -> c.contarGrupo("CONTROL")));
+        verify(registroEncuestaRepository, times(1)).findCeldasByRegistroIds(anyCollection());
+    }
+
+    @Test
+    void pacientesCambiados_RecargaSoloLosAtributos() {
+        cohorteIndex.evaluar(1, null, CohorteIndex.Cohorte::contar);
+
+        cohorteIndex.pacientesCambiados();
+        cohorteIndex.evaluar(1, atributo("sexo", "mujer"), CohorteIndex.Cohorte::contar);
+
+        verify(registroEncuestaRepository, times(1)).streamCeldasByEncuesta(1);
+        verify(registroEncuestaRepository, times(2)).streamAtributosByEncuesta(1);
+    }
+
+    private static CohorteFiltroDto todos(CohorteFiltroDto... hijos) {
+        return CohorteFiltroDto.builder().todos(List.of(hijos)).build();
+    }
+
+    private static CohorteFiltroDto opcion(int idPregunta, int idOpcion) {
+        return CohorteFiltroDto.builder().idPregunta(idPregunta).idOpcion(idOpcion).build();
+    }
+
+    private static CohorteFiltroDto atributo(String atributo, String valor) {
+        return CohorteFiltroDto.builder().atributo(atributo).valor(valor).build();
+    }
+
+    static CeldaMatriz celda(Integer idRegistro, Integer idPregunta, Integer idOpcion) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idRegistro", idRegistro);
+        fila.put("grupo", null);
+        fila.put("idPregunta", idPregunta);
+        fila.put("idOpcion", idOpcion);
+        fila.put("valorTexto", null);
+        return new SpelAwareProxyProjectionFactory().createProjection(CeldaMatriz.class, fila);
+    }
+
+    static AtributosRegistro atributos(Integer idRegistro, Integer idPaciente, String grupo, String sexo,
+                                       String zona, String comuna) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idRegistro", idRegistro);
+        fila.put("idPaciente", idPaciente);
+        fila.put("grupo", grupo);
+        fila.put("sexo", sexo);
+        fila.put("zona", zona);
+        fila.put("comuna", comuna);
+        return new SpelAwareProxyProjectionFactory().createProjection(AtributosRegistro.class, fila);
+    }
+}
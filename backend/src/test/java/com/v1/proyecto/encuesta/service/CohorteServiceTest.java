@@ -0,0 +1,94 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.auth.model.Role;
+import com.v1.proyecto.encuesta.dto.CohorteFiltroDto;
+import com.v1.proyecto.encuesta.dto.CohorteResultadoDto;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CohorteServiceTest {
+
+    @Mock
+    private EncuestaRepository encuestaRepository;
+    @Mock
+    private RegistroEncuestaRepository registroEncuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+    @Mock
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+    @Mock
+    private ExportService exportService;
+
+    private CohorteService cohorteService;
+
+    // Índice real sobre repositorios simulados: 25 registros, los pares son casos
+    @BeforeEach
+    void setUp() {
+        cohorteService = new CohorteService(encuestaRepository, new CohorteIndex(registroEncuestaRepository,
+                preguntaRepository, encuestaDefinitionCache, frecuenciaRespuestaService), exportService);
+        lenient().when(encuestaRepository.existsById(1)).thenReturn(true);
+        lenient().when(encuestaDefinitionCache.get(1)).thenReturn(SkipLogicGraphTest.grafo(List.of(), List.of()));
+        lenient().when(registroEncuestaRepository.streamCeldasByEncuesta(1)).thenAnswer(inv ->
+                IntStream.rangeClosed(1, 25).mapToObj(id -> CohorteIndexTest.celda(id, null, null)));
+        lenient().when(registroEncuestaRepository.streamAtributosByEncuesta(1)).thenAnswer(inv ->
+                IntStream.rangeClosed(1, 25).mapToObj(id ->
+                        CohorteIndexTest.atributos(id, 1000 + id, id % 2 == 0 ? "CASO" : "CONTROL", null, null, null)));
+    }
+
+    @Test
+    void getRegistros_PaginaPorIdRegistro() {
+        CohorteFiltroDto casos = CohorteFiltroDto.builder().atributo("grupo").valor("CASO").build();
+
+        CohorteResultadoDto primera = cohorteService.getRegistros(1, casos, null, 5);
+        assertEquals(12, primera.getRegistros());
+        assertEquals(12, primera.getCasos());
+        assertEquals(0, primera.getControles());
+        assertEquals(List.of(2, 4, 6, 8, 10), primera.getIdsRegistro());
+        assertEquals(List.of(1002, 1004, 1006, 1008, 1010), primera.getIdsPaciente());
+        assertEquals(10, primera.getNextCursor());
+
+        CohorteResultadoDto ultima = cohorteService.getRegistros(1, casos, 20, 5);
+        assertEquals(List.of(22, 24), ultima.getIdsRegistro());
+        assertNull(ultima.getNextCursor());
+    }
+
+    @Test
+    void exportar_PasaUnaCopiaDeLaCohorte() {
+        CohorteFiltroDto controles = CohorteFiltroDto.builder().atributo("grupo").valor("control").build();
+
+        cohorteService.exportar(1, controles, Role.ANALISTA);
+
+        ArgumentCaptor<RoaringBitmap> registros = ArgumentCaptor.forClass(RoaringBitmap.class);
+        verify(exportService).generateCsvCodificado(eq(1), eq(Role.ANALISTA), registros.capture());
+        assertEquals(13, registros.getValue().getCardinality());
+        assertTrue(registros.getValue().contains(25));
+    }
+
+    @Test
+    void contar_EncuestaInexistente() {
+        when(encuestaRepository.existsById(9)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> cohorteService.contar(9, null));
+        verify(exportService, never()).generateCsvCodificado(any(), any(), any());
+        verifyNoInteractions(registroEncuestaRepository);
+    }
+}
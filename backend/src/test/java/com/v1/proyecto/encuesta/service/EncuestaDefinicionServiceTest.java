@@ -0,0 +1,213 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.EncuestaCreateDto;
+import com.v1.proyecto.encuesta.dto.OpcionRespuestaCreateDto;
+import com.v1.proyecto.encuesta.dto.PreguntaCreateDto;
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.LogicaSalto;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoRepository;
+import com.v1.proyecto.encuesta.repository.OpcionRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EncuestaDefinicionServiceTest {
+
+    @Mock
+    private EncuestaRepository encuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private OpcionRespuestaRepository opcionRespuestaRepository;
+    @Mock
+    private LogicaSaltoRepository logicaSaltoRepository;
+    @Mock
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+    @Mock
+    private EncuestaService encuestaService;
+    @Mock
+    private EncuestaVersionService encuestaVersionService;
+
+    @InjectMocks
+    private EncuestaDefinicionService encuestaDefinicionService;
+
+    private Encuesta encuesta;
+    private Pregunta p1;
+    private Pregunta p2;
+    private OpcionRespuesta si;
+    private OpcionRespuesta no;
+    private LogicaSalto salto;
+
+    @BeforeEach
+    void setUp() {
+        // Guardado: P1 (Sí -> P2, No), P2 texto
+        encuesta = Encuesta.builder().idEncuesta(1).titulo("E").version("1").revision(4).build();
+        p1 = Pregunta.builder().idPregunta(1).textoPregunta("P1").tipoPregunta("SELECCION_UNICA")
+                .encuesta(encuesta).opciones(new ArrayList<>()).build();
+        p2 = Pregunta.builder().idPregunta(2).textoPregunta("P2").tipoPregunta("TEXTO")
+                .encuesta(encuesta).opciones(new ArrayList<>()).build();
+        si = OpcionRespuesta.builder().idOpcion(10).textoOpcion("Sí").pregunta(p1).build();
+        no = OpcionRespuesta.builder().idOpcion(11).textoOpcion("No").pregunta(p1).build();
+        p1.getOpciones().addAll(List.of(si, no));
+        encuesta.getPreguntas().addAll(List.of(p1, p2));
+        salto = LogicaSalto.builder().idLogica(100).preguntaOrigen(p1).opcionOrigen(si).preguntaDestino(p2).build();
+    }
+
+    @Test
+    void updateDefinicion_SinCambios_NoEscribeNada() {
+        stubDefinicionGuardada();
+
+        // Sin ids: el emparejamiento por texto reconoce todo lo guardado
+        EncuestaCreateDto dto = EncuestaCreateDto.builder()
+                .titulo("E").version("1").revision(4)
+                .preguntas(List.of(
+                        pregunta(null, "P1", "SELECCION_UNICA",
+                                opcion(null, "Sí", 2, null), opcion(null, "No", null, null)),
+                        pregunta(null, "P2", "TEXTO")))
+                .build();
+
+        encuestaDefinicionService.updateDefinicion(1, dto);
+
+        verify(logicaSaltoRepository, never()).deleteAllByIdInBatch(any());
+        verify(logicaSaltoRepository, never()).saveAll(any());
+        verify(preguntaRepository, never()).deleteAll(any());
+        verify(preguntaRepository, never()).saveAll(any());
+        verify(opcionRespuestaRepository, never()).saveAll(any());
+        assertSame(p2, salto.getPreguntaDestino());
+        assertEquals(List.of(si, no), p1.getOpciones());
+        assertEquals(5, encuesta.getRevision());
+        verify(encuestaDefinitionCache).invalidar(1);
+    }
+
+    @Test
+    void updateDefinicion_AplicaSoloLasDiferencias() {
+        stubDefinicionGuardada();
+        when(preguntaRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Pregunta> nuevas = i.getArgument(0);
+            nuevas.get(0).setIdPregunta(3);
+            return nuevas;
+        });
+
+        // Se borra P2 y la opción "No"; P3 es nueva y "Sí" ahora salta a ella (por índice)
+        EncuestaCreateDto dto = EncuestaCreateDto.builder()
+                .titulo("E").version("2")
+                .preguntas(List.of(
+                        pregunta(1, "P1 editada", "SELECCION_UNICA", opcion(10, "Sí", null, 1)),
+                        pregunta(null, "P3", "TEXTO")))
+                .build();
+
+        encuestaDefinicionService.updateDefinicion(1, dto);
+
+        verify(preguntaRepository).deleteAll(List.of(p2));
+        assertEquals(List.of(si), p1.getOpciones());
+        assertEquals("P1 editada", p1.getTextoPregunta());
+        // El salto existente se actualiza en el lugar en vez de borrarse e insertarse
+        verify(logicaSaltoRepository, never()).deleteAllByIdInBatch(any());
+        verify(logicaSaltoRepository, never()).saveAll(any());
+        assertEquals(3, salto.getPreguntaDestino().getIdPregunta());
+        assertEquals(2, encuesta.getPreguntas().size());
+        assertEquals(5, encuesta.getRevision());
+    }
+
+    @Test
+    void updateDefinicion_QuitarSaltoLoBorra() {
+        stubDefinicionGuardada();
+
+        EncuestaCreateDto dto = EncuestaCreateDto.builder()
+                .titulo("E")
+                .preguntas(List.of(
+                        pregunta(1, "P1", "SELECCION_UNICA", opcion(10, "Sí", null, null), opcion(11, "No", null, null)),
+                        pregunta(2, "P2", "TEXTO")))
+                .build();
+
+        encuestaDefinicionService.updateDefinicion(1, dto);
+
+        verify(logicaSaltoRepository).deleteAllByIdInBatch(List.of(100));
+    }
+
+    @Test
+    void updateDefinicion_RechazaPreguntaAjena() {
+        stubDefinicionGuardada();
+
+        EncuestaCreateDto dto = EncuestaCreateDto.builder()
+                .titulo("E")
+                .preguntas(List.of(pregunta(99, "X", "TEXTO")))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> encuestaDefinicionService.updateDefinicion(1, dto));
+        verify(preguntaRepository, never()).deleteAll(any());
+        assertEquals(4, encuesta.getRevision());
+    }
+
+    @Test
+    void updateDefinicion_RevisionVieja() {
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+
+        EncuestaCreateDto dto = EncuestaCreateDto.builder().titulo("E").revision(3).build();
+
+        assertThrows(IllegalStateException.class, () -> encuestaDefinicionService.updateDefinicion(1, dto));
+        verifyNoInteractions(preguntaRepository);
+    }
+
+    @Test
+    void updateDefinicion_VersionPublicada_ConservaLaEtiquetaSiguiente() {
+        encuesta.setPublicada(true);
+        Encuesta copia = Encuesta.builder().idEncuesta(2).titulo("E").version("2").revision(4)
+                .encuestaAnterior(encuesta).build();
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(encuestaVersionService.prepararEdicion(1))
+                .thenReturn(new EncuestaVersionService.Edicion(copia, true, Map.of(), Map.of()));
+        when(preguntaRepository.findConOpcionesByEncuesta(2)).thenReturn(List.of());
+        when(logicaSaltoRepository.findByPreguntaOrigenEncuestaIdEncuesta(2)).thenReturn(List.of());
+
+        // El cliente manda la etiqueta de la versión que cargó
+        EncuestaCreateDto dto = EncuestaCreateDto.builder().titulo("E").version("1").revision(4)
+                .preguntas(List.of()).build();
+
+        encuestaDefinicionService.updateDefinicion(1, dto);
+
+        assertEquals("2", copia.getVersion());
+        assertEquals("1", encuesta.getVersion());
+        assertEquals(5, copia.getRevision());
+    }
+
+    private void stubDefinicionGuardada() {
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(encuestaVersionService.prepararEdicion(1)).thenReturn(EncuestaVersionService.Edicion.mismaEncuesta(encuesta));
+        when(preguntaRepository.findConOpcionesByEncuesta(1)).thenReturn(List.of(p1, p2));
+        when(logicaSaltoRepository.findByPreguntaOrigenEncuestaIdEncuesta(1)).thenReturn(List.of(salto));
+    }
+
+    private static PreguntaCreateDto pregunta(Integer id, String texto, String tipo, OpcionRespuestaCreateDto... opciones) {
+        return PreguntaCreateDto.builder()
+                .idPregunta(id)
+                .textoPregunta(texto)
+                .tipoPregunta(tipo)
+                .opciones(new ArrayList<>(Arrays.asList(opciones)))
+                .build();
+    }
+
+    private static OpcionRespuestaCreateDto opcion(Integer id, String texto, Integer idDestino, Integer indiceDestino) {
+        return OpcionRespuestaCreateDto.builder()
+                .idOpcion(id)
+                .textoOpcion(texto)
+                .idPreguntaDestino(idDestino)
+                .indicePreguntaDestino(indiceDestino)
+                .build();
+    }
+}
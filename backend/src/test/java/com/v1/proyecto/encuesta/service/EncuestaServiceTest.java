@@ -6,12 +6,18 @@ import com.v1.proyecto.encuesta.model.*;
 import com.v1.proyecto.encuesta.repository.*;
 import com.v1.proyecto.paciente.model.Paciente;
 import com.v1.proyecto.paciente.repository.PacienteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -37,6 +43,18 @@ class EncuestaServiceTest {
     private LogicaSaltoRepository logicaSaltoRepository;
     @Mock
     private RespuestaRepository respuestaRepository;
+    @Mock
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+    @Mock
+    private EncuestaVersionService encuestaVersionService;
+    @Mock
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+    @Mock
+    private MatrizRespuestasCache matrizRespuestasCache;
+    @Mock
+    private CohorteIndex cohorteIndex;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private EncuestaService encuestaService;
@@ -119,7 +137,9 @@ class EncuestaServiceTest {
 
         when(pacienteRepository.findById(1)).thenReturn(Optional.of(paciente));
         when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
-        when(preguntaRepository.findById(1)).thenReturn(Optional.of(pregunta));
+        when(encuestaDefinitionCache.get(1)).thenReturn(SkipLogicGraphTest.grafo(
+                List.of(SkipLogicGraphTest.nodo(1, "SELECCION_UNICA", true, false)), List.of()));
+        when(preguntaRepository.getReferenceById(1)).thenReturn(pregunta);
         when(opcionRespuestaRepository.findById(1)).thenReturn(Optional.of(opcion));
 
         RegistroEncuesta registroGuardado = RegistroEncuesta.builder()
@@ -137,6 +157,11 @@ class EncuestaServiceTest {
 
         assertNotNull(result);
         verify(registroEncuestaRepository).save(any(RegistroEncuesta.class));
+        verify(frecuenciaRespuestaService).ajustar(1, null,
+                List.of(new FrecuenciaRespuestaService.Marca(1, 1)), 1);
+        verify(matrizRespuestasCache).registroCambiado(1, 1);
+        verify(cohorteIndex).registroCambiado(1, 1);
+        assertEquals(1, meterRegistry.get("encuesta.registro.guardar").tag("estado", "COMPLETADO").timer().count());
     }
 
     @Test
@@ -148,10 +173,55 @@ class EncuestaServiceTest {
 
         when(pacienteRepository.findById(1)).thenReturn(Optional.of(paciente));
         when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(encuestaDefinitionCache.get(1)).thenReturn(SkipLogicGraphTest.grafo(
+                List.of(SkipLogicGraphTest.nodo(1, "SELECCION_UNICA", true, false)), List.of()));
 
         assertThrows(IllegalArgumentException.class, () -> encuestaService.saveRegistro(request, user));
     }
 
+    @Test
+    void saveRegistro_ShouldSkipMandatoryAndDropAnswers_WhenJumpedOver() {
+        // 1 (opción 1 salta a 3) -> 2 obligatoria queda saltada y su respuesta se descarta
+        when(pacienteRepository.findById(1)).thenReturn(Optional.of(paciente));
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(encuestaDefinitionCache.get(1)).thenReturn(SkipLogicGraphTest.grafo(
+                List.of(SkipLogicGraphTest.nodo(1, "SELECCION_UNICA", true, false),
+                        SkipLogicGraphTest.nodo(2, "TEXTO", true, false),
+                        SkipLogicGraphTest.nodo(3, "TEXTO", false, false)),
+                List.of(SkipLogicGraphTest.arista(1, 1, 3))));
+        when(preguntaRepository.getReferenceById(1)).thenReturn(pregunta);
+        when(opcionRespuestaRepository.findById(1)).thenReturn(Optional.of(opcion));
+        when(registroEncuestaRepository.save(any(RegistroEncuesta.class))).thenAnswer(i -> i.getArgument(0));
+
+        RegistroRequestDto request = new RegistroRequestDto();
+        request.setIdPaciente(1);
+        request.setIdEncuesta(1);
+        request.setRespuestas(List.of(
+                RespuestaRequestDto.builder().idPregunta(1).idOpcionSeleccionada(1).build(),
+                RespuestaRequestDto.builder().idPregunta(2).valorTexto("viejo").build()));
+
+        encuestaService.saveRegistro(request, user);
+
+        verify(registroEncuestaRepository).save(argThat(r -> r.getRespuestas().size() == 1
+                && r.getRespuestas().get(0).getPregunta() == pregunta));
+        verify(preguntaRepository, never()).getReferenceById(2);
+    }
+
+    @Test
+    void saveRegistro_ShouldReject_WhenVersionWasReplaced() {
+        encuesta.setVigente(false);
+        RegistroRequestDto request = new RegistroRequestDto();
+        request.setIdPaciente(1);
+        request.setIdEncuesta(1);
+        request.setRespuestas(Collections.emptyList());
+
+        when(pacienteRepository.findById(1)).thenReturn(Optional.of(paciente));
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+
+        assertThrows(IllegalStateException.class, () -> encuestaService.saveRegistro(request, user));
+        verify(registroEncuestaRepository, never()).save(any());
+    }
+
     @Test
     void createEncuestaCompleta_ShouldSaveAndReturnDto() {
         EncuestaCreateDto dto = new EncuestaCreateDto();
@@ -179,7 +249,7 @@ class EncuestaServiceTest {
         dto.setTipoPregunta("TEXTO_LIBRE");
         dto.setObligatoria(false);
 
-        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(encuestaVersionService.prepararEdicion(1)).thenReturn(EncuestaVersionService.Edicion.mismaEncuesta(encuesta));
         when(preguntaRepository.save(any(Pregunta.class))).thenAnswer(invocation -> {
             Pregunta p = invocation.getArgument(0);
             p.setIdPregunta(2);
@@ -190,6 +260,55 @@ class EncuestaServiceTest {
 
         assertNotNull(result);
         assertEquals("New Question", result.getTextoPregunta());
+        assertEquals(1, result.getIdEncuesta());
+        assertFalse(result.isVersionNueva());
+    }
+
+    @Test
+    void addPreguntaToEncuesta_ShouldReturnNewVersion_WhenSurveyIsImmutable() {
+        PreguntaCreateDto dto = new PreguntaCreateDto();
+        dto.setTextoPregunta("New Question");
+        dto.setTipoPregunta("TEXTO_LIBRE");
+        Encuesta copia = Encuesta.builder().idEncuesta(7).version("2").preguntas(new ArrayList<>()).build();
+
+        when(encuestaVersionService.prepararEdicion(1))
+                .thenReturn(new EncuestaVersionService.Edicion(copia, true, Map.of(), Map.of()));
+        when(preguntaRepository.save(any(Pregunta.class))).thenAnswer(invocation -> {
+            Pregunta p = invocation.getArgument(0);
+            p.setIdPregunta(20);
+            return p;
+        });
+
+        PreguntaDto result = encuestaService.addPreguntaToEncuesta(1, dto);
+
+        assertEquals(7, result.getIdEncuesta());
+        assertTrue(result.isVersionNueva());
+    }
+
+    @Test
+    void getAllEncuestas_SoloListaVersionesVigentes() {
+        when(encuestaRepository.findByVigenteTrue()).thenReturn(List.of(encuesta));
+
+        List<EncuestaResponseDto> result = encuestaService.getAllEncuestas();
+
+        assertEquals(1, result.size());
+        verify(encuestaRepository, never()).findAll();
+    }
+
+    @Test
+    void getAllEncuestas_ConAnteriores_ListaTambienLasReemplazadas() {
+        encuesta.setVigente(false);
+        Encuesta copia = Encuesta.builder().idEncuesta(7).version("2").encuestaAnterior(encuesta)
+                .preguntas(new ArrayList<>()).build();
+        when(encuestaRepository.findAll(any(Sort.class))).thenReturn(List.of(encuesta, copia));
+
+        List<EncuestaResponseDto> result = encuestaService.getAllEncuestas(true);
+
+        assertEquals(2, result.size());
+        assertFalse(result.get(0).getVigente());
+        assertTrue(result.get(1).getVigente());
+        assertEquals(1, result.get(1).getIdEncuestaAnterior());
+        verify(encuestaRepository, never()).findByVigenteTrue();
     }
 
     @Test
@@ -207,4 +326,89 @@ class EncuestaServiceTest {
 
         assertThrows(RuntimeException.class, () -> encuestaService.deleteEncuesta(1));
     }
+
+    @Test
+    void getRegistrosPorPaciente_ShouldUseTwoQueries_AndGroupAnswers() {
+        when(registroEncuestaRepository.findResumenByPaciente(1)).thenReturn(List.of(registro(11), registro(10)));
+        when(respuestaRepository.findPlanasByRegistroIds(List.of(11, 10))).thenReturn(List.of(
+                respuesta(10, 100, null, "texto libre"),
+                respuesta(11, 101, 5, null),
+                respuesta(11, 102, 6, null)));
+
+        List<RegistroCompletoResponseDto> result = encuestaService.getRegistrosPorPaciente(1, false);
+
+        assertEquals(2, result.size());
+        assertEquals("Jane Doe", result.get(0).getNombrePaciente());
+        assertEquals(2, result.get(0).getRespuestas().size());
+        assertEquals("Opcion 5", result.get(0).getRespuestas().get(0).getRespuestaDada());
+        assertEquals("texto libre", result.get(1).getRespuestas().get(0).getRespuestaDada());
+        verify(registroEncuestaRepository, never()).findByPacienteIdPaciente(any());
+        verify(respuestaRepository, times(1)).findPlanasByRegistroIds(any());
+    }
+
+    @Test
+    void getRegistrosPorPaciente_ShouldSkipAnswers_InSummaryMode() {
+        when(registroEncuestaRepository.findResumenByPaciente(1)).thenReturn(List.of(registro(10)));
+
+        List<RegistroCompletoResponseDto> result = encuestaService.getRegistrosPorPaciente(1, true);
+
+        assertEquals(1, result.size());
+        assertNull(result.get(0).getRespuestas());
+        assertEquals("COMPLETADO", result.get(0).getEstado());
+        verifyNoInteractions(respuestaRepository);
+    }
+
+    @Test
+    void getRespuestasDeRegistro_ShouldThrow_WhenRegistroDoesNotExist() {
+        when(registroEncuestaRepository.existsById(99)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> encuestaService.getRespuestasDeRegistro(99));
+    }
+
+    @Test
+    void getRegistrosByEncuestaPage_ShouldApplyFiltersAndReturnCursor() {
+        RegistroFiltroDto filtro = RegistroFiltroDto.builder()
+                .estado("COMPLETADO")
+                .desde(java.time.LocalDate.of(2025, 3, 1))
+                .hasta(java.time.LocalDate.of(2025, 3, 31))
+                .build();
+        when(registroEncuestaRepository.findResumenByEncuesta(1, 10, "COMPLETADO",
+                LocalDateTime.of(2025, 3, 1, 0, 0), LocalDateTime.of(2025, 4, 1, 0, 0),
+                null, null, Limit.of(3)))
+                .thenReturn(List.of(registro(11), registro(12), registro(13)));
+
+        RegistroPageResponseDto page = encuestaService.getRegistrosByEncuestaPage(1, filtro, 10, 2, false);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals(12, page.getNextCursor());
+        assertNull(page.getItems().get(0).getRespuestas());
+        verifyNoInteractions(respuestaRepository);
+    }
+
+    private static RegistroResumen registro(Integer idRegistro) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idRegistro", idRegistro);
+        fila.put("idPaciente", 1);
+        fila.put("nombrePaciente", "Jane");
+        fila.put("apellidosPaciente", "Doe");
+        fila.put("idEncuesta", 1);
+        fila.put("tituloEncuesta", "Test Survey");
+        fila.put("fechaRealizacion", LocalDateTime.now());
+        fila.put("usuarioNombre", "admin@test.com");
+        fila.put("estado", "COMPLETADO");
+        return new SpelAwareProxyProjectionFactory().createProjection(RegistroResumen.class, fila);
+    }
+
+    private static RespuestaPlana respuesta(Integer idRegistro, Integer idRespuesta, Integer idOpcion, String texto) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idRegistro", idRegistro);
+        fila.put("idRespuesta", idRespuesta);
+        fila.put("idPregunta", 1);
+        fila.put("textoPregunta", "Question 1");
+        fila.put("valorTexto", texto);
+        fila.put("idOpcion", idOpcion);
+        fila.put("textoOpcion", idOpcion != null ? "Opcion " + idOpcion : null);
+        return new SpelAwareProxyProjectionFactory().createProjection(RespuestaPlana.class, fila);
+    }
 }
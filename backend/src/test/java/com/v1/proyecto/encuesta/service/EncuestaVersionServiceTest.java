@@ -0,0 +1,184 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.model.Encuesta;
+import com.v1.proyecto.encuesta.model.LogicaSalto;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.LogicaSaltoRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EncuestaVersionServiceTest {
+
+    @Mock
+    private EncuestaRepository encuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private LogicaSaltoRepository logicaSaltoRepository;
+    @Mock
+    private RegistroEncuestaRepository registroEncuestaRepository;
+
+    @InjectMocks
+    private EncuestaVersionService encuestaVersionService;
+
+    private Encuesta encuesta;
+    private Pregunta p1;
+    private Pregunta p2;
+    private OpcionRespuesta si;
+    private LogicaSalto salto;
+
+    @BeforeEach
+    void setUp() {
+        // P1 (Sí -> P2, No), P2 texto
+        encuesta = Encuesta.builder().idEncuesta(1).titulo("E").version("v1.3").revision(7).build();
+        p1 = Pregunta.builder().idPregunta(1).textoPregunta("P1").tipoPregunta("SELECCION_UNICA")
+                .obligatoria(true).encuesta(encuesta).opciones(new ArrayList<>()).build();
+        p2 = Pregunta.builder().idPregunta(2).textoPregunta("P2").tipoPregunta("TEXTO")
+                .oculta(true).encuesta(encuesta).opciones(new ArrayList<>()).build();
+        si = OpcionRespuesta.builder().idOpcion(10).textoOpcion("Sí").valorDicotomizado(1).pregunta(p1).build();
+        OpcionRespuesta no = OpcionRespuesta.builder().idOpcion(11).textoOpcion("No").valorDicotomizado(0).pregunta(p1).build();
+        p1.getOpciones().addAll(List.of(si, no));
+        salto = LogicaSalto.builder().idLogica(100).preguntaOrigen(p1).opcionOrigen(si).preguntaDestino(p2).build();
+    }
+
+    @Test
+    void prepararEdicion_BorradorSinRegistros_EditaLaMismaEncuesta() {
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(registroEncuestaRepository.existsByEncuestaIdEncuesta(1)).thenReturn(false);
+
+        EncuestaVersionService.Edicion edicion = encuestaVersionService.prepararEdicion(1);
+
+        assertFalse(edicion.copia());
+        assertSame(encuesta, edicion.encuesta());
+        assertEquals(2, edicion.pregunta(2));
+        verify(encuestaRepository, never()).save(any());
+    }
+
+    @Test
+    void prepararEdicion_Publicada_CopiaDefinicionCompleta() {
+        encuesta.setPublicada(true);
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(encuestaRepository.retirarVersion(1)).thenReturn(1);
+        when(encuestaRepository.save(any(Encuesta.class))).thenAnswer(i -> {
+            Encuesta e = i.getArgument(0);
+            e.setIdEncuesta(2);
+            return e;
+        });
+        when(preguntaRepository.findConOpcionesByEncuesta(1)).thenReturn(List.of(p1, p2));
+        when(preguntaRepository.saveAll(anyList())).thenAnswer(i -> {
+            // Simula los ids generados, incluidas las opciones insertadas en cascada
+            List<Pregunta> nuevas = i.getArgument(0);
+            int idOpcion = 20;
+            for (int k = 0; k < nuevas.size(); k++) {
+                nuevas.get(k).setIdPregunta(3 + k);
+                for (OpcionRespuesta o : nuevas.get(k).getOpciones()) {
+                    o.setIdOpcion(idOpcion++);
+                }
+            }
+            return nuevas;
+        });
+        when(logicaSaltoRepository.findByPreguntaOrigenEncuestaIdEncuesta(1)).thenReturn(List.of(salto));
+
+        EncuestaVersionService.Edicion edicion = encuestaVersionService.prepararEdicion(1);
+
+        Encuesta copia = edicion.encuesta();
+        assertTrue(edicion.copia());
+        assertEquals("v1.4", copia.getVersion());
+        assertEquals(7, copia.getRevision());
+        assertSame(encuesta, copia.getEncuestaAnterior());
+        assertFalse(copia.isPublicada());
+        assertFalse(encuesta.isVigente());
+        // La versión original queda intacta
+        assertEquals(List.of(si, p1.getOpciones().get(1)), p1.getOpciones());
+        assertSame(encuesta, p1.getEncuesta());
+
+        assertEquals(2, copia.getPreguntas().size());
+        Pregunta copiaP1 = copia.getPreguntas().get(0);
+        assertEquals("P1", copiaP1.getTextoPregunta());
+        assertTrue(copiaP1.isObligatoria());
+        assertTrue(copia.getPreguntas().get(1).isOculta());
+        assertEquals(List.of("Sí", "No"), copiaP1.getOpciones().stream().map(OpcionRespuesta::getTextoOpcion).toList());
+        assertEquals(3, edicion.pregunta(1));
+        assertEquals(4, edicion.pregunta(2));
+        assertEquals(20, edicion.opcion(10));
+        assertEquals(21, edicion.opcion(11));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LogicaSalto>> saltos = ArgumentCaptor.forClass(List.class);
+        verify(logicaSaltoRepository).saveAll(saltos.capture());
+        LogicaSalto copiaSalto = saltos.getValue().get(0);
+        assertSame(copiaP1, copiaSalto.getPreguntaOrigen());
+        assertEquals(20, copiaSalto.getOpcionOrigen().getIdOpcion());
+        assertEquals(4, copiaSalto.getPreguntaDestino().getIdPregunta());
+    }
+
+    @Test
+    void prepararEdicion_ConRegistros_CopiaAunqueNoEstePublicada() {
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(registroEncuestaRepository.existsByEncuestaIdEncuesta(1)).thenReturn(true);
+        when(encuestaRepository.retirarVersion(1)).thenReturn(1);
+        when(preguntaRepository.findConOpcionesByEncuesta(1)).thenReturn(List.of());
+        when(logicaSaltoRepository.findByPreguntaOrigenEncuestaIdEncuesta(1)).thenReturn(List.of());
+
+        EncuestaVersionService.Edicion edicion = encuestaVersionService.prepararEdicion(1);
+
+        assertTrue(edicion.copia());
+        assertFalse(encuesta.isVigente());
+        verify(logicaSaltoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void prepararEdicion_VersionReemplazada_Falla() {
+        encuesta.setVigente(false);
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+
+        assertThrows(IllegalStateException.class, () -> encuestaVersionService.prepararEdicion(1));
+        verifyNoInteractions(preguntaRepository);
+    }
+
+    // Otra edición concurrente ya copió la versión entre la lectura y el UPDATE
+    @Test
+    void prepararEdicion_EdicionConcurrenteYaLaReemplazo_Falla() {
+        encuesta.setPublicada(true);
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+        when(encuestaRepository.retirarVersion(1)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> encuestaVersionService.prepararEdicion(1));
+        verify(encuestaRepository, never()).save(any());
+        verifyNoInteractions(preguntaRepository);
+    }
+
+    @Test
+    void publicar_MarcaLaVersion() {
+        when(encuestaRepository.findById(1)).thenReturn(Optional.of(encuesta));
+
+        assertTrue(encuestaVersionService.publicar(1).isPublicada());
+    }
+
+    @Test
+    void siguienteVersion() {
+        assertEquals("2", EncuestaVersionService.siguienteVersion("1"));
+        assertEquals("v1.4", EncuestaVersionService.siguienteVersion("v1.3"));
+        assertEquals("2", EncuestaVersionService.siguienteVersion(null));
+        assertEquals("beta.2", EncuestaVersionService.siguienteVersion("beta"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.AsociacionDto;
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.FrecuenciaRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EstadisticaServiceTest {
+
+    @Mock
+    private EncuestaRepository encuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private FrecuenciaRespuestaRepository frecuenciaRespuestaRepository;
+    @Mock
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+    @Spy
+    private DataEncoder dataEncoder = new DataEncoder();
+
+    @InjectMocks
+    private EstadisticaService estadisticaService;
+
+    private Pregunta fuma;
+    private Pregunta comentarios;
+
+    @BeforeEach
+    void setUp() {
+        // Códigos por DataEncoder ("No" = 0, "Sí" = 1) salvo "Prefiere no responder", sin código
+        fuma = pregunta(1, "¿Fuma?", "SELECCION_UNICA");
+        opcion(fuma, 10, "No", null);
+        opcion(fuma, 11, "Sí", null);
+        opcion(fuma, 12, "Prefiere no responder", null);
+        comentarios = pregunta(2, "Comentarios", "TEXTO_LIBRE");
+    }
+
+    @Test
+    void getAsociacion_ArmaLaTablaDesdeLosContadores() {
+        stubDatos(0L);
+
+        AsociacionDto dto = estadisticaService.getAsociacion(1, 1, null);
+
+        assertArrayEquals(new int[]{0, 1}, dto.getCodigos());
+        assertArrayEquals(new int[]{30, 20}, dto.getCasos());
+        assertArrayEquals(new int[]{40, 10}, dto.getControles());
+        assertEquals(0, dto.getCodigoReferencia());
+        assertEquals(1, dto.getOddsRatios().size());
+        // (20 × 40) / (10 × 30)
+        assertEquals(2.6667, dto.getOddsRatios().get(0).getOddsRatio(), 1e-4);
+        assertEquals(4.7619, dto.getChiCuadrado(), 1e-4);
+        assertEquals(1, dto.getGradosLibertad());
+    }
+
+    @Test
+    void getAsociacion_ReferenciaElegida() {
+        stubDatos(0L);
+
+        AsociacionDto dto = estadisticaService.getAsociacion(1, 1, 1);
+
+        assertEquals(1, dto.getCodigoReferencia());
+        assertEquals(0.375, dto.getOddsRatios().get(0).getOddsRatio(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> estadisticaService.getAsociacion(1, 1, 7));
+    }
+
+    @Test
+    void getAsociacion_PreguntaDeTextoEsInvalida() {
+        stubDatos(0L);
+        when(preguntaRepository.existsByIdPreguntaAndEncuestaIdEncuesta(2, 1)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> estadisticaService.getAsociacion(1, 2, null));
+    }
+
+    @Test
+    void getAsociacion_PreguntaAjena() {
+        stubDatos(0L);
+        when(preguntaRepository.existsByIdPreguntaAndEncuestaIdEncuesta(99, 1)).thenReturn(false);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> estadisticaService.getAsociacion(1, 99, null));
+        assertFalse(e instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void getAsociaciones_UsaLaCacheMientrasNoCambieLaMarca() {
+        stubDatos(3L);
+
+        estadisticaService.getAsociaciones(1);
+        List<AsociacionDto> result = estadisticaService.getAsociaciones(1);
+
+        assertEquals(1, result.size());
+        assertEquals(3L, result.get(0).getMarcaDatos());
+        verify(frecuenciaRespuestaRepository, times(1)).findByIdEncuesta(1);
+
+        when(frecuenciaRespuestaService.marca(1)).thenReturn(4L);
+        estadisticaService.getAsociaciones(1);
+
+        verify(frecuenciaRespuestaRepository, times(2)).findByIdEncuesta(1);
+    }
+
+    @Test
+    void getAsociaciones_EncuestaInexistente() {
+        when(encuestaRepository.existsById(9)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> estadisticaService.getAsociaciones(9));
+    }
+
+    @Test
+    void codigoGrupo() {
+        assertEquals(1, EstadisticaService.codigoGrupo("CASO"));
+        assertEquals(1, EstadisticaService.codigoGrupo("Caso (Cáncer)"));
+        assertEquals(0, EstadisticaService.codigoGrupo("Control"));
+        assertEquals(-1, EstadisticaService.codigoGrupo(FrecuenciaRespuesta.SIN_GRUPO));
+        assertEquals(-1, EstadisticaService.codigoGrupo(null));
+    }
+
+    private void stubDatos(long marca) {
+        when(frecuenciaRespuestaService.marca(1)).thenReturn(marca);
+        when(encuestaRepository.existsById(1)).thenReturn(true);
+        when(preguntaRepository.findConOpcionesByEncuesta(1)).thenReturn(List.of(fuma, comentarios));
+        when(frecuenciaRespuestaRepository.findByIdEncuesta(1)).thenReturn(List.of(
+                contador(10, "CASO", 30), contador(10, "CONTROL", 40),
+                contador(11, "CASO", 20), contador(11, "CONTROL", 10),
+                contador(12, "CASO", 4), contador(11, FrecuenciaRespuesta.SIN_GRUPO, 8)));
+    }
+
+    private static Pregunta pregunta(int id, String texto, String tipo) {
+        return Pregunta.builder().idPregunta(id).textoPregunta(texto).tipoPregunta(tipo)
+                .opciones(new ArrayList<>()).build();
+    }
+
+    private static void opcion(Pregunta pregunta, int id, String texto, Integer valor) {
+        pregunta.getOpciones().add(OpcionRespuesta.builder().idOpcion(id).textoOpcion(texto)
+                .valorDicotomizado(valor).pregunta(pregunta).build());
+    }
+
+    private static FrecuenciaRespuesta contador(int idOpcion, String grupo, long conteo) {
+        return FrecuenciaRespuesta.builder().idOpcion(idOpcion).grupo(grupo).idPregunta(1).idEncuesta(1)
+                .conteo(conteo).build();
+    }
+}
@@ -7,11 +7,14 @@ import com.v1.proyecto.encuesta.model.RegistroEncuesta;
 import com.v1.proyecto.encuesta.repository.EncuestaRepository;
 import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
 import com.v1.proyecto.paciente.model.Paciente;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.ByteArrayInputStream;
@@ -32,6 +35,8 @@ class ExportServiceTest {
     private EncuestaRepository encuestaRepository;
     @Mock
     private RegistroEncuestaRepository registroEncuestaRepository;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private ExportService exportService;
@@ -0,0 +1,219 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.FrecuenciaOpcionDto;
+import com.v1.proyecto.encuesta.dto.FrecuenciaPreguntaDto;
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import com.v1.proyecto.encuesta.repository.FrecuenciaAgrupada;
+import com.v1.proyecto.encuesta.repository.FrecuenciaRespuestaRepository;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RespuestaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FrecuenciaRespuestaServiceTest {
+
+    @Mock
+    private FrecuenciaRespuestaRepository frecuenciaRespuestaRepository;
+    @Mock
+    private RespuestaRepository respuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private EncuestaRepository encuestaRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+
+    @Test
+    void ajustar_AgrupaPorOpcionEnUnSoloLoteOrdenado() throws Exception {
+        frecuenciaRespuestaService.ajustar(1, "CASO", List.of(
+                new FrecuenciaRespuestaService.Marca(2, 20),
+                new FrecuenciaRespuestaService.Marca(1, 10),
+                new FrecuenciaRespuestaService.Marca(2, 20),
+                new FrecuenciaRespuestaService.Marca(3, null)), 1);
+
+        List<Object[]> filas = lote();
+        assertEquals(2, filas.size());
+        assertArrayEquals(new Object[]{10, "CASO", 1, 1, 1L}, filas.get(0));
+        assertArrayEquals(new Object[]{20, "CASO", 2, 1, 2L}, filas.get(1));
+    }
+
+    @Test
+    void ajustar_SinGrupoUsaLaClaveSinGrupo() throws Exception {
+        frecuenciaRespuestaService.ajustar(1, null, List.of(new FrecuenciaRespuestaService.Marca(1, 10)), -1);
+
+        assertArrayEquals(new Object[]{10, FrecuenciaRespuesta.SIN_GRUPO, 1, 1, -1L}, lote().get(0));
+    }
+
+    @Test
+    void ajustar_SinOpcionesNoEscribe() {
+        frecuenciaRespuestaService.ajustar(1, "CASO", List.of(), 1);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void getFrecuencias_IncluyeOpcionesSinRespuestas() {
+        Pregunta pregunta = Pregunta.builder().idPregunta(1).textoPregunta("P1").tipoPregunta("SELECCION_UNICA")
+                .opciones(new ArrayList<>()).build();
+        pregunta.getOpciones().add(OpcionRespuesta.builder().idOpcion(10).textoOpcion("Sí").pregunta(pregunta).build());
+        pregunta.getOpciones().add(OpcionRespuesta.builder().idOpcion(11).textoOpcion("No").pregunta(pregunta).build());
+        when(encuestaRepository.existsById(1)).thenReturn(true);
+        when(preguntaRepository.findConOpcionesByEncuesta(1)).thenReturn(List.of(pregunta));
+        when(frecuenciaRespuestaRepository.findByIdEncuesta(1)).thenReturn(List.of(
+                contador(10, "CASO", 3), contador(10, "CONTROL", 4)));
+
+        List<FrecuenciaPreguntaDto> result = frecuenciaRespuestaService.getFrecuencias(1);
+
+        List<FrecuenciaOpcionDto> opciones = result.get(0).getOpciones();
+        assertEquals(7, opciones.get(0).getTotal());
+        assertEquals(Map.of("CASO", 3L, "CONTROL", 4L), opciones.get(0).getPorGrupo());
+        assertEquals(0, opciones.get(1).getTotal());
+        assertTrue(opciones.get(1).getPorGrupo().isEmpty());
+    }
+
+    @Test
+    void getFrecuencias_EncuestaInexistente() {
+        when(encuestaRepository.existsById(9)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> frecuenciaRespuestaService.getFrecuencias(9));
+        verifyNoInteractions(frecuenciaRespuestaRepository);
+    }
+
+    @Test
+    void reconstruir_ReemplazaLosContadoresDeLaEncuesta() throws Exception {
+        when(encuestaRepository.existsById(1)).thenReturn(true);
+        // null y "" son el mismo grupo (SIN_GRUPO)
+        when(respuestaRepository.contarFrecuencias(1)).thenReturn(List.of(
+                agrupada(10, "CASO", 5), agrupada(10, null, 1), agrupada(10, "", 2)));
+
+        int filas = frecuenciaRespuestaService.reconstruir(1);
+
+        assertEquals(2, filas);
+        verify(frecuenciaRespuestaRepository).deleteByIdEncuesta(1);
+        List<Object[]> lote = lote();
+        assertArrayEquals(new Object[]{10, "CASO", 1, 1, 5L}, lote.get(0));
+        assertArrayEquals(new Object[]{10, FrecuenciaRespuesta.SIN_GRUPO, 1, 1, 3L}, lote.get(1));
+    }
+
+    @Test
+    void inicializar_NoRecalculaSiYaHayContadores() {
+        when(frecuenciaRespuestaRepository.count()).thenReturn(4L);
+
+        frecuenciaRespuestaService.inicializar();
+
+        verifyNoInteractions(respuestaRepository, jdbcTemplate);
+    }
+
+    @Test
+    void reconstruirTodo_EsperaAQueTermineLaTransaccionQueAjusta() throws Exception {
+        when(respuestaRepository.contarFrecuencias()).thenReturn(List.of());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            frecuenciaRespuestaService.ajustar(1, "CASO", List.of(new FrecuenciaRespuestaService.Marca(1, 10)), 1);
+
+            CompletableFuture<Integer> reconstruccion =
+                    CompletableFuture.supplyAsync(frecuenciaRespuestaService::reconstruirTodo);
+            assertThrows(TimeoutException.class, () -> reconstruccion.get(300, TimeUnit.MILLISECONDS));
+            verify(frecuenciaRespuestaRepository, never()).deleteAllInBatch();
+
+            completarTransaccion();
+            assertEquals(0, reconstruccion.get(5, TimeUnit.SECONDS));
+            verify(frecuenciaRespuestaRepository).deleteAllInBatch();
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                completarTransaccion();
+            }
+        }
+    }
+
+    @Test
+    void reconstruirTodo_RechazaReconstruirEnLaTransaccionQueAjusta() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            frecuenciaRespuestaService.ajustar(1, "CASO", List.of(new FrecuenciaRespuestaService.Marca(1, 10)), 1);
+
+            assertThrows(IllegalStateException.class, () -> frecuenciaRespuestaService.reconstruirTodo());
+            verify(frecuenciaRespuestaRepository, never()).deleteAllInBatch();
+        } finally {
+            completarTransaccion();
+        }
+    }
+
+    // Simula el fin de la transacción: libera los cerrojos registrados como sincronizaciones
+    private static void completarTransaccion() {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    // Ejecuta el setter del lote sobre un PreparedStatement simulado y devuelve los valores de cada fila
+    @SuppressWarnings("unchecked")
+    private List<Object[]> lote() throws Exception {
+        ArgumentCaptor<Collection<Object>> filas = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO frecuencia_respuesta"), filas.capture(), anyInt(),
+                setter.capture());
+
+        List<Object[]> valores = new ArrayList<>();
+        for (Object fila : filas.getValue()) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            setter.getValue().setValues(ps, fila);
+            Object[] v = new Object[5];
+            ArgumentCaptor<Integer> enteros = ArgumentCaptor.forClass(Integer.class);
+            verify(ps, times(3)).setInt(anyInt(), enteros.capture());
+            ArgumentCaptor<String> grupo = ArgumentCaptor.forClass(String.class);
+            verify(ps).setString(eq(2), grupo.capture());
+            ArgumentCaptor<Long> conteo = ArgumentCaptor.forClass(Long.class);
+            verify(ps).setLong(eq(5), conteo.capture());
+            v[0] = enteros.getAllValues().get(0);
+            v[1] = grupo.getValue();
+            v[2] = enteros.getAllValues().get(1);
+            v[3] = enteros.getAllValues().get(2);
+            v[4] = conteo.getValue();
+            valores.add(v);
+        }
+        return valores;
+    }
+
+    private static FrecuenciaRespuesta contador(int idOpcion, String grupo, long conteo) {
+        return FrecuenciaRespuesta.builder().idOpcion(idOpcion).grupo(grupo).idPregunta(1).idEncuesta(1)
+                .conteo(conteo).build();
+    }
+
+    private static FrecuenciaAgrupada agrupada(int idOpcion, String grupo, long conteo) {
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("idEncuesta", 1);
+        valores.put("idPregunta", 1);
+        valores.put("idOpcion", idOpcion);
+        valores.put("grupo", grupo);
+        valores.put("conteo", conteo);
+        return new SpelAwareProxyProjectionFactory().createProjection(FrecuenciaAgrupada.class, valores);
+    }
+}
@@ -0,0 +1,121 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.CeldaMatriz;
+import com.v1.proyecto.encuesta.repository.PreguntaRepository;
+import com.v1.proyecto.encuesta.repository.RegistroEncuestaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatrizRespuestasCacheTest {
+
+    @Mock
+    private RegistroEncuestaRepository registroEncuestaRepository;
+    @Mock
+    private PreguntaRepository preguntaRepository;
+    @Mock
+    private EncuestaDefinitionCache encuestaDefinitionCache;
+    @Mock
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+
+    @InjectMocks
+    private MatrizRespuestasCache matrizRespuestasCache;
+
+    private final SkipLogicGraph grafo = SkipLogicGraphTest.grafo(List.of(), List.of());
+
+    @BeforeEach
+    void setUp() {
+        Pregunta fuma = MatrizRespuestasTest.pregunta(1, "¿Fuma?", "SELECCION_UNICA");
+        MatrizRespuestasTest.opcion(fuma, 10, "No");
+        MatrizRespuestasTest.opcion(fuma, 11, "Sí");
+        lenient().when(preguntaRepository.findConOpcionesByEncuesta(1)).thenReturn(List.of(fuma));
+        lenient().when(encuestaDefinitionCache.get(1)).thenReturn(grafo);
+    }
+
+    @Test
+    void leer_CargaUnaVezConUnaConsulta() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        matrizRespuestasCache.bindTo(registry);
+        when(registroEncuestaRepository.streamCeldasByEncuesta(1)).thenReturn(Stream.of(
+                celda(1, "CASO", 1, 11), celda(2, "CONTROL", 1, 10), celda(3, "CASO", null, null)));
+
+        assertEquals(3, matrizRespuestasCache.leer(1, MatrizRespuestas::filas));
+        assertEquals(3, matrizRespuestasCache.leer(1, MatrizRespuestas::filas));
+
+        verify(registroEncuestaRepository, times(1)).streamCeldasByEncuesta(1);
+        verify(preguntaRepository, times(1)).findConOpcionesByEncuesta(1);
+        assertEquals(1, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void leer_AplicaLosPendientesEnUnaSolaConsulta() {
+        when(registroEncuestaRepository.streamCeldasByEncuesta(1)).thenReturn(Stream.of(
+                celda(1, "CASO", 1, 11), celda(2, "CONTROL", 1, 10)));
+        matrizRespuestasCache.leer(1, MatrizRespuestas::filas);
+
+        // El 1 cambió de opción, el 2 dejó de estar completado y el 4 es nuevo
+        matrizRespuestasCache.registroCambiado(1, 1);
+        matrizRespuestasCache.registroCambiado(1, 2);
+        matrizRespuestasCache.registroCambiado(1, 4);
+        when(registroEncuestaRepository.findCeldasByRegistroIds(anyCollection())).thenReturn(List.of(
+                celda(1, "CASO", 1, 10), celda(4, "CONTROL", 1, 11)));
+
+        int[][] conteos = matrizRespuestasCache.leer(1, m -> m.frecuencias(0, m.todas()));
+
+        verify(registroEncuestaRepository, times(1)).findCeldasByRegistroIds(anyCollection());
+        assertArrayEquals(new int[]{0, 1}, conteos[EstadisticaService.GRUPO_CONTROL]);
+        assertArrayEquals(new int[]{1, 0}, conteos[EstadisticaService.GRUPO_CASO]);
+        boolean contiene = matrizRespuestasCache.leer(1, m -> m.contieneRegistro(2));
+        assertFalse(contiene);
+    }
+
+    @Test
+    void registroCambiado_SinMatrizCargadaNoHaceNada() {
+        matrizRespuestasCache.registroCambiado(1, 1);
+
+        verifyNoInteractions(registroEncuestaRepository);
+    }
+
+    @Test
+    void leer_RecargaSiCambiaLaDefinicionOLosGrupos() {
+        when(registroEncuestaRepository.streamCeldasByEncuesta(1))
+                .thenAnswer(inv -> Stream.of(celda(1, "CASO", 1, 11)));
+        matrizRespuestasCache.leer(1, MatrizRespuestas::filas);
+
+        when(encuestaDefinitionCache.get(1)).thenReturn(SkipLogicGraphTest.grafo(List.of(), List.of()));
+        matrizRespuestasCache.leer(1, MatrizRespuestas::filas);
+        when(frecuenciaRespuestaService.marcaGlobal()).thenReturn(1L);
+        matrizRespuestasCache.leer(1, MatrizRespuestas::filas);
+        matrizRespuestasCache.leer(1, MatrizRespuestas::filas);
+
+        verify(registroEncuestaRepository, times(3)).streamCeldasByEncuesta(1);
+    }
+
+    private static CeldaMatriz celda(Integer idRegistro, String grupo, Integer idPregunta, Integer idOpcion) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idRegistro", idRegistro);
+        fila.put("grupo", grupo);
+        fila.put("idPregunta", idPregunta);
+        fila.put("idOpcion", idOpcion);
+        fila.put("valorTexto", null);
+        return new SpelAwareProxyProjectionFactory().createProjection(CeldaMatriz.class, fila);
+    }
+}
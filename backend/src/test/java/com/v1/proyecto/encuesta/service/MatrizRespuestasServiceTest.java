@@ -0,0 +1,91 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.dto.FrecuenciaPreguntaDto;
+import com.v1.proyecto.encuesta.model.FrecuenciaRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import com.v1.proyecto.encuesta.repository.EncuestaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatrizRespuestasServiceTest {
+
+    @Mock
+    private EncuestaRepository encuestaRepository;
+    @Mock
+    private MatrizRespuestasCache matrizRespuestasCache;
+
+    @InjectMocks
+    private MatrizRespuestasService matrizRespuestasService;
+
+    private MatrizRespuestas matriz;
+
+    @BeforeEach
+    void setUp() {
+        Pregunta fuma = MatrizRespuestasTest.pregunta(1, "¿Fuma?", "SELECCION_UNICA");
+        MatrizRespuestasTest.opcion(fuma, 10, "No");
+        MatrizRespuestasTest.opcion(fuma, 11, "Sí");
+        Pregunta alcohol = MatrizRespuestasTest.pregunta(2, "¿Bebe alcohol?", "SELECCION_UNICA");
+        MatrizRespuestasTest.opcion(alcohol, 20, "No");
+        MatrizRespuestasTest.opcion(alcohol, 21, "Sí");
+        matriz = new MatrizRespuestas(List.of(fuma, alcohol));
+        cargar(1, "CASO", 11, 21);
+        cargar(2, "CASO", 11, 20);
+        cargar(3, "CONTROL", 10, 21);
+        cargar(4, null, 11, 21);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFrecuencias_FiltraPorCondicionYGrupo() {
+        when(encuestaRepository.existsById(1)).thenReturn(true);
+        when(matrizRespuestasCache.leer(eq(1), any()))
+                .thenAnswer(inv -> ((Function<MatrizRespuestas, ?>) inv.getArgument(1)).apply(matriz));
+
+        // Consumo de alcohol entre los fumadores
+        FrecuenciaPreguntaDto dto = matrizRespuestasService.getFrecuencias(1, 2, null, List.of("1:11"));
+
+        assertEquals(3, dto.getRegistros());
+        assertEquals(1, dto.getOpciones().get(0).getTotal());
+        assertEquals(2, dto.getOpciones().get(1).getTotal());
+        assertEquals(Map.of("CASO", 1L, FrecuenciaRespuesta.SIN_GRUPO, 1L), dto.getOpciones().get(1).getPorGrupo());
+
+        FrecuenciaPreguntaDto casos = matrizRespuestasService.getFrecuencias(1, 2, "Caso", List.of(" 1 : 11 "));
+        assertEquals(2, casos.getRegistros());
+    }
+
+    @Test
+    void getFrecuencias_CondicionMalFormada() {
+        when(encuestaRepository.existsById(1)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> matrizRespuestasService.getFrecuencias(1, 2, null, List.of("1-11")));
+        verifyNoInteractions(matrizRespuestasCache);
+    }
+
+    @Test
+    void getFrecuencias_EncuestaInexistente() {
+        when(encuestaRepository.existsById(9)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> matrizRespuestasService.getFrecuencias(9, 1, null, null));
+    }
+
+    private void cargar(int idRegistro, String grupo, int opcionFuma, int opcionAlcohol) {
+        int fila = matriz.fila(idRegistro, grupo);
+        matriz.asignar(fila, 1, opcionFuma, null);
+        matriz.asignar(fila, 2, opcionAlcohol, null);
+    }
+}
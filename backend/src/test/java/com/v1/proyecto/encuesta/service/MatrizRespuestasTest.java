@@ -0,0 +1,133 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.model.OpcionRespuesta;
+import com.v1.proyecto.encuesta.model.Pregunta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrizRespuestasTest {
+
+    private MatrizRespuestas matriz;
+
+    @BeforeEach
+    void setUp() {
+        Pregunta fuma = pregunta(1, "¿Fuma?", "SELECCION_UNICA");
+        opcion(fuma, 10, "No");
+        opcion(fuma, 11, "Sí");
+        Pregunta sintomas = pregunta(2, "Síntomas", "SELECCION_MULTIPLE");
+        opcion(sintomas, 20, "Dolor");
+        opcion(sintomas, 21, "Náuseas");
+        opcion(sintomas, 22, "Pérdida de peso");
+        Pregunta comentarios = pregunta(3, "Comentarios", "TEXTO_LIBRE");
+        // Desordenadas a propósito: las columnas siguen el idPregunta
+        matriz = new MatrizRespuestas(List.of(comentarios, sintomas, fuma));
+    }
+
+    @Test
+    void columnasEnOrdenDePreguntaConCeldasVacias() {
+        int fila = matriz.fila(100, "CASO");
+
+        assertEquals(3, matriz.columnas());
+        assertEquals(1, matriz.idPregunta(0));
+        assertEquals(2, matriz.columnaDe(3));
+        assertTrue(matriz.esTexto(2));
+        assertEquals(MatrizRespuestas.SIN_RESPUESTA, matriz.opcion(0, fila));
+        assertEquals(0L, matriz.opciones(1, fila));
+        assertNull(matriz.texto(2, fila));
+    }
+
+    @Test
+    void frecuenciasPorGrupoConFiltros() {
+        cargar(1, "CASO", 11, new int[]{20, 22}, "Tose de noche");
+        cargar(2, "CONTROL", 10, new int[]{20}, null);
+        cargar(3, "Caso", 11, new int[]{21}, "Tose de noche");
+        cargar(4, null, 10, new int[]{}, null);
+
+        long[] todas = matriz.todas();
+        int[][] porGrupo = matriz.frecuencias(0, todas);
+        assertArrayEquals(new int[]{1, 0}, porGrupo[0]); // control
+        assertArrayEquals(new int[]{0, 2}, porGrupo[1]); // caso
+        assertArrayEquals(new int[]{1, 0}, porGrupo[2]); // sin grupo
+
+        // Síntomas de los fumadores: cada opción marcada cuenta por separado
+        long[] fumadores = matriz.todas();
+        matriz.filtrarOpcion(fumadores, 1, 11);
+        assertEquals(2, MatrizRespuestas.contar(fumadores));
+        assertArrayEquals(new int[]{1, 1, 1}, matriz.frecuencias(1, fumadores)[1]);
+
+        long[] controlesConDolor = matriz.todas();
+        matriz.filtrarOpcion(controlesConDolor, 2, 20);
+        matriz.filtrarGrupo(controlesConDolor, (byte) EstadisticaService.GRUPO_CONTROL);
+        assertEquals(1, MatrizRespuestas.contar(controlesConDolor));
+
+        // El texto repetido se guarda una sola vez en el diccionario
+        assertEquals("Tose de noche", matriz.texto(2, 2));
+    }
+
+    @Test
+    void quitarMueveLaUltimaFilaSinPerderDatos() {
+        cargar(1, "CASO", 11, new int[]{20}, "uno");
+        cargar(2, "CONTROL", 10, new int[]{21}, "dos");
+        cargar(3, "CASO", 10, new int[]{22}, "tres");
+
+        matriz.quitar(1);
+
+        assertEquals(2, matriz.filas());
+        assertFalse(matriz.contieneRegistro(1));
+        assertEquals(3, matriz.idRegistro(0));
+        assertEquals(0, matriz.opcion(0, 0));
+        assertEquals(1L << 2, matriz.opciones(1, 0));
+        assertEquals("tres", matriz.texto(2, 0));
+        assertEquals(1, matriz.fila(2, "CONTROL"));
+
+        // La fila liberada vuelve vacía
+        int nueva = matriz.fila(4, "CASO");
+        assertEquals(MatrizRespuestas.SIN_RESPUESTA, matriz.opcion(0, nueva));
+        assertEquals(0L, matriz.opciones(1, nueva));
+    }
+
+    @Test
+    void creceMasAllaDeLaCapacidadInicial() {
+        for (int id = 1; id <= 1000; id++) {
+            cargar(id, id % 2 == 0 ? "CASO" : "CONTROL", id % 3 == 0 ? 11 : 10, new int[]{20}, null);
+        }
+
+        assertEquals(1000, matriz.filas());
+        assertEquals(1000, MatrizRespuestas.contar(matriz.todas()));
+        int[][] conteos = matriz.frecuencias(0, matriz.todas());
+        assertEquals(333, conteos[0][1] + conteos[1][1]);
+    }
+
+    @Test
+    void rechazaFiltrosYFrecuenciasInvalidos() {
+        long[] mascara = matriz.todas();
+
+        assertThrows(IllegalArgumentException.class, () -> matriz.filtrarOpcion(mascara, 1, 20));
+        assertThrows(IllegalArgumentException.class, () -> matriz.filtrarOpcion(mascara, 3, 10));
+        assertThrows(IllegalArgumentException.class, () -> matriz.frecuencias(2, mascara));
+    }
+
+    private void cargar(int idRegistro, String grupo, int opcionFuma, int[] sintomas, String comentario) {
+        int fila = matriz.fila(idRegistro, grupo);
+        matriz.asignar(fila, 1, opcionFuma, null);
+        for (int sintoma : sintomas) {
+            matriz.asignar(fila, 2, sintoma, null);
+        }
+        matriz.asignar(fila, 3, null, comentario);
+    }
+
+    static Pregunta pregunta(int id, String texto, String tipo) {
+        return Pregunta.builder().idPregunta(id).textoPregunta(texto).tipoPregunta(tipo)
+                .opciones(new ArrayList<>()).build();
+    }
+
+    static void opcion(Pregunta pregunta, int id, String texto) {
+        pregunta.getOpciones().add(OpcionRespuesta.builder().idOpcion(id).textoOpcion(texto)
+                .pregunta(pregunta).build());
+    }
+}
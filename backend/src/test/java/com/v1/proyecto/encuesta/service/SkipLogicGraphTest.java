@@ -0,0 +1,91 @@
+package com.v1.proyecto.encuesta.service;
+
+import com.v1.proyecto.encuesta.repository.LogicaSaltoArista;
+import com.v1.proyecto.encuesta.repository.PreguntaNodo;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkipLogicGraphTest {
+
+    private static final SpelAwareProxyProjectionFactory FACTORY = new SpelAwareProxyProjectionFactory();
+
+    // 10 -(op 100)-> 30 ; 20 ; 30 (múltiple) ; 50 -(op 500)-> 55 (oculta) ; 60 obligatoria
+    private final SkipLogicGraph grafo = grafo(
+            List.of(nodo(60, "TEXTO", true, false),
+                    nodo(10, "SELECCION_UNICA", true, false),
+                    nodo(20, "TEXTO", true, false),
+                    nodo(30, "SELECCION_MULTIPLE", false, false),
+                    nodo(50, "SELECCION_UNICA", false, false),
+                    nodo(55, "TEXTO", true, true)),
+            List.of(arista(10, 100, 30), arista(50, 500, 55), arista(30, 300, 60)));
+
+    @Test
+    void alcanzables_SinSaltos_OmiteOcultas() {
+        assertEquals(Set.of(10, 20, 30, 50, 60), grafo.alcanzables(Map.of()));
+    }
+
+    @Test
+    void alcanzables_SaltoOmiteIntermedias() {
+        assertEquals(Set.of(10, 30, 50, 60), grafo.alcanzables(Map.of(10, List.of(100))));
+    }
+
+    @Test
+    void alcanzables_SaltoAterrizaEnOculta() {
+        assertEquals(Set.of(10, 20, 30, 50, 55, 60), grafo.alcanzables(Map.of(50, List.of(500))));
+    }
+
+    @Test
+    void alcanzables_SeleccionMultipleNoSalta() {
+        // La opción 300 tiene salto, pero la pregunta 30 es de selección múltiple
+        assertEquals(Set.of(10, 20, 30, 50, 60), grafo.alcanzables(Map.of(30, List.of(300))));
+    }
+
+    @Test
+    void alcanzables_DestinoAnteriorOmiteElResto() {
+        SkipLogicGraph haciaAtras = grafo(
+                List.of(nodo(1, "TEXTO", false, false), nodo(2, "SELECCION_UNICA", false, false),
+                        nodo(3, "TEXTO", true, false)),
+                List.of(arista(2, 20, 1)));
+        assertEquals(Set.of(1, 2), haciaAtras.alcanzables(Map.of(2, List.of(20))));
+    }
+
+    @Test
+    void validarObligatorias_SoloExigeLasAlcanzables() {
+        Set<Integer> alcanzables = grafo.alcanzables(Map.of(10, List.of(100)));
+        // 20 es obligatoria pero quedó saltada
+        assertDoesNotThrow(() -> grafo.validarObligatorias(alcanzables, Set.of(10, 60)));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> grafo.validarObligatorias(alcanzables, Set.of(10)));
+        assertTrue(ex.getMessage().endsWith("ID: 60"));
+    }
+
+    @Test
+    void contiene() {
+        assertTrue(grafo.contiene(55));
+        assertFalse(grafo.contiene(40));
+        assertFalse(grafo.contiene(null));
+    }
+
+    static SkipLogicGraph grafo(List<PreguntaNodo> preguntas, List<LogicaSaltoArista> aristas) {
+        return SkipLogicGraph.compilar(preguntas, aristas);
+    }
+
+    static PreguntaNodo nodo(int id, String tipo, boolean obligatoria, boolean oculta) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("idPregunta", id);
+        fila.put("tipoPregunta", tipo);
+        fila.put("obligatoria", obligatoria);
+        fila.put("oculta", oculta);
+        return FACTORY.createProjection(PreguntaNodo.class, fila);
+    }
+
+    static LogicaSaltoArista arista(int origen, int opcion, int destino) {
+        return FACTORY.createProjection(LogicaSaltoArista.class,
+                Map.of("idPreguntaOrigen", origen, "idOpcionOrigen", opcion, "idPreguntaDestino", destino));
+    }
+}
@@ -0,0 +1,70 @@
+package com.v1.proyecto.encuesta.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablaContingenciaTest {
+
+    @Test
+    void oddsRatio_ConIntervaloDeWoolf() {
+        TablaContingencia.OddsRatio or = TablaContingencia.oddsRatio(20, 10, 30, 40);
+
+        assertEquals(2.6667, or.valor(), 1e-4);
+        assertEquals(1.0901, or.icInferior(), 1e-4);
+        assertEquals(6.5236, or.icSuperior(), 1e-4);
+        assertFalse(or.correccionHaldane());
+    }
+
+    @Test
+    void oddsRatio_CeldaEnCeroAplicaHaldane() {
+        TablaContingencia.OddsRatio or = TablaContingencia.oddsRatio(5, 0, 10, 20);
+
+        assertTrue(or.correccionHaldane());
+        assertEquals(5.5 * 20.5 / (0.5 * 10.5), or.valor(), 1e-9);
+        assertTrue(Double.isFinite(or.icSuperior()));
+    }
+
+    @Test
+    void desdeOpciones_SumaOpcionesConElMismoCodigoYDescartaVacias() {
+        // "No" y "No recuerda" con códigos distintos; "Nunca" comparte código 0 con "No"
+        TablaContingencia tabla = TablaContingencia.desdeOpciones(
+                new int[]{1, 0, 2, 0}, new String[]{"Sí", "No", "No recuerda", "Nunca"},
+                new int[]{20, 25, 0, 5}, new int[]{10, 30, 0, 10});
+
+        assertEquals(2, tabla.columnas());
+        assertEquals(0, tabla.codigo(0));
+        assertEquals(30, tabla.casos(0));
+        assertEquals(40, tabla.controles(0));
+        assertEquals("No / Nunca", tabla.etiqueta(0));
+        assertEquals(-1, tabla.columnaDe(2));
+        assertEquals(2.6667, tabla.oddsRatio(1, 0).valor(), 1e-4);
+    }
+
+    @Test
+    void chiCuadrado_DeUnaTabla2x2() {
+        TablaContingencia tabla = TablaContingencia.desdeOpciones(
+                new int[]{0, 1}, new String[]{"No", "Sí"}, new int[]{30, 20}, new int[]{40, 10});
+
+        assertEquals(4.7619, tabla.chiCuadrado(), 1e-4);
+        assertEquals(1, tabla.gradosLibertad());
+        assertEquals(0.029096, TablaContingencia.valorP(tabla.chiCuadrado(), 1), 1e-6);
+        assertFalse(tabla.frecuenciasEsperadasBajas());
+    }
+
+    @Test
+    void chiCuadrado_SinUnGrupoNoSeCalcula() {
+        TablaContingencia tabla = TablaContingencia.desdeOpciones(
+                new int[]{0, 1}, new String[]{"No", "Sí"}, new int[]{3, 2}, new int[]{0, 0});
+
+        assertTrue(Double.isNaN(tabla.chiCuadrado()));
+    }
+
+    @Test
+    void valorP_ValoresCriticos() {
+        assertEquals(0.05, TablaContingencia.valorP(3.841458820694124, 1), 1e-9);
+        assertEquals(0.05, TablaContingencia.valorP(5.991464547107979, 2), 1e-9);
+        assertEquals(0.05, TablaContingencia.valorP(18.307038053275146, 10), 1e-9);
+        assertEquals(1.0, TablaContingencia.valorP(0, 3), 1e-12);
+    }
+}
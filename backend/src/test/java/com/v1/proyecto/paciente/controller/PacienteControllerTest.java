@@ -3,8 +3,11 @@ package com.v1.proyecto.paciente.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.v1.proyecto.encuesta.dto.RegistroCompletoResponseDto;
 import com.v1.proyecto.encuesta.service.EncuestaService;
+import com.v1.proyecto.paciente.dto.PacientePageResponseDto;
 import com.v1.proyecto.paciente.dto.PacienteRequestDto;
 import com.v1.proyecto.paciente.dto.PacienteResponseDto;
+import com.v1.proyecto.paciente.dto.PacienteImportResultDto;
+import com.v1.proyecto.paciente.service.PacienteImportService;
 import com.v1.proyecto.paciente.service.PacienteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +37,8 @@ class PacienteControllerTest {
         private PacienteService pacienteService;
         @Mock
         private EncuestaService encuestaService;
+        @Mock
+        private PacienteImportService pacienteImportService;
 
         @InjectMocks
         private PacienteController pacienteController;
@@ -86,6 +91,53 @@ class PacienteControllerTest {
                                 .andExpect(jsonPath("$[0].rut").value("12345678-9"));
         }
 
+        @Test
+        void getAllPacientes_ShouldReturnPage_WhenLimitIsGiven() throws Exception {
+                PacientePageResponseDto page = PacientePageResponseDto.builder()
+                                .items(Arrays.asList(responseDto))
+                                .nextCursor("abc")
+                                .hasMore(true)
+                                .build();
+                when(pacienteService.findPacientesPage(20, null, "apellidos")).thenReturn(page);
+
+                mockMvc.perform(get("/api/v1/pacientes").param("limit", "20").param("sort", "apellidos"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.items[0].rut").value("12345678-9"))
+                                .andExpect(jsonPath("$.nextCursor").value("abc"))
+                                .andExpect(jsonPath("$.hasMore").value(true));
+        }
+
+        @Test
+        void getAllPacientes_ShouldReturnBadRequest_WhenCursorIsInvalid() throws Exception {
+                when(pacienteService.findPacientesPage(null, "xyz", null))
+                                .thenThrow(new IllegalArgumentException("Cursor inválido."));
+
+                mockMvc.perform(get("/api/v1/pacientes").param("cursor", "xyz"))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void importPacientes_ShouldUseCsvImporter_ForTextCsv() throws Exception {
+                PacienteImportResultDto resultado = PacienteImportResultDto.builder()
+                                .total(1).creados(1).filas(Collections.emptyList()).build();
+                when(pacienteImportService.importCsv(any(), eq(true))).thenReturn(resultado);
+
+                mockMvc.perform(post("/api/v1/pacientes/import").param("upsert", "true")
+                                .contentType("text/csv")
+                                .content("rut,nombre\n1-9,Ana\n"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.creados").value(1));
+        }
+
+        @Test
+        void searchPacientes_ShouldReturnMatches() throws Exception {
+                when(pacienteService.searchPacientes("doe", 5)).thenReturn(Arrays.asList(responseDto));
+
+                mockMvc.perform(get("/api/v1/pacientes/search").param("q", "doe").param("limit", "5"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].apellidos").value("Doe"));
+        }
+
         @Test
         void getPacienteById_ShouldReturnOk_WhenExists() throws Exception {
                 when(pacienteService.findPacienteById(1)).thenReturn(Optional.of(responseDto));
@@ -138,7 +190,7 @@ class PacienteControllerTest {
                                 .idRegistro(1)
                                 .build();
 
-                when(encuestaService.getRegistrosPorPaciente(1)).thenReturn(Collections.singletonList(registro));
+                when(encuestaService.getRegistrosPorPaciente(1, false)).thenReturn(Collections.singletonList(registro));
 
                 mockMvc.perform(get("/api/v1/pacientes/1/registros"))
                                 .andExpect(status().isOk())
@@ -0,0 +1,156 @@
+package com.v1.proyecto.paciente.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.v1.proyecto.encuesta.service.FrecuenciaRespuestaService;
+import com.v1.proyecto.paciente.dto.PacienteImportResultDto;
+import com.v1.proyecto.paciente.dto.PacienteImportResultDto.Estado;
+import com.v1.proyecto.paciente.repository.PacienteRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PacienteImportServiceTest {
+
+    private static final String CABECERA = "rut,nombre,apellidos,grupo,fechaNacimiento,sexo,peso,estatura,diagnosticoCancer\n";
+
+    @Mock
+    private PacienteRepository pacienteRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PacienteSearchIndex pacienteSearchIndex;
+    @Mock
+    private FrecuenciaRespuestaService frecuenciaRespuestaService;
+
+    private PacienteImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new PacienteImportService(pacienteRepository, jdbcTemplate, transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), pacienteSearchIndex,
+                frecuenciaRespuestaService);
+    }
+
+    @Test
+    void importCsv_ShouldInsertValidRows_AndReportEachRow() throws Exception {
+        when(pacienteRepository.findExistingRuts(anyCollection())).thenReturn(List.of("22222222-2"));
+        String csv = CABECERA
+                + "11111111-1,Juan,Pérez,Caso,01-05-1970,Hombre,70,1.70,si\n"
+                + "22222222-2,Ana,Soto,Control,1980-02-03,Mujer,60,1.60,no\n"
+                + "33333333-3,,Rojas,Control,1980-02-03,Mujer,60,1.60,no\n"
+                + "11111111-1,Juan,Pérez,Caso,1970-05-01,Hombre,70,1.70,si\n";
+
+        PacienteImportResultDto resultado = importService.importCsv(stream(csv), false);
+
+        assertEquals(4, resultado.getTotal());
+        assertEquals(1, resultado.getCreados());
+        assertEquals(3, resultado.getErrores());
+        assertEquals(List.of(Estado.CREADO, Estado.DUPLICADO, Estado.ERROR, Estado.DUPLICADO),
+                resultado.getFilas().stream().map(PacienteImportResultDto.Fila::getEstado).toList());
+        assertEquals("El nombre es obligatorio", resultado.getFilas().get(2).getMensaje());
+
+        ArgumentCaptor<Collection> filas = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("insert into paciente"), filas.capture(), eq(1), any());
+        assertEquals(1, filas.getValue().size());
+        verify(pacienteSearchIndex).rebuild();
+        verifyNoInteractions(frecuenciaRespuestaService);
+    }
+
+    @Test
+    void importJson_ShouldUpdateExistingRuts_WhenUpsert() throws Exception {
+        when(pacienteRepository.findExistingRuts(anyCollection())).thenReturn(List.of("22222222-2"));
+        String json = "[" + json("11111111-1") + "," + json("22222222-2") + ", {\"rut\": 5, \"peso\": \"x\"}]";
+
+        PacienteImportResultDto resultado = importService.importJson(stream(json), true);
+
+        assertEquals(1, resultado.getCreados());
+        assertEquals(1, resultado.getActualizados());
+        assertEquals(Estado.ERROR, resultado.getFilas().get(2).getEstado());
+        verify(jdbcTemplate).batchUpdate(startsWith("update paciente set"), anyCollection(), eq(1), any());
+        verify(frecuenciaRespuestaService).reconstruirTodo();
+    }
+
+    @Test
+    void importCsv_ShouldUpdateOnlyHeaderColumns_WhenUpsert() throws Exception {
+        when(pacienteRepository.findExistingRuts(anyCollection())).thenReturn(List.of("11111111-1"));
+        String csv = CABECERA + "11111111-1,Juan,Pérez,Caso,1970-05-01,Hombre,70,1.70,\n";
+
+        PacienteImportResultDto resultado = importService.importCsv(stream(csv), true);
+
+        assertEquals(1, resultado.getActualizados());
+        // Las columnas que no vienen en el CSV (teléfono, dirección...) conservan su valor
+        verify(jdbcTemplate).batchUpdate(eq("update paciente set nombre = ?, apellidos = ?, grupo = ?, "
+                + "fecha_nacimiento = ?, sexo = ?, diagnostico_cancer = ?, peso = ?, estatura = ?, imc = ? "
+                + "where rut = ?"), anyCollection(), eq(1), any());
+    }
+
+    @Test
+    void importJson_ShouldSplitIntoChunks() throws Exception {
+        int total = PacienteImportService.CHUNK_SIZE + 1;
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < total; i++) {
+            json.append(i == 0 ? "" : ",").append(json(String.format("%08d-1", i)));
+        }
+        json.append("]");
+
+        PacienteImportResultDto resultado = importService.importJson(stream(json.toString()), false);
+
+        assertEquals(total, resultado.getCreados());
+        verify(pacienteRepository, times(2)).findExistingRuts(anyCollection());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void importCsv_ShouldMarkWholeChunkAsError_WhenBatchFails() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+        String csv = CABECERA + "11111111-1,Juan,Pérez,Caso,1970-05-01,Hombre,70,1.70,si\n";
+
+        PacienteImportResultDto resultado = importService.importCsv(stream(csv), false);
+
+        assertEquals(0, resultado.getCreados());
+        assertEquals(Estado.ERROR, resultado.getFilas().get(0).getEstado());
+        verify(pacienteSearchIndex, never()).rebuild();
+    }
+
+    @Test
+    void importCsv_ShouldRejectUnknownColumns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.importCsv(stream("rut,columnaRara\n1,2\n"), false));
+    }
+
+    @Test
+    void parseCsvLine_ShouldHandleQuotes() {
+        assertEquals(List.of("a", "b,c", "d\"e", ""),
+                PacienteImportService.parseCsvLine("a,\"b,c\",\"d\"\"e\",", ','));
+    }
+
+    private static String json(String rut) {
+        return "{\"rut\":\"" + rut + "\",\"nombre\":\"N\",\"apellidos\":\"A\",\"grupo\":\"Caso\","
+                + "\"fechaNacimiento\":\"1970-01-01\",\"sexo\":\"Mujer\",\"peso\":60,\"estatura\":1.6}";
+    }
+
+    private static InputStream stream(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
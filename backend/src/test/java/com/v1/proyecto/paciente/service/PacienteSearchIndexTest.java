@@ -0,0 +1,123 @@
+package com.v1.proyecto.paciente.service;
+
+import com.v1.proyecto.paciente.dto.PacienteResponseDto;
+import com.v1.proyecto.paciente.model.Paciente;
+import com.v1.proyecto.paciente.repository.PacienteIndexado;
+import com.v1.proyecto.paciente.repository.PacienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PacienteSearchIndexTest {
+
+    @Mock
+    private PacienteRepository pacienteRepository;
+
+    @InjectMocks
+    private PacienteSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(pacienteRepository.findAllParaIndice()).thenReturn(List.of(
+                fila(paciente(1, "12.345.678-9", "Juan", "Pérez Soto", "P-001")),
+                fila(paciente(2, "9.876.543-K", "María José", "Muñoz", "P-002")),
+                fila(paciente(3, "11.111.111-1", "Pedro", "Perea", "P-010"))
+        ));
+        index.rebuild();
+    }
+
+    @Test
+    void search_ShouldFindByRut_WithOrWithoutFormat() {
+        assertEquals(List.of(1), ids(index.search("12.345.678-9", 10)));
+        assertEquals(List.of(1), ids(index.search("123456789", 10)));
+        assertEquals(List.of(1), ids(index.search("12345678", 10)));
+        assertEquals(List.of(2), ids(index.search("9876543-k", 10)));
+    }
+
+    @Test
+    void search_ShouldIgnoreAccentsAndCase() {
+        assertEquals(List.of(2), ids(index.search("MUNOZ", 10)));
+        assertEquals(List.of(1), ids(index.search("perez", 10)));
+    }
+
+    @Test
+    void search_ShouldRankPrefixAboveSubstring() {
+        // "pere" es prefijo de "perez" y de "perea"; "ere" solo aparece como subcadena
+        assertEquals(List.of(1, 3), ids(index.search("pere", 10)));
+        assertEquals(List.of(3), ids(index.search("pe pedro", 10)));
+    }
+
+    @Test
+    void search_ShouldMatchParticipantCode_AndRespectLimit() {
+        assertEquals(List.of(2), ids(index.search("p-002", 10)));
+        assertEquals(1, index.search("p0", 1).size());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_ShouldKeepChangesCommittedWhileReadingTheProjection() {
+        // La lectura no ve los cambios confirmados durante ella: el índice debe conservarlos igual
+        when(pacienteRepository.findAllParaIndice()).thenAnswer(invocation -> {
+            index.upsert(paciente(4, "22.222.222-2", "Ana", "Rojas", "P-020"));
+            index.remove(2);
+            return List.of(
+                    fila(paciente(1, "12.345.678-9", "Juan", "Pérez Soto", "P-001")),
+                    fila(paciente(2, "9.876.543-K", "María José", "Muñoz", "P-002")),
+                    fila(paciente(3, "11.111.111-1", "Pedro", "Perea", "P-010")));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(4), ids(index.search("rojas", 10)));
+        assertTrue(index.search("munoz", 10).isEmpty());
+        assertEquals(3, index.size());
+
+        // Terminada la reconstrucción, los cambios ya no se acumulan para reaplicarse
+        when(pacienteRepository.findAllParaIndice()).thenReturn(List.of());
+        index.rebuild();
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void upsertAndRemove_ShouldKeepIndexCurrent() {
+        Paciente renombrado = paciente(3, "11.111.111-1", "Pedro", "González", "P-010");
+
+        index.upsert(renombrado);
+
+        assertTrue(index.search("perea", 10).isEmpty());
+        assertEquals(List.of(3), ids(index.search("gonzalez", 10)));
+
+        index.remove(3);
+
+        assertTrue(index.search("gonzalez", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    private static List<Integer> ids(List<PacienteResponseDto> resultados) {
+        return resultados.stream().map(PacienteResponseDto::getIdPaciente).toList();
+    }
+
+    private static Paciente paciente(Integer id, String rut, String nombre, String apellidos, String codigo) {
+        return Paciente.builder()
+                .idPaciente(id)
+                .rut(rut)
+                .nombre(nombre)
+                .apellidos(apellidos)
+                .codigoParticipante(codigo)
+                .build();
+    }
+
+    private static PacienteIndexado fila(Paciente paciente) {
+        return new SpelAwareProxyProjectionFactory().createProjection(PacienteIndexado.class, paciente);
+    }
+}
@@ -1,15 +1,20 @@
 package com.v1.proyecto.paciente.service;
 
+import com.v1.proyecto.encuesta.service.CohorteIndex;
+import com.v1.proyecto.paciente.dto.PacientePageResponseDto;
 import com.v1.proyecto.paciente.dto.PacienteRequestDto;
 import com.v1.proyecto.paciente.dto.PacienteResponseDto;
 import com.v1.proyecto.paciente.model.Paciente;
 import com.v1.proyecto.paciente.repository.PacienteRepository;
+import com.v1.proyecto.paciente.repository.PacienteResumen;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.util.Arrays;
 import java.util.List;
@@ -24,6 +29,10 @@ class PacienteServiceTest {
 
     @Mock
     private PacienteRepository pacienteRepository;
+    @Mock
+    private PacienteSearchIndex pacienteSearchIndex;
+    @Mock
+    private CohorteIndex cohorteIndex;
 
     @InjectMocks
     private PacienteService pacienteService;
@@ -50,13 +59,84 @@ class PacienteServiceTest {
 
     @Test
     void findAllPacientes_ShouldReturnList() {
-        when(pacienteRepository.findAll()).thenReturn(Arrays.asList(paciente));
+        when(pacienteRepository.findAllResumen()).thenReturn(Arrays.asList(resumen(paciente)));
 
         List<PacienteResponseDto> result = pacienteService.findAllPacientes();
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("John", result.get(0).getNombre());
+        verify(pacienteRepository, never()).findAll();
+    }
+
+    @Test
+    void findPacientesPage_ShouldReturnCursor_WhenMoreRowsExist() {
+        when(pacienteRepository.findResumenAfterId(0, Limit.of(3)))
+                .thenReturn(List.of(resumen(1, "A"), resumen(2, "B"), resumen(3, "C")));
+
+        PacientePageResponseDto page = pacienteService.findPacientesPage(2, null, null);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+
+        when(pacienteRepository.findResumenAfterId(2, Limit.of(3))).thenReturn(List.of(resumen(3, "C")));
+
+        PacientePageResponseDto next = pacienteService.findPacientesPage(2, page.getNextCursor(), null);
+
+        assertEquals(1, next.getItems().size());
+        assertEquals(3, next.getItems().get(0).getIdPaciente());
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void findPacientesPage_ShouldCapPageSize() {
+        when(pacienteRepository.findResumenAfterId(0, Limit.of(PacienteService.MAX_PAGE_SIZE + 1)))
+                .thenReturn(List.of());
+
+        PacientePageResponseDto page = pacienteService.findPacientesPage(10_000, null, "id");
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void findPacientesPage_ShouldContinueByApellidos_IncludingNulls() {
+        when(pacienteRepository.findResumenAfterNullApellidos(0, Limit.of(2)))
+                .thenReturn(List.of(resumen(5, null), resumen(2, "Alvarez")));
+        when(pacienteRepository.findResumenAfterNullApellidos(5, Limit.of(2)))
+                .thenReturn(List.of(resumen(2, "Alvarez"), resumen(9, "Alvarez")));
+        when(pacienteRepository.findResumenAfterApellidos("Alvarez", 2, Limit.of(2)))
+                .thenReturn(List.of(resumen(9, "Alvarez")));
+
+        PacientePageResponseDto first = pacienteService.findPacientesPage(1, null, "apellidos");
+        PacientePageResponseDto second = pacienteService.findPacientesPage(1, first.getNextCursor(), "apellidos");
+        PacientePageResponseDto third = pacienteService.findPacientesPage(1, second.getNextCursor(), "apellidos");
+
+        assertEquals(5, first.getItems().get(0).getIdPaciente());
+        assertEquals(2, second.getItems().get(0).getIdPaciente());
+        assertEquals(9, third.getItems().get(0).getIdPaciente());
+        assertFalse(third.isHasMore());
+    }
+
+    @Test
+    void findPacientesPage_ShouldRejectCursorFromAnotherSort() {
+        when(pacienteRepository.findResumenAfterId(0, Limit.of(2)))
+                .thenReturn(List.of(resumen(1, "A"), resumen(2, "B")));
+        String cursor = pacienteService.findPacientesPage(1, null, "id").getNextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> pacienteService.findPacientesPage(1, cursor, "-id"));
+        assertThrows(IllegalArgumentException.class, () -> pacienteService.findPacientesPage(1, "%%%", "id"));
+        assertThrows(IllegalArgumentException.class, () -> pacienteService.findPacientesPage(1, null, "rut"));
+    }
+
+    private PacienteResumen resumen(Paciente entity) {
+        return new SpelAwareProxyProjectionFactory().createProjection(PacienteResumen.class, entity);
+    }
+
+    private PacienteResumen resumen(Integer id, String apellidos) {
+        return resumen(Paciente.builder().idPaciente(id).rut("rut-" + id).apellidos(apellidos).build());
     }
 
     @Test
@@ -79,6 +159,7 @@ class PacienteServiceTest {
         assertNotNull(result);
         assertEquals("John", result.getNombre());
         verify(pacienteRepository).save(any(Paciente.class));
+        verify(pacienteSearchIndex).upsert(paciente);
     }
 
     @Test
@@ -103,6 +184,8 @@ class PacienteServiceTest {
     void deletePaciente_ShouldDelete() {
         pacienteService.deletePaciente(1);
         verify(pacienteRepository).deleteById(1);
+        verify(pacienteSearchIndex).remove(1);
+        verify(cohorteIndex).pacientesCambiados();
     }
 
     @Test
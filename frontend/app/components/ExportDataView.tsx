@@ -6,6 +6,7 @@ import { FaFileExcel, FaFileCsv, FaFilePdf, FaDownload, FaUser, FaUsers, FaCog,
 import Swal from 'sweetalert2';
 import styles from './ExportDataView.module.css';
 import { API_URL } from '../config';
+import { VersionEncuesta, fetchVersionesEncuestas, etiquetaVersion } from '../versionesEncuesta';
 
 interface Paciente {
   idPaciente: number;
@@ -17,6 +18,8 @@ interface Paciente {
 const ExportDataView = () => {
   // Estado para el ID de encuesta (por defecto 1, pero editable)
   const [surveyId, setSurveyId] = useState<string>('1');
+  // Todas las versiones, también las reemplazadas, para poder exportar sus registros
+  const [versiones, setVersiones] = useState<VersionEncuesta[]>([]);
   const [loading, setLoading] = useState<boolean>(false);
   const [error, setError] = useState<string | null>(null);
 
@@ -51,7 +54,18 @@ const ExportDataView = () => {
       }
     };
 
+    const fetchVersiones = async () => {
+      const token = localStorage.getItem('accessToken');
+      if (!token) return;
+      try {
+        setVersiones(await fetchVersionesEncuestas(token));
+      } catch (err) {
+        console.error("Error fetching survey versions", err);
+      }
+    };
+
     fetchPatients();
+    fetchVersiones();
   }, []);
 
   const handleExport = async (format: 'excel' | 'pdf' | 'csv') => {
@@ -167,23 +181,27 @@ const ExportDataView = () => {
           className={styles.advancedToggle}
           onClick={() => setShowAdvancedOptions(!showAdvancedOptions)}
         >
-          <FaCog /> {showAdvancedOptions ? 'Ocultar Opciones Avanzadas' : 'Configurar ID de Encuesta'}
+          <FaCog /> {showAdvancedOptions ? 'Ocultar Opciones Avanzadas' : 'Elegir Encuesta o Versión'}
         </button>
 
         {showAdvancedOptions && (
           <div className={styles.advancedSection}>
             <div className={styles.formGroup} style={{ marginBottom: 0 }}>
-              <label className={styles.label}>ID de Encuesta a Exportar</label>
-              <input
-                type="number"
-                className={styles.input}
+              <label className={styles.label}>Encuesta a Exportar</label>
+              <select
+                className={styles.select}
                 value={surveyId}
                 onChange={(e) => setSurveyId(e.target.value)}
-                placeholder="Ej: 1"
-                min="1"
-              />
+              >
+                {versiones.length === 0 && <option value={surveyId}>ID {surveyId}</option>}
+                {versiones.map(v => (
+                  <option key={v.idEncuesta} value={String(v.idEncuesta)}>
+                    {etiquetaVersion(v)}
+                  </option>
+                ))}
+              </select>
               <p style={{ fontSize: '0.8rem', color: '#64748b', marginTop: '0.5rem' }}>
-                Por defecto es "1" (Estudio Cáncer Gástrico). Cambie este valor si desea exportar otra encuesta.
+                Por defecto es "1" (Estudio Cáncer Gástrico). Las versiones reemplazadas conservan los registros respondidos con ellas.
               </p>
             </div>
           </div>
@@ -4,7 +4,7 @@ import React, { useEffect, useState } from 'react';
 import { useRouter } from 'next/navigation';
 import styles from './audit.module.css';
 import { FaEdit, FaShieldAlt, FaExclamationTriangle, FaDoorOpen, FaSearch, FaArrowRight, FaFileExport, FaSignInAlt, FaSave } from 'react-icons/fa';
-import { API_URL } from '@/app/config';
+import { fetchVersionesEncuestas, encuestaVigente, cadenaDeVersiones, fetchRegistrosDeVersiones } from '@/app/versionesEncuesta';
 
 interface RegistroLog {
     idRegistro: string | number;
@@ -48,34 +48,24 @@ export default function AuditPage() {
 
         try {
             setLoading(true);
-            const resEncuestas = await fetch(`${API_URL}/api/v1/encuestas`, {
-                headers: { 'Authorization': `Bearer ${token}` }
-            });
+            // Registros de todas las versiones de la encuesta, también las reemplazadas
+            const encuestas = await fetchVersionesEncuestas(token);
+            const targetSurvey = encuestaVigente(encuestas, "Estudio");
 
             let realLogs: RegistroLog[] = [];
 
-            if (resEncuestas.ok) {
-                const encuestas: any[] = await resEncuestas.json();
-                const targetSurvey = encuestas.find(e => e.titulo.includes("Estudio")) || encuestas[0];
-
-                if (targetSurvey) {
-                    const resReg = await fetch(`${API_URL}/api/v1/encuestas/${targetSurvey.idEncuesta}/registros`, {
-                        headers: { 'Authorization': `Bearer ${token}` }
-                    });
-                    if (resReg.ok) {
-                        const data = await resReg.json();
-                        // Map real registers to our extended Log interface
-                        realLogs = data.map((d: any) => ({
-                            idRegistro: d.idRegistro,
-                            nombrePaciente: d.nombrePaciente,
-                            usuarioNombre: d.usuarioNombre,
-                            fechaRealizacion: d.fechaRealizacion.endsWith('Z') ? d.fechaRealizacion : d.fechaRealizacion + 'Z',
-                            tituloEncuesta: d.tituloEncuesta,
-                            tipo: 'MODIFICACION',
-                            descripcion: `Se guardó respuesta para el paciente ${d.nombrePaciente}`
-                        }));
-                    }
-                }
+            if (targetSurvey) {
+                const data = await fetchRegistrosDeVersiones(token, cadenaDeVersiones(encuestas, targetSurvey.idEncuesta));
+                // Map real registers to our extended Log interface
+                realLogs = data.map((d: any) => ({
+                    idRegistro: d.idRegistro,
+                    nombrePaciente: d.nombrePaciente,
+                    usuarioNombre: d.usuarioNombre,
+                    fechaRealizacion: d.fechaRealizacion.endsWith('Z') ? d.fechaRealizacion : d.fechaRealizacion + 'Z',
+                    tituloEncuesta: d.tituloEncuesta,
+                    tipo: 'MODIFICACION',
+                    descripcion: `Se guardó respuesta para el paciente ${d.nombrePaciente}`
+                }));
             }
 
             // Get LocalStorage Logs (Access & Exports)
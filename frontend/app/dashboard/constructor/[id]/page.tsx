@@ -23,6 +23,8 @@ interface Pregunta {
     obligatoria: boolean;
     oculta: boolean; // NUEVO CAMPO
     opciones: Opcion[];
+    idEncuesta?: number; // Versión donde quedó la pregunta (puede ser una versión nueva tras editar)
+    versionNueva?: boolean;
 }
 
 interface Encuesta {
@@ -119,6 +121,19 @@ export default function FormBuilderPage() {
         }
     };
 
+    // Una encuesta publicada o con registros no se edita: el backend crea una versión nueva
+    // y desde ahí se debe seguir editando esa (los ids de la versión anterior dan 409)
+    const irAVersionNueva = async (idNueva: number) => {
+        await Swal.fire({
+            icon: 'info',
+            title: 'Nueva versión creada',
+            text: 'La versión anterior ya tiene registros o estaba publicada. Seguirás editando la nueva versión.',
+            confirmButtonText: 'Continuar'
+        });
+        fetchAllEncuestas();
+        router.replace(`/dashboard/constructor/${idNueva}`);
+    };
+
     // --- CAMBIAR DE ENCUESTA (SELECTOR) ---
     const handleChangeSurvey = (newId: string) => {
         if (newId && newId !== idEncuesta) {
@@ -242,10 +257,17 @@ export default function FormBuilderPage() {
                 method: 'DELETE',
                 headers: { 'Authorization': `Bearer ${token}` }
             });
-            if (res.ok) {
+            if (res.status === 200) {
+                // 200 con cuerpo: se borró en una versión nueva
+                const data = await res.json();
+                await irAVersionNueva(data.idEncuesta);
+            } else if (res.ok) {
                 setPreguntas(prev => prev.filter(p => p.idPregunta !== idPregunta));
                 if (editingId === idPregunta) handleCancelEdit();
                 Swal.fire({ icon: 'success', title: 'Eliminado', timer: 1000, showConfirmButton: false });
+            } else {
+                const err = await res.text();
+                Swal.fire('Error', `Error al eliminar: ${err}`, 'error');
             }
         } catch (e) { console.error(e); }
     };
@@ -339,13 +361,18 @@ export default function FormBuilderPage() {
             });
 
             if (res.ok) {
+                const guardada: Pregunta = await res.json();
                 await Swal.fire({
                     icon: 'success',
                     title: editingId ? 'Variable Actualizada' : 'Variable Agregada',
                     timer: 1000, showConfirmButton: false
                 });
-                fetchEncuestaData();
                 handleCancelEdit();
+                if (guardada.versionNueva && guardada.idEncuesta && String(guardada.idEncuesta) !== idEncuesta) {
+                    await irAVersionNueva(guardada.idEncuesta);
+                } else {
+                    fetchEncuestaData();
+                }
             } else {
                 const err = await res.text();
                 Swal.fire('Error', `Error al guardar: ${err}`, 'error');
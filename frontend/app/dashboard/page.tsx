@@ -5,6 +5,7 @@ import { useRouter } from 'next/navigation';
 import styles from './dashboard.module.css';
 import { FaUserPlus, FaClipboardList, FaUserInjured, FaEdit, FaPlus } from 'react-icons/fa';
 import { API_URL } from '@/app/config';
+import { fetchVersionesEncuestas, encuestaVigente, cadenaDeVersiones, fetchRegistrosDeVersiones } from '@/app/versionesEncuesta';
 
 interface Paciente {
   idPaciente: number;
@@ -63,39 +64,19 @@ export default function DashboardPage() {
           totalPacientesLen = dataPacientes.length;
         }
 
-        const resEncuestas = await fetch(`${API_URL}/api/v1/encuestas`, {
-          headers: { 'Authorization': `Bearer ${token}` }
-        });
-
-        let surveyIdToUse: number | null = null;
-
-        if (resEncuestas.ok) {
-          const encuestas: any[] = await resEncuestas.json();
-          const defaultSurvey = encuestas.find((e: any) => e.titulo.includes("Estudio Cáncer Gástrico"));
-
-          if (defaultSurvey) {
-            surveyIdToUse = defaultSurvey.idEncuesta;
-            setDefaultSurveyId(surveyIdToUse);
-          } else if (encuestas.length > 0) {
-            surveyIdToUse = encuestas[0].idEncuesta;
-            setDefaultSurveyId(surveyIdToUse);
-          }
-        }
+        // Con las versiones reemplazadas: los registros quedan en la versión con la que se respondieron
+        const encuestas = await fetchVersionesEncuestas(token);
+        const defaultSurvey = encuestaVigente(encuestas, "Estudio Cáncer Gástrico");
 
         let totalEncuestasLen = 0;
         let registrosHoyLen = 0;
 
-        if (surveyIdToUse) {
-          const resRegistros = await fetch(`${API_URL}/api/v1/encuestas/${surveyIdToUse}/registros`, {
-            headers: { 'Authorization': `Bearer ${token}` }
-          });
-
-          if (resRegistros.ok) {
-            const registros: any[] = await resRegistros.json();
-            totalEncuestasLen = registros.length;
-            const today = new Date().toISOString().split('T')[0];
-            registrosHoyLen = registros.filter((r: any) => r.fechaRealizacion.startsWith(today)).length;
-          }
+        if (defaultSurvey) {
+          setDefaultSurveyId(defaultSurvey.idEncuesta);
+          const registros = await fetchRegistrosDeVersiones(token, cadenaDeVersiones(encuestas, defaultSurvey.idEncuesta));
+          totalEncuestasLen = registros.length;
+          const today = new Date().toISOString().split('T')[0];
+          registrosHoyLen = registros.filter((r: any) => r.fechaRealizacion.startsWith(today)).length;
         }
 
         setStats({
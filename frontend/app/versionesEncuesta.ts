@@ -0,0 +1,52 @@
+import { API_URL } from './config';
+
+// Lo que devuelve GET /api/v1/encuestas?incluirAnteriores=true (sin las preguntas)
+export interface VersionEncuesta {
+    idEncuesta: number;
+    titulo: string;
+    version: string | null;
+    vigente: boolean;
+    idEncuestaAnterior: number | null;
+}
+
+// Todas las versiones, también las reemplazadas: sus registros siguen bajo su propio id
+export async function fetchVersionesEncuestas(token: string): Promise<VersionEncuesta[]> {
+    const res = await fetch(`${API_URL}/api/v1/encuestas?incluirAnteriores=true`, {
+        headers: { 'Authorization': `Bearer ${token}` }
+    });
+    return res.ok ? res.json() : [];
+}
+
+// Versión vigente cuyo título contiene el texto; si no hay, la primera vigente
+export function encuestaVigente(encuestas: VersionEncuesta[], titulo: string): VersionEncuesta | undefined {
+    const vigentes = encuestas.filter(e => e.vigente);
+    return vigentes.find(e => e.titulo.includes(titulo)) || vigentes[0];
+}
+
+// De la versión indicada hacia atrás por idEncuestaAnterior (la indicada primero)
+export function cadenaDeVersiones(encuestas: VersionEncuesta[], idEncuesta: number): VersionEncuesta[] {
+    const porId = new Map(encuestas.map(e => [e.idEncuesta, e]));
+    const cadena: VersionEncuesta[] = [];
+    let actual = porId.get(idEncuesta);
+    while (actual && !cadena.includes(actual)) {
+        cadena.push(actual);
+        actual = actual.idEncuestaAnterior != null ? porId.get(actual.idEncuestaAnterior) : undefined;
+    }
+    return cadena;
+}
+
+// Registros de todas las versiones de la cadena, en un solo arreglo
+export async function fetchRegistrosDeVersiones(token: string, versiones: VersionEncuesta[]): Promise<any[]> {
+    const listas = await Promise.all(versiones.map(async v => {
+        const res = await fetch(`${API_URL}/api/v1/encuestas/${v.idEncuesta}/registros`, {
+            headers: { 'Authorization': `Bearer ${token}` }
+        });
+        return res.ok ? res.json() : [];
+    }));
+    return listas.flat();
+}
+
+export function etiquetaVersion(e: VersionEncuesta): string {
+    const version = e.version ? ` — v${e.version}` : '';
+    return `${e.titulo}${version}${e.vigente ? ' (vigente)' : ' (reemplazada)'}`;
+}